@@ -0,0 +1,153 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2019 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+
+package org.dita.dost.ant;
+
+import org.apache.tools.ant.*;
+import org.dita.dost.util.Job;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.dita.dost.util.Constants.ANT_REFERENCE_JOB;
+
+/**
+ * Build listener that writes documents in the job document store to disk before tasks that may read them are run,
+ * and when the build finishes. Pipeline tasks and tasks that do not read documents in the temporary directory keep
+ * the store intact.
+ */
+final class DocumentStoreListener implements BuildListener {
+
+    private static final String REFERENCE = "dita.document-store.listener";
+    private static final String TASK_NAME = "taskname";
+    private static final String CONDITION = "condition";
+    /** Tasks that do not read documents in the temporary directory. Containers run their nested tasks as tasks. */
+    private static final Set<String> SAFE_TASKS = new HashSet<>(Arrays.asList(
+            "basename", "dirname", "dita-ot-echo", "dita-ot-fail", "echo", "fail", "job-helper", "job-property",
+            "local", "makeurl", "mkdir", "property", "sequential", "tstamp"));
+    /** Conditions that do not read files. */
+    private static final Set<String> SAFE_CONDITIONS = new HashSet<>(Arrays.asList(
+            "and", "contains", "equals", "isabsolute", "isfalse", "isset", "istrue", "matches", "not", "or"));
+
+    /**
+     * Register listener to project, unless already registered.
+     *
+     * @param project Ant project
+     */
+    static synchronized void register(final Project project) {
+        if (project.getReference(REFERENCE) == null) {
+            final DocumentStoreListener listener = new DocumentStoreListener();
+            project.addReference(REFERENCE, listener);
+            project.addBuildListener(listener);
+        }
+    }
+
+    /**
+     * Write documents in the store of the project job to disk.
+     *
+     * @param project Ant project
+     * @throws IOException if writing a document failed
+     */
+    static void flush(final Project project) throws IOException {
+        final Job job = project.getReference(ANT_REFERENCE_JOB);
+        if (job != null) {
+            job.getDocumentStore().flush();
+        }
+    }
+
+    @Override
+    public void taskStarted(final BuildEvent event) {
+        final Task task = event.getTask();
+        if (!isPipeline(task) && !isSafe(task)) {
+            try {
+                flush(event.getProject());
+            } catch (final IOException e) {
+                throw new BuildException("Failed to write temporary documents: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public void buildFinished(final BuildEvent event) {
+        try {
+            flush(event.getProject());
+        } catch (final IOException e) {
+            event.getProject().log("Failed to write temporary documents: " + e.getMessage(), e, Project.MSG_ERR);
+        }
+    }
+
+    private static boolean isPipeline(final Task task) {
+        if (task instanceof UnknownElement) {
+            final UnknownElement element = (UnknownElement) task;
+            if (element.getRealThing() != null) {
+                return element.getRealThing() instanceof ExtensibleAntInvoker;
+            }
+            final Class<?> cls = ComponentHelper.getComponentHelper(task.getProject())
+                    .getComponentClass(ProjectHelper.genComponentName(element.getNamespace(), element.getTag()));
+            return cls != null && ExtensibleAntInvoker.class.isAssignableFrom(cls);
+        }
+        return task instanceof ExtensibleAntInvoker;
+    }
+
+    /**
+     * Test if task does not read documents in the temporary directory.
+     */
+    private static boolean isSafe(final Task task) {
+        if (!(task instanceof UnknownElement)) {
+            return SAFE_TASKS.contains(task.getTaskName());
+        }
+        final UnknownElement element = (UnknownElement) task;
+        if (!element.getNamespace().isEmpty()) {
+            return false;
+        }
+        // macros set the task name of nested tasks, e.g. job-helper runs xslt on the job file
+        final Object taskName = element.getWrapper().getAttributeMap().get(TASK_NAME);
+        final String name = taskName != null ? taskName.toString() : element.getTag();
+        if (name.equals(CONDITION)) {
+            return isSafeCondition(element.getChildren());
+        }
+        return SAFE_TASKS.contains(name);
+    }
+
+    private static boolean isSafeCondition(final List<UnknownElement> conditions) {
+        if (conditions == null) {
+            return true;
+        }
+        for (final UnknownElement condition : conditions) {
+            if (!condition.getNamespace().isEmpty()
+                    || !SAFE_CONDITIONS.contains(condition.getTag())
+                    || !isSafeCondition(condition.getChildren())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void buildStarted(final BuildEvent event) {
+    }
+
+    @Override
+    public void targetStarted(final BuildEvent event) {
+    }
+
+    @Override
+    public void targetFinished(final BuildEvent event) {
+    }
+
+    @Override
+    public void taskFinished(final BuildEvent event) {
+    }
+
+    @Override
+    public void messageLogged(final BuildEvent event) {
+    }
+}
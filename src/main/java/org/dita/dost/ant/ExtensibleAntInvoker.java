@@ -34,6 +34,7 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.util.*;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static java.util.Arrays.asList;
@@ -167,15 +168,36 @@ public final class ExtensibleAntInvoker extends Task {
         initialize();
 
         final Job job = getJob(tempDir, getProject());
+        if (job.getDocumentStore().isEnabled()) {
+            DocumentStoreListener.register(getProject());
+        }
+        for (final ModuleElem m : modules) {
+            m.setProject(getProject());
+            m.setLocation(getLocation());
+        }
         try {
-            for (final ModuleElem m : modules) {
-                m.setProject(getProject());
-                m.setLocation(getLocation());
+            for (int i = 0; i < modules.size(); ) {
+                final ModuleElem m = modules.get(i);
                 final PipelineHashIO pipelineInput = new PipelineHashIO();
                 for (final Map.Entry<String, String> e : attrs.entrySet()) {
                     pipelineInput.setAttribute(e.getKey(), e.getValue());
                 }
-                AbstractPipelineModule mod = getPipelineModule(m, pipelineInput);
+                final List<SaxPipeElem> stages = getFusibleStages(i);
+                final AbstractPipelineModule mod;
+                if (stages.size() > 1) {
+                    mod = getFusedModule(stages, job);
+                    i += stages.size();
+                } else {
+                    mod = getPipelineModule(m, pipelineInput);
+                    i++;
+                }
+                if (m instanceof XsltElem) {
+                    // stylesheets may read the XML job file
+                    job.exportXml();
+                }
+                if (!mod.usesDocumentStore()) {
+                    job.getDocumentStore().flush();
+                }
                 long start = System.currentTimeMillis();
                 mod.setLogger(logger);
                 mod.setJob(job);
@@ -183,8 +205,11 @@ public final class ExtensibleAntInvoker extends Task {
                 long end = System.currentTimeMillis();
                 logger.debug("{0} processing took {1} ms", mod.getClass().getSimpleName(), end - start);
             }
+            job.exportXml();
         } catch (final DITAOTException e) {
             throw new BuildException("Failed to run pipeline: " + e.getMessage(), e);
+        } catch (final IOException e) {
+            throw new BuildException("Failed to store job state: " + e.getMessage(), e);
         }
     }
 
@@ -209,6 +234,10 @@ public final class ExtensibleAntInvoker extends Task {
             module.setFilenameParam(xm.filenameparameter);
             module.setFiledirParam(xm.filedirparameter);
             module.setReloadstylesheet(xm.reloadstylesheet);
+            module.setParallel(xm.parallel);
+            if (xm.threads != null) {
+                module.setThreads(xm.threads);
+            }
             module.setXMLCatalog(xm.xmlcatalog);
             if (xm.mapper != null) {
                 module.setMapper(xm.mapper.getImplementation());
@@ -242,6 +271,10 @@ public final class ExtensibleAntInvoker extends Task {
             } catch (final InstantiationException | IllegalAccessException e) {
                 throw new BuildException(e);
             }
+            module.setParallel(fm.parallel);
+            if (fm.threads != null) {
+                module.setThreads(fm.threads);
+            }
             return module;
         } else {
             for (final ParamElem p : m.params) {
@@ -265,6 +298,80 @@ public final class ExtensibleAntInvoker extends Task {
         }
     }
 
+    /**
+     * Get consecutive fusible SAX stages starting from a module.
+     *
+     * @param start index of first module
+     * @return fusible SAX stages, empty if the module is not a fusible SAX stage
+     */
+    private List<SaxPipeElem> getFusibleStages(final int start) {
+        final List<SaxPipeElem> res = new ArrayList<>();
+        for (int i = start; i < modules.size(); i++) {
+            final ModuleElem m = modules.get(i);
+            if (!(m instanceof SaxPipeElem) || !((SaxPipeElem) m).fusible) {
+                break;
+            }
+            res.add((SaxPipeElem) m);
+        }
+        return res;
+    }
+
+    /**
+     * Fuse SAX stages into a single module that parses and serializes every file once. Filters of a stage are
+     * only applied to files selected by that stage, and stages are applied in declaration order.
+     *
+     * @param stages SAX stages to fuse
+     * @param job job configuration used to report eliminated passes
+     * @return XML filter module that runs all stages
+     */
+    private XmlFilterModule getFusedModule(final List<SaxPipeElem> stages, final Job job) {
+        final List<Predicate<FileInfo>> stagePredicates = new ArrayList<>(stages.size());
+        final List<FilterPair> filters = new ArrayList<>();
+        boolean parallel = true;
+        Integer threads = null;
+        for (final SaxPipeElem stage : stages) {
+            final List<FileInfoFilterElem> predicates = new ArrayList<>(stage.getFormat());
+            predicates.addAll(stage.fileInfoFilters);
+            final Predicate<FileInfo> stagePredicate = combine(predicates);
+            stagePredicates.add(stagePredicate);
+            try {
+                for (final FilterPair filter : stage.getFilters()) {
+                    filters.add(filter.and(stagePredicate));
+                }
+            } catch (final InstantiationException | IllegalAccessException e) {
+                throw new BuildException(e);
+            }
+            parallel = parallel && stage.parallel;
+            if (stage.threads != null) {
+                threads = threads != null ? Math.min(threads, stage.threads) : stage.threads;
+            }
+        }
+        final Predicate<FileInfo> fileInfoFilter = f -> {
+            for (final Predicate<FileInfo> stagePredicate : stagePredicates) {
+                if (stagePredicate.test(f)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+
+        final XmlFilterModule module = new XmlFilterModule();
+        module.setFileInfoFilter(fileInfoFilter);
+        module.setProcessingPipe(filters);
+        module.setParallel(parallel);
+        if (threads != null) {
+            module.setThreads(threads);
+        }
+
+        int passes = 0;
+        for (final Predicate<FileInfo> stagePredicate : stagePredicates) {
+            passes += job.getFileInfo(stagePredicate).size();
+        }
+        final int fusedPasses = job.getFileInfo(fileInfoFilter).size();
+        logger.info("Fused {0} SAX stages, eliminated {1} file passes", stages.size(), passes - fusedPasses);
+        return module;
+    }
+
     private static Predicate<FileInfo> combine(final Collection<FileInfoFilterElem> filters) {
         if (filters.isEmpty()) {
             return f -> true;
@@ -293,6 +400,11 @@ public final class ExtensibleAntInvoker extends Task {
         Job job = project.getReference(ANT_REFERENCE_JOB);
         if (job != null && job.isStale()) {
             project.log("Reload stale job configuration reference", Project.MSG_VERBOSE);
+            try {
+                job.getDocumentStore().flush();
+            } catch (final IOException e) {
+                throw new BuildException("Failed to write temporary documents: " + e.getMessage(), e);
+            }
             job = null;
         }
         if (job == null) {
@@ -374,15 +486,7 @@ public final class ExtensibleAntInvoker extends Task {
             final List<FilterPair> res = new ArrayList<>(filters.size());
             for (final XmlFilterElem f : filters) {
                 if (isValid(getProject(), getLocation(), f.getIf(), f.getUnless())) {
-                    final AbstractXMLFilter fc = f.getImplementation().newInstance();
-                    for (final ParamElem p : f.params) {
-                        if (!p.isValid()) {
-                            throw new BuildException("Incomplete parameter");
-                        }
-                        if (isValid(getProject(), getLocation(), p.getIf(), p.getUnless())) {
-                            fc.setParam(p.getName(), p.getValue());
-                        }
-                    }
+                    final Supplier<AbstractXMLFilter> fc = f.getFactory(getProject(), getLocation());
                     final List<FileInfoFilterElem> predicates = new ArrayList<>(f.fileInfoFilters);
 //                    predicates.addAll(getFormat());
 //                    assert !predicates.isEmpty();
@@ -435,6 +539,8 @@ public final class ExtensibleAntInvoker extends Task {
         private String filedirparameter;
         private XMLCatalog xmlcatalog;
         private boolean reloadstylesheet;
+        private boolean parallel;
+        private Integer threads;
 
         // Ant setters
 
@@ -465,6 +571,14 @@ public final class ExtensibleAntInvoker extends Task {
             this.reloadstylesheet = reloadstylesheet;
         }
 
+        public void setParallel(final boolean parallel) {
+            this.parallel = parallel;
+        }
+
+        public void setThreads(final int threads) {
+            this.threads = threads;
+        }
+
         public void setIn(final File in) {
             this.in = in;
         }
@@ -586,6 +700,9 @@ public final class ExtensibleAntInvoker extends Task {
     public static class SaxPipeElem extends ModuleElem {
 
         private List<String> format;
+        private boolean parallel;
+        private Integer threads;
+        private boolean fusible;
 
         // Ant setters
 
@@ -593,20 +710,30 @@ public final class ExtensibleAntInvoker extends Task {
             this.format = Collections.singletonList(format);
         }
 
+        public void setParallel(final boolean parallel) {
+            this.parallel = parallel;
+        }
+
+        public void setThreads(final int threads) {
+            this.threads = threads;
+        }
+
+        /**
+         * Set whether stage can be fused with adjacent fusible SAX stages. Fused stages are run as a single filter
+         * pipeline per file, so filters must not depend on other files having been processed by earlier stages.
+         *
+         * @param fusible {@code true} to allow fusing stage with adjacent fusible stages
+         */
+        public void setFusible(final boolean fusible) {
+            this.fusible = fusible;
+        }
+
         @Override
         public List<FilterPair> getFilters() throws IllegalAccessException, InstantiationException {
             final List<FilterPair> res = new ArrayList<>(filters.size());
             for (final XmlFilterElem f : filters) {
                 if (isValid(getProject(), getLocation(), f.getIf(), f.getUnless())) {
-                    final AbstractXMLFilter fc = f.getImplementation().newInstance();
-                    for (final ParamElem p : f.params) {
-                        if (!p.isValid()) {
-                            throw new BuildException("Incomplete parameter");
-                        }
-                        if (isValid(getProject(), getLocation(), p.getIf(), p.getUnless())) {
-                            fc.setParam(p.getName(), p.getValue());
-                        }
-                    }
+                    final Supplier<AbstractXMLFilter> fc = f.getFactory(getProject(), getLocation());
                     final List<FileInfoFilterElem> predicates = new ArrayList<>(f.fileInfoFilters);
                     predicates.addAll(getFormat());
                     assert !predicates.isEmpty();
@@ -657,6 +784,36 @@ public final class ExtensibleAntInvoker extends Task {
             return cls;
         }
 
+        /**
+         * Get factory for configured filter instances.
+         *
+         * @param project Ant project used to evaluate parameter conditions
+         * @param location location used to report parameter conditions
+         * @return factory that creates a new configured filter on every call
+         */
+        public Supplier<AbstractXMLFilter> getFactory(final Project project, final Location location) {
+            final Class<? extends AbstractXMLFilter> impl = getImplementation();
+            final Map<String, String> ps = new LinkedHashMap<>();
+            for (final ParamElem p : params) {
+                if (!p.isValid()) {
+                    throw new BuildException("Incomplete parameter");
+                }
+                if (isValid(project, location, p.getIf(), p.getUnless())) {
+                    ps.put(p.getName(), p.getValue());
+                }
+            }
+            return () -> {
+                final AbstractXMLFilter fc;
+                try {
+                    fc = impl.newInstance();
+                } catch (final InstantiationException | IllegalAccessException e) {
+                    throw new BuildException(e);
+                }
+                ps.forEach(fc::setParam);
+                return fc;
+            };
+        }
+
     }
 
     /**
@@ -33,8 +33,8 @@ public final class IndexTerm implements Comparable<IndexTerm> {
         }
     }
 
-    /** The locale of  the indexterm, used for sorting. */
-    private static Locale termLocale = null;
+    /** The locale of  the indexterm, used for sorting. Confined to the thread running the build. */
+    private static final ThreadLocal<Locale> termLocale = new ThreadLocal<>();
 
     /** The name of the indexterm. */
     private String termName = null;
@@ -54,6 +54,9 @@ public final class IndexTerm implements Comparable<IndexTerm> {
     /** The sub indexterms contained by this indexterm. */
     private List<IndexTerm> subTerms = null;
 
+    /** The sub indexterms grouped by term key. */
+    private final Map<String, List<IndexTerm>> subTermIndex = new HashMap<>();
+
     /** The prefix added to the term name (such as IndexTermPrefix.SEE or IndexTermPrefix.SEE_Also). */
     private IndexTermPrefix termPrefix = null;
 
@@ -83,21 +86,25 @@ public final class IndexTerm implements Comparable<IndexTerm> {
     }
 
     /**
-     * Get the global locale of indexterm.
+     * Get the locale of indexterm for the current build.
      *
      * @return Locale language
      */
     public static Locale getTermLocale() {
-        return termLocale;
+        return termLocale.get();
     }
 
     /**
-     * Set the global locale of indexterm.
+     * Set the locale of indexterm for the current build. Concurrent builds in separate threads do not share the locale.
      *
-     * @param locale locale
+     * @param locale locale, {@code null} to clear
      */
     public static void setTermLocale(final Locale locale) {
-        termLocale = locale;
+        if (locale == null) {
+            termLocale.remove();
+        } else {
+            termLocale.set(locale);
+        }
     }
 
     /**
@@ -181,33 +188,40 @@ public final class IndexTerm implements Comparable<IndexTerm> {
      * @param term index term to be added
      */
     public void addSubTerm(final IndexTerm term) {
-        int i = 0;
-        final int subTermNum = subTerms.size();
-
         if (IndexTermPrefix.SEE != term.getTermPrefix() && IndexTermPrefix.SEE_ALSO != term.getTermPrefix()) {
             //if the term is not "index-see" or "index-see-also"
             leaf = false;
         }
 
-        for (; i < subTermNum; i++) {
-            final IndexTerm subTerm = subTerms.get(i);
+        addTerm(subTerms, subTermIndex, term);
+    }
 
-            if (subTerm.equals(term)) {
+    /**
+     * Add a term into a term list. If the list already contains an equal term, the term is ignored. If the list
+     * contains a term with the same full name and term key, targets and sub terms of the new term are merged into
+     * the existing term.
+     *
+     * @param terms term list
+     * @param index terms in the term list grouped by term key
+     * @param term index term to be added
+     */
+    static void addTerm(final List<IndexTerm> terms, final Map<String, List<IndexTerm>> index, final IndexTerm term) {
+        final List<IndexTerm> candidates = index.computeIfAbsent(term.getTermKey(), k -> new ArrayList<>(1));
+        for (final IndexTerm candidate : candidates) {
+            if (candidate.equals(term)) {
                 return;
             }
 
             // Add targets when same term name and same term key
-            if (subTerm.getTermFullName().equals(term.getTermFullName())
-                    && subTerm.getTermKey().equals(term.getTermKey())) {
-                subTerm.addTargets(term.getTargetList());
-                subTerm.addSubTerms(term.getSubTerms());
+            if (Objects.equals(candidate.getTermFullName(), term.getTermFullName())) {
+                candidate.addTargets(term.getTargetList());
+                candidate.addSubTerms(term.getSubTerms());
                 return;
             }
         }
 
-        if (i == subTermNum) {
-            subTerms.add(term);
-        }
+        candidates.add(term);
+        terms.add(term);
     }
 
     /**
@@ -276,16 +290,47 @@ public final class IndexTerm implements Comparable<IndexTerm> {
      * Sort all the subterms iteratively.
      */
     public void sortSubTerms() {
-        final int subTermNum = subTerms.size();
-
-        if (subTerms != null && subTermNum > 0) {
-            Collections.sort(subTerms);
+        if (!subTerms.isEmpty()) {
+            sort(subTerms);
             for (final IndexTerm subTerm : subTerms) {
                 subTerm.sortSubTerms();
             }
         }
     }
 
+    /**
+     * Sort terms by term key. Collation keys are computed once per term instead of collating the
+     * term keys on every comparison.
+     *
+     * @param terms terms to sort
+     */
+    static void sort(final List<IndexTerm> terms) {
+        if (terms.size() < 2) {
+            return;
+        }
+        final DITAOTCollator collator = DITAOTCollator.getInstance(getTermLocale());
+        final List<SortKey> keys = new ArrayList<>(terms.size());
+        for (final IndexTerm term : terms) {
+            keys.add(new SortKey(collator.getCollationKey(term.getTermKey()), term));
+        }
+        keys.sort(Comparator.comparing(k -> k.key, Comparator.nullsFirst(Comparator.naturalOrder())));
+        final ListIterator<IndexTerm> it = terms.listIterator();
+        for (final SortKey key : keys) {
+            it.next();
+            it.set(key.term);
+        }
+    }
+
+    private static final class SortKey {
+        final Comparable<Object> key;
+        final IndexTerm term;
+
+        SortKey(final Comparable<Object> key, final IndexTerm term) {
+            this.key = key;
+            this.term = term;
+        }
+    }
+
     /**
      * Compare the given indexterm with current term.
      *
@@ -294,7 +339,7 @@ public final class IndexTerm implements Comparable<IndexTerm> {
      */
     @Override
     public int compareTo(final IndexTerm obj) {
-        return DITAOTCollator.getInstance(termLocale).compare(termKey, obj.getTermKey());
+        return DITAOTCollator.getInstance(getTermLocale()).compare(termKey, obj.getTermKey());
     }
 
     /**
@@ -378,12 +423,13 @@ public final class IndexTerm implements Comparable<IndexTerm> {
         if (termPrefix == null) {
             return termName;
         } else {
-            if (termLocale == null) {
+            final Locale locale = getTermLocale();
+            if (locale == null) {
                 return termPrefix.message + STRING_BLANK + termName;
             } else {
                 final String key = "IndexTerm." + termPrefix.message.toLowerCase().trim().replace(' ', '-');
-                final String msg = Messages.getString(key, termLocale);
-                if (rtlLocaleList.contains(termLocale.toString())) {
+                final String msg = Messages.getString(key, locale);
+                if (rtlLocaleList.contains(locale.toString())) {
                     return termName + STRING_BLANK + msg;
                 } else {
                     return msg + STRING_BLANK + termName;
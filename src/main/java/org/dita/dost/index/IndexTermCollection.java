@@ -12,9 +12,10 @@ import static org.dita.dost.util.Constants.*;
 
 import java.io.File;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 import org.dita.dost.exception.DITAOTException;
 import org.dita.dost.log.DITAOTLogger;
@@ -35,6 +36,8 @@ public final class IndexTermCollection {
     private static IndexTermCollection collection = null;
     /** The list of all index term. */
     private final List<IndexTerm> termList = new ArrayList<>(16);
+    /** Index terms grouped by term key. */
+    private final Map<String, List<IndexTerm>> termIndex = new HashMap<>();
 
     /** The type of index term. */
     private String indexType = null;
@@ -97,27 +100,7 @@ public final class IndexTermCollection {
      * @param term index term
      */
     public void addTerm(final IndexTerm term) {
-        int i = 0;
-        final int termNum = termList.size();
-
-        for (; i < termNum; i++) {
-            final IndexTerm indexTerm = termList.get(i);
-            if (indexTerm.equals(term)) {
-                return;
-            }
-
-            // Add targets when same term name and same term key
-            if (indexTerm.getTermFullName().equals(term.getTermFullName())
-                    && indexTerm.getTermKey().equals(term.getTermKey())) {
-                indexTerm.addTargets(term.getTargetList());
-                indexTerm.addSubTerms(term.getSubTerms());
-                break;
-            }
-        }
-
-        if (i == termNum) {
-            termList.add(term);
-        }
+        IndexTerm.addTerm(termList, termIndex, term);
     }
 
     /**
@@ -146,7 +129,7 @@ public final class IndexTermCollection {
             term.sortSubTerms();
         }
 
-        Collections.sort(termList);
+        IndexTerm.sort(termList);
     }
 
     /**
@@ -233,6 +233,16 @@ final class ArgumentParser {
      */
     private boolean proxy = false;
 
+    /**
+     * Number of deliverables to build concurrently
+     */
+    private Integer jobs = null;
+
+    /**
+     * Share preprocessing between deliverables
+     */
+    private boolean sharePreprocess = false;
+
     boolean justPrintUsage = false;
     boolean justPrintVersion = false;
     boolean justPrintDiagnostics = false;
@@ -301,6 +311,10 @@ final class ArgumentParser {
                 keepGoingMode = true;
             } else if (isLongForm(arg, "-nice")) {
                 handleArgNice(args);
+            } else if (isLongForm(arg, "-jobs") || arg.equals("-j")) {
+                handleArgJobs(arg, args);
+            } else if (isLongForm(arg, "-share-preprocess")) {
+                sharePreprocess = true;
             } else if (isLongForm(arg, "-input") || arg.equals("-i")) {
                 handleArgInput(arg, args, ARGUMENTS.get(getArgumentName(arg)));
             } else if (ARGUMENTS.containsKey(getArgumentName(arg))) {
@@ -338,7 +352,7 @@ final class ArgumentParser {
 
         return new Arguments(useColor, msgOutputLevel, buildFile, install, installFile, projectFile, uninstallId,
                 inputs, targets, listeners, propertyFiles, allowInput, keepGoingMode, loggerClassname,
-                inputHandlerClassname, emacsMode, threadPriority, proxy, justPrintUsage, justPrintVersion,
+                inputHandlerClassname, emacsMode, threadPriority, proxy, jobs, sharePreprocess, justPrintUsage, justPrintVersion,
                 justPrintDiagnostics, justPrintPlugins, justPrintTranstypes, justPrintDeliverables, logFile,
                 definedProps);
     }
@@ -571,6 +585,36 @@ final class ArgumentParser {
         }
     }
 
+    /**
+     * Handle the --jobs argument. Without a value, the number of available processors is used.
+     */
+    private void handleArgJobs(final String arg, final Deque<String> args) {
+        final int posEq = arg.indexOf("=");
+        String value;
+        if (posEq != -1) {
+            value = arg.substring(posEq + 1);
+        } else {
+            value = args.peek();
+            if (value != null && !value.startsWith("-")) {
+                value = args.pop();
+            } else {
+                value = null;
+            }
+        }
+        if (value == null) {
+            jobs = Runtime.getRuntime().availableProcessors();
+            return;
+        }
+        try {
+            jobs = Integer.decode(value);
+        } catch (final NumberFormatException e) {
+            throw new BuildException("Unrecognized number of jobs: " + value);
+        }
+        if (jobs < 1) {
+            throw new BuildException("Number of jobs must be positive: " + value);
+        }
+    }
+
     /**
      * Load the property files specified by --propertyfile
      */
@@ -91,6 +91,14 @@ final class Arguments {
      * proxy flag: default is false
      */
     final boolean proxy;
+    /**
+     * Number of deliverables to build concurrently, {@code null} to build deliverables sequentially.
+     */
+    final Integer jobs;
+    /**
+     * Share preprocessing between deliverables with same preprocessing result.
+     */
+    final boolean sharePreprocess;
     final boolean justPrintUsage;
     final boolean justPrintVersion;
     final boolean justPrintDiagnostics;
@@ -103,7 +111,7 @@ final class Arguments {
                      File projectFile, String uninstallId, List<String> inputs, Vector<String> targets,
                      Vector<String> listeners, Vector<String> propertyFiles, boolean allowInput, boolean keepGoingMode,
                      String loggerClassname, String inputHandlerClassname, boolean emacsMode, Integer threadPriority,
-                     boolean proxy, boolean justPrintUsage, boolean justPrintVersion, boolean justPrintDiagnostics,
+                     boolean proxy, Integer jobs, boolean sharePreprocess, boolean justPrintUsage, boolean justPrintVersion, boolean justPrintDiagnostics,
                      boolean justPrintPlugins, boolean justPrintTranstypes, boolean justPrintDeliverables,
                      File logFile, Map<String, Object> definedProps) {
         this.useColor = useColor;
@@ -124,6 +132,8 @@ final class Arguments {
         this.emacsMode = emacsMode;
         this.threadPriority = threadPriority;
         this.proxy = proxy;
+        this.jobs = jobs;
+        this.sharePreprocess = sharePreprocess;
         this.justPrintUsage = justPrintUsage;
         this.justPrintVersion = justPrintVersion;
         this.justPrintDiagnostics = justPrintDiagnostics;
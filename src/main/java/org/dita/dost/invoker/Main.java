@@ -35,17 +35,25 @@ import org.apache.tools.ant.property.ResolvePropertyMap;
 import org.apache.tools.ant.util.ClasspathUtils;
 import org.apache.tools.ant.util.FileUtils;
 import org.apache.tools.ant.util.ProxySetup;
+import org.dita.dost.ant.ExtensibleAntInvoker;
 import org.dita.dost.platform.Plugins;
 import org.dita.dost.project.Project.Context;
 import org.dita.dost.project.Project.Publication;
 import org.dita.dost.project.ProjectFactory;
 import org.dita.dost.util.Configuration;
+import org.dita.dost.util.Job;
 
 import java.io.*;
 import java.net.URI;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import static org.dita.dost.invoker.Arguments.*;
@@ -84,6 +92,12 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
      */
     private List<Map<String, Object>> projectProps;
 
+    /**
+     * Per thread standard output and error streams when deliverables are built concurrently, otherwise {@code null}.
+     */
+    private ThreadOutputStream threadOut;
+    private ThreadOutputStream threadErr;
+
     /**
      * Whether or not this instance has successfully been constructed and is
      * ready to run.
@@ -182,10 +196,14 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
         int exitCode = 1;
         try {
             try {
-                for (Map<String, Object> props : projectProps) {
-                    runBuild(coreLoader, props);
+                if ((this.args.jobs != null || this.args.sharePreprocess) && projectProps.size() > 1) {
+                    exitCode = runParallelBuilds(coreLoader);
+                } else {
+                    for (Map<String, Object> props : projectProps) {
+                        runBuild(coreLoader, props, out, err);
+                    }
+                    exitCode = 0;
                 }
-                exitCode = 0;
             } catch (final ExitStatusException ese) {
                 exitCode = ese.getStatus();
                 if (exitCode != 0) {
@@ -368,6 +386,9 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
                 .filter(deliverable -> runDeliverable != null ? Objects.equals(deliverable.id, runDeliverable) : true)
                 .map(deliverable -> {
                     final Map<String, Object> props = new HashMap<>(definedProps);
+                    if (deliverable.id != null) {
+                        props.put("project.deliverable", deliverable.id);
+                    }
 
                     final Context context = deliverable.context;
                     final URI input = base.resolve(context.inputs.inputs.get(0).href);
@@ -526,6 +547,477 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
         return file;
     }
 
+    /**
+     * Executes project deliverables concurrently. Each deliverable is built in an isolated Ant project with its own
+     * temporary directory, and log lines are prefixed with the deliverable ID. All deliverables are built even if
+     * some of them fail. If preprocessing is shared, deliverables with the same preprocessing result are preprocessed
+     * only once.
+     *
+     * <p>Deliverables run in one JVM. Each has its own Ant project, properties, job configuration, temporary
+     * directory, and standard output and error streams. Core and bundled plugin classes keep build state in instances
+     * or thread-local variables, and external processors such as XEP run in forked JVMs. Static fields and system
+     * properties of plugin classes are shared between deliverables, so plugins that keep build state in them must be
+     * built with a single job.</p>
+     *
+     * @param coreLoader The classloader to use to find core classes. May be
+     *                   <code>null</code>, in which case the system classloader is
+     *                   used.
+     * @return exit status of the first failed deliverable, or 0 if all deliverables were built successfully
+     */
+    private int runParallelBuilds(final ClassLoader coreLoader) throws InterruptedException, ExecutionException {
+        final String timestamp = new SimpleDateFormat("yyyyMMddHHmmssSSS").format(new Date());
+        final List<String> names = new ArrayList<>(projectProps.size());
+        final List<Future<Integer>> results = new ArrayList<>(projectProps.size());
+        final PrintStream savedOut = System.out;
+        final PrintStream savedErr = System.err;
+        threadOut = new ThreadOutputStream(savedOut);
+        threadErr = new ThreadOutputStream(savedErr);
+        System.setOut(new PrintStream(threadOut, true));
+        System.setErr(new PrintStream(threadErr, true));
+        final int threads = args.jobs != null ? Math.min(args.jobs, projectProps.size()) : 1;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Map<String, Object>> deliverableProps = new ArrayList<>(projectProps.size());
+            for (int i = 0; i < projectProps.size(); i++) {
+                final Map<String, Object> props = new HashMap<>(projectProps.get(i));
+                final Object id = props.get("project.deliverable");
+                final String name = id != null ? id.toString() : Integer.toString(i + 1);
+                props.put(ANT_TEMP_DIR, getDeliverableTempDir(props, name, timestamp).getAbsolutePath());
+                names.add(name);
+                deliverableProps.add(props);
+            }
+            if (args.sharePreprocess && targets.isEmpty()) {
+                results.addAll(submitSharedBuilds(coreLoader, names, deliverableProps, timestamp, executor));
+            } else {
+                for (int i = 0; i < names.size(); i++) {
+                    final String name = names.get(i);
+                    final Map<String, Object> props = deliverableProps.get(i);
+                    results.add(executor.submit(() -> runDeliverable(coreLoader, props, name)));
+                }
+            }
+            int exitCode = 0;
+            final List<String> failed = new ArrayList<>();
+            for (int i = 0; i < results.size(); i++) {
+                final int status = results.get(i).get();
+                if (status != 0) {
+                    failed.add(names.get(i));
+                    if (exitCode == 0) {
+                        exitCode = status;
+                    }
+                }
+            }
+            if (!failed.isEmpty()) {
+                printErrorMessage("Failed to build deliverables " + String.join(", ", failed));
+            }
+            return exitCode;
+        } finally {
+            executor.shutdownNow();
+            System.setOut(savedOut);
+            System.setErr(savedErr);
+            threadOut = null;
+            threadErr = null;
+        }
+    }
+
+    /**
+     * Build a single deliverable with log output prefixed with the deliverable name.
+     *
+     * @return exit status of the build
+     */
+    private int runDeliverable(final ClassLoader coreLoader, final Map<String, Object> props, final String name) {
+        final PrintStream logOut = createLogStream(out, name);
+        final PrintStream logErr = err != out ? createLogStream(err, name) : logOut;
+        try {
+            runBuild(coreLoader, props, logOut, logErr);
+            return 0;
+        } catch (final ExitStatusException e) {
+            return e.getStatus();
+        } catch (final BuildException e) {
+            // already reported by build logger
+            return 1;
+        } catch (final Throwable e) {
+            e.printStackTrace(logErr);
+            return 1;
+        } finally {
+            logOut.close();
+            logErr.close();
+        }
+    }
+
+    private static PrintStream createLogStream(final PrintStream out, final String name) {
+        return new PrintStream(new PrefixOutputStream(out, "[" + name + "] "), true);
+    }
+
+    /**
+     * Deliverable build that is run in stages.
+     */
+    private static final class StagedBuild {
+        final String name;
+        final Map<String, Object> props;
+        final Project project;
+        final PrintStream logOut;
+        final PrintStream logErr;
+        PreprocessStages stages;
+        Map<String, String> key;
+        /** Exit status if the build has finished, otherwise {@code null} */
+        Integer status;
+
+        StagedBuild(final String name, final Map<String, Object> props, final Project project,
+                    final PrintStream logOut, final PrintStream logErr) {
+            this.name = name;
+            this.props = props;
+            this.project = project;
+            this.logOut = logOut;
+            this.logErr = logErr;
+        }
+    }
+
+    /**
+     * Result of shared preprocessing.
+     */
+    private static final class SharedPreprocess {
+        final File tempDir;
+        final File outputDir;
+        /** Properties set by preprocessing targets */
+        final Map<String, String> properties;
+
+        SharedPreprocess(final File tempDir, final File outputDir, final Map<String, String> properties) {
+            this.tempDir = tempDir;
+            this.outputDir = outputDir;
+            this.properties = properties;
+        }
+    }
+
+    /**
+     * Submit deliverable builds with shared preprocessing.
+     *
+     * <p>Deliverables that differ only by transtype, output and temporary directory are candidates for sharing.
+     * Their builds are started and run up to preprocessing, and candidates whose preprocessing targets see the same
+     * property values and transtype preprocessing type are grouped together. Each group is preprocessed once into a shared temporary directory, and each
+     * deliverable continues its build from a copy of the shared temporary directory.</p>
+     *
+     * @return exit statuses of deliverable builds in deliverable order
+     */
+    private List<Future<Integer>> submitSharedBuilds(final ClassLoader coreLoader, final List<String> names,
+                                                     final List<Map<String, Object>> props, final String timestamp,
+                                                     final ExecutorService executor) {
+        final Map<Map<String, Object>, List<Integer>> candidates = new LinkedHashMap<>();
+        for (int i = 0; i < props.size(); i++) {
+            final Map<String, Object> key = new HashMap<>(props.get(i));
+            key.keySet().removeAll(Arrays.asList("output.dir", ANT_TEMP_DIR, "project.deliverable", "transtype"));
+            candidates.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+        }
+        final List<Future<Integer>> results = new ArrayList<>(Collections.nCopies(props.size(), null));
+        for (final List<Integer> candidate : candidates.values()) {
+            if (candidate.size() == 1) {
+                final int i = candidate.get(0);
+                results.set(i, executor.submit(() -> runDeliverable(coreLoader, props.get(i), names.get(i))));
+                continue;
+            }
+            final List<CompletableFuture<StagedBuild>> started = new ArrayList<>();
+            for (final int i : candidate) {
+                started.add(CompletableFuture.supplyAsync(
+                        () -> startStagedBuild(coreLoader, props.get(i), names.get(i)), executor));
+            }
+            final CompletableFuture<List<CompletableFuture<Integer>>> scheduled =
+                    CompletableFuture.allOf(started.toArray(new CompletableFuture<?>[0]))
+                            .thenApply(v -> scheduleStagedBuilds(coreLoader, started.stream()
+                                    .map(CompletableFuture::join)
+                                    .collect(Collectors.toList()), timestamp, executor));
+            for (int j = 0; j < candidate.size(); j++) {
+                final int index = j;
+                results.set(candidate.get(j), scheduled.thenCompose(builds -> builds.get(index)));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Group started builds by preprocessing key and schedule the rest of the builds.
+     *
+     * @return exit statuses of builds in build order
+     */
+    private List<CompletableFuture<Integer>> scheduleStagedBuilds(final ClassLoader coreLoader,
+                                                                  final List<StagedBuild> builds,
+                                                                  final String timestamp,
+                                                                  final ExecutorService executor) {
+        final Map<Map<String, String>, List<StagedBuild>> groups = new LinkedHashMap<>();
+        for (final StagedBuild build : builds) {
+            if (build.status == null) {
+                groups.computeIfAbsent(build.key, k -> new ArrayList<>()).add(build);
+            }
+        }
+        final Map<StagedBuild, CompletableFuture<Integer>> results = new HashMap<>();
+        for (final List<StagedBuild> group : groups.values()) {
+            final CompletableFuture<SharedPreprocess> shared;
+            final File sharedDir;
+            if (group.size() > 1) {
+                final StagedBuild first = group.get(0);
+                final Map<String, Object> sharedProps = new HashMap<>(first.props);
+                sharedProps.remove(ANT_TEMP_DIR);
+                final Object tempDir = args.definedProps.get(ANT_TEMP_DIR);
+                if (tempDir != null) {
+                    sharedProps.put(ANT_TEMP_DIR, tempDir);
+                }
+                sharedDir = getDeliverableTempDir(sharedProps, "preprocess_" + first.name, timestamp);
+                sharedProps.put(ANT_TEMP_DIR, new File(sharedDir, "temp").getAbsolutePath());
+                sharedProps.put("output.dir", new File(sharedDir, "out").getAbsolutePath());
+                final String name = group.stream().map(build -> build.name).collect(Collectors.joining(", "));
+                shared = CompletableFuture.supplyAsync(
+                        () -> runSharedPreprocess(coreLoader, sharedProps, name, first.key), executor);
+            } else {
+                sharedDir = null;
+                shared = CompletableFuture.completedFuture(null);
+            }
+            final List<CompletableFuture<Integer>> groupResults = new ArrayList<>();
+            for (final StagedBuild build : group) {
+                groupResults.add(shared.thenApplyAsync(preprocess -> finishStagedBuild(build, preprocess), executor));
+            }
+            // remove shared temporary directory before deliverable builds are reported done
+            final CompletableFuture<Void> done = CompletableFuture.allOf(groupResults.toArray(new CompletableFuture<?>[0]))
+                    .handle((v, e) -> {
+                        if (sharedDir != null && isCleanTemp(group.get(0).project)) {
+                            org.apache.commons.io.FileUtils.deleteQuietly(sharedDir);
+                        }
+                        return null;
+                    });
+            for (int i = 0; i < group.size(); i++) {
+                final CompletableFuture<Integer> result = groupResults.get(i);
+                results.put(group.get(i), done.thenCompose(v -> result));
+            }
+        }
+        return builds.stream()
+                .map(build -> build.status != null
+                        ? CompletableFuture.completedFuture(build.status)
+                        : results.get(build))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Start deliverable build and run targets before preprocessing. If the build cannot be run in stages, the
+     * whole build is run.
+     */
+    private StagedBuild startStagedBuild(final ClassLoader coreLoader, final Map<String, Object> props,
+                                         final String name) {
+        final PrintStream logOut = createLogStream(out, name);
+        final PrintStream logErr = err != out ? createLogStream(err, name) : logOut;
+        final Project project = new Project();
+        project.setCoreLoader(coreLoader);
+        final StagedBuild build = new StagedBuild(name, props, project, logOut, logErr);
+        try {
+            addBuildListeners(project, logOut, logErr);
+            addInputHandler(project);
+            runInProject(project, () -> {
+                configureProject(project, props);
+                build.stages = PreprocessStages.of(project, project.getProperty("transtype"));
+                if (build.stages != null) {
+                    executeTasks(build.stages.entry);
+                    executeTargets(build.stages.init);
+                    build.key = build.stages.getKey(project);
+                } else {
+                    project.executeTarget(project.getDefaultTarget());
+                }
+            });
+            if (build.stages == null) {
+                finishBuild(build, null);
+            }
+        } catch (final Throwable e) {
+            finishBuild(build, e);
+        }
+        return build;
+    }
+
+    /**
+     * Run preprocessing into a shared temporary directory.
+     *
+     * @param key expected preprocessing key
+     * @return shared preprocessing result, or {@code null} if preprocessing failed or produced a different key
+     */
+    private SharedPreprocess runSharedPreprocess(final ClassLoader coreLoader, final Map<String, Object> props,
+                                                 final String name, final Map<String, String> key) {
+        final PrintStream logOut = createLogStream(out, name);
+        final PrintStream logErr = err != out ? createLogStream(err, name) : logOut;
+        final Project project = new Project();
+        project.setCoreLoader(coreLoader);
+        final SharedPreprocess[] res = new SharedPreprocess[1];
+        Throwable error = null;
+        try {
+            addBuildListeners(project, logOut, logErr);
+            addInputHandler(project);
+            runInProject(project, () -> {
+                configureProject(project, props);
+                final PreprocessStages stages = PreprocessStages.of(project, project.getProperty("transtype"));
+                executeTasks(stages.entry);
+                executeTargets(stages.init);
+                if (!stages.getKey(project).equals(key)) {
+                    project.log("Shared preprocessing configuration differs from deliverables, "
+                            + "preprocessing deliverables separately", Project.MSG_WARN);
+                    return;
+                }
+                final Map<String, Object> before = new HashMap<>(project.getProperties());
+                executeTargets(stages.preprocess);
+                res[0] = new SharedPreprocess(new File(project.getProperty(ANT_TEMP_DIR)),
+                        new File(project.getProperty(PreprocessStages.OUTPUT_DIR)),
+                        PreprocessStages.diff(before, project.getProperties()));
+            });
+        } catch (final BuildException e) {
+            error = e;
+            project.log("Shared preprocessing failed, preprocessing deliverables separately", Project.MSG_WARN);
+        } catch (final Throwable e) {
+            error = e;
+            e.printStackTrace(logErr);
+        } finally {
+            try {
+                project.fireBuildFinished(error);
+            } finally {
+                logOut.close();
+                logErr.close();
+            }
+        }
+        return res[0];
+    }
+
+    /**
+     * Run the rest of a deliverable build, starting from either shared preprocessing or preprocessing.
+     *
+     * @param build      started deliverable build
+     * @param preprocess shared preprocessing result, {@code null} to run preprocessing
+     * @return exit status of the build
+     */
+    private int finishStagedBuild(final StagedBuild build, final SharedPreprocess preprocess) {
+        final Project project = build.project;
+        try {
+            runInProject(project, () -> {
+                if (preprocess != null) {
+                    restorePreprocess(project, preprocess);
+                } else {
+                    executeTargets(build.stages.preprocess);
+                }
+                executeTargets(build.stages.post);
+                if (!build.stages.after.isEmpty()) {
+                    project.executeTargets(new Vector<>(build.stages.after));
+                }
+            });
+            finishBuild(build, null);
+        } catch (final Throwable e) {
+            finishBuild(build, e);
+        }
+        return build.status;
+    }
+
+    /**
+     * Copy shared preprocessing result into project temporary and output directories.
+     */
+    private void restorePreprocess(final Project project, final SharedPreprocess preprocess) {
+        final File tempDir = new File(project.getProperty(ANT_TEMP_DIR));
+        final File outputDir = new File(project.getProperty(PreprocessStages.OUTPUT_DIR));
+        project.log("Copy shared preprocessing result from " + preprocess.tempDir, Project.MSG_INFO);
+        try {
+            org.apache.commons.io.FileUtils.copyDirectory(preprocess.tempDir, tempDir);
+            if (preprocess.outputDir.exists()) {
+                org.apache.commons.io.FileUtils.copyDirectory(preprocess.outputDir, outputDir);
+            }
+            final Job job = ExtensibleAntInvoker.getJob(tempDir, project);
+            if (job.getOutputDir() != null) {
+                job.setOutputDir(outputDir);
+                job.write();
+                job.exportXml();
+            }
+        } catch (final IOException e) {
+            throw new BuildException("Failed to copy shared preprocessing result: " + e.getMessage(), e);
+        }
+        for (final Map.Entry<String, String> e : preprocess.properties.entrySet()) {
+            final String value = PreprocessStages.rebase(
+                    PreprocessStages.rebase(e.getValue(), preprocess.tempDir, tempDir),
+                    preprocess.outputDir, outputDir);
+            project.setProperty(e.getKey(), value);
+        }
+    }
+
+    /**
+     * Execute tasks of a partially run target.
+     */
+    private static void executeTasks(final List<Task> tasks) {
+        for (final Task task : tasks) {
+            task.perform();
+        }
+    }
+
+    /**
+     * Execute targets without dependency checks, as dependencies may have been executed in an earlier stage.
+     */
+    private static void executeTargets(final List<Target> targets) {
+        for (final Target target : targets) {
+            target.performTasks();
+        }
+    }
+
+    private static boolean isCleanTemp(final Project project) {
+        final String cleanTemp = project.getProperty("clean.temp");
+        return cleanTemp == null || Project.toBoolean(cleanTemp);
+    }
+
+    /**
+     * Run action with system output and error streams of the current thread sent to the project.
+     */
+    private void runInProject(final Project project, final Runnable action) {
+        final DemuxOutputStream projectOut = new DemuxOutputStream(project, false);
+        final DemuxOutputStream projectErr = new DemuxOutputStream(project, true);
+        threadOut.set(projectOut);
+        threadErr.set(projectErr);
+        try {
+            action.run();
+        } finally {
+            try {
+                projectOut.flush();
+                projectErr.flush();
+            } catch (final IOException e) {
+                // ignore
+            }
+            threadOut.remove();
+            threadErr.remove();
+        }
+    }
+
+    private void finishBuild(final StagedBuild build, final Throwable error) {
+        try {
+            build.project.fireBuildFinished(error);
+        } catch (final Throwable e) {
+            e.printStackTrace(build.logErr);
+        } finally {
+            build.logOut.close();
+            build.logErr.close();
+        }
+        if (error == null) {
+            build.status = 0;
+        } else if (error instanceof ExitStatusException) {
+            build.status = ((ExitStatusException) error).getStatus();
+        } else {
+            if (!(error instanceof BuildException)) {
+                error.printStackTrace(build.logErr);
+            }
+            build.status = 1;
+        }
+    }
+
+    /**
+     * Get unique temporary directory for a deliverable. If temporary directory has been set, deliverable
+     * temporary directory is a subdirectory of it, otherwise a timestamped directory in base temporary directory.
+     */
+    private File getDeliverableTempDir(final Map<String, Object> props, final String name, final String timestamp) {
+        final String dirName = name.replaceAll("[^\\w.-]", "_");
+        final Object tempDir = props.get(ANT_TEMP_DIR);
+        if (tempDir != null) {
+            return new File(tempDir.toString(), dirName);
+        }
+        final Object baseTempDir = props.get("base.temp.dir");
+        // same default as in build_init.xml
+        final File base = baseTempDir != null
+                ? new File(baseTempDir.toString())
+                : new File(buildFile.getParentFile(), "temp");
+        return new File(base, "temp" + timestamp + "_" + dirName);
+    }
+
     /**
      * Executes the build. If the constructor for this instance failed (e.g.
      * returned after issuing a warning), this method returns immediately.
@@ -534,16 +1026,20 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
      *                     <code>null</code>, in which case the system classloader is
      *                     used.
      * @param definedProps Set of properties that can be used by tasks.
+     * @param out          Stream for the build logger output.
+     * @param err          Stream for the build logger error output.
      * @throws BuildException if the build fails
      */
-    private void runBuild(final ClassLoader coreLoader, Map<String, Object> definedProps) throws BuildException {
+    private void runBuild(final ClassLoader coreLoader, Map<String, Object> definedProps,
+                          final PrintStream out, final PrintStream err) throws BuildException {
         final Project project = new Project();
         project.setCoreLoader(coreLoader);
+        final Vector<String> targets = new Vector<>(this.targets);
 
         Throwable error = null;
 
         try {
-            addBuildListeners(project);
+            addBuildListeners(project, out, err);
             addInputHandler(project);
 
             final PrintStream savedErr = System.err;
@@ -558,52 +1054,20 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
             // ant class if we are going to implement it.
             // System.setSecurityManager(new NoExitSecurityManager());
             try {
-                if (args.allowInput) {
-                    project.setDefaultInputStream(System.in);
-                }
-                System.setIn(new DemuxInputStream(project));
-                System.setOut(new PrintStream(new DemuxOutputStream(project, false)));
-                System.setErr(new PrintStream(new DemuxOutputStream(project, true)));
-
-                project.fireBuildStarted();
-
-                // set the thread priorities
-                if (args.threadPriority != null) {
-                    try {
-                        project.log("Setting Ant's thread priority to " + args.threadPriority, Project.MSG_VERBOSE);
-                        Thread.currentThread().setPriority(args.threadPriority);
-                    } catch (final SecurityException swallowed) {
-                        // we cannot set the priority here.
-                        project.log("A security manager refused to set the -nice value");
+                if (threadOut != null) {
+                    // concurrent builds share system streams, interactive input is not supported
+                    threadOut.set(new DemuxOutputStream(project, false));
+                    threadErr.set(new DemuxOutputStream(project, true));
+                } else {
+                    if (args.allowInput) {
+                        project.setDefaultInputStream(System.in);
                     }
+                    System.setIn(new DemuxInputStream(project));
+                    System.setOut(new PrintStream(new DemuxOutputStream(project, false)));
+                    System.setErr(new PrintStream(new DemuxOutputStream(project, true)));
                 }
 
-                project.init();
-
-                // resolve properties
-                final PropertyHelper propertyHelper = PropertyHelper.getPropertyHelper(project);
-                final HashMap<String, Object> props = new HashMap<>(definedProps);
-                new ResolvePropertyMap(project, propertyHelper, propertyHelper.getExpanders()).resolveAllProperties(
-                        props, null, false);
-
-                // set user-define properties
-                for (final Map.Entry<String, Object> ent : props.entrySet()) {
-                    final String arg = ent.getKey();
-                    final Object value = ent.getValue();
-                    project.setUserProperty(arg, String.valueOf(value));
-                }
-
-                project.setUserProperty(MagicNames.ANT_FILE, buildFile.getAbsolutePath());
-                project.setUserProperty(MagicNames.ANT_FILE_TYPE, MagicNames.ANT_FILE_TYPE_FILE);
-
-                project.setKeepGoingMode(args.keepGoingMode);
-                if (args.proxy) {
-                    // proxy setup if enabled
-                    final ProxySetup proxySetup = new ProxySetup(project);
-                    proxySetup.enableProxies();
-                }
-
-                ProjectHelper.configureProject(project, buildFile);
+                configureProject(project, definedProps);
 
                 // make sure that we have a target to execute
                 if (targets.size() == 0) {
@@ -620,9 +1084,14 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
                     System.setSecurityManager(oldsm);
                 }
 
-                System.setOut(savedOut);
-                System.setErr(savedErr);
-                System.setIn(savedIn);
+                if (threadOut != null) {
+                    threadOut.remove();
+                    threadErr.remove();
+                } else {
+                    System.setOut(savedOut);
+                    System.setErr(savedErr);
+                    System.setIn(savedIn);
+                }
             }
         } catch (final RuntimeException | Error exc) {
             error = exc;
@@ -644,6 +1113,54 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
         }
     }
 
+    /**
+     * Starts the build and configures the project from the build file.
+     *
+     * @param project      The project to configure.
+     * @param definedProps Set of properties that can be used by tasks.
+     */
+    private void configureProject(final Project project, final Map<String, Object> definedProps) {
+        project.fireBuildStarted();
+
+        // set the thread priorities
+        if (args.threadPriority != null) {
+            try {
+                project.log("Setting Ant's thread priority to " + args.threadPriority, Project.MSG_VERBOSE);
+                Thread.currentThread().setPriority(args.threadPriority);
+            } catch (final SecurityException swallowed) {
+                // we cannot set the priority here.
+                project.log("A security manager refused to set the -nice value");
+            }
+        }
+
+        project.init();
+
+        // resolve properties
+        final PropertyHelper propertyHelper = PropertyHelper.getPropertyHelper(project);
+        final HashMap<String, Object> props = new HashMap<>(definedProps);
+        new ResolvePropertyMap(project, propertyHelper, propertyHelper.getExpanders()).resolveAllProperties(
+                props, null, false);
+
+        // set user-define properties
+        for (final Map.Entry<String, Object> ent : props.entrySet()) {
+            final String arg = ent.getKey();
+            final Object value = ent.getValue();
+            project.setUserProperty(arg, String.valueOf(value));
+        }
+
+        project.setUserProperty(MagicNames.ANT_FILE, buildFile.getAbsolutePath());
+        project.setUserProperty(MagicNames.ANT_FILE_TYPE, MagicNames.ANT_FILE_TYPE_FILE);
+
+        project.setKeepGoingMode(args.keepGoingMode);
+        if (args.proxy) {
+            // proxy setup if enabled
+            final ProxySetup proxySetup = new ProxySetup(project);
+            proxySetup.enableProxies();
+        }
+
+        ProjectHelper.configureProject(project, buildFile);
+    }
+
     /**
      * Adds the listeners specified in the command line arguments, along with
      * the default listener, to the specified project.
@@ -653,8 +1170,12 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
      */
     @Override
     protected void addBuildListeners(final Project project) {
+        addBuildListeners(project, out, err);
+    }
+
+    private void addBuildListeners(final Project project, final PrintStream out, final PrintStream err) {
         // Add the default listener
-        project.addBuildListener(createLogger());
+        project.addBuildListener(createLogger(out, err));
 
         final int count = args.listeners.size();
         for (int i = 0; i < count; i++) {
@@ -694,9 +1215,11 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
     /**
      * Creates the default build logger for sending build events to the ant log.
      *
+     * @param out stream for logger output
+     * @param err stream for logger error output
      * @return the logger instance for this build.
      */
-    private BuildLogger createLogger() {
+    private BuildLogger createLogger(final PrintStream out, final PrintStream err) {
         BuildLogger logger;
         if (args.loggerClassname != null) {
             try {
@@ -766,6 +1289,8 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
         // msg.append("  -lib <path>            specifies a path to search for jars and classes"
         // + lSep);
         msg.append("  -l, --logfile=<file>        use given file for log\n");
+        msg.append("  -j, --jobs=<n>              build project deliverables in parallel\n");
+        msg.append("  --share-preprocess          preprocess project deliverables with same input once\n");
         // msg.append("  -logger <classname>    the class which is to perform logging"
         // + lSep);
         // msg.append("  -listener <classname>  add an instance of class as a project listener"
@@ -807,4 +1332,46 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
         System.out.println("DITA-OT version " + Configuration.configuration.get("otversion"));
         // System.out.println(getAntVersion());
     }
+
+    /**
+     * Output stream that writes to a stream set for the current thread, or to a fallback stream if none has been
+     * set. Threads inherit the stream of the thread that created them.
+     */
+    private static final class ThreadOutputStream extends OutputStream {
+
+        private final OutputStream fallback;
+        private final InheritableThreadLocal<OutputStream> current = new InheritableThreadLocal<>();
+
+        ThreadOutputStream(final OutputStream fallback) {
+            this.fallback = fallback;
+        }
+
+        void set(final OutputStream out) {
+            current.set(out);
+        }
+
+        void remove() {
+            current.remove();
+        }
+
+        private OutputStream get() {
+            final OutputStream out = current.get();
+            return out != null ? out : fallback;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            get().write(b);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            get().write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            get().flush();
+        }
+    }
 }
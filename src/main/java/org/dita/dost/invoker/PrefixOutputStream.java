@@ -0,0 +1,82 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2019 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+
+package org.dita.dost.invoker;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Line buffered output stream that prefixes every line. Complete lines are written to the underlying stream
+ * while holding its lock, so lines from concurrent writers sharing the same underlying stream are not interleaved.
+ * Closing the stream writes any incomplete line but does not close the underlying stream.
+ */
+final class PrefixOutputStream extends OutputStream {
+
+    private final OutputStream out;
+    private final byte[] prefix;
+    private final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+
+    /**
+     * @param out    underlying stream, also used as the lock for writing lines
+     * @param prefix line prefix
+     */
+    PrefixOutputStream(final OutputStream out, final String prefix) {
+        this.out = out;
+        this.prefix = prefix.getBytes(Charset.defaultCharset());
+    }
+
+    @Override
+    public synchronized void write(final int b) throws IOException {
+        buf.write(b);
+        if (b == '\n') {
+            writeLine();
+        }
+    }
+
+    @Override
+    public synchronized void write(final byte[] b, final int off, final int len) throws IOException {
+        int start = off;
+        final int end = off + len;
+        for (int i = off; i < end; i++) {
+            if (b[i] == '\n') {
+                buf.write(b, start, i + 1 - start);
+                writeLine();
+                start = i + 1;
+            }
+        }
+        buf.write(b, start, end - start);
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        synchronized (out) {
+            out.flush();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (buf.size() > 0) {
+            buf.write('\n');
+            writeLine();
+        }
+        flush();
+    }
+
+    private void writeLine() throws IOException {
+        synchronized (out) {
+            out.write(prefix);
+            buf.writeTo(out);
+            out.flush();
+        }
+        buf.reset();
+    }
+}
@@ -0,0 +1,323 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2019 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+
+package org.dita.dost.invoker;
+
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.RuntimeConfigurable;
+import org.apache.tools.ant.Target;
+import org.apache.tools.ant.Task;
+import org.apache.tools.ant.UnknownElement;
+
+import java.io.File;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.dita.dost.util.Configuration.printTranstype;
+import static org.dita.dost.util.Constants.ANT_TEMP_DIR;
+import static org.dita.dost.util.Constants.INDEX_TYPE_ECLIPSEHELP;
+
+/**
+ * Split of a transtype build into stages before, during, and after preprocessing.
+ *
+ * <p>The default target of the build file, e.g. {@code init}, is run as is up to the {@code antcall} that calls
+ * {@code dita2<transtype>}. The targets of {@code dita2<transtype>} are sorted into initialization targets that run
+ * before preprocessing, preprocessing targets, and transtype specific targets that run after preprocessing. The
+ * remaining targets of the {@code antcall}, e.g. {@code clean-temp}, are run last. Properties referenced by the
+ * preprocessing targets are collected, so that builds whose preprocessing would produce the same result can be
+ * detected by comparing the values of those properties after initialization.</p>
+ *
+ * <p>Core preprocessing only distinguishes Eclipse Help and print transtypes from other transtypes, so a transtype
+ * passed to modules and stylesheets as a {@code transtype} parameter is compared by its preprocessing type. This
+ * allows deliverables that differ only by transtype to share preprocessing. If preprocessing targets reference the
+ * transtype in any other way, the transtype itself is compared.</p>
+ */
+final class PreprocessStages {
+
+    /** Preprocessing targets in order of preference. */
+    static final List<String> PREPROCESS_TARGETS = Collections.unmodifiableList(Arrays.asList("preprocess", "preprocess2"));
+    /** Property for output directory used by preprocessing. */
+    static final String OUTPUT_DIR = "dita.output.dir";
+
+    private static final Pattern PROPERTY_REFERENCE = Pattern.compile("\\$\\{([^${}]+)\\}");
+    private static final String TEMP_DIR_TOKEN = "${" + ANT_TEMP_DIR + "}";
+    private static final String OUTPUT_DIR_TOKEN = "${" + OUTPUT_DIR + "}";
+    private static final String TRANSTYPE = "transtype";
+    private static final String ANTCALL = "antcall";
+    private static final String PRINT_TYPE = "#print";
+    private static final String OTHER_TYPE = "#other";
+
+    /** Name of the preprocessing target. */
+    final String preprocessTarget;
+    /** Tasks of the default target run before it calls the transtype build. */
+    final List<Task> entry;
+    /** Targets run before preprocessing. */
+    final Vector<Target> init;
+    /** Preprocessing targets. */
+    final Vector<Target> preprocess;
+    /** Transtype specific targets run after preprocessing. */
+    final Vector<Target> post;
+    /** Names of targets the default target calls after the transtype build. */
+    final List<String> after;
+    /** Names of properties referenced by preprocessing targets. */
+    final Set<String> properties;
+
+    private PreprocessStages(final String preprocessTarget, final List<Task> entry, final Vector<Target> init,
+                             final Vector<Target> preprocess, final Vector<Target> post, final List<String> after,
+                             final Set<String> properties) {
+        this.preprocessTarget = preprocessTarget;
+        this.entry = entry;
+        this.init = init;
+        this.preprocess = preprocess;
+        this.post = post;
+        this.after = after;
+        this.properties = properties;
+    }
+
+    /**
+     * Split transtype build into stages.
+     *
+     * @param project configured Ant project
+     * @param transtype transtype name
+     * @return build stages, or {@code null} if the transtype build does not have a known preprocessing target or
+     *         the default target does not call the transtype build
+     */
+    static PreprocessStages of(final Project project, final String transtype) {
+        final Hashtable<String, Target> targets = project.getTargets();
+        final String main = "dita2" + transtype;
+        if (transtype == null || !targets.containsKey(main) || project.getDefaultTarget() == null
+                || !targets.containsKey(project.getDefaultTarget())) {
+            return null;
+        }
+        final List<Task> entry = new ArrayList<>();
+        List<String> after = null;
+        for (final Task task : targets.get(project.getDefaultTarget()).getTasks()) {
+            if (after != null) {
+                // tasks after the transtype build are not supported
+                return null;
+            }
+            final List<String> called = getCalledTargets(project, task);
+            if (called == null) {
+                entry.add(task);
+            } else if (called.contains(main)) {
+                after = new ArrayList<>(called.subList(called.indexOf(main) + 1, called.size()));
+            } else {
+                return null;
+            }
+        }
+        if (after == null) {
+            return null;
+        }
+        final Vector<Target> all = project.topoSort(main, targets, false);
+        String preprocessTarget = null;
+        int preprocessIndex = -1;
+        for (int i = 0; i < all.size() && preprocessTarget == null; i++) {
+            if (PREPROCESS_TARGETS.contains(all.get(i).getName())) {
+                preprocessTarget = all.get(i).getName();
+                preprocessIndex = i;
+            }
+        }
+        if (preprocessTarget == null) {
+            return null;
+        }
+        final Set<Target> preprocessClosure = new HashSet<>(project.topoSort(preprocessTarget, targets, false));
+        final Vector<Target> init = new Vector<>();
+        final Vector<Target> preprocess = new Vector<>();
+        final Vector<Target> post = new Vector<>();
+        for (int i = 0; i < all.size(); i++) {
+            final Target target = all.get(i);
+            if (preprocessClosure.contains(target)) {
+                preprocess.add(target);
+            } else if (i < preprocessIndex) {
+                init.add(target);
+            } else {
+                post.add(target);
+            }
+        }
+        final Set<String> properties = new HashSet<>();
+        for (final Target target : preprocess) {
+            collectProperties(target, properties);
+        }
+        return new PreprocessStages(preprocessTarget, entry, init, preprocess, post, after, properties);
+    }
+
+    /**
+     * Get names of targets called by an {@code antcall} task.
+     *
+     * @return target names, or {@code null} if the task is not an {@code antcall}
+     */
+    private static List<String> getCalledTargets(final Project project, final Task task) {
+        if (!(task instanceof UnknownElement) || !ANTCALL.equals(((UnknownElement) task).getTag())) {
+            return null;
+        }
+        final RuntimeConfigurable antcall = task.getRuntimeConfigurableWrapper();
+        final List<String> res = new ArrayList<>();
+        final Object target = antcall.getAttributeMap().get("target");
+        if (target != null) {
+            res.add(project.replaceProperties(target.toString()));
+        }
+        for (final Enumeration<RuntimeConfigurable> e = antcall.getChildren(); e.hasMoreElements(); ) {
+            final RuntimeConfigurable child = e.nextElement();
+            if (child.getElementTag().equals("target")) {
+                res.add(project.replaceProperties(String.valueOf(child.getAttributeMap().get("name"))));
+            }
+        }
+        return res;
+    }
+
+    private static void collectProperties(final Target target, final Set<String> properties) {
+        addName(target.getIf(), properties);
+        addName(target.getUnless(), properties);
+        for (final Task task : target.getTasks()) {
+            collectProperties(task.getRuntimeConfigurableWrapper(), properties);
+        }
+    }
+
+    private static void collectProperties(final RuntimeConfigurable element, final Set<String> properties) {
+        // transtype parameters of modules and stylesheets are compared by preprocessing type
+        final boolean transtypeParam = element.getElementTag().equals("param")
+                && TRANSTYPE.equalsIgnoreCase(String.valueOf(element.getAttributeMap().get("name")));
+        for (final Map.Entry<String, Object> attr : element.getAttributeMap().entrySet()) {
+            final String value = String.valueOf(attr.getValue());
+            final String name = attr.getKey();
+            if (transtypeParam && (name.equals("value") || name.equals("expression"))) {
+                continue;
+            }
+            if (name.equals("property") || name.equals("if") || name.equals("unless")
+                    || name.contains("if:") || name.contains("unless:")) {
+                addName(value, properties);
+            }
+            addReferences(value, properties);
+        }
+        addReferences(element.getText().toString(), properties);
+        for (final Enumeration<RuntimeConfigurable> e = element.getChildren(); e.hasMoreElements(); ) {
+            collectProperties(e.nextElement(), properties);
+        }
+    }
+
+    private static void addName(final String name, final Set<String> properties) {
+        if (name != null && !name.isEmpty()) {
+            if (name.contains("${")) {
+                addReferences(name, properties);
+            } else {
+                properties.add(name);
+            }
+        }
+    }
+
+    private static void addReferences(final String value, final Set<String> properties) {
+        final Matcher m = PROPERTY_REFERENCE.matcher(value);
+        while (m.find()) {
+            properties.add(m.group(1));
+        }
+    }
+
+    /**
+     * Get key of preprocessing result. Builds with equal keys produce the same preprocessing result, apart from
+     * the temporary and output directory locations.
+     *
+     * @param project Ant project after initialization targets have been run
+     * @return preprocessing key
+     */
+    Map<String, String> getKey(final Project project) {
+        final File tempDir = new File(project.getProperty(ANT_TEMP_DIR));
+        final File outputDir = new File(project.getProperty(OUTPUT_DIR));
+        final Map<String, String> res = new TreeMap<>();
+        res.put("", preprocessTarget);
+        res.put(TRANSTYPE, getPreprocessType(project.getProperty(TRANSTYPE)));
+        for (final String name : properties) {
+            final String value = project.getProperty(name);
+            if (value != null) {
+                res.put(name, rebase(rebase(value, tempDir, TEMP_DIR_TOKEN), outputDir, OUTPUT_DIR_TOKEN));
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Get the preprocessing type of a transtype. Core preprocessing modules and stylesheets only test for Eclipse
+     * Help and print transtypes.
+     *
+     * @param transtype transtype name
+     * @return {@code eclipsehelp}, or a token for print and other transtypes
+     */
+    static String getPreprocessType(final String transtype) {
+        if (transtype.equals(INDEX_TYPE_ECLIPSEHELP)) {
+            return transtype;
+        }
+        return printTranstype.contains(transtype) ? PRINT_TYPE : OTHER_TYPE;
+    }
+
+    /**
+     * Get properties added or changed between two snapshots of project properties.
+     */
+    static Map<String, String> diff(final Map<String, Object> before, final Map<String, Object> after) {
+        final Map<String, String> res = new HashMap<>();
+        for (final Map.Entry<String, Object> e : after.entrySet()) {
+            if (!Objects.equals(before.get(e.getKey()), e.getValue())) {
+                res.put(e.getKey(), String.valueOf(e.getValue()));
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Replace directory path and URI in value.
+     *
+     * @param value value that may contain the directory path or URI
+     * @param dir directory to replace
+     * @param replacement replacement for both directory path and URI
+     * @return value with occurrences of the directory path and URI replaced
+     */
+    static String rebase(final String value, final File dir, final String replacement) {
+        return replace(replace(value, dir.getAbsolutePath(), replacement), toUri(dir), replacement);
+    }
+
+    /**
+     * Move directory path and URI in value to another directory.
+     *
+     * @param value value that may contain the directory path or URI
+     * @param dir directory to replace
+     * @param target directory to replace with
+     * @return value with occurrences of the directory path and URI replaced with the target directory
+     */
+    static String rebase(final String value, final File dir, final File target) {
+        return replace(replace(value, dir.getAbsolutePath(), target.getAbsolutePath()), toUri(dir), toUri(target));
+    }
+
+    /**
+     * Get directory URI without trailing slash, e.g. {@code file:/C:/temp} on Windows.
+     */
+    private static String toUri(final File dir) {
+        final String uri = dir.getAbsoluteFile().toURI().toString();
+        return uri.endsWith("/") ? uri.substring(0, uri.length() - 1) : uri;
+    }
+
+    private static String replace(final String value, final String path, final String replacement) {
+        if (!value.contains(path)) {
+            return value;
+        }
+        final StringBuilder buf = new StringBuilder();
+        int start = 0;
+        for (int i = value.indexOf(path); i != -1; i = value.indexOf(path, start)) {
+            final int end = i + path.length();
+            if (end == value.length() || isSeparator(value.charAt(end))) {
+                buf.append(value, start, i).append(replacement);
+            } else {
+                buf.append(value, start, end);
+            }
+            start = end;
+        }
+        return buf.append(value.substring(start)).toString();
+    }
+
+    private static boolean isSeparator(final char c) {
+        return c == '/' || c == File.separatorChar || c == File.pathSeparatorChar;
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2019 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+package org.dita.dost.log;
+
+import org.slf4j.helpers.MarkerIgnoringBase;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Logger that buffers messages in memory until they are replayed to another logger.
+ *
+ * <p>Used by parallel processing to keep log output in a deterministic order. Messages are formatted
+ * with {@link MessageFormat} when they are logged, same as {@link DITAOTAntLogger}.</p>
+ */
+public final class BufferingLogger extends MarkerIgnoringBase implements DITAOTLogger {
+
+    private static final long serialVersionUID = 2320446878391454819L;
+
+    private enum Level { TRACE, DEBUG, INFO, WARN, ERROR }
+
+    private static final class Message {
+        final Level level;
+        final String msg;
+        final Throwable t;
+
+        Message(final Level level, final String msg, final Throwable t) {
+            this.level = level;
+            this.msg = msg;
+            this.t = t;
+        }
+    }
+
+    private final List<Message> messages = new ArrayList<>();
+
+    /**
+     * Replay buffered messages to a logger and clear the buffer.
+     *
+     * @param logger logger to replay messages to
+     */
+    public synchronized void replay(final DITAOTLogger logger) {
+        for (final Message m : messages) {
+            switch (m.level) {
+                case TRACE:
+                    if (logger.isTraceEnabled()) {
+                        logger.trace(m.msg, m.t);
+                    }
+                    break;
+                case DEBUG:
+                    logger.debug(m.msg, m.t);
+                    break;
+                case INFO:
+                    logger.info(m.msg, m.t);
+                    break;
+                case WARN:
+                    logger.warn(m.msg, m.t);
+                    break;
+                case ERROR:
+                    logger.error(m.msg, m.t);
+                    break;
+            }
+        }
+        messages.clear();
+    }
+
+    private synchronized void log(final Level level, final String msg, final Throwable t) {
+        messages.add(new Message(level, msg, t));
+    }
+
+    @Override
+    public boolean isTraceEnabled() {
+        return true;
+    }
+
+    @Override
+    public void trace(final String msg) {
+        log(Level.TRACE, msg, null);
+    }
+
+    @Override
+    public void trace(final String format, final Object arg) {
+        log(Level.TRACE, MessageFormat.format(format, arg), null);
+    }
+
+    @Override
+    public void trace(final String format, final Object arg1, final Object arg2) {
+        log(Level.TRACE, MessageFormat.format(format, arg1, arg2), null);
+    }
+
+    @Override
+    public void trace(final String format, final Object... arguments) {
+        log(Level.TRACE, MessageFormat.format(format, arguments), null);
+    }
+
+    @Override
+    public void trace(final String msg, final Throwable t) {
+        log(Level.TRACE, msg, t);
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+        return true;
+    }
+
+    @Override
+    public void debug(final String msg) {
+        log(Level.DEBUG, msg, null);
+    }
+
+    @Override
+    public void debug(final String format, final Object arg) {
+        log(Level.DEBUG, MessageFormat.format(format, arg), null);
+    }
+
+    @Override
+    public void debug(final String format, final Object arg1, final Object arg2) {
+        log(Level.DEBUG, MessageFormat.format(format, arg1, arg2), null);
+    }
+
+    @Override
+    public void debug(final String format, final Object... arguments) {
+        log(Level.DEBUG, MessageFormat.format(format, arguments), null);
+    }
+
+    @Override
+    public void debug(final String msg, final Throwable t) {
+        log(Level.DEBUG, msg, t);
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return true;
+    }
+
+    @Override
+    public void info(final String msg) {
+        log(Level.INFO, msg, null);
+    }
+
+    @Override
+    public void info(final String format, final Object arg) {
+        log(Level.INFO, MessageFormat.format(format, arg), null);
+    }
+
+    @Override
+    public void info(final String format, final Object arg1, final Object arg2) {
+        log(Level.INFO, MessageFormat.format(format, arg1, arg2), null);
+    }
+
+    @Override
+    public void info(final String format, final Object... arguments) {
+        log(Level.INFO, MessageFormat.format(format, arguments), null);
+    }
+
+    @Override
+    public void info(final String msg, final Throwable t) {
+        log(Level.INFO, msg, t);
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+        return true;
+    }
+
+    @Override
+    public void warn(final String msg) {
+        log(Level.WARN, msg, null);
+    }
+
+    @Override
+    public void warn(final String format, final Object arg) {
+        log(Level.WARN, MessageFormat.format(format, arg), null);
+    }
+
+    @Override
+    public void warn(final String format, final Object arg1, final Object arg2) {
+        log(Level.WARN, MessageFormat.format(format, arg1, arg2), null);
+    }
+
+    @Override
+    public void warn(final String format, final Object... arguments) {
+        log(Level.WARN, MessageFormat.format(format, arguments), null);
+    }
+
+    @Override
+    public void warn(final String msg, final Throwable t) {
+        log(Level.WARN, msg, t);
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+        return true;
+    }
+
+    @Override
+    public void error(final String msg) {
+        log(Level.ERROR, msg, null);
+    }
+
+    @Override
+    public void error(final String format, final Object arg) {
+        log(Level.ERROR, MessageFormat.format(format, arg), null);
+    }
+
+    @Override
+    public void error(final String format, final Object arg1, final Object arg2) {
+        log(Level.ERROR, MessageFormat.format(format, arg1, arg2), null);
+    }
+
+    @Override
+    public void error(final String format, final Object... arguments) {
+        log(Level.ERROR, MessageFormat.format(format, arguments), null);
+    }
+
+    @Override
+    public void error(final String msg, final Throwable t) {
+        log(Level.ERROR, msg, t);
+    }
+
+}
@@ -52,4 +52,14 @@ public interface AbstractPipelineModule {
     default void setProcessingPipe(List<XmlFilterModule.FilterPair> pipe) {
     }
 
+    /**
+     * Test if module reads and writes documents in the temporary directory through the job document store.
+     * Documents in the store are written to disk before running modules that do not use the store.
+     *
+     * @return {@code true} if module uses the document store, otherwise {@code false}
+     */
+    default boolean usesDocumentStore() {
+        return false;
+    }
+
 }
@@ -23,15 +23,11 @@ import org.dita.dost.util.Job.FileInfo;
 import org.dita.dost.util.XMLUtils;
 import org.dita.dost.writer.ProfilingFilter;
 import org.w3c.dom.*;
-import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.XMLFilter;
 
 import javax.xml.namespace.QName;
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.transform.*;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
@@ -81,6 +77,11 @@ public class BranchFilterModule extends AbstractPipelineModuleImpl {
         xmlUtils = new XMLUtils();
     }
 
+    @Override
+    public boolean usesDocumentStore() {
+        return true;
+    }
+
     @Override
     public void setLogger(final DITAOTLogger logger) {
         super.setLogger(logger);
@@ -92,6 +93,7 @@ public class BranchFilterModule extends AbstractPipelineModuleImpl {
     public void setJob(final Job job) {
         super.setJob(job);
         ditaValReader.setJob(job);
+        xmlUtils.setDocumentStore(job.getDocumentStore());
         try {
             tempFileNameScheme = (TempFileNameScheme) Class.forName(job.getProperty("temp-file-name-scheme")).newInstance();
         } catch (InstantiationException | IllegalAccessException | ClassNotFoundException e) {
@@ -102,7 +104,7 @@ public class BranchFilterModule extends AbstractPipelineModuleImpl {
 
     @Override
     public AbstractPipelineOutput execute(final AbstractPipelineInput input) throws DITAOTException {
-        final Job.FileInfo in = job.getFileInfo(fi -> fi.isInput).iterator().next();
+        final Job.FileInfo in = job.getFileInfo(FileInfo.Flag.IS_INPUT).iterator().next();
         processMap(in.uri);
 
         try {
@@ -126,7 +128,7 @@ public class BranchFilterModule extends AbstractPipelineModuleImpl {
         final Document doc;
         try {
             logger.debug("Reading " + currentFile);
-            doc = builder.parse(new InputSource(currentFile.toString()));
+            doc = job.getDocumentCache().get(currentFile, builder);
         } catch (final SAXException | IOException e) {
             logger.error("Failed to parse " + currentFile, e);
             return;
@@ -144,21 +146,10 @@ public class BranchFilterModule extends AbstractPipelineModuleImpl {
         filterTopics(doc.getDocumentElement(), Collections.emptyList());
 
         logger.debug("Writing " + currentFile);
-        Result result = null;
         try {
-            Transformer serializer = TransformerFactory.newInstance().newTransformer();
-            result = new StreamResult(currentFile.toString());
-            serializer.transform(new DOMSource(doc), result);
-        } catch (final TransformerConfigurationException | TransformerFactoryConfigurationError e) {
-            throw new RuntimeException(e);
-        } catch (final TransformerException e) {
+            job.getDocumentCache().put(currentFile, doc);
+        } catch (final IOException e) {
             logger.error("Failed to serialize " + map.toString() + ": " + e.getMessage(), e);
-        } finally {
-            try {
-                close(result);
-            } catch (final IOException e) {
-                logger.error("Failed to close result stream for " + map.toString() + ": " + e.getMessage(), e);
-            }
         }
     }
 
@@ -12,7 +12,6 @@ import static org.apache.commons.io.FileUtils.*;
 import static org.dita.dost.util.Constants.*;
 import static org.dita.dost.util.URLUtils.*;
 import static org.dita.dost.util.FileUtils.*;
-import static org.dita.dost.util.XMLUtils.getDocumentBuilder;
 
 import java.io.File;
 import java.io.IOException;
@@ -20,7 +19,6 @@ import java.net.URI;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
-import javax.xml.parsers.DocumentBuilder;
 
 import org.dita.dost.exception.DITAOTException;
 import org.dita.dost.pipeline.AbstractPipelineInput;
@@ -69,7 +67,7 @@ final public class ChunkModule extends AbstractPipelineModuleImpl {
         }
 
         try {
-            final Job.FileInfo in = job.getFileInfo(fi -> fi.isInput).iterator().next();
+            final Job.FileInfo in = job.getFileInfo(FileInfo.Flag.IS_INPUT).iterator().next();
             final File mapFile = new File(job.tempDirURI.resolve(in.uri));
             if (transtype.equals(INDEX_TYPE_ECLIPSEHELP) && isEclipseMap(mapFile.toURI())) {
                 for (final FileInfo f : job.getFileInfo()) {
@@ -119,15 +117,16 @@ final public class ChunkModule extends AbstractPipelineModuleImpl {
      * @throws DITAOTException if reading ditamap fails
      */
     private boolean isEclipseMap(final URI mapFile) throws DITAOTException {
-        final DocumentBuilder builder = getDocumentBuilder();
-        Document doc;
+        final Document doc;
         try {
-            doc = builder.parse(mapFile.toString());
+            doc = job.getDocumentCache().get(mapFile);
         } catch (final SAXException | IOException e) {
             throw new DITAOTException("Failed to parse input map: " + e.getMessage(), e);
         }
         final Element root = doc.getDocumentElement();
-        return ECLIPSEMAP_PLUGIN.matches(root);
+        final boolean isEclipseMap = ECLIPSEMAP_PLUGIN.matches(root);
+        job.getDocumentCache().release(mapFile, doc);
+        return isEclipseMap;
     }
 
     /**
@@ -139,18 +138,65 @@ final public class ChunkModule extends AbstractPipelineModuleImpl {
         topicRefWriter.setJob(job);
         topicRefWriter.setChangeTable(changeTable);
         topicRefWriter.setup(conflictTable);
+        final Set<URI> rewrite = getReferencingFiles(changeTable, conflictTable);
+        int total = 0;
+        int rewritten = 0;
         try {
             for (final FileInfo f : job.getFileInfo()) {
                 if (ATTR_FORMAT_VALUE_DITA.equals(f.format) || ATTR_FORMAT_VALUE_DITAMAP.equals(f.format)) {
-                    topicRefWriter.setFixpath(relativePath2fix.get(f.uri));
-                    final File tmp = new File(job.tempDirURI.resolve(f.uri));
-                    topicRefWriter.write(tmp);
+                    total++;
+                    if (rewrite == null || rewrite.contains(f.uri)) {
+                        topicRefWriter.setFixpath(relativePath2fix.get(f.uri));
+                        final File tmp = new File(job.tempDirURI.resolve(f.uri));
+                        topicRefWriter.write(tmp);
+                        rewritten++;
+                    }
                 }
             }
         } catch (final DITAOTException ex) {
             logger.error(ex.getMessage(), ex);
         }
+        logger.debug("Updated links in " + rewritten + " of " + total + " files");
+
+    }
 
+    /**
+     * Get files that may refer to changed files. Files written by chunking, files not in the link index, maps,
+     * and topics whose links may have been changed by conref or keyref processing are always included.
+     *
+     * @return temporary file URIs, {@code null} if all files must be rewritten
+     */
+    private Set<URI> getReferencingFiles(final Map<URI, URI> changeTable, final Map<URI, URI> conflictTable) {
+        final LinkIndex linkIndex;
+        try {
+            linkIndex = LinkIndex.read(new File(job.tempDir, FILE_NAME_LINK_INDEX));
+        } catch (final IOException e) {
+            logger.warn(e.getMessage(), e);
+            return null;
+        }
+        if (linkIndex == null || !job.getFileInfo(FileInfo.Flag.IS_CONREF_PUSH).isEmpty()) {
+            return null;
+        }
+        final Set<URI> changed = new HashSet<>();
+        for (final Map.Entry<URI, URI> e : changeTable.entrySet()) {
+            changed.add(job.tempDirURI.relativize(stripFragment(e.getKey())));
+            changed.add(job.tempDirURI.relativize(stripFragment(e.getValue())));
+        }
+        for (final URI target : conflictTable.values()) {
+            changed.add(job.tempDirURI.relativize(stripFragment(target)));
+        }
+        final Set<URI> res = new HashSet<>(changed);
+        for (final URI target : changed) {
+            res.addAll(linkIndex.getSources(target));
+        }
+        res.addAll(relativePath2fix.keySet());
+        for (final FileInfo f : job.getFileInfo()) {
+            if (!linkIndex.contains(f.uri) || f.hasConref || f.hasKeyref
+                    || ATTR_FORMAT_VALUE_DITAMAP.equals(f.format)) {
+                res.add(f.uri);
+            }
+        }
+        return res;
     }
 
     /**
@@ -301,26 +347,34 @@ final public class ChunkModule extends AbstractPipelineModuleImpl {
             }
         }
 
+        // modified file info objects are re-added to update job index
         for (final URI file : topicList) {
             // FIXME
             final FileInfo ff = job.getOrCreateFileInfo(stripFragment(file));
             ff.format = ATTR_FORMAT_VALUE_DITA;
+            // chunking may have changed topic content
+            ff.firstTopicId = null;
+            job.add(ff);
         }
         for (final URI file : ditamapList) {
             final FileInfo ff = job.getOrCreateFileInfo(file);
             ff.format = ATTR_FORMAT_VALUE_DITAMAP;
+            job.add(ff);
         }
 
         for (final URI file : chunkedDitamapSet) {
             final FileInfo f = job.getOrCreateFileInfo(file);
             f.format = ATTR_FORMAT_VALUE_DITAMAP;
             f.isResourceOnly = false;
+            job.add(f);
         }
         for (final URI file : chunkedTopicSet) {
             // FIXME
             final FileInfo f = job.getOrCreateFileInfo(stripFragment(file));
             f.format = ATTR_FORMAT_VALUE_DITA;
             f.isResourceOnly = false;
+            f.firstTopicId = null;
+            job.add(f);
         }
 
         try {
@@ -102,7 +102,7 @@ public class CleanPreprocessModule extends AbstractPipelineModuleImpl {
         }
 
         // start map
-        final FileInfo start = job.getFileInfo(f -> f.isInput).iterator().next();
+        final FileInfo start = job.getFileInfo(FileInfo.Flag.IS_INPUT).iterator().next();
         if (start != null) {
             job.setInputMap(start.uri);
         }
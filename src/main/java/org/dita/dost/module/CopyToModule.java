@@ -92,7 +92,7 @@ public final class CopyToModule extends AbstractPipelineModuleImpl {
      * Process start map to read copy-to map and write unique topic references.
      */
     private void processMap() throws DITAOTException {
-        final URI in = job.tempDirURI.resolve(job.getFileInfo(fi -> fi.isInput).iterator().next().uri);
+        final URI in = job.tempDirURI.resolve(job.getFileInfo(Job.FileInfo.Flag.IS_INPUT).iterator().next().uri);
 
         final List<XMLFilter> pipe = getProcessingPipe(in);
 
@@ -169,7 +169,7 @@ public final class CopyToModule extends AbstractPipelineModuleImpl {
             if (new File(targetFile).exists()) {
                 logger.warn(MessageUtils.getMessage("DOTX064W", copytoTarget.getPath()).toString());
             } else {
-                final FileInfo input = job.getFileInfo(fi -> fi.isInput).iterator().next();
+                final FileInfo input = job.getFileInfo(Job.FileInfo.Flag.IS_INPUT).iterator().next();
                 final URI inputMapInTemp = job.tempDirURI.resolve(input.uri);
                 copyFileWithPIReplaced(srcFile, targetFile, copytoTarget, inputMapInTemp);
                 // add new file info into job
@@ -26,9 +26,8 @@ import javax.xml.namespace.QName;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.transform.Result;
 import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.SAXResult;
 import javax.xml.transform.sax.TransformerHandler;
 import javax.xml.transform.stream.StreamResult;
 
@@ -38,6 +37,7 @@ import org.dita.dost.module.GenMapAndTopicListModule.*;
 import org.dita.dost.pipeline.AbstractPipelineInput;
 import org.dita.dost.pipeline.AbstractPipelineOutput;
 import org.dita.dost.reader.DitaValReader;
+import org.dita.dost.reader.GrammarPoolManager;
 import org.dita.dost.reader.SubjectSchemeReader;
 import org.dita.dost.util.*;
 import org.dita.dost.writer.*;
@@ -76,10 +76,17 @@ public final class DebugAndFilterModule extends SourceReaderModule {
     private Map<URI, Set<URI>> dic;
     private SubjectSchemeReader subjectSchemeReader;
     private FilterUtils baseFilterUtils;
+    /** Subject scheme information cache, keyed by set of subject scheme files. */
+    private final Map<Set<URI>, SubjectSchemeInfo> subjectSchemeCache = new HashMap<>();
     private DitaWriterFilter ditaWriterFilter;
     private TopicFragmentFilter topicFragmentFilter;
     private TempFileNameScheme tempFileNameScheme;
 
+    @Override
+    public boolean usesDocumentStore() {
+        return true;
+    }
+
     @Override
     public void setJob(final Job job) {
         super.setJob(job);
@@ -103,6 +110,9 @@ public final class DebugAndFilterModule extends SourceReaderModule {
             job.getFileInfo().stream()
                     .filter(f -> isFormatDita(f.format) || ATTR_FORMAT_VALUE_DITAMAP.equals(f.format))
                     .forEach(this::processFile);
+            if (gramcache) {
+                GrammarPoolManager.logStatistics(logger);
+            }
 
             job.write();
         } catch (final RuntimeException e) {
@@ -129,21 +139,16 @@ public final class DebugAndFilterModule extends SourceReaderModule {
         }
         logger.info("Processing " + f.src + " to " + outputFile.toURI());
 
-        final Set<URI> schemaSet = dic.get(f.uri);
-        if (schemaSet != null && !schemaSet.isEmpty()) {
-            logger.debug("Loading subject schemes");
-            subjectSchemeReader.reset();
-            for (final URI schema : schemaSet) {
-                subjectSchemeReader.loadSubjectScheme(new File(job.tempDirURI.resolve(schema.getPath() + SUBJECT_SCHEME_EXTENSION)));
-            }
-            validateMap = subjectSchemeReader.getValidValuesMap();
-            defaultValueMap = subjectSchemeReader.getDefaultValueMap();
-        } else {
-            validateMap = Collections.emptyMap();
-            defaultValueMap = Collections.emptyMap();
+        final Set<URI> schemaSet = dic.getOrDefault(f.uri, Collections.emptySet());
+        SubjectSchemeInfo schemeInfo = subjectSchemeCache.get(schemaSet);
+        if (schemeInfo == null) {
+            schemeInfo = loadSubjectSchemes(schemaSet);
+            subjectSchemeCache.put(schemaSet, schemeInfo);
         }
+        validateMap = schemeInfo.validateMap;
+        defaultValueMap = schemeInfo.defaultValueMap;
         if (profilingEnabled) {
-            filterUtils = baseFilterUtils.refine(subjectSchemeReader.getSubjectSchemeMap());
+            filterUtils = schemeInfo.filterUtils;
         }
 
         InputSource in = null;
@@ -151,10 +156,9 @@ public final class DebugAndFilterModule extends SourceReaderModule {
         try {
             reader.setErrorHandler(new DITAOTXMLErrorHandler(currentFile.toString(), logger));
 
-            final TransformerFactory tf = TransformerFactory.newInstance();
-            final SAXTransformerFactory stf = (SAXTransformerFactory) tf;
-            final TransformerHandler serializer = stf.newTransformerHandler();
+            final TransformerHandler serializer = XMLUtils.newIdentityTransformerHandler();
 
+            final DocumentStore store = job.getDocumentStore();
             XMLReader parser = getXmlReader(f.format);
             XMLReader xmlSource = parser;
             for (final XMLFilter filter: getProcessingPipe(currentFile)) {
@@ -172,10 +176,20 @@ public final class DebugAndFilterModule extends SourceReaderModule {
             } catch (final SAXNotRecognizedException e) {}
 
             in = new InputSource(f.src.toString());
-            out = new StreamResult(new FileOutputStream(outputFile));
-            serializer.setResult(out);
+            final SaxEventBuffer buffer = store.accepts(outputFile.toURI()) ? new SaxEventBuffer() : null;
+            if (buffer != null) {
+                final SAXResult result = new SAXResult(buffer);
+                result.setLexicalHandler(buffer);
+                serializer.setResult(result);
+            } else {
+                out = new StreamResult(new FileOutputStream(outputFile));
+                serializer.setResult(out);
+            }
             xmlSource.setContentHandler(serializer);
             xmlSource.parse(new InputSource(f.src.toString()));
+            if (buffer != null) {
+                store.put(outputFile.toURI(), buffer);
+            }
         } catch (final RuntimeException e) {
             throw e;
         } catch (final Exception e) {
@@ -195,6 +209,45 @@ public final class DebugAndFilterModule extends SourceReaderModule {
 
         if (isFormatDita(f.format)) {
             f.format = ATTR_FORMAT_VALUE_DITA;
+            // re-add to update job index
+            job.add(f);
+        }
+    }
+
+    /**
+     * Load and combine subject schemes and refine base filter with them.
+     *
+     * @param schemaSet subject scheme files, may be empty
+     * @return combined subject scheme information
+     */
+    private SubjectSchemeInfo loadSubjectSchemes(final Set<URI> schemaSet) {
+        subjectSchemeReader.reset();
+        if (schemaSet.isEmpty()) {
+            return new SubjectSchemeInfo(Collections.emptyMap(), Collections.emptyMap(), baseFilterUtils);
+        }
+        logger.debug("Loading subject schemes");
+        for (final URI schema : schemaSet) {
+            subjectSchemeReader.loadSubjectScheme(new File(job.tempDirURI.resolve(schema.getPath() + SUBJECT_SCHEME_EXTENSION)));
+        }
+        return new SubjectSchemeInfo(
+                new HashMap<>(subjectSchemeReader.getValidValuesMap()),
+                new HashMap<>(subjectSchemeReader.getDefaultValueMap()),
+                profilingEnabled ? baseFilterUtils.refine(subjectSchemeReader.getSubjectSchemeMap()) : null);
+    }
+
+    /** Subject scheme information combined from a set of subject scheme files. */
+    private static final class SubjectSchemeInfo {
+        final Map<QName, Map<String, Set<String>>> validateMap;
+        final Map<QName, Map<String, String>> defaultValueMap;
+        /** Base filter refined with subject schemes, {@code null} if profiling is disabled */
+        final FilterUtils filterUtils;
+
+        SubjectSchemeInfo(final Map<QName, Map<String, Set<String>>> validateMap,
+                          final Map<QName, Map<String, String>> defaultValueMap,
+                          final FilterUtils filterUtils) {
+            this.validateMap = validateMap;
+            this.defaultValueMap = defaultValueMap;
+            this.filterUtils = filterUtils;
         }
     }
 
@@ -204,6 +257,7 @@ public final class DebugAndFilterModule extends SourceReaderModule {
         subjectSchemeReader = new SubjectSchemeReader();
         subjectSchemeReader.setLogger(logger);
         subjectSchemeReader.setJob(job);
+        subjectSchemeCache.clear();
         dic = SubjectSchemeReader.readMapFromXML(new File(job.tempDir, FILE_NAME_SUBJECT_DICTIONARY));
 
         if (profilingEnabled) {
@@ -483,8 +537,7 @@ public final class DebugAndFilterModule extends SourceReaderModule {
         try {
             res = new StreamResult(new FileOutputStream(filename));
             final DOMSource ds = new DOMSource(root);
-            final TransformerFactory tff = TransformerFactory.newInstance();
-            final Transformer tf = tff.newTransformer();
+            final Transformer tf = XMLUtils.getTransformerFactory().newTransformer();
             tf.transform(ds, res);
         } catch (final RuntimeException e) {
             throw e;
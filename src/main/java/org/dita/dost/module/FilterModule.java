@@ -15,6 +15,7 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 
@@ -95,6 +96,8 @@ final class FilterModule extends AbstractPipelineModuleImpl {
                     logger.info("All content in " + file.getAbsolutePath() + " was filtered out");
                     job.remove(f);
                     FileUtils.delete(file);
+                } else if (!Objects.equals(f.firstTopicId, writer.getFirstTopicId())) {
+                    job.add(new FileInfo.Builder(f).firstTopicId(writer.getFirstTopicId()).build());
                 }
             } catch (final Exception e) {
                 logger.error("Failed to profile " + file.getAbsolutePath() + ": " + e.getMessage());
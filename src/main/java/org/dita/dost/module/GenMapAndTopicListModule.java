@@ -101,10 +101,12 @@ public final class GenMapAndTopicListModule extends SourceReaderModule {
 
     /** List of files waiting for parsing. Values are absolute URI references. */
     private final Queue<Reference> waitList;
+    /** Set of files in wait list */
+    private final Set<URI> waitSet;
 
-    /** List of parsed files */
-    private final List<URI> doneList;
-    private final List<URI> failureList;
+    /** Set of parsed files */
+    private final Set<URI> doneList;
+    private final Set<URI> failureList;
 
     /** Set of outer dita files */
     private final Set<URI> outDitaFilesSet;
@@ -168,8 +170,9 @@ public final class GenMapAndTopicListModule extends SourceReaderModule {
         hrefTargetSet = new HashSet<>(128);
         coderefTargetSet = new HashSet<>(16);
         waitList = new LinkedList<>();
-        doneList = new LinkedList<>();
-        failureList = new LinkedList<>();
+        waitSet = new HashSet<>(128);
+        doneList = new HashSet<>(128);
+        failureList = new HashSet<>();
         conrefTargetSet = new HashSet<>(128);
         nonConrefCopytoTargetSet = new HashSet<>(128);
         outDitaFilesSet = new HashSet<>(128);
@@ -315,7 +318,9 @@ public final class GenMapAndTopicListModule extends SourceReaderModule {
 
     private void processWaitList() throws DITAOTException {
         while (!waitList.isEmpty()) {
-            processFile(waitList.remove());
+            final Reference ref = waitList.remove();
+            waitSet.remove(ref.filename);
+            processFile(ref);
         }
     }
 
@@ -605,11 +610,12 @@ public final class GenMapAndTopicListModule extends SourceReaderModule {
     private void addToWaitList(final Reference ref) {
         final URI file = ref.filename;
         assert file.isAbsolute() && file.getFragment() == null;
-        if (doneList.contains(file) || waitList.contains(ref) || file.equals(currentFile)) {
+        if (doneList.contains(file) || waitSet.contains(file) || file.equals(currentFile)) {
             return;
         }
 
         waitList.add(ref);
+        waitSet.add(file);
     }
 
     /**
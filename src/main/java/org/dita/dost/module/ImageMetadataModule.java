@@ -12,6 +12,7 @@ import static org.dita.dost.util.Constants.*;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.function.Predicate;
 
@@ -46,7 +47,8 @@ final class ImageMetadataModule extends AbstractPipelineModuleImpl {
         if (logger == null) {
             throw new IllegalStateException("Logger not set");
         }
-        final Collection<FileInfo> images = job.getFileInfo(f -> ATTR_FORMAT_VALUE_IMAGE.equals(f.format) || ATTR_FORMAT_VALUE_HTML.equals(f.format));
+        final Collection<FileInfo> images = new ArrayList<>(job.getFileInfoByFormat(ATTR_FORMAT_VALUE_IMAGE));
+        images.addAll(job.getFileInfoByFormat(ATTR_FORMAT_VALUE_HTML));
         if (!images.isEmpty()) {
             final File outputDir = new File(input.getAttribute(ANT_INVOKER_EXT_PARAM_OUTPUTDIR));
             final ImageMetadataFilter writer = new ImageMetadataFilter(outputDir, job);
@@ -70,6 +70,7 @@ public class IndexTermExtractModule extends AbstractPipelineModuleImpl {
         }
         indexTermCollection = new IndexTermCollection();
         indexTermCollection.setLogger(logger);
+        IndexTerm.setTermLocale(null);
         try {
             parseAndValidateInput(input);
             extractIndexTerm();
@@ -79,6 +80,8 @@ public class IndexTermExtractModule extends AbstractPipelineModuleImpl {
             throw e;
         } catch (final Exception e) {
             logger.error(e.getMessage(), e) ;
+        } finally {
+            IndexTerm.setTermLocale(null);
         }
 
         return null;
@@ -93,7 +96,7 @@ public class IndexTermExtractModule extends AbstractPipelineModuleImpl {
         final String encoding = input.getAttribute(ANT_INVOKER_EXT_PARAM_ENCODING);
         final String indextype = input.getAttribute(ANT_INVOKER_EXT_PARAM_INDEXTYPE);
         final String indexclass = input.getAttribute(ANT_INVOKER_EXT_PARAM_INDEXCLASS);
-        final FileInfo in = job.getFileInfo(fi -> fi.isInput).iterator().next();
+        final FileInfo in = job.getFileInfo(FileInfo.Flag.IS_INPUT).iterator().next();
         inputMap = new File(job.tempDirURI.resolve(in.uri));
         targetExt = input.getAttribute(ANT_INVOKER_EXT_PARAM_TARGETEXT);
 
@@ -141,7 +144,7 @@ public class IndexTermExtractModule extends AbstractPipelineModuleImpl {
         try {
             xmlReader.setContentHandler(handler);
 
-            final FileInfo fileInfo = job.getFileInfo(f -> f.isInput).iterator().next();
+            final FileInfo fileInfo = job.getFileInfo(FileInfo.Flag.IS_INPUT).iterator().next();
             final URI tempInputMap = job.tempDirURI.resolve(fileInfo.uri);
             for (final URI aTopicList : topicList) {
                 URI target;
@@ -19,9 +19,10 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.util.*;
-import java.util.function.Function;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
 
+import org.dita.dost.log.BufferingLogger;
 import org.dita.dost.log.DITAOTLogger;
 import org.dita.dost.module.GenMapAndTopicListModule.TempFileNameScheme;
 import org.dita.dost.util.*;
@@ -30,7 +31,6 @@ import org.w3c.dom.Attr;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
-import org.xml.sax.InputSource;
 import org.xml.sax.XMLFilter;
 import org.dita.dost.exception.DITAOTException;
 import org.dita.dost.pipeline.AbstractPipelineInput;
@@ -39,13 +39,12 @@ import org.dita.dost.reader.KeyrefReader;
 import org.dita.dost.writer.ConkeyrefFilter;
 import org.dita.dost.writer.KeyrefPaser;
 
-import javax.xml.transform.*;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
-
 /**
  * Keyref ModuleElem.
  *
+ * <p>With the {@code parallel} parameter, topics are processed concurrently. Copies of multiply referenced
+ * topics are written before any topic is rewritten in place, and tasks that write the same file are run
+ * sequentially. Log messages and job updates are applied in task order.</p>
  */
 final class KeyrefModule extends AbstractPipelineModuleImpl {
 
@@ -53,14 +52,19 @@ final class KeyrefModule extends AbstractPipelineModuleImpl {
     /** Delayed conref utils. */
     private DelayConrefUtils delayConrefUtils;
     private String transtype;
-    final Set<URI> normalProcessingRole = new HashSet<>();
+    final Set<URI> normalProcessingRole = new LinkedHashSet<>();
     final Map<URI, Integer> usage = new HashMap<>();
     private TopicFragmentFilter topicFragmentFilter;
     private final XMLUtils xmlUtils = new XMLUtils();
+    /** Process topics in parallel. */
+    private boolean parallel;
+    /** Number of worker threads used in parallel processing. */
+    private int threads = Runtime.getRuntime().availableProcessors();
 
     @Override
     public void setJob(final Job job) {
         super.setJob(job);
+        xmlUtils.setDocumentStore(job.getDocumentStore());
         try {
             tempFileNameScheme = (TempFileNameScheme) Class.forName(job.getProperty("temp-file-name-scheme")).newInstance();
         } catch (InstantiationException | IllegalAccessException | ClassNotFoundException e) {
@@ -69,6 +73,11 @@ final class KeyrefModule extends AbstractPipelineModuleImpl {
         tempFileNameScheme.setBaseDir(job.getInputDir());
     }
 
+    @Override
+    public boolean usesDocumentStore() {
+        return true;
+    }
+
     @Override
     public void setLogger(final DITAOTLogger logger) {
         super.setLogger(logger);
@@ -107,7 +116,7 @@ final class KeyrefModule extends AbstractPipelineModuleImpl {
 
             final KeyrefReader reader = new KeyrefReader();
             reader.setLogger(logger);
-            final Job.FileInfo in = job.getFileInfo(fi -> fi.isInput).iterator().next();
+            final Job.FileInfo in = job.getFileInfo(Job.FileInfo.Flag.IS_INPUT).iterator().next();
             final URI mapFile = in.uri;
             logger.info("Reading " + job.tempDirURI.resolve(mapFile).toString());
             reader.read(job.tempDirURI.resolve(mapFile), doc);
@@ -118,14 +127,20 @@ final class KeyrefModule extends AbstractPipelineModuleImpl {
 
             transtype = input.getAttribute(ANT_INVOKER_EXT_PARAM_TRANSTYPE);
             delayConrefUtils = transtype.equals(INDEX_TYPE_ECLIPSEHELP) ? new DelayConrefUtils() : null;
-            for (final ResolveTask r: jobs) {
-                if (r.out != null) {
-                    processFile(r);
+            parseParallelParameters(input.getAttribute(ANT_INVOKER_EXT_PARAM_PARALLEL),
+                    input.getAttribute(ANT_INVOKER_EXT_PARAM_THREADS));
+            final List<ResolveTask> copies = jobs.stream().filter(r -> r.out != null).collect(Collectors.toList());
+            final List<ResolveTask> rewrites = jobs.stream().filter(r -> r.out == null).collect(Collectors.toList());
+            if (parallel && threads > 1) {
+                // copies read the original topics, so they must be written before topics are rewritten in place
+                processFilesParallel(copies);
+                processFilesParallel(rewrites);
+            } else {
+                for (final ResolveTask r: copies) {
+                    normalProcessingRole.addAll(processFile(r, logger, xmlUtils, topicFragmentFilter, delayConrefUtils));
                 }
-            }
-            for (final ResolveTask r: jobs) {
-                if (r.out == null) {
-                    processFile(r);
+                for (final ResolveTask r: rewrites) {
+                    normalProcessingRole.addAll(processFile(r, logger, xmlUtils, topicFragmentFilter, delayConrefUtils));
                 }
             }
 
@@ -151,10 +166,81 @@ final class KeyrefModule extends AbstractPipelineModuleImpl {
         topicFragmentFilter = new TopicFragmentFilter(ATTRIBUTE_NAME_CONREF, ATTRIBUTE_NAME_CONREFEND);
     }
 
+    private void parseParallelParameters(final String p, final String t) {
+        parallel = Boolean.parseBoolean(p);
+        if (t != null) {
+            threads = Integer.parseInt(t);
+            if (threads < 1) {
+                throw new IllegalArgumentException("Number of threads must be positive: " + threads);
+            }
+        }
+    }
+
+    /**
+     * Process resolve tasks with a pool of worker threads. Tasks that write the same file are run sequentially
+     * in one worker. Buffered log messages and normal processing role targets are merged in task order.
+     */
+    private void processFilesParallel(final List<ResolveTask> tasks) throws DITAOTException {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        final Map<URI, List<ResolveTask>> groups = tasks.stream()
+                .collect(Collectors.groupingBy(r -> r.out != null ? r.out.uri : r.in.uri,
+                        LinkedHashMap::new, Collectors.toList()));
+        final ThreadLocal<DelayConrefUtils> workerDelayConrefUtils =
+                ThreadLocal.withInitial(() -> delayConrefUtils != null ? new DelayConrefUtils() : null);
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, groups.size()));
+        try {
+            final List<BufferingLogger> buffers = new ArrayList<>(groups.size());
+            final List<Future<Set<URI>>> futures = new ArrayList<>(groups.size());
+            for (final List<ResolveTask> group : groups.values()) {
+                final BufferingLogger buffer = new BufferingLogger();
+                buffers.add(buffer);
+                futures.add(executor.submit(() -> {
+                    final XMLUtils utils = new XMLUtils();
+                    utils.setLogger(buffer);
+                    final TopicFragmentFilter filter = new TopicFragmentFilter(ATTRIBUTE_NAME_CONREF, ATTRIBUTE_NAME_CONREFEND);
+                    final Set<URI> targets = new LinkedHashSet<>();
+                    for (final ResolveTask r : group) {
+                        targets.addAll(processFile(r, buffer, utils, filter, workerDelayConrefUtils.get()));
+                    }
+                    return targets;
+                }));
+            }
+            final List<Throwable> errors = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    normalProcessingRole.addAll(futures.get(i).get());
+                } catch (final ExecutionException e) {
+                    errors.add(e.getCause());
+                } finally {
+                    buffers.get(i).replay(logger);
+                }
+            }
+            if (!errors.isEmpty()) {
+                final Throwable first = errors.get(0);
+                for (final Throwable e : errors.subList(1, errors.size())) {
+                    first.addSuppressed(e);
+                }
+                if (first instanceof RuntimeException) {
+                    throw (RuntimeException) first;
+                } else if (first instanceof Error) {
+                    throw (Error) first;
+                }
+                throw new DITAOTException("Failed to process key references: " + first.getMessage(), first);
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DITAOTException("Interrupted while processing key references", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     /** Collect topics for key reference processing and modify map to reflect new file names. */
     private List<ResolveTask> collectProcessingTopics(final Collection<FileInfo> fis, final KeyScope rootScope, final Document doc) {
         final List<ResolveTask> res = new ArrayList<>();
-        final FileInfo input = job.getFileInfo(fi -> fi.isInput).iterator().next();
+        final FileInfo input = job.getFileInfo(Job.FileInfo.Flag.IS_INPUT).iterator().next();
         res.add(new ResolveTask(rootScope, input, null));
         // Collect topics from map and rewrite topicrefs for duplicates
         walkMap(doc.getDocumentElement(), rootScope, res);
@@ -177,22 +263,19 @@ final class KeyrefModule extends AbstractPipelineModuleImpl {
 
     /** Remove duplicate sources within the same scope */
     private List<ResolveTask> removeDuplicateResolveTargets(List<ResolveTask> renames) {
-        return renames.stream()
-                .collect(Collectors.groupingBy(
-                        rt -> rt.scope,
-                        Collectors.toMap(
-                                rt -> rt.in.uri,
-                                Function.identity(),
-                                (rt1, rt2) -> rt1
-                        )
-                )).values().stream()
+        final Map<KeyScope, Map<URI, ResolveTask>> index = new LinkedHashMap<>();
+        for (final ResolveTask rt : renames) {
+            index.computeIfAbsent(rt.scope, s -> new LinkedHashMap<>()).putIfAbsent(rt.in.uri, rt);
+        }
+        return index.values().stream()
                 .flatMap(m -> m.values().stream())
                 .collect(Collectors.toList());
     }
 
     /** Adjust key targets per rewrites */
     List<ResolveTask> adjustResourceRenames(final List<ResolveTask> renames) {
-        final Map<KeyScope, List<ResolveTask>> scopes = renames.stream().collect(Collectors.groupingBy(rt -> rt.scope));
+        final Map<KeyScope, List<ResolveTask>> scopes = renames.stream()
+                .collect(Collectors.groupingBy(rt -> rt.scope, LinkedHashMap::new, Collectors.toList()));
 
         final List<ResolveTask> res = new ArrayList<>();
         for (final Map.Entry<KeyScope, List<ResolveTask>> group : scopes.entrySet()) {
@@ -247,6 +330,20 @@ final class KeyrefModule extends AbstractPipelineModuleImpl {
 
     /** Recursively walk map and process topics that have keyrefs. */
     void walkMap(final Element elem, final KeyScope scope, final List<ResolveTask> res) {
+        final Map<KeyScope, Map<URI, ResolveTask>> index = new HashMap<>();
+        for (final ResolveTask rt : res) {
+            index.computeIfAbsent(rt.scope, s -> new HashMap<>()).putIfAbsent(rt.in.uri, rt);
+        }
+        walkMap(elem, scope, res, index);
+    }
+
+    /**
+     * Recursively walk map and process topics that have keyrefs.
+     *
+     * @param index resolve tasks in {@code res} by scope and source URI
+     */
+    private void walkMap(final Element elem, final KeyScope scope, final List<ResolveTask> res,
+                         final Map<KeyScope, Map<URI, ResolveTask>> index) {
         List<KeyScope> ss = Collections.singletonList(scope);
         if (elem.getAttributeNode(ATTRIBUTE_NAME_KEYSCOPE) != null) {
             ss = new ArrayList<>();
@@ -270,16 +367,17 @@ final class KeyrefModule extends AbstractPipelineModuleImpl {
                 final FileInfo fi = job.getFileInfo(href);
                 if (fi != null && fi.hasKeyref) {
                     final int count = usage.getOrDefault(fi.uri, 0);
-                    final Optional<ResolveTask> existing = res.stream().filter(rt -> rt.scope.equals(s) && rt.in.uri.equals(fi.uri)).findAny();
-                    if (count != 0 && existing.isPresent()) {
-                        final ResolveTask resolveTask = existing.get();
-                        if (resolveTask.out != null) {
-                            final URI value = tempFileNameScheme.generateTempFileName(resolveTask.out.result);
+                    final Map<URI, ResolveTask> scopeTasks = index.computeIfAbsent(s, k -> new HashMap<>());
+                    final ResolveTask existing = scopeTasks.get(fi.uri);
+                    if (count != 0 && existing != null) {
+                        if (existing.out != null) {
+                            final URI value = tempFileNameScheme.generateTempFileName(existing.out.result);
                             hrefNode.setValue(value.toString());
                         }
                     } else {
                         final ResolveTask resolveTask = processTopic(fi, s, isResourceOnly);
                         res.add(resolveTask);
+                        scopeTasks.putIfAbsent(fi.uri, resolveTask);
                         final Integer used = usage.get(fi.uri);
                         if (used > 1) {
                             final URI value = tempFileNameScheme.generateTempFileName(resolveTask.out.result);
@@ -289,7 +387,7 @@ final class KeyrefModule extends AbstractPipelineModuleImpl {
                 }
             }
             for (final Element child : getChildElements(elem, MAP_TOPICREF)) {
-                walkMap(child, s, res);
+                walkMap(child, s, res, index);
             }
         }
     }
@@ -336,8 +434,11 @@ final class KeyrefModule extends AbstractPipelineModuleImpl {
     /**
      * Process key references in a topic. Topic is stored with a new name if it's
      * been processed before.
+     *
+     * @return normal processing role targets found in the topic
      */
-    private void processFile(final ResolveTask r) {
+    private Set<URI> processFile(final ResolveTask r, final DITAOTLogger logger, final XMLUtils xmlUtils,
+                                 final TopicFragmentFilter topicFragmentFilter, final DelayConrefUtils delayConrefUtils) {
         final List<XMLFilter> filters = new ArrayList<>();
 
         final ConkeyrefFilter conkeyrefFilter = new ConkeyrefFilter();
@@ -370,9 +471,10 @@ final class KeyrefModule extends AbstractPipelineModuleImpl {
                 xmlUtils.transform(new File(job.tempDir, r.in.file.getPath()), filters);
             }
             // validate resource-only list
-            normalProcessingRole.addAll(parser.getNormalProcessingRoleTargets());
+            return parser.getNormalProcessingRoleTargets();
         } catch (final DITAOTException e) {
             logger.error("Failed to process key references: " + e.getMessage(), e);
+            return Collections.emptySet();
         }
     }
 
@@ -390,39 +492,20 @@ final class KeyrefModule extends AbstractPipelineModuleImpl {
     }
 
     private Document readMap() throws DITAOTException {
-        InputSource in = null;
         try {
-            final FileInfo input = job.getFileInfo(fi -> fi.isInput).iterator().next();
-            in = new InputSource(job.tempDirURI.resolve(input.uri).toString());
-            return XMLUtils.getDocumentBuilder().parse(in);
+            final FileInfo input = job.getFileInfo(Job.FileInfo.Flag.IS_INPUT).iterator().next();
+            return job.getDocumentCache().get(job.tempDirURI.resolve(input.uri));
         } catch (final Exception e) {
             throw new DITAOTException("Failed to parse map: " + e.getMessage(), e);
-        } finally {
-            try {
-                close(in);
-            } catch (IOException e) {
-                logger.error("Failed to close input: " + e.getMessage(), e);
-            }
         }
     }
 
     private void writeMap(final Document doc) throws DITAOTException {
-        Result out = null;
         try {
-            final Transformer transformer = TransformerFactory.newInstance().newTransformer();
-            final FileInfo in = job.getFileInfo(fi -> fi.isInput).iterator().next();
-            out = new StreamResult(job.tempDirURI.resolve(in.uri).toString());
-            transformer.transform(new DOMSource(doc), out);
-        } catch (final TransformerConfigurationException e) {
-            throw new RuntimeException(e);
-        } catch (final TransformerException e) {
-            throw new DITAOTException("Failed to write map: " + e.getMessageAndLocation(), e);
-        } finally {
-            try {
-                close(out);
-            } catch (IOException e) {
-                logger.error("Failed to close result: " + e.getMessage(), e);
-            }
+            final FileInfo in = job.getFileInfo(Job.FileInfo.Flag.IS_INPUT).iterator().next();
+            job.getDocumentCache().put(job.tempDirURI.resolve(in.uri), doc);
+        } catch (final IOException e) {
+            throw new DITAOTException("Failed to write map: " + e.getMessage(), e);
         }
     }
 
@@ -49,7 +49,7 @@ final class MoveLinksModule extends AbstractPipelineModuleImpl {
      */
     @Override
     public AbstractPipelineOutput execute(final AbstractPipelineInput input) throws DITAOTException {
-        final FileInfo fi = job.getFileInfo(f -> f.isInput).iterator().next();
+        final FileInfo fi = job.getFileInfo(FileInfo.Flag.IS_INPUT).iterator().next();
         if (!ATTR_FORMAT_VALUE_DITAMAP.equals(fi.format)) {
             return null;
         }
@@ -58,7 +58,7 @@ final class MoveMetaModule extends AbstractPipelineModuleImpl {
      */
     @Override
     public AbstractPipelineOutput execute(final AbstractPipelineInput input) throws DITAOTException {
-        final Collection<FileInfo> fis = job.getFileInfo(fi -> fi.isInput);
+        final Collection<FileInfo> fis = job.getFileInfo(FileInfo.Flag.IS_INPUT);
         if (!fis.isEmpty()) {
             final Map<URI, Map<String, Element>> mapSet = getMapMetadata(fis);
             pushMetadata(mapSet);
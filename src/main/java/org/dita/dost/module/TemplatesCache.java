@@ -0,0 +1,257 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2019 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+package org.dita.dost.module;
+
+import org.apache.tools.ant.types.Path;
+import org.apache.tools.ant.types.XMLCatalog;
+import org.dita.dost.log.DITAOTLogger;
+
+import javax.xml.transform.*;
+import javax.xml.transform.stream.StreamSource;
+import java.io.File;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.*;
+import java.util.function.Supplier;
+
+import static org.dita.dost.util.Configuration.configuration;
+
+/**
+ * Process-wide cache of compiled stylesheets.
+ *
+ * <p>Entries are keyed by stylesheet URI and catalog files, because imported and included modules are resolved with
+ * the catalog the stylesheet was compiled with. Stylesheets are only cached when compiled without a URI resolver or
+ * with an {@link XMLCatalog} that uses catalog files; nested catalog entries are not part of the key. The catalog
+ * object itself belongs to an Ant project and is not retained. Entries are valid as long as the last modification
+ * time of the stylesheet, the catalog files, and every module the stylesheet imports or includes is unchanged. Only
+ * modules resolved to local files are tracked. The least recently used entry is evicted when the cache is full.</p>
+ */
+final class TemplatesCache {
+
+    private static final String CONF_STYLESHEET_CACHE_SIZE = "stylesheet-cache-size";
+    private static final int DEFAULT_SIZE = 32;
+
+    static final TemplatesCache INSTANCE = new TemplatesCache(
+            Integer.parseInt(configuration.getOrDefault(CONF_STYLESHEET_CACHE_SIZE, Integer.toString(DEFAULT_SIZE))));
+
+    private static final class Entry {
+        final Templates templates;
+        final Map<File, Long> modules;
+
+        Entry(final Templates templates, final Map<File, Long> modules) {
+            this.templates = templates;
+            this.modules = modules;
+        }
+
+        boolean isValid() {
+            for (final Map.Entry<File, Long> module : modules.entrySet()) {
+                if (module.getKey().lastModified() != module.getValue()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /** Cache key of stylesheet URI and catalog files. */
+    private static final class Key {
+        final URI style;
+        final List<File> catalogs;
+
+        Key(final URI style, final List<File> catalogs) {
+            this.style = style;
+            this.catalogs = catalogs;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final Key key = (Key) o;
+            return style.equals(key.style) && catalogs.equals(key.catalogs);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * style.hashCode() + catalogs.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return style.toString();
+        }
+    }
+
+    private final int maxSize;
+    private final Map<Key, Entry> cache;
+    private long hits;
+    private long misses;
+
+    /**
+     * Create new cache.
+     *
+     * @param maxSize maximum number of cached stylesheets, {@code 0} to disable caching
+     */
+    TemplatesCache(final int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Cache size must not be negative: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.cache = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 2212199680696465136L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, Entry> eldest) {
+                return size() > TemplatesCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Get compiled stylesheet, compiling it if it is not cached or any of its modules has changed.
+     *
+     * @param style stylesheet file
+     * @param uriResolver URI resolver used to resolve imported and included modules, may be {@code null}
+     * @param factory factory for transformer factory used to compile the stylesheet
+     * @param logger logger for cache statistics
+     * @return compiled stylesheet
+     * @throws TransformerConfigurationException if compiling the stylesheet failed
+     */
+    Templates get(final File style, final URIResolver uriResolver, final Supplier<TransformerFactory> factory,
+                  final DITAOTLogger logger) throws TransformerConfigurationException {
+        final List<File> catalogs = getCatalogs(uriResolver);
+        if (catalogs == null) {
+            logger.debug("Stylesheet cache not used for " + style + ", URI resolver is not a catalog");
+            return compile(style.getAbsoluteFile(), uriResolver, factory, new HashMap<>());
+        }
+        final Key key = new Key(style.getAbsoluteFile().toURI(), catalogs);
+        synchronized (this) {
+            final Entry entry = cache.get(key);
+            if (entry != null && entry.isValid()) {
+                hits++;
+                logger.debug("Stylesheet cache hit for " + key + " (hits " + hits + ", misses " + misses + ")");
+                return entry.templates;
+            }
+            misses++;
+            logger.debug("Stylesheet cache miss for " + key + " (hits " + hits + ", misses " + misses + ")");
+        }
+
+        final Map<File, Long> modules = new HashMap<>();
+        for (final File catalog : catalogs) {
+            modules.put(catalog, catalog.lastModified());
+        }
+        final Templates templates = compile(new File(key.style), uriResolver, factory, modules);
+
+        synchronized (this) {
+            cache.put(key, new Entry(templates, modules));
+        }
+        return templates;
+    }
+
+    /**
+     * Compile stylesheet and record modification times of the stylesheet and its modules. The URI resolver is only
+     * used during compilation and is not referenced by the compiled stylesheet.
+     */
+    private static Templates compile(final File file, final URIResolver uriResolver,
+                                     final Supplier<TransformerFactory> factory, final Map<File, Long> modules)
+            throws TransformerConfigurationException {
+        modules.put(file, file.lastModified());
+        final CompileResolver resolver = new CompileResolver(uriResolver, modules);
+        final TransformerFactory tf = factory.get();
+        tf.setURIResolver(resolver);
+        try {
+            return tf.newTemplates(new StreamSource(file));
+        } finally {
+            resolver.close();
+            tf.setURIResolver(null);
+        }
+    }
+
+    /**
+     * Get catalog files of a URI resolver.
+     *
+     * @param uriResolver URI resolver, may be {@code null}
+     * @return absolute catalog files, empty if resolver is {@code null}, or {@code null} if resolver is not a catalog
+     *         with catalog files
+     */
+    private static List<File> getCatalogs(final URIResolver uriResolver) {
+        if (uriResolver == null) {
+            return Collections.emptyList();
+        } else if (uriResolver instanceof XMLCatalog) {
+            final Path path = ((XMLCatalog) uriResolver).getCatalogPath();
+            if (path == null || path.size() == 0) {
+                return null;
+            }
+            final List<File> res = new ArrayList<>();
+            for (final String catalog : path.list()) {
+                res.add(new File(catalog).getAbsoluteFile());
+            }
+            return res;
+        }
+        return null;
+    }
+
+    /**
+     * Record modification time of a resolved stylesheet module.
+     */
+    private static void track(final String systemId, final String href, final String base,
+                              final Map<File, Long> modules) {
+        try {
+            final URI uri = systemId != null ? new URI(systemId)
+                    : base != null ? new URI(base).resolve(new URI(href))
+                    : new URI(href);
+            if ("file".equals(uri.getScheme())) {
+                final File module = new File(uri);
+                modules.put(module, module.lastModified());
+            }
+        } catch (final URISyntaxException | IllegalArgumentException e) {
+            // not a local file, assume module does not change
+        }
+    }
+
+    /**
+     * URI resolver used during compilation. The delegate is released after compilation, so that compiled stylesheets
+     * do not keep it reachable through the transformer factory configuration.
+     */
+    private static final class CompileResolver implements URIResolver {
+        private URIResolver uriResolver;
+        private final Map<File, Long> modules;
+
+        CompileResolver(final URIResolver uriResolver, final Map<File, Long> modules) {
+            this.uriResolver = uriResolver;
+            this.modules = modules;
+        }
+
+        @Override
+        public Source resolve(final String href, final String base) throws TransformerException {
+            final Source source = uriResolver != null ? uriResolver.resolve(href, base) : null;
+            track(source != null ? source.getSystemId() : null, href, base, modules);
+            return source;
+        }
+
+        void close() {
+            uriResolver = null;
+        }
+    }
+
+    /**
+     * Remove all cached stylesheets.
+     */
+    synchronized void clear() {
+        cache.clear();
+    }
+
+    synchronized long getHits() {
+        return hits;
+    }
+
+    synchronized long getMisses() {
+        return misses;
+    }
+
+}
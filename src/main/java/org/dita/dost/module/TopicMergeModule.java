@@ -8,6 +8,7 @@
  */
 package org.dita.dost.module;
 
+import org.apache.commons.io.output.DeferredFileOutputStream;
 import org.dita.dost.exception.DITAOTException;
 import org.dita.dost.log.MessageUtils;
 import org.dita.dost.pipeline.AbstractPipelineInput;
@@ -53,7 +54,7 @@ final class TopicMergeModule extends AbstractPipelineModuleImpl {
         if (logger == null) {
             throw new IllegalStateException("Logger not set");
         }
-        final FileInfo in = job.getFileInfo(fi -> fi.isInput).iterator().next();
+        final FileInfo in = job.getFileInfo(FileInfo.Flag.IS_INPUT).iterator().next();
         final File ditaInput = new File(job.tempDirURI.resolve(in.uri));
         if (!ditaInput.exists()) {
             logger.error(MessageUtils.getMessage("DOTJ025E").toString());
@@ -69,44 +70,63 @@ final class TopicMergeModule extends AbstractPipelineModuleImpl {
         mapParser.setJob(job);
         mapParser.setOutput(out);
 
-        final ByteArrayOutputStream midBuffer = new ByteArrayOutputStream();
-        try {
-            midBuffer.write(XML_HEAD.getBytes(StandardCharsets.UTF_8));
-            midBuffer.write(("<dita-merge " + ATTRIBUTE_NAMESPACE_PREFIX_DITAARCHVERSION + "='" + DITA_NAMESPACE + "' "
-                    + XMLNS_ATTRIBUTE + ":" + DITA_OT_NS_PREFIX + "='" + DITA_OT_NS + "'>").getBytes(StandardCharsets.UTF_8));
-            mapParser.setOutputStream(midBuffer);
-            mapParser.read(ditaInput, job.tempDir);
-            midBuffer.write("</dita-merge>".getBytes(StandardCharsets.UTF_8));
-        } catch (final UnsupportedEncodingException e) {
-            throw new RuntimeException(e);
-        } catch (final IOException e) {
-            throw new DITAOTException("Failed to merge topics: " + e.getMessage(), e);
-        }
-
         final File outputDir = out.getParentFile();
         if (!outputDir.exists() && !outputDir.mkdirs()) {
             logger.error("Failed to create directory " + outputDir.getAbsolutePath());
         }
-        try (final OutputStream output = new BufferedOutputStream(new FileOutputStream(out))) {
-            if (style != null) {
+        if (style != null) {
+            final DeferredFileOutputStream midBuffer = new DeferredFileOutputStream(MergeMapParser.DEFAULT_BUFFER_THRESHOLD,
+                    "merge", ".xml", job.tempDir);
+            try {
+                try {
+                    merge(mapParser, ditaInput, midBuffer);
+                } finally {
+                    midBuffer.close();
+                }
                 final TransformerFactory factory = TransformerFactory.newInstance();
                 factory.setURIResolver(CatalogUtils.getCatalogResolver());
                 final StreamSource styleSource = new StreamSource(style);
                 final Transformer transformer = withLogger(factory.newTransformer(styleSource), logger);
-                final StreamSource source = new StreamSource(new ByteArrayInputStream(midBuffer.toByteArray()));
-                final StreamResult result = new StreamResult(output);
-                transformer.transform(source, result);
-            } else {
-                output.write(midBuffer.toByteArray());
-                output.flush();
+                final StreamSource source = midBuffer.isInMemory()
+                        ? new StreamSource(new ByteArrayInputStream(midBuffer.getData()))
+                        : new StreamSource(midBuffer.getFile());
+                try (final OutputStream output = new BufferedOutputStream(new FileOutputStream(out))) {
+                    transformer.transform(source, new StreamResult(output));
+                }
+            } catch (final RuntimeException | DITAOTException e) {
+                throw e;
+            } catch (final Exception e) {
+                throw new DITAOTException("Failed to process merged topics: " + e.getMessage(), e);
+            } finally {
+                if (!midBuffer.isInMemory() && !midBuffer.getFile().delete()) {
+                    logger.error("Failed to delete " + midBuffer.getFile());
+                }
+            }
+        } else {
+            try (final OutputStream output = new BufferedOutputStream(new FileOutputStream(out))) {
+                merge(mapParser, ditaInput, output);
+            } catch (final IOException e) {
+                throw new DITAOTException("Failed to merge topics: " + e.getMessage(), e);
             }
-        } catch (final RuntimeException e) {
-            throw e;
-        } catch (final Exception e) {
-            throw new DITAOTException("Failed to process merged topics: " + e.getMessage(), e);
         }
 
         return null;
     }
 
+    /**
+     * Write merged map and topics.
+     */
+    private void merge(final MergeMapParser mapParser, final File ditaInput, final OutputStream output) throws DITAOTException {
+        try {
+            output.write(XML_HEAD.getBytes(StandardCharsets.UTF_8));
+            output.write(("<dita-merge " + ATTRIBUTE_NAMESPACE_PREFIX_DITAARCHVERSION + "='" + DITA_NAMESPACE + "' "
+                    + XMLNS_ATTRIBUTE + ":" + DITA_OT_NS_PREFIX + "='" + DITA_OT_NS + "'>").getBytes(StandardCharsets.UTF_8));
+            mapParser.setOutputStream(output);
+            mapParser.read(ditaInput, job.tempDir);
+            output.write("</dita-merge>".getBytes(StandardCharsets.UTF_8));
+        } catch (final IOException e) {
+            throw new DITAOTException("Failed to merge topics: " + e.getMessage(), e);
+        }
+    }
+
 }
@@ -8,6 +8,7 @@
 package org.dita.dost.module;
 
 import org.dita.dost.exception.DITAOTException;
+import org.dita.dost.log.BufferingLogger;
 import org.dita.dost.log.DITAOTLogger;
 import org.dita.dost.pipeline.AbstractPipelineInput;
 import org.dita.dost.pipeline.AbstractPipelineOutput;
@@ -17,18 +18,30 @@ import org.dita.dost.writer.AbstractXMLFilter;
 import org.xml.sax.XMLFilter;
 
 import java.net.URI;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /**
  * Map processes topics through XML filters. Filters are reused and should reset internal state on
- * {@code startDocument} event.
+ * {@code startDocument} event. In parallel mode every worker thread uses its own filter instances.
+ * Documents are read from and written to the job document store when the store is enabled.
  */
 public final class XmlFilterModule extends AbstractPipelineModuleImpl {
 
     private final XMLUtils xmlUtils = new XMLUtils();
+    private boolean parallel;
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    @Override
+    public boolean usesDocumentStore() {
+        return true;
+    }
 
     @Override
     public void setLogger(final DITAOTLogger logger) {
@@ -36,6 +49,27 @@ public final class XmlFilterModule extends AbstractPipelineModuleImpl {
         xmlUtils.setLogger(logger);
     }
 
+    /**
+     * Set parallel processing. Parallel processing requires filter factories.
+     *
+     * @param parallel {@code true} to process files in parallel
+     */
+    public void setParallel(final boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Set number of worker threads used in parallel processing.
+     *
+     * @param threads number of worker threads, defaults to number of available processors
+     */
+    public void setThreads(final int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads must be positive: " + threads);
+        }
+        this.threads = threads;
+    }
+
     /**
      * Filter files through XML filters.
      *
@@ -45,31 +79,91 @@ public final class XmlFilterModule extends AbstractPipelineModuleImpl {
     @Override
     public AbstractPipelineOutput execute(final AbstractPipelineInput input)
             throws DITAOTException {
+        xmlUtils.setDocumentStore(job.getDocumentStore());
         final Collection<FileInfo> fis = job.getFileInfo(fileInfoFilter);
-        for (final FileInfo f: fis) {
-            final URI file = job.tempDirURI.resolve(f.uri);
-            logger.info("Processing " + file);
-            try {
-                xmlUtils.transform(file, getProcessingPipe(f));
-            } catch (final DITAOTException e) {
-                logger.error("Failed to process XML filter: " + e.getMessage(), e);
+        if (parallel && threads > 1 && fis.size() > 1 && filters.stream().allMatch(FilterPair::hasFactory)) {
+            executeParallel(fis);
+        } else {
+            for (final FileInfo f: fis) {
+                processFile(f, xmlUtils, fp -> fp.filter, logger);
             }
         }
         return null;
     }
 
+    /**
+     * Filter files on a bounded thread pool. Every worker thread uses its own filter instances. Log messages are
+     * buffered per file and written in input order.
+     */
+    private void executeParallel(final Collection<FileInfo> fis) throws DITAOTException {
+        final ThreadLocal<Map<FilterPair, AbstractXMLFilter>> workerFilters = ThreadLocal.withInitial(IdentityHashMap::new);
+        final ThreadLocal<XMLUtils> workerXmlUtils = ThreadLocal.withInitial(() -> {
+            final XMLUtils x = new XMLUtils();
+            x.setDocumentStore(job.getDocumentStore());
+            return x;
+        });
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, fis.size()));
+        try {
+            final List<BufferingLogger> buffers = new ArrayList<>(fis.size());
+            final List<Future<?>> futures = new ArrayList<>(fis.size());
+            for (final FileInfo f : fis) {
+                final BufferingLogger buffer = new BufferingLogger();
+                buffers.add(buffer);
+                futures.add(executor.submit(() -> {
+                    final Map<FilterPair, AbstractXMLFilter> instances = workerFilters.get();
+                    final XMLUtils x = workerXmlUtils.get();
+                    x.setLogger(buffer);
+                    processFile(f, x, fp -> instances.computeIfAbsent(fp, FilterPair::newInstance), buffer);
+                }));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    futures.get(i).get();
+                } finally {
+                    buffers.get(i).replay(logger);
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DITAOTException("Interrupted while processing XML filters", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new DITAOTException("Failed to process XML filter: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void processFile(final FileInfo f, final XMLUtils xmlUtils,
+                             final Function<FilterPair, AbstractXMLFilter> instances, final DITAOTLogger logger) {
+        final URI file = job.tempDirURI.resolve(f.uri);
+        logger.info("Processing " + file);
+        try {
+            xmlUtils.transform(file, getProcessingPipe(f, instances, logger));
+        } catch (final DITAOTException e) {
+            logger.error("Failed to process XML filter: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Get pipe line filters
      *
      * @param fi current file being processed
+     * @param instances filter instance to use for a filter pair
+     * @param logger logger for the current file
      */
-    private List<XMLFilter> getProcessingPipe(final FileInfo fi) {
+    private List<XMLFilter> getProcessingPipe(final FileInfo fi, final Function<FilterPair, AbstractXMLFilter> instances,
+                                              final DITAOTLogger logger) {
         final URI fileToParse = job.tempDirURI.resolve(fi.uri);
         assert fileToParse.isAbsolute();
         final List<XMLFilter> res = new ArrayList<>();
         for (final FilterPair p: filters) {
             if (p.predicate.test(fi)) {
-                final AbstractXMLFilter f = p.filter;
+                final AbstractXMLFilter f = instances.apply(p);
                 logger.debug("Configure filter " + f.getClass().getCanonicalName());
                 f.setCurrentFile(fileToParse);
                 f.setJob(job);
@@ -84,12 +178,59 @@ public final class XmlFilterModule extends AbstractPipelineModuleImpl {
      * SAX filter with file predicate.
      */
     public static class FilterPair {
+        /** Shared filter instance. */
         public final AbstractXMLFilter filter;
         public final Predicate<FileInfo> predicate;
+        /** Factory for new filter instances, {@code null} if only the shared instance is available. */
+        private final Supplier<AbstractXMLFilter> factory;
 
         public FilterPair(final AbstractXMLFilter filter, final Predicate<FileInfo> fileInfoFilter) {
             this.filter = filter;
             this.predicate = fileInfoFilter;
+            this.factory = null;
+        }
+
+        public FilterPair(final Supplier<AbstractXMLFilter> factory, final Predicate<FileInfo> fileInfoFilter) {
+            this.filter = factory.get();
+            this.predicate = fileInfoFilter;
+            this.factory = factory;
+        }
+
+        private FilterPair(final AbstractXMLFilter filter, final Predicate<FileInfo> fileInfoFilter,
+                           final Supplier<AbstractXMLFilter> factory) {
+            this.filter = filter;
+            this.predicate = fileInfoFilter;
+            this.factory = factory;
+        }
+
+        /**
+         * Create filter pair that shares filter instances with this pair, but is only applied to files accepted by
+         * both this pair's predicate and the given predicate.
+         *
+         * @param fileInfoFilter additional file predicate
+         * @return restricted filter pair
+         */
+        public FilterPair and(final Predicate<FileInfo> fileInfoFilter) {
+            return new FilterPair(filter, predicate.and(fileInfoFilter), factory);
+        }
+
+        /**
+         * Test if new filter instances can be created.
+         */
+        public boolean hasFactory() {
+            return factory != null;
+        }
+
+        /**
+         * Create a new filter instance.
+         *
+         * @throws IllegalStateException if filter pair has no factory
+         */
+        public AbstractXMLFilter newInstance() {
+            if (factory == null) {
+                throw new IllegalStateException("Filter pair has no factory");
+            }
+            return factory.get();
         }
     }
 
@@ -16,12 +16,17 @@ import org.apache.tools.ant.util.FileNameMapper;
 import org.apache.tools.ant.util.FileUtils;
 import org.apache.xml.resolver.tools.CatalogResolver;
 import org.dita.dost.exception.DITAOTException;
+import org.dita.dost.log.BufferingLogger;
+import org.dita.dost.log.DITAOTLogger;
+import org.dita.dost.log.LoggingErrorListener;
 import org.dita.dost.module.saxon.DelegatingCollationUriResolver;
 import org.dita.dost.pipeline.AbstractPipelineInput;
 import org.dita.dost.pipeline.AbstractPipelineOutput;
 import org.dita.dost.util.CatalogUtils;
 import org.dita.dost.util.Configuration;
+import org.dita.dost.util.DocumentStore;
 import org.dita.dost.util.Job;
+import org.dita.dost.util.SaxEventBuffer;
 import org.dita.dost.util.XMLUtils;
 import org.xml.sax.EntityResolver;
 import org.xml.sax.InputSource;
@@ -29,13 +34,19 @@ import org.xml.sax.SAXException;
 import org.xml.sax.XMLReader;
 
 import javax.xml.transform.*;
+import javax.xml.transform.sax.SAXResult;
 import javax.xml.transform.sax.SAXSource;
 import javax.xml.transform.stream.StreamResult;
-import javax.xml.transform.stream.StreamSource;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.dita.dost.util.FileUtils.replaceExtension;
 import static org.dita.dost.util.XMLUtils.withLogger;
@@ -48,6 +59,11 @@ import static org.dita.dost.util.XMLUtils.withLogger;
  *   <li>If source and destination directories are same, transformation results are saved to a temporary file
  *   and the original source file is replaced after a successful transformation.</li>
  *   <li>If no {@code extension} attribute is set, the target file extension is the same as the source file extension.</li>
+ *   <li>In parallel mode files are transformed concurrently, each worker thread using its own transformer
+ *   created from the shared compiled stylesheet.</li>
+ *   <li>Compiled stylesheets are cached and reused until the stylesheet or any of its modules changes.</li>
+ *   <li>Documents are read from the job document store when the store is enabled, and XML results in the temporary
+ *   directory are written to the store.</li>
  * </ul>
  *
  */
@@ -71,6 +87,8 @@ public final class XsltModule extends AbstractPipelineModuleImpl {
     private String extension;
     private Transformer t;
     private XMLReader parser;
+    private boolean parallel;
+    private int threads = Runtime.getRuntime().availableProcessors();
 
     private void init() {
         if (entityResolver == null || uriResolver == null) {
@@ -89,6 +107,11 @@ public final class XsltModule extends AbstractPipelineModuleImpl {
         }
     }
 
+    @Override
+    public boolean usesDocumentStore() {
+        return true;
+    }
+
     public AbstractPipelineOutput execute(AbstractPipelineInput input) throws DITAOTException {
         init();
         if ((includes == null || includes.isEmpty()) && (in == null)) {
@@ -98,24 +121,15 @@ public final class XsltModule extends AbstractPipelineModuleImpl {
         if (destDir != null) {
             logger.info("Transforming into " + destDir.getAbsolutePath());
         }
-        final TransformerFactory tf = TransformerFactory.newInstance();
-        configureExtensions(tf);
-        configureCollationResolvers(tf);
-        tf.setURIResolver(uriResolver);
         try {
-            templates = tf.newTemplates(new StreamSource(style));
+            templates = TemplatesCache.INSTANCE.get(style, uriResolver, this::newTransformerFactory, logger);
         } catch (TransformerConfigurationException e) {
             throw new RuntimeException("Failed to compile stylesheet '" + style.getAbsolutePath() + "': " + e.getMessage(), e);
         }
-        try {
-            parser = XMLUtils.getXMLReader();
-        } catch (final SAXException e) {
-            throw new RuntimeException("Failed to create XML reader: " + e.getMessage(), e);
-        }
-        parser.setEntityResolver(entityResolver);
 
+        final Map<File, File> files = new LinkedHashMap<>();
         if (in != null) {
-            transform(in, out);
+            files.put(in, out);
         } else {
             for (final File include : includes) {
                 final File in = new File(baseDir, include.getPath());
@@ -132,27 +146,120 @@ public final class XsltModule extends AbstractPipelineModuleImpl {
                 } else if (extension != null) {
                     out = new File(replaceExtension(out.getAbsolutePath(), extension));
                 }
-                transform(in, out);
+                files.put(in, out);
+            }
+        }
+
+        if (parallel && threads > 1 && files.size() > 1) {
+            executeParallel(files);
+        } else {
+            parser = newParser();
+            for (final Map.Entry<File, File> e : files.entrySet()) {
+                if (reloadstylesheet || t == null) {
+                    logger.info("Loading stylesheet " + style.getAbsolutePath());
+                    t = newTransformer(logger);
+                }
+                transform(e.getKey(), e.getValue(), t, parser, logger);
             }
         }
         return null;
     }
 
-    private void transform(final File in, final File out) throws DITAOTException {
-        if (reloadstylesheet || t == null) {
-            logger.info("Loading stylesheet " + style.getAbsolutePath());
-            try {
-                t = withLogger(templates.newTransformer(), logger);
-                final URIResolver resolver = Configuration.DEBUG
-                        ? new XMLUtils.DebugURIResolver(uriResolver)
-                        : uriResolver;
-                t.setURIResolver(resolver);
-            } catch (final TransformerConfigurationException e) {
-                throw new DITAOTException("Failed to create Transformer: " + e.getMessage(), e);
+    /**
+     * Transform files on a bounded thread pool. Every worker thread uses its own transformer and parser
+     * created from the shared compiled stylesheet. Log messages are buffered per file and written in input
+     * order, and failures are reported after all files have been processed.
+     */
+    private void executeParallel(final Map<File, File> files) throws DITAOTException {
+        logger.info("Loading stylesheet " + style.getAbsolutePath());
+        final ThreadLocal<Transformer> workerTransformer = new ThreadLocal<>();
+        final ThreadLocal<XMLReader> workerParser = ThreadLocal.withInitial(this::newParser);
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, files.size()));
+        try {
+            final List<BufferingLogger> buffers = new ArrayList<>(files.size());
+            final List<Future<?>> futures = new ArrayList<>(files.size());
+            for (final Map.Entry<File, File> e : files.entrySet()) {
+                final BufferingLogger buffer = new BufferingLogger();
+                buffers.add(buffer);
+                futures.add(executor.submit(() -> {
+                    Transformer t = workerTransformer.get();
+                    if (reloadstylesheet || t == null) {
+                        t = newTransformer(buffer);
+                        workerTransformer.set(t);
+                    }
+                    t.setErrorListener(new LoggingErrorListener(buffer));
+                    transform(e.getKey(), e.getValue(), t, workerParser.get(), buffer);
+                    return null;
+                }));
+            }
+            final List<Throwable> errors = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    futures.get(i).get();
+                } catch (final ExecutionException e) {
+                    errors.add(e.getCause());
+                } finally {
+                    buffers.get(i).replay(logger);
+                }
             }
-            t.setOutputProperties(properties);
+            if (!errors.isEmpty()) {
+                final Throwable first = errors.get(0);
+                for (final Throwable e : errors.subList(1, errors.size())) {
+                    first.addSuppressed(e);
+                }
+                if (first instanceof RuntimeException) {
+                    throw (RuntimeException) first;
+                } else if (first instanceof Error) {
+                    throw (Error) first;
+                } else if (first instanceof DITAOTException) {
+                    throw (DITAOTException) first;
+                }
+                throw new DITAOTException("Failed to transform document: " + first.getMessage(), first);
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DITAOTException("Interrupted while transforming documents", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private TransformerFactory newTransformerFactory() {
+        final TransformerFactory tf = TransformerFactory.newInstance();
+        configureExtensions(tf);
+        configureCollationResolvers(tf);
+        tf.setURIResolver(uriResolver);
+        return tf;
+    }
+
+    private Transformer newTransformer(final DITAOTLogger logger) throws DITAOTException {
+        final Transformer t;
+        try {
+            t = withLogger(templates.newTransformer(), logger);
+            final URIResolver resolver = Configuration.DEBUG
+                    ? new XMLUtils.DebugURIResolver(uriResolver)
+                    : uriResolver;
+            t.setURIResolver(job != null ? job.getDocumentStore().getURIResolver(resolver) : resolver);
+        } catch (final TransformerConfigurationException e) {
+            throw new DITAOTException("Failed to create Transformer: " + e.getMessage(), e);
+        }
+        t.setOutputProperties(properties);
+        return t;
+    }
+
+    private XMLReader newParser() {
+        final XMLReader parser;
+        try {
+            parser = XMLUtils.getXMLReader();
+        } catch (final SAXException e) {
+            throw new RuntimeException("Failed to create XML reader: " + e.getMessage(), e);
         }
+        parser.setEntityResolver(entityResolver);
+        return parser;
+    }
 
+    private void transform(final File in, final File out, final Transformer t, final XMLReader parser,
+                           final DITAOTLogger logger) {
         final boolean same = in.getAbsolutePath().equals(out.getAbsolutePath());
         final File tmp = same ? new File(out.getAbsolutePath() + ".tmp" + Long.toString(System.currentTimeMillis())) : out;
         for (Map.Entry<String, String> e: params.entrySet()) {
@@ -175,20 +282,32 @@ public final class XsltModule extends AbstractPipelineModuleImpl {
         } else {
             logger.info("Processing " + in.getAbsolutePath() + " to " + tmp.getAbsolutePath());
         }
-        final Source source = new SAXSource(parser, new InputSource(in.toURI().toString()));
+        final DocumentStore store = job != null ? job.getDocumentStore() : null;
+        final XMLReader reader = store != null ? store.getXMLReader(parser) : parser;
+        final Source source = new SAXSource(reader, new InputSource(in.toURI().toString()));
         try {
-            if (!tmp.getParentFile().exists() && !tmp.getParentFile().mkdirs()) {
-                throw new IOException("Failed to create directory " + tmp.getParent());
-            }
-            t.transform(source, new StreamResult(tmp));
-            if (same) {
-                logger.debug("Moving " + tmp.getAbsolutePath() + " to " + out.getAbsolutePath());
-                if (!out.delete()) {
-                    throw new IOException("Failed to to delete input file " + out.getAbsolutePath());
+            if (store != null && store.accepts(out.toURI()) && isXmlOutput(t)) {
+                final SaxEventBuffer buffer = new SaxEventBuffer();
+                final SAXResult result = new SAXResult(buffer);
+                result.setLexicalHandler(buffer);
+                t.transform(source, result);
+                store.put(out.toURI(), buffer);
+            } else {
+                if (!tmp.getParentFile().exists() && !tmp.getParentFile().mkdirs()) {
+                    throw new IOException("Failed to create directory " + tmp.getParent());
                 }
-                if (!tmp.renameTo(out)) {
-                    throw new IOException("Failed to to replace input file " + out.getAbsolutePath());
+                t.transform(source, new StreamResult(tmp));
+                if (same) {
+                    logger.debug("Moving " + tmp.getAbsolutePath() + " to " + out.getAbsolutePath());
+                    // replace with a single rename so that concurrent readers never see a missing file
+                    Files.move(tmp.toPath(), out.toPath(), StandardCopyOption.REPLACE_EXISTING);
                 }
+                if (store != null) {
+                    store.remove(out.toURI());
+                }
+            }
+            if (job != null) {
+                job.getDocumentCache().invalidate(out.toURI());
             }
         } catch (final RuntimeException e) {
             throw e;
@@ -199,6 +318,37 @@ public final class XsltModule extends AbstractPipelineModuleImpl {
         }
     }
 
+    /**
+     * Test if transformation result is serialized as XML without a document type declaration.
+     */
+    private static boolean isXmlOutput(final Transformer t) {
+        final String method = t.getOutputProperty(OutputKeys.METHOD);
+        return (method == null || method.equals("xml"))
+                && t.getOutputProperty(OutputKeys.DOCTYPE_SYSTEM) == null
+                && t.getOutputProperty(OutputKeys.DOCTYPE_PUBLIC) == null;
+    }
+
+    /**
+     * Set parallel processing.
+     *
+     * @param parallel {@code true} to transform files in parallel
+     */
+    public void setParallel(final boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Set number of worker threads used in parallel processing.
+     *
+     * @param threads number of worker threads, defaults to number of available processors
+     */
+    public void setThreads(final int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads must be positive: " + threads);
+        }
+        this.threads = threads;
+    }
+
     public void setStyle(final File style) {
         this.style = style;
     }
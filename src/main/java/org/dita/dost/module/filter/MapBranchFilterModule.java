@@ -18,14 +18,10 @@ import org.dita.dost.util.FilterUtils.Flag;
 import org.dita.dost.util.Job.FileInfo;
 import org.dita.dost.util.XMLUtils;
 import org.w3c.dom.*;
-import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
 import javax.xml.namespace.QName;
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.transform.*;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
@@ -37,7 +33,6 @@ import static org.dita.dost.util.Constants.*;
 import static org.dita.dost.util.StringUtils.getExtProps;
 import static org.dita.dost.util.URLUtils.stripFragment;
 import static org.dita.dost.util.URLUtils.toURI;
-import static org.dita.dost.util.XMLUtils.close;
 import static org.dita.dost.util.XMLUtils.getChildElements;
 
 /**
@@ -69,9 +64,14 @@ public class MapBranchFilterModule extends AbstractBranchFilterModule {
         builder = XMLUtils.getDocumentBuilder();
     }
 
+    @Override
+    public boolean usesDocumentStore() {
+        return true;
+    }
+
     @Override
     public AbstractPipelineOutput execute(final AbstractPipelineInput input) throws DITAOTException {
-        final FileInfo fi = job.getFileInfo(f -> f.isInput).iterator().next();
+        final FileInfo fi = job.getFileInfo(FileInfo.Flag.IS_INPUT).iterator().next();
         if (!ATTR_FORMAT_VALUE_DITAMAP.equals(fi.format)) {
             return null;
         }
@@ -101,7 +101,7 @@ public class MapBranchFilterModule extends AbstractBranchFilterModule {
         final Document doc;
         try {
             logger.debug("Reading " + currentFile);
-            doc = builder.parse(new InputSource(currentFile.toString()));
+            doc = job.getDocumentCache().get(currentFile, builder);
         } catch (final SAXException | IOException e) {
             logger.error("Failed to parse " + currentFile, e);
             return;
@@ -115,21 +115,10 @@ public class MapBranchFilterModule extends AbstractBranchFilterModule {
         rewriteDuplicates(doc.getDocumentElement());
 
         logger.debug("Writing " + currentFile);
-        Result result = null;
         try {
-            Transformer serializer = TransformerFactory.newInstance().newTransformer();
-            result = new StreamResult(currentFile.toString());
-            serializer.transform(new DOMSource(doc), result);
-        } catch (final TransformerConfigurationException | TransformerFactoryConfigurationError e) {
-            throw new RuntimeException(e);
-        } catch (final TransformerException e) {
+            job.getDocumentCache().put(currentFile, doc);
+        } catch (final IOException e) {
             logger.error("Failed to serialize " + map.toString() + ": " + e.getMessage(), e);
-        } finally {
-            try {
-                close(result);
-            } catch (final IOException e) {
-                logger.error("Failed to close result stream for " + map.toString() + ": " + e.getMessage(), e);
-            }
         }
     }
 
@@ -12,20 +12,17 @@ import org.dita.dost.log.DITAOTLogger;
 import org.dita.dost.pipeline.AbstractPipelineInput;
 import org.dita.dost.pipeline.AbstractPipelineOutput;
 import org.dita.dost.util.FilterUtils;
+import org.dita.dost.util.Job;
 import org.dita.dost.util.Job.FileInfo;
 import org.dita.dost.util.XMLUtils;
 import org.dita.dost.writer.ProfilingFilter;
 import org.w3c.dom.Attr;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
-import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.XMLFilter;
 
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.transform.*;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
@@ -62,15 +59,26 @@ public final class TopicBranchFilterModule extends AbstractBranchFilterModule {
         builder = XMLUtils.getDocumentBuilder();
     }
 
+    @Override
+    public boolean usesDocumentStore() {
+        return true;
+    }
+
     @Override
     public void setLogger(final DITAOTLogger logger) {
         super.setLogger(logger);
         xmlUtils.setLogger(logger);
     }
 
+    @Override
+    public void setJob(final Job job) {
+        super.setJob(job);
+        xmlUtils.setDocumentStore(job.getDocumentStore());
+    }
+
     @Override
     public AbstractPipelineOutput execute(final AbstractPipelineInput input) throws DITAOTException {
-        final FileInfo in = job.getFileInfo(fi -> fi.isInput).iterator().next();
+        final FileInfo in = job.getFileInfo(FileInfo.Flag.IS_INPUT).iterator().next();
         processMap(in.uri);
 
         addFlagImagesSetToProperties(job, relFlagImagesSet);
@@ -96,7 +104,7 @@ public final class TopicBranchFilterModule extends AbstractBranchFilterModule {
         final Document doc;
         try {
             logger.debug("Reading " + currentFile);
-            doc = builder.parse(new InputSource(currentFile.toString()));
+            doc = job.getDocumentCache().get(currentFile, builder);
         } catch (final SAXException | IOException e) {
             logger.error("Failed to parse " + currentFile, e);
             return;
@@ -109,21 +117,10 @@ public final class TopicBranchFilterModule extends AbstractBranchFilterModule {
         filterTopics(doc.getDocumentElement(), Collections.emptyList(), subjectSchemeMap);
 
         logger.debug("Writing " + currentFile);
-        Result result = null;
         try {
-            Transformer serializer = TransformerFactory.newInstance().newTransformer();
-            result = new StreamResult(currentFile.toString());
-            serializer.transform(new DOMSource(doc), result);
-        } catch (final TransformerConfigurationException | TransformerFactoryConfigurationError e) {
-            throw new RuntimeException(e);
-        } catch (final TransformerException e) {
+            job.getDocumentCache().put(currentFile, doc);
+        } catch (final IOException e) {
             logger.error("Failed to serialize " + map.toString() + ": " + e.getMessage(), e);
-        } finally {
-            try {
-                close(result);
-            } catch (final IOException e) {
-                logger.error("Failed to close result stream for " + map.toString() + ": " + e.getMessage(), e);
-            }
         }
     }
 
@@ -164,6 +161,7 @@ public final class TopicBranchFilterModule extends AbstractBranchFilterModule {
                     xmlUtils.transform(srcAbsUri,
                                        dstAbsUri,
                                        pipe);
+                    updateFirstTopicId(dstAbsUri, writer);
                 } catch (final DITAOTException e) {
                     logger.error("Failed to filter " + srcAbsUri + " to " + dstAbsUri + ": " + e.getMessage(), e);
                 }
@@ -203,6 +201,7 @@ public final class TopicBranchFilterModule extends AbstractBranchFilterModule {
             logger.info("Filtering " + srcAbsUri);
             try {
                 xmlUtils.transform(srcAbsUri, pipe);
+                updateFirstTopicId(srcAbsUri, writer);
             } catch (final DITAOTException e) {
                 logger.error("Failed to filter " + srcAbsUri + ": " + e.getMessage(), e);
             }
@@ -220,4 +219,12 @@ public final class TopicBranchFilterModule extends AbstractBranchFilterModule {
         }
     }
 
+    /** Update first topic ID of a filtered file in job configuration. */
+    private void updateFirstTopicId(final URI file, final ProfilingFilter writer) {
+        final FileInfo fi = job.getFileInfo(file);
+        if (fi != null && !Objects.equals(fi.firstTopicId, writer.getFirstTopicId())) {
+            job.add(new FileInfo.Builder(fi).firstTopicId(writer.getFirstTopicId()).build());
+        }
+    }
+
 }
@@ -14,6 +14,7 @@ import com.google.common.collect.SetMultimap;
 import org.apache.commons.io.FileUtils;
 import org.apache.xerces.xni.grammars.XMLGrammarPool;
 import org.dita.dost.exception.DITAOTException;
+import org.dita.dost.log.BufferingLogger;
 import org.dita.dost.log.MessageUtils;
 import org.dita.dost.module.AbstractPipelineModuleImpl;
 import org.dita.dost.module.GenMapAndTopicListModule.TempFileNameScheme;
@@ -29,13 +30,13 @@ import org.xml.sax.helpers.DefaultHandler;
 
 import javax.xml.namespace.QName;
 import javax.xml.transform.Result;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.SAXResult;
 import javax.xml.transform.sax.TransformerHandler;
 import javax.xml.transform.stream.StreamResult;
 import java.io.*;
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -68,6 +69,8 @@ public abstract class AbstractReaderModule extends AbstractPipelineModuleImpl {
     private final Set<URI> conrefSet = new HashSet<>(128);
     /** Set of topic files containing coderef */
     private final Set<URI> coderefSet = new HashSet<>(128);
+    /** Map of files to the first ID in the file */
+    private final Map<URI, String> firstTopicIds = new HashMap<>(128);
     /** Set of all images */
     final Set<Reference> formatSet = new HashSet<>();
     /** Set of all images used for flagging */
@@ -87,9 +90,15 @@ public abstract class AbstractReaderModule extends AbstractPipelineModuleImpl {
     /** List of files waiting for parsing. Values are absolute URI references. */
     @VisibleForTesting
     final Queue<Reference> waitList = new LinkedList<>();
+    /** Set of files in wait list */
+    private final Set<URI> waitSet = new HashSet<>(128);
+    /** Files added to wait list that have not been dispatched to parallel workers, {@code null} in sequential mode */
+    private Queue<Reference> dispatchList;
     /** List of parsed files */
     final List<URI> doneList = new LinkedList<>();
-    final List<URI> failureList = new LinkedList<>();
+    /** Set of parsed files */
+    private final Set<URI> doneSet = new HashSet<>(128);
+    final Set<URI> failureList = new LinkedHashSet<>();
     /** Set of outer dita files */
     private final Set<URI> outDitaFilesSet = new HashSet<>(128);
     /** Set of sources of conacion */
@@ -113,6 +122,8 @@ public abstract class AbstractReaderModule extends AbstractPipelineModuleImpl {
     /** Subject scheme usage. Key is absolute file path, value is set of applicable subject schemes. */
     private final Map<URI, Set<URI>> schemeDictionary = new HashMap<>();
     private final Map<URI, URI> copyTo = new HashMap<>();
+    /** Map of parsed file to link targets in the file, both absolute. */
+    private final Map<URI, Set<URI>> links = new HashMap<>();
     Mode processingMode;
     /** Generate {@code xtrf} and {@code xtrc} attributes */
     boolean genDebugInfo;
@@ -120,6 +131,10 @@ public abstract class AbstractReaderModule extends AbstractPipelineModuleImpl {
     private boolean gramcache = true;
     /** Profiling is enabled. */
     private boolean profilingEnabled;
+    /** Parse files in parallel. */
+    private boolean parallel;
+    /** Number of worker threads used in parallel parsing. */
+    private int threads = Runtime.getRuntime().availableProcessors();
     String transtype;
     /** Absolute DITA-OT base path. */
     File ditaDir;
@@ -131,6 +146,11 @@ public abstract class AbstractReaderModule extends AbstractPipelineModuleImpl {
     Map<QName, Map<String, String>> defaultValueMap;
     /** XMLReader instance for parsing dita file */
     private XMLReader reader;
+    @Override
+    public boolean usesDocumentStore() {
+        return true;
+    }
+
     /** Absolute path to current source file. */
     URI currentFile;
     DitaWriterFilter ditaWriterFilter;
@@ -144,13 +164,9 @@ public abstract class AbstractReaderModule extends AbstractPipelineModuleImpl {
     void initFilters() {
         tempFileNameScheme.setBaseDir(job.getInputDir());
 
-        listFilter = new GenListModuleReader();
-        listFilter.setLogger(logger);
-        listFilter.setPrimaryDitamap(rootFile);
-        listFilter.setJob(job);
-        listFilter.setFormatFilter(formatFilter);
+        listFilter = newListFilter();
 
-        if (profilingEnabled) {
+        if (profilingEnabled && filterUtils == null) {
             filterUtils = parseFilterFile();
         }
 
@@ -176,6 +192,15 @@ public abstract class AbstractReaderModule extends AbstractPipelineModuleImpl {
 
     }
 
+    private GenListModuleReader newListFilter() {
+        final GenListModuleReader listFilter = new GenListModuleReader();
+        listFilter.setLogger(logger);
+        listFilter.setPrimaryDitamap(rootFile);
+        listFilter.setJob(job);
+        listFilter.setFormatFilter(formatFilter);
+        return listFilter;
+    }
+
     /**
      * Init xml reader used for pipeline parsing.
      *
@@ -277,6 +302,14 @@ public abstract class AbstractReaderModule extends AbstractPipelineModuleImpl {
         profilingEnabled = Optional.ofNullable(input.getAttribute(ANT_INVOKER_PARAM_PROFILING_ENABLED))
                 .map(Boolean::parseBoolean)
                 .orElse(true);
+        parallel = Boolean.parseBoolean(input.getAttribute(ANT_INVOKER_EXT_PARAM_PARALLEL));
+        final String t = input.getAttribute(ANT_INVOKER_EXT_PARAM_THREADS);
+        if (t != null) {
+            threads = Integer.parseInt(t);
+            if (threads < 1) {
+                throw new IllegalArgumentException("Number of threads must be positive: " + threads);
+            }
+        }
         if (profilingEnabled) {
             ditavalFile = Optional.of(new File(job.tempDir, FILE_NAME_MERGED_DITAVAL))
                     .filter(File::exists)
@@ -285,8 +318,137 @@ public abstract class AbstractReaderModule extends AbstractPipelineModuleImpl {
     }
 
     void processWaitList() throws DITAOTException {
-        while (!waitList.isEmpty()) {
-            readFile(waitList.remove(), null);
+        if (parallel && threads > 1 && exportAnchorsFilter == null) {
+            processWaitListParallel();
+        } else {
+            while (!waitList.isEmpty()) {
+                readFile(removeFromWaitList(), null);
+            }
+        }
+        if (gramcache) {
+            GrammarPoolManager.logStatistics(logger);
+        }
+    }
+
+    private Reference removeFromWaitList() {
+        final Reference ref = waitList.remove();
+        waitSet.remove(ref.filename);
+        return ref;
+    }
+
+    /**
+     * Process wait list with a pool of worker modules. Every worker has its own XML reader and filter chain.
+     * Files are parsed as soon as they are added to the wait list, but parse results are merged in wait list
+     * order so that results and log messages are the same as in sequential processing.
+     */
+    private void processWaitListParallel() throws DITAOTException {
+        final BlockingQueue<AbstractReaderModule> workers = new ArrayBlockingQueue<>(threads);
+        for (int i = 0; i < threads; i++) {
+            workers.add(newWorker());
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final Map<URI, Future<ParseResult>> pending = new HashMap<>();
+        final GenListModuleReader sharedListFilter = listFilter;
+        dispatchList = new LinkedList<>(waitList);
+        try {
+            while (!waitList.isEmpty()) {
+                while (!dispatchList.isEmpty()) {
+                    final Reference ref = dispatchList.remove();
+                    if (!pending.containsKey(ref.filename)) {
+                        pending.put(ref.filename, executor.submit(() -> {
+                            final AbstractReaderModule worker = workers.take();
+                            try {
+                                return worker.parseInWorker(ref);
+                            } finally {
+                                workers.put(worker);
+                            }
+                        }));
+                    }
+                }
+                final Reference ref = removeFromWaitList();
+                final ParseResult res = pending.remove(ref.filename).get();
+                if (res.listFilter == null) {
+                    res.log.replay(logger);
+                    continue;
+                }
+                listFilter = res.listFilter;
+                try {
+                    mergeFile(res);
+                } finally {
+                    listFilter = sharedListFilter;
+                }
+                sharedListFilter.addCumulativeResults(res.listFilter);
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DITAOTException("Interrupted while reading files", e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof DITAOTException) {
+                throw (DITAOTException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new DITAOTException(cause.getMessage(), cause);
+        } finally {
+            dispatchList = null;
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Create worker module that shares configuration with this module.
+     */
+    private AbstractReaderModule newWorker() throws DITAOTException {
+        final AbstractReaderModule worker;
+        try {
+            worker = getClass().newInstance();
+        } catch (final InstantiationException | IllegalAccessException e) {
+            throw new DITAOTException("Failed to create reader worker: " + e.getMessage(), e);
+        }
+        worker.setJob(job);
+        // parser initialization messages have already been logged by this module
+        worker.setLogger(new BufferingLogger());
+        worker.ditaDir = ditaDir;
+        worker.validate = validate;
+        worker.transtype = transtype;
+        worker.gramcache = gramcache;
+        worker.processingMode = processingMode;
+        worker.genDebugInfo = genDebugInfo;
+        worker.baseInputDir = baseInputDir;
+        worker.rootFile = rootFile;
+        worker.profilingEnabled = profilingEnabled;
+        worker.ditavalFile = ditavalFile;
+        worker.filterUtils = filterUtils;
+        worker.tempFileNameScheme = tempFileNameScheme;
+        try {
+            worker.initXMLReader(ditaDir, validate);
+        } catch (final SAXException e) {
+            throw new DITAOTException("Failed to initialize XML reader: " + e.getMessage(), e);
+        }
+        worker.initFilters();
+        return worker;
+    }
+
+    /**
+     * Parse file in worker module. Log messages are buffered into the result and the list filter
+     * is replaced with a new instance for the next file.
+     */
+    private ParseResult parseInWorker(final Reference ref) throws DITAOTException {
+        final BufferingLogger buffer = new BufferingLogger();
+        setLogger(buffer);
+        listFilter.setLogger(buffer);
+        keydefFilter.setLogger(buffer);
+        ditaWriterFilter.setLogger(buffer);
+        try {
+            final ParseResult res = parseFile(ref, null);
+            return res != null
+                    ? new ParseResult(res.ref, res.outputFile, res.failed, res.listFilter, buffer)
+                    : new ParseResult(ref, null, true, null, buffer);
+        } finally {
+            listFilter = newListFilter();
         }
     }
 
@@ -305,6 +467,21 @@ public abstract class AbstractReaderModule extends AbstractPipelineModuleImpl {
      * @throws DITAOTException if processing failed
      */
     void readFile(final Reference ref, final URI parseFile) throws DITAOTException {
+        final ParseResult res = parseFile(ref, parseFile);
+        if (res != null) {
+            mergeFile(res);
+        }
+    }
+
+    /**
+     * Parse a file and write it into temporary directory.
+     *
+     * @param ref system path of the file to process
+     * @param parseFile file to parse, may be {@code null}
+     * @return parse result, {@code null} if the file was skipped
+     * @throws DITAOTException if processing failed
+     */
+    private ParseResult parseFile(final Reference ref, final URI parseFile) throws DITAOTException {
         currentFile = ref.filename;
         assert currentFile.isAbsolute();
         final URI src = parseFile != null ? parseFile : currentFile;
@@ -314,7 +491,7 @@ public abstract class AbstractReaderModule extends AbstractPipelineModuleImpl {
         final File outputDir = outputFile.getParentFile();
         if (!outputDir.exists() && !outputDir.mkdirs()) {
             logger.error("Failed to create output directory " + outputDir.getAbsolutePath());
-            return;
+            return null;
         }
         validateMap = Collections.emptyMap();
         defaultValueMap = Collections.emptyMap();
@@ -335,13 +512,13 @@ public abstract class AbstractReaderModule extends AbstractPipelineModuleImpl {
 
 //        InputSource in = null;
         Result out = null;
+        boolean failed = false;
         try {
-            final TransformerFactory tf = TransformerFactory.newInstance();
-            final SAXTransformerFactory stf = (SAXTransformerFactory) tf;
-            final TransformerHandler serializer = stf.newTransformerHandler();
+            final TransformerHandler serializer = XMLUtils.newIdentityTransformerHandler();
 
+            final DocumentStore store = job.getDocumentStore();
             XMLReader parser = getXmlReader(ref.format);
-            XMLReader xmlSource = parser;
+            XMLReader xmlSource = store.getXMLReader(parser);
             for (final XMLFilter f: getProcessingPipe(currentFile)) {
                 f.setParent(xmlSource);
                 f.setEntityResolver(CatalogUtils.getCatalogResolver());
@@ -355,17 +532,19 @@ public abstract class AbstractReaderModule extends AbstractPipelineModuleImpl {
             } catch (final SAXNotRecognizedException e) {}
 
 //            in = new InputSource(src.toString());
-            out = new StreamResult(new FileOutputStream(outputFile));
-            serializer.setResult(out);
+            final SaxEventBuffer buffer = store.accepts(outputFile.toURI()) ? new SaxEventBuffer() : null;
+            if (buffer != null) {
+                final SAXResult result = new SAXResult(buffer);
+                result.setLexicalHandler(buffer);
+                serializer.setResult(result);
+            } else {
+                out = new StreamResult(new FileOutputStream(outputFile));
+                serializer.setResult(out);
+            }
             xmlSource.setContentHandler(serializer);
             xmlSource.parse(src.toString());
-
-            if (listFilter.isValidInput()) {
-                processParseResult(currentFile);
-                categorizeCurrentFile(ref);
-            } else if (!currentFile.equals(rootFile)) {
-                logger.warn(MessageUtils.getMessage("DOTJ021W", params).toString());
-                failureList.add(currentFile);
+            if (buffer != null) {
+                store.put(outputFile.toURI(), buffer);
             }
         } catch (final RuntimeException e) {
             throw e;
@@ -381,7 +560,7 @@ public abstract class AbstractReaderModule extends AbstractPipelineModuleImpl {
             } else {
                 logger.error(MessageUtils.getMessage("DOTJ013E", params).toString() + ": " + sax.getMessage(), sax);
             }
-            failureList.add(currentFile);
+            failed = true;
         } catch (final FileNotFoundException e) {
             if (!exists(currentFile)) {
                 if (currentFile.equals(rootFile)) {
@@ -398,7 +577,7 @@ public abstract class AbstractReaderModule extends AbstractPipelineModuleImpl {
             } else {
                 logger.error(MessageUtils.getMessage("DOTJ079E", params).toString() + " Cannot load file: " + e.getMessage());
             }
-            failureList.add(currentFile);
+            failed = true;
         } catch (final Exception e) {
             if (currentFile.equals(rootFile)) {
                 throw new DITAOTException(MessageUtils.getMessage("DOTJ012F", params).toString() + ": " + e.getMessage(),  e);
@@ -407,7 +586,7 @@ public abstract class AbstractReaderModule extends AbstractPipelineModuleImpl {
             } else {
                 logger.error(MessageUtils.getMessage("DOTJ013E", params).toString() + ": " + e.getMessage(), e);
             }
-            failureList.add(currentFile);
+            failed = true;
         } finally {
             if (out != null) {
                 try {
@@ -416,9 +595,38 @@ public abstract class AbstractReaderModule extends AbstractPipelineModuleImpl {
                     logger.error(e.getMessage(), e) ;
                 }
             }
-            if (failureList.contains(currentFile)) {
-                FileUtils.deleteQuietly(outputFile);
+        }
+        keydefFilter.reset();
+
+        return new ParseResult(ref, outputFile, failed, listFilter, null);
+    }
+
+    /**
+     * Merge parse results of a single file.
+     *
+     * @param res parse result
+     * @throws DITAOTException if processing failed
+     */
+    private void mergeFile(final ParseResult res) throws DITAOTException {
+        if (res.log != null) {
+            res.log.replay(logger);
+        }
+        currentFile = res.ref.filename;
+        final String[] params = { currentFile.toString() };
+        if (!res.failed) {
+            if (listFilter.isValidInput()) {
+                processParseResult(currentFile);
+                categorizeCurrentFile(res.ref);
+            } else if (!currentFile.equals(rootFile)) {
+                logger.warn(MessageUtils.getMessage("DOTJ021W", params).toString());
+                failureList.add(currentFile);
             }
+        } else {
+            failureList.add(currentFile);
+        }
+        if (failureList.contains(currentFile) && res.outputFile != null) {
+            job.getDocumentStore().remove(res.outputFile.toURI());
+            FileUtils.deleteQuietly(res.outputFile);
         }
 
         if (!listFilter.isValidInput() && currentFile.equals(rootFile)) {
@@ -432,9 +640,32 @@ public abstract class AbstractReaderModule extends AbstractPipelineModuleImpl {
         }
 
         doneList.add(currentFile);
+        doneSet.add(currentFile);
         listFilter.reset();
-        keydefFilter.reset();
+    }
 
+    /**
+     * Result of parsing a single file.
+     */
+    private static final class ParseResult {
+        final Reference ref;
+        /** Absolute path to destination file. */
+        final File outputFile;
+        /** Parsing failed. */
+        final boolean failed;
+        /** List filter used to parse the file, {@code null} if the file was skipped. */
+        final GenListModuleReader listFilter;
+        /** Buffered log messages, {@code null} if messages were logged directly. */
+        final BufferingLogger log;
+
+        ParseResult(final Reference ref, final File outputFile, final boolean failed,
+                    final GenListModuleReader listFilter, final BufferingLogger log) {
+            this.ref = ref;
+            this.outputFile = outputFile;
+            this.failed = failed;
+            this.listFilter = listFilter;
+            this.log = log;
+        }
     }
 
     /**
@@ -459,6 +690,7 @@ public abstract class AbstractReaderModule extends AbstractPipelineModuleImpl {
         nonConrefCopytoTargetSet.addAll(listFilter.getNonConrefCopytoTargets());
         coderefTargetSet.addAll(listFilter.getCoderefTargets());
         outDitaFilesSet.addAll(listFilter.getOutFilesSet());
+        links.put(currentFile, new HashSet<>(listFilter.getLinkTargets()));
 
         // Generate topic-scheme dictionary
         final Set<URI> schemeSet = listFilter.getSchemeSet();
@@ -504,6 +736,10 @@ public abstract class AbstractReaderModule extends AbstractPipelineModuleImpl {
             coderefSet.add(currentFile);
         }
 
+        if (listFilter.getFirstTopicId() != null) {
+            firstTopicIds.put(currentFile, listFilter.getFirstTopicId());
+        }
+
         if (listFilter.isDitaTopic()) {
             if (ref.format != null && !ref.format.equals(ATTR_FORMAT_VALUE_DITA)) {
                 assert currentFile.getFragment() == null;
@@ -542,11 +778,15 @@ public abstract class AbstractReaderModule extends AbstractPipelineModuleImpl {
     void addToWaitList(final Reference ref) {
         final URI file = ref.filename;
         assert file.isAbsolute() && file.getFragment() == null;
-        if (doneList.contains(file) || waitList.contains(ref) || file.equals(currentFile)) {
+        if (doneSet.contains(file) || waitSet.contains(file) || file.equals(currentFile)) {
             return;
         }
 
         waitList.add(ref);
+        waitSet.add(file);
+        if (dispatchList != null) {
+            dispatchList.add(ref);
+        }
     }
 
     /**
@@ -668,6 +908,9 @@ public abstract class AbstractReaderModule extends AbstractPipelineModuleImpl {
         for (final URI file: coderefSet) {
             getOrCreateFileInfo(fileinfos, file).hasCoderef = true;
         }
+        for (final Map.Entry<URI, String> e: firstTopicIds.entrySet()) {
+            getOrCreateFileInfo(fileinfos, e.getKey()).firstTopicId = e.getValue();
+        }
         for (final URI file: resourceOnlySet) {
             getOrCreateFileInfo(fileinfos, file).isResourceOnly = true;
         }
@@ -726,6 +969,12 @@ public abstract class AbstractReaderModule extends AbstractPipelineModuleImpl {
             throw new DITAOTException("Failed to serialize subject scheme files: " + e.getMessage(), e);
         }
 
+        try {
+            writeLinkIndex();
+        } catch (final IOException e) {
+            throw new DITAOTException("Failed to serialize link index: " + e.getMessage(), e);
+        }
+
         if (INDEX_TYPE_ECLIPSEHELP.equals(transtype)) {
             final DelayConrefUtils delayConrefUtils = new DelayConrefUtils();
             delayConrefUtils.setLogger(logger);
@@ -735,6 +984,28 @@ public abstract class AbstractReaderModule extends AbstractPipelineModuleImpl {
         }
     }
 
+    /**
+     * Add links from parsed files to the link index in the temporary directory. Links recorded by an earlier
+     * reader are retained.
+     */
+    private void writeLinkIndex() throws IOException {
+        final File file = new File(job.tempDir, FILE_NAME_LINK_INDEX);
+        LinkIndex index = LinkIndex.read(file);
+        if (index == null) {
+            index = new LinkIndex();
+        }
+        for (final Map.Entry<URI, Set<URI>> e : links.entrySet()) {
+            if (!failureList.contains(e.getKey())) {
+                final Set<URI> targets = new HashSet<>(e.getValue().size());
+                for (final URI target : e.getValue()) {
+                    targets.add(tempFileNameScheme.generateTempFileName(target));
+                }
+                index.put(tempFileNameScheme.generateTempFileName(e.getKey()), targets);
+            }
+        }
+        index.write(file);
+    }
+
     /** Filter copy-to where target is used directly. */
     private Map<URI, URI> filterConflictingCopyTo( final Map<URI, URI> copyTo, final Collection<FileInfo> fileInfos) {
         final Set<URI> fileinfoTargets = fileInfos.stream()
@@ -17,14 +17,12 @@ import org.dita.dost.pipeline.AbstractPipelineOutput;
 import org.dita.dost.reader.GenListModuleReader.Reference;
 import org.dita.dost.reader.SubjectSchemeReader;
 import org.dita.dost.util.Job.FileInfo;
-import org.dita.dost.util.XMLUtils;
 import org.dita.dost.writer.DebugFilter;
 import org.dita.dost.writer.NormalizeFilter;
 import org.dita.dost.writer.ProfilingFilter;
 import org.dita.dost.writer.ValidationFilter;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
-import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.XMLFilter;
 
@@ -88,7 +86,8 @@ public final class TopicReaderModule extends AbstractReaderModule {
         super.init();
 
         if (filterUtils != null) {
-            final Document doc = getMapDocument();
+            final FileInfo fi = job.getFileInfo(FileInfo.Flag.IS_INPUT).iterator().next();
+            final Document doc = getMapDocument(fi);
             if (doc != null) {
                 final SubjectSchemeReader subjectSchemeReader = new SubjectSchemeReader();
                 subjectSchemeReader.setLogger(logger);
@@ -105,19 +104,19 @@ public final class TopicReaderModule extends AbstractReaderModule {
                         });
                 final SubjectScheme subjectScheme = subjectSchemeReader.getSubjectSchemeMap();
                 filterUtils = filterUtils.refine(subjectScheme);
+                job.getDocumentCache().release(job.tempDirURI.resolve(fi.uri), doc);
             }
         }
     }
 
-    private Document getMapDocument() throws SAXException {
-        final FileInfo fi = job.getFileInfo(f -> f.isInput).iterator().next();
+    private Document getMapDocument(final FileInfo fi) throws SAXException {
         if (fi == null) {
             return null;
         }
         final URI currentFile = job.tempDirURI.resolve(fi.uri);
         try {
             logger.debug("Reading " + currentFile);
-            return XMLUtils.getDocumentBuilder().parse(new InputSource(currentFile.toString()));
+            return job.getDocumentCache().get(currentFile);
         } catch (final SAXException | IOException e) {
             throw new SAXException("Failed to parse " + currentFile, e);
         }
@@ -125,7 +124,7 @@ public final class TopicReaderModule extends AbstractReaderModule {
 
     @Override
     public void readStartFile() throws DITAOTException {
-        FileInfo fi = job.getFileInfo(f -> f.isInput).iterator().next();
+        FileInfo fi = job.getFileInfo(FileInfo.Flag.IS_INPUT).iterator().next();
         if (fi == null) {
             addToWaitList(new Reference(job.getInputFile()));
         } else {
@@ -143,12 +142,13 @@ public final class TopicReaderModule extends AbstractReaderModule {
 
     private List<Reference> getStartDocuments() throws DITAOTException {
         final List<Reference> res = new ArrayList<>();
-        final FileInfo startFileInfo = job.getFileInfo(f -> f.isInput).iterator().next();
+        final FileInfo startFileInfo = job.getFileInfo(FileInfo.Flag.IS_INPUT).iterator().next();
         assert startFileInfo.src != null;
         final URI tmp = job.tempDirURI.resolve(startFileInfo.uri);
         final Source source = new StreamSource(tmp.toString());
         logger.info("Reading " + tmp);
         try {
+            job.getDocumentStore().materialize(tmp);
             final XMLStreamReader in = XMLInputFactory.newInstance().createXMLStreamReader(source);
             while (in.hasNext()) {
                 int eventType = in.next();
@@ -178,7 +178,7 @@ public final class TopicReaderModule extends AbstractReaderModule {
                         break;
                 }
             }
-        } catch (final XMLStreamException e) {
+        } catch (final XMLStreamException | IOException e) {
             throw new DITAOTException(e);
         }
         return res;
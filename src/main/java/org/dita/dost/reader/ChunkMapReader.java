@@ -35,7 +35,6 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URI;
 import java.util.*;
-import java.util.stream.Collectors;
 
 import static java.util.Collections.unmodifiableSet;
 import static org.apache.commons.io.FilenameUtils.getBaseName;
@@ -488,10 +487,9 @@ public final class ChunkMapReader extends AbstractDomFilter {
         } else if (id != null) {
             outputFileName = curr.result.resolve(id + FILE_EXTENSION_DITA);
         } else {
-            final Set<URI> results = job.getFileInfo().stream().map(fi -> fi.result).collect(Collectors.toSet());
             do {
                 outputFileName = curr.result.resolve(generateFilename());
-            } while (results.contains(outputFileName));
+            } while (!job.getFileInfoByResult(outputFileName).isEmpty());
         }
         return outputFileName;
     }
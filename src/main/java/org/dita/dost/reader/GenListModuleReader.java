@@ -51,12 +51,16 @@ public final class GenListModuleReader extends AbstractXMLFilter {
     private boolean hasKeyRef = false;
     /** Flag for whether parsing file contains coderef */
     private boolean hasCodeRef = false;
+    /** ID of the first element with an ID in current parsing file */
+    private String firstTopicId;
     /** Set of all targets referred in current parsing file except conref and copy-to */
     private final Set<Reference> nonConrefCopytoTargets = new LinkedHashSet<>(64);
     /** Set of conref targets refered in current parsing file */
     private final Set<URI> conrefTargets = new HashSet<>(32);
     /** Set of href nonConrefCopytoTargets refered in current parsing file */
     private final Set<URI> hrefTargets = new HashSet<>(32);
+    /** Set of all local link targets referred in current parsing file, regardless of link crawling */
+    private final Set<URI> linkTargets = new HashSet<>(32);
     /** Set of subject schema files */
     private final Set<URI> schemeSet = new HashSet<>(32);
     /** Set of coderef or object target files */
@@ -195,6 +199,20 @@ public final class GenListModuleReader extends AbstractXMLFilter {
         return schemeRelationGraph;
     }
 
+    /**
+     * Add results that are not cleared on {@link #reset()} from another reader.
+     *
+     * @param other reader to add results from
+     */
+    public void addCumulativeResults(final GenListModuleReader other) {
+        resourceOnlySet.addAll(other.resourceOnlySet);
+        normalProcessingRoleSet.addAll(other.normalProcessingRoleSet);
+        nonTopicrefReferenceSet.addAll(other.nonTopicrefReferenceSet);
+        for (final Map.Entry<URI, Set<URI>> e : other.schemeRelationGraph.entrySet()) {
+            schemeRelationGraph.computeIfAbsent(e.getKey(), k -> new LinkedHashSet<>()).addAll(e.getValue());
+        }
+    }
+
     public void setPrimaryDitamap(final URI primaryDitamap) {
         assert primaryDitamap.isAbsolute();
         this.rootDir = primaryDitamap.resolve(".");
@@ -227,6 +245,15 @@ public final class GenListModuleReader extends AbstractXMLFilter {
         return hasCodeRef;
     }
 
+    /**
+     * Get ID of the first element with an ID in the parsed file.
+     *
+     * @return first ID, {@code null} if the file has no IDs
+     */
+    public String getFirstTopicId() {
+        return firstTopicId;
+    }
+
     /**
      * To see if the parsed file has href inside.
      *
@@ -279,6 +306,16 @@ public final class GenListModuleReader extends AbstractXMLFilter {
         return hrefTargets;
     }
 
+    /**
+     * Get all local link targets. Unlike {@link #getHrefTargets()}, links are collected regardless of whether they
+     * are followed when crawling.
+     *
+     * @return absolute link target files without fragment
+     */
+    public Set<URI> getLinkTargets() {
+        return linkTargets;
+    }
+
     /**
      * Get conref targets.
      *
@@ -357,6 +394,7 @@ public final class GenListModuleReader extends AbstractXMLFilter {
         hasConRef = false;
         hasHref = false;
         hasCodeRef = false;
+        firstTopicId = null;
         currentDir = null;
         classes.clear();
         isValidInput = false;
@@ -364,6 +402,7 @@ public final class GenListModuleReader extends AbstractXMLFilter {
         coderefTargetSet.clear();
         nonConrefCopytoTargets.clear();
         hrefTargets.clear();
+        linkTargets.clear();
         conrefTargets.clear();
         copytoMap.clear();
         ignoredCopytoSourceSet.clear();
@@ -392,6 +431,9 @@ public final class GenListModuleReader extends AbstractXMLFilter {
             throws SAXException {
         handleRootElement(atts);
         handleSubjectScheme(atts);
+        if (firstTopicId == null) {
+            firstTopicId = atts.getValue(ATTRIBUTE_NAME_ID);
+        }
 
         String processingRole = atts.getValue(ATTRIBUTE_NAME_PROCESSING_ROLE);
         if (processingRole == null) {
@@ -399,12 +441,13 @@ public final class GenListModuleReader extends AbstractXMLFilter {
         }
         processRoleStack.push(processingRole);
 
-        final DitaClass cls = atts.getValue(ATTRIBUTE_NAME_CLASS) != null ? new DitaClass(atts.getValue(ATTRIBUTE_NAME_CLASS)) : null;
+        final DitaClass cls = atts.getValue(ATTRIBUTE_NAME_CLASS) != null ? DitaClass.getInstance(atts) : null;
 
         final URI href = toURI(atts.getValue(ATTRIBUTE_NAME_HREF));
         final String scope = atts.getValue(ATTRIBUTE_NAME_SCOPE);
         if (href != null && href.getPath() != null && !href.getPath().isEmpty() &&
                 !ATTR_SCOPE_VALUE_EXTERNAL.equals(scope) && !ATTR_SCOPE_VALUE_PEER.equals(scope)) {
+            linkTargets.add(stripFragment(currentDir.resolve(href)));
             if (isFormatDita(atts.getValue(ATTRIBUTE_NAME_FORMAT)) && !isDitaMap() &&
                     !job.crawlTopics()) {
                 // Topic link within a topic, ignore if only crawling map
@@ -8,34 +8,85 @@
 package org.dita.dost.reader;
 
 import org.apache.xerces.xni.grammars.XMLGrammarPool;
+import org.dita.dost.log.DITAOTLogger;
 import org.dita.dost.util.XMLGrammarPoolImplUtils;
 
 /**
  * Manages creation and access to a master Xerces grammar pool.
- * The grammar pool is managed as a ThreadLocal variable so it can
- * be used across Ant task invocations.
+ * The grammar pool is shared by all threads in the process so it can
+ * be used across Ant task invocations, parallel workers and builds.
  */
 public final class GrammarPoolManager {
 
-    private static final ThreadLocal<XMLGrammarPool> grammarPool = new ThreadLocal<>();
+    private static volatile XMLGrammarPoolImplUtils grammarPool;
+
+    private GrammarPoolManager() {
+    }
 
     /**
      * Get grammar pool
      *
-     * @return grammar pool instance
+     * @return grammar pool instance, {@code null} if Xerces is not available
      */
     public static XMLGrammarPool getGrammarPool() {
-        XMLGrammarPool pool = grammarPool.get();
+        XMLGrammarPoolImplUtils pool = grammarPool;
         if (pool == null) {
-            try {
-                pool = new XMLGrammarPoolImplUtils();
-                grammarPool.set(pool);
-            } catch (final Exception e) {
-                System.out.println("Failed to create Xerces grammar pool for caching DTDs and schemas");
+            synchronized (GrammarPoolManager.class) {
+                pool = grammarPool;
+                if (pool == null) {
+                    try {
+                        pool = new XMLGrammarPoolImplUtils();
+                        grammarPool = pool;
+                    } catch (final Exception | LinkageError e) {
+                        System.out.println("Failed to create Xerces grammar pool for caching DTDs and schemas");
+                    }
+                }
             }
         }
         return pool;
     }
 
-}
+    /**
+     * Lock grammar pool. A locked pool returns cached grammars but does not cache new ones.
+     */
+    public static void lock() {
+        final XMLGrammarPool pool = getGrammarPool();
+        if (pool != null) {
+            pool.lockPool();
+        }
+    }
+
+    /**
+     * Unlock grammar pool to allow caching new grammars.
+     */
+    public static void unlock() {
+        final XMLGrammarPool pool = getGrammarPool();
+        if (pool != null) {
+            pool.unlockPool();
+        }
+    }
 
+    /**
+     * Remove all cached grammars, e.g. after DTDs have been modified. Must not be called while documents
+     * are being parsed.
+     */
+    public static void clear() {
+        final XMLGrammarPoolImplUtils pool = grammarPool;
+        if (pool != null) {
+            pool.clear();
+        }
+    }
+
+    /**
+     * Log grammar pool statistics.
+     *
+     * @param logger logger to write statistics to
+     */
+    public static void logStatistics(final DITAOTLogger logger) {
+        final XMLGrammarPoolImplUtils pool = grammarPool;
+        if (pool != null) {
+            logger.debug("Grammar pool hits " + pool.getHits() + ", misses " + pool.getMisses());
+        }
+    }
+
+}
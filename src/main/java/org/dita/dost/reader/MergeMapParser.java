@@ -12,8 +12,8 @@ import static javax.xml.transform.OutputKeys.*;
 import static org.dita.dost.util.Constants.*;
 import static org.dita.dost.util.URLUtils.*;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URI;
 import java.util.Stack;
@@ -23,6 +23,7 @@ import javax.xml.transform.sax.SAXTransformerFactory;
 import javax.xml.transform.sax.TransformerHandler;
 import javax.xml.transform.stream.StreamResult;
 
+import org.apache.commons.io.output.DeferredFileOutputStream;
 import org.xml.sax.helpers.XMLFilterImpl;
 import org.xml.sax.helpers.AttributesImpl;
 
@@ -43,12 +44,17 @@ import org.xml.sax.XMLReader;
  * MergeMapParser reads the ditamap file after preprocessing and merges
  * different files into one intermediate result. It calls MergeTopicParser
  * to process the topic file. Instances are reusable but not thread-safe.
+ *
+ * <p>Merged topics are buffered in memory until the buffer threshold is exceeded,
+ * after which they are spilled to a temporary file.</p>
  */
 public final class MergeMapParser extends XMLFilterImpl {
 
     private static final String ATTRIBUTE_NAME_FIRST_TOPIC_ID = "first_topic_id";
     public static final String ATTRIBUTE_NAME_OHREF = "ohref";
     public static final String ATTRIBUTE_NAME_OID = "oid";
+    /** Default size in bytes of merged topics kept in memory. */
+    public static final int DEFAULT_BUFFER_THRESHOLD = 8 * 1024 * 1024;
 
     private final XMLReader reader;
     private final MergeTopicParser topicParser;
@@ -58,7 +64,7 @@ public final class MergeMapParser extends XMLFilterImpl {
 
     private final Stack<String> processStack;
     private int processLevel;
-    private final ByteArrayOutputStream topicBuffer;
+    private int bufferThreshold = DEFAULT_BUFFER_THRESHOLD;
     private final SAXTransformerFactory stf;
     private OutputStream output;
     private DITAOTLogger logger;
@@ -72,7 +78,6 @@ public final class MergeMapParser extends XMLFilterImpl {
         processLevel = 0;
         util = new MergeUtils();
         topicParser = new MergeTopicParser(util);
-        topicBuffer = new ByteArrayOutputStream();
         try {
             reader = XMLUtils.getXMLReader();
             reader.setContentHandler(this);
@@ -83,10 +88,6 @@ public final class MergeMapParser extends XMLFilterImpl {
                 throw new RuntimeException("SAX transformation factory not supported");
             }
             stf = (SAXTransformerFactory) tf;
-            final TransformerHandler s = stf.newTransformerHandler();
-            s.getTransformer().setOutputProperty(OMIT_XML_DECLARATION , "yes");
-            s.setResult(new StreamResult(topicBuffer));
-            topicParser.setContentHandler(s);
         } catch (final RuntimeException e) {
             throw e;
         } catch (final Exception e) {
@@ -101,6 +102,7 @@ public final class MergeMapParser extends XMLFilterImpl {
 
     public final void setJob(final Job job) {
         this.job = job;
+        util.setJob(job);
     }
 
     /**
@@ -121,6 +123,15 @@ public final class MergeMapParser extends XMLFilterImpl {
         this.output = output;
     }
 
+    /**
+     * Set size of merged topics kept in memory before spilling to a temporary file.
+     *
+     * @param bufferThreshold buffer threshold in bytes
+     */
+    public void setBufferThreshold(final int bufferThreshold) {
+        this.bufferThreshold = bufferThreshold;
+    }
+
     /**
      * Read map.
      *
@@ -129,7 +140,13 @@ public final class MergeMapParser extends XMLFilterImpl {
      */
     public void read(final File filename, final File tmpDir) {
         tempdir = tmpDir != null ? tmpDir : filename.getParentFile();
+        final DeferredFileOutputStream topicBuffer = new DeferredFileOutputStream(bufferThreshold, "merge", ".tmp", tempdir);
         try {
+            final TransformerHandler t = stf.newTransformerHandler();
+            t.getTransformer().setOutputProperty(OMIT_XML_DECLARATION, "yes");
+            t.setResult(new StreamResult(topicBuffer));
+            topicParser.setContentHandler(t);
+
             final TransformerHandler s = stf.newTransformerHandler();
             s.getTransformer().setOutputProperty(OMIT_XML_DECLARATION, "yes");
             s.setResult(new StreamResult(output));
@@ -140,11 +157,21 @@ public final class MergeMapParser extends XMLFilterImpl {
             logger.info("Processing " + filename.getAbsolutePath());
             reader.parse(filename.toURI().toString());
             topicParser.getContentHandler().endDocument();
-            output.write(topicBuffer.toByteArray());
+            topicBuffer.close();
+            topicBuffer.writeTo(output);
         } catch (final RuntimeException e) {
             throw e;
         } catch (final Exception e) {
             logger.error(e.getMessage(), e) ;
+        } finally {
+            try {
+                topicBuffer.close();
+            } catch (final IOException e) {
+                logger.error("Failed to close merge buffer: " + e.getMessage(), e);
+            }
+            if (!topicBuffer.isInMemory() && !topicBuffer.getFile().delete()) {
+                logger.error("Failed to delete " + topicBuffer.getFile());
+            }
         }
     }
 
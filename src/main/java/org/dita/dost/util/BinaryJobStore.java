@@ -0,0 +1,266 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2019 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+package org.dita.dost.util;
+
+import org.dita.dost.util.Job.FileInfo;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.dita.dost.util.URLUtils.toFile;
+import static org.dita.dost.util.URLUtils.toURI;
+
+/**
+ * Compact binary job store.
+ *
+ * <p>The store is a header followed by length-prefixed records. A record either replaces all job
+ * properties, adds or replaces a file info, or removes a file info. Records are applied in order, so
+ * changes can be appended to the end of an existing store without rewriting it. A truncated trailing
+ * record is ignored.</p>
+ */
+final class BinaryJobStore {
+
+    static final String JOB_FILE = ".job.bin";
+
+    private static final int MAGIC = 0x444a4f42;
+    private static final int VERSION = 2;
+
+    private static final byte RECORD_PROPERTIES = 1;
+    private static final byte RECORD_FILE = 2;
+    private static final byte RECORD_REMOVE = 3;
+
+    private static final byte VALUE_STRING = 1;
+    private static final byte VALUE_SET = 2;
+    private static final byte VALUE_MAP = 3;
+
+    private BinaryJobStore() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Read store.
+     *
+     * @param file store file
+     * @param prop properties to read into
+     * @param files file info objects to read into
+     * @return number of records read
+     * @throws IOException if reading failed or file is not a job store
+     */
+    static int read(final File file, final Map<String, Object> prop, final Map<URI, FileInfo> files) throws IOException {
+        int count = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unsupported job store " + file);
+            }
+            while (true) {
+                final byte[] record;
+                try {
+                    final int length = in.readInt();
+                    record = new byte[length];
+                    in.readFully(record);
+                } catch (final EOFException e) {
+                    break;
+                }
+                final DataInputStream r = new DataInputStream(new ByteArrayInputStream(record));
+                final byte type = r.readByte();
+                switch (type) {
+                    case RECORD_PROPERTIES:
+                        prop.clear();
+                        prop.putAll(readProperties(r));
+                        break;
+                    case RECORD_FILE:
+                        final FileInfo fi = readFileInfo(r);
+                        files.put(fi.uri, fi);
+                        break;
+                    case RECORD_REMOVE:
+                        files.remove(toURI(readString(r)));
+                        break;
+                    default:
+                        throw new IOException("Unsupported job store record type " + type);
+                }
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Write complete store, replacing existing store.
+     *
+     * @param file store file
+     * @param prop properties
+     * @param files file info objects
+     * @return number of records written
+     * @throws IOException if writing failed
+     */
+    static int write(final File file, final Map<String, Object> prop, final Collection<FileInfo> files) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            return writeRecords(out, prop, files, Collections.emptyList());
+        }
+    }
+
+    /**
+     * Append changes to an existing store.
+     *
+     * @param file store file
+     * @param prop changed properties, {@code null} if properties have not changed
+     * @param changed added or changed file info objects
+     * @param removed removed file info URIs
+     * @return number of records written
+     * @throws IOException if writing failed
+     */
+    static int append(final File file, final Map<String, Object> prop, final Collection<FileInfo> changed,
+                      final Collection<URI> removed) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)))) {
+            return writeRecords(out, prop, changed, removed);
+        }
+    }
+
+    private static int writeRecords(final DataOutputStream out, final Map<String, Object> prop,
+                                    final Collection<FileInfo> files, final Collection<URI> removed) throws IOException {
+        int count = 0;
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        final DataOutputStream r = new DataOutputStream(buf);
+        if (prop != null) {
+            r.writeByte(RECORD_PROPERTIES);
+            writeProperties(r, prop);
+            count += flushRecord(out, buf);
+        }
+        for (final FileInfo fi : files) {
+            r.writeByte(RECORD_FILE);
+            writeFileInfo(r, fi);
+            count += flushRecord(out, buf);
+        }
+        for (final URI uri : removed) {
+            r.writeByte(RECORD_REMOVE);
+            writeString(r, uri.toString());
+            count += flushRecord(out, buf);
+        }
+        return count;
+    }
+
+    private static int flushRecord(final DataOutputStream out, final ByteArrayOutputStream buf) throws IOException {
+        out.writeInt(buf.size());
+        buf.writeTo(out);
+        buf.reset();
+        return 1;
+    }
+
+    private static void writeProperties(final DataOutputStream out, final Map<String, Object> prop) throws IOException {
+        out.writeInt(prop.size());
+        for (final Map.Entry<String, Object> e : prop.entrySet()) {
+            writeString(out, e.getKey());
+            if (e.getValue() instanceof Set) {
+                final Set<?> s = (Set<?>) e.getValue();
+                out.writeByte(VALUE_SET);
+                out.writeInt(s.size());
+                for (final Object o : s) {
+                    writeString(out, o.toString());
+                }
+            } else if (e.getValue() instanceof Map) {
+                final Map<?, ?> m = (Map<?, ?>) e.getValue();
+                out.writeByte(VALUE_MAP);
+                out.writeInt(m.size());
+                for (final Map.Entry<?, ?> o : m.entrySet()) {
+                    writeString(out, o.getKey().toString());
+                    writeString(out, o.getValue().toString());
+                }
+            } else {
+                out.writeByte(VALUE_STRING);
+                writeString(out, e.getValue().toString());
+            }
+        }
+    }
+
+    private static Map<String, Object> readProperties(final DataInputStream in) throws IOException {
+        final int size = in.readInt();
+        final Map<String, Object> prop = new HashMap<>(size);
+        for (int i = 0; i < size; i++) {
+            final String key = readString(in);
+            final byte type = in.readByte();
+            switch (type) {
+                case VALUE_SET:
+                    final int setSize = in.readInt();
+                    final Set<String> s = new HashSet<>(setSize);
+                    for (int j = 0; j < setSize; j++) {
+                        s.add(readString(in));
+                    }
+                    prop.put(key, s);
+                    break;
+                case VALUE_MAP:
+                    final int mapSize = in.readInt();
+                    final Map<String, String> m = new HashMap<>(mapSize);
+                    for (int j = 0; j < mapSize; j++) {
+                        m.put(readString(in), readString(in));
+                    }
+                    prop.put(key, m);
+                    break;
+                case VALUE_STRING:
+                    prop.put(key, readString(in));
+                    break;
+                default:
+                    throw new IOException("Unsupported job store property type " + type);
+            }
+        }
+        return prop;
+    }
+
+    private static void writeFileInfo(final DataOutputStream out, final FileInfo fi) throws IOException {
+        writeString(out, fi.uri.toString());
+        writeString(out, fi.src != null ? fi.src.toString() : null);
+        writeString(out, fi.result != null ? fi.result.toString() : null);
+        writeString(out, fi.format);
+        writeString(out, fi.firstTopicId);
+        int flags = 0;
+        for (final FileInfo.Flag flag : FileInfo.Flag.values()) {
+            if (flag.test(fi)) {
+                flags |= 1 << flag.ordinal();
+            }
+        }
+        out.writeInt(flags);
+    }
+
+    private static FileInfo readFileInfo(final DataInputStream in) throws IOException {
+        final URI uri = toURI(readString(in));
+        final URI src = toURI(readString(in));
+        final FileInfo fi = new FileInfo(src, uri, toFile(uri));
+        fi.result = toURI(readString(in));
+        fi.format = readString(in);
+        fi.firstTopicId = readString(in);
+        final int flags = in.readInt();
+        for (final FileInfo.Flag flag : FileInfo.Flag.values()) {
+            flag.set(fi, (flags & (1 << flag.ordinal())) != 0);
+        }
+        return fi;
+    }
+
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length == -1) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
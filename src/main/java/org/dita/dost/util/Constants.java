@@ -909,6 +909,8 @@ public final class Constants {
     public static final String ANT_INVOKER_EXT_PARAN_FORCE_UNIQUE = "force-unique";
     public static final String ANT_INVOKER_EXT_PARAM_GENERATE_DEBUG_ATTR = "generate-debug-attributes";
     public static final String ANT_INVOKER_EXT_PARAM_PROCESSING_MODE = "processing-mode";
+    public static final String ANT_INVOKER_EXT_PARAM_PARALLEL = "parallel";
+    public static final String ANT_INVOKER_EXT_PARAM_THREADS = "threads";
     /**Constants for line separator.*/
     public static final String LINE_SEPARATOR = System.getProperty("line.separator");
 
@@ -1069,6 +1071,8 @@ public final class Constants {
     public static final String ATTR_TYPE_VALUE_SUBJECT_SCHEME = "subjectScheme";
     /**store how many scheme files a ditamap file used in form of {@code Map&lt;String, Set&lt;String>>}.*/
     public static final String FILE_NAME_SUBJECT_DICTIONARY = "subject_scheme.dictionary";
+    /**store links between temporary files in form of {@code Map&lt;String, Set&lt;String>>}, see {@link LinkIndex}.*/
+    public static final String FILE_NAME_LINK_INDEX = "link.index";
     /**export.xml to store exported elements.*/
     public static final String FILE_NAME_EXPORT_XML = "export.xml";
     /**pluginId.xml to store the plugin id.*/
@@ -9,6 +9,12 @@ package org.dita.dost.util;
 
 import static org.dita.dost.util.Constants.*;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Pattern;
 
 import org.w3c.dom.Attr;
@@ -19,7 +25,8 @@ import org.xml.sax.Attributes;
 /**
  * DITA specialization hierarchy object.
  *
- * <p>Instances of this class are immutable and are safe for use by multiple concurrent threads.</p>
+ * <p>Instances of this class are immutable and are safe for use by multiple concurrent threads. Instances
+ * returned by the {@code getInstance} methods are canonicalized by the class attribute value.</p>
  *
  * @since 1.5.3
  * @author Jarno Elovirta
@@ -31,15 +38,23 @@ public final class DitaClass {
     private static final Pattern WHITESPACE = Pattern.compile("\\s+");
     private static final Pattern VALID_DITA_CLASS = Pattern.compile("(\\+|-)\\s+(topic|map)/\\S+\\s+" +
                                                          "([\\S[^/]]+/\\S+\\s+)*");
+    /** Maximum number of cached instances. */
+    private static final int MAX_CACHE_SIZE = 4096;
+    /** Canonical instances keyed by class attribute value. */
+    private static final ConcurrentMap<String, DitaClass> cache = new ConcurrentHashMap<>();
 
     /** ModuleElem/type pair for the most specialized type, with a single preceding and following space character. */
     public final String matcher;
     /** Type name, i.e. local element name. */
     public final String localName;
+    /** ModuleElem/type pair for the most specialized type. */
+    private final String type;
+    /** ModuleElem/type pairs that {@link #matcher} is matched against. */
+    private final Set<String> types;
     /** Normalized specialization hierarchy string. */
     private final String stringValue;
     /** Does this class value use valid DITA class syntax */
-    private boolean validDitaClass = false;
+    private final boolean validDitaClass;
 
     // Constructors
 
@@ -50,7 +65,8 @@ public final class DitaClass {
      */
     public DitaClass(final String cls) {
         final String[] tokens = WHITESPACE.split(cls);
-        final String last = tokens[tokens.length - 1];
+        final String last = tokens.length > 0 ? tokens[tokens.length - 1] : "";
+        type = last;
         matcher = ' ' + last + ' ';
         localName = last.substring(last.indexOf('/') + 1);
         final StringBuilder sb = new StringBuilder();
@@ -58,11 +74,15 @@ public final class DitaClass {
             sb.append(s).append(' ');
         }
         stringValue = sb.toString();
+        // first token is not preceded by a space and never matches
+        types = tokens.length > 1
+                ? new HashSet<>(Arrays.asList(tokens).subList(1, tokens.length))
+                : Collections.emptySet();
         validDitaClass = VALID_DITA_CLASS.matcher(stringValue).matches();
     }
 
     /**
-     * Get class instance.
+     * Get canonical class instance.
      * @param cls DITA class, may be {@code null}
      * @return DITA class, {@code null} if the input was {@code null}
      */
@@ -70,7 +90,17 @@ public final class DitaClass {
         if (cls == null) {
             return null;
         }
-        return new DitaClass(cls);
+        DitaClass res = cache.get(cls);
+        if (res == null) {
+            res = new DitaClass(cls);
+            if (cache.size() < MAX_CACHE_SIZE) {
+                final DitaClass prev = cache.putIfAbsent(cls, res);
+                if (prev != null) {
+                    res = prev;
+                }
+            }
+        }
+        return res;
     }
 
     /**
@@ -143,17 +173,52 @@ public final class DitaClass {
      * @return {@code true} if given class matches this class, otherwise {@code false}
      */
     public boolean matches(final DitaClass cls) {
-        return cls != null && cls.toString().contains(matcher);
+        return cls != null && cls.types.contains(type);
     }
 
     /**
-     * Test if given DITA class string matches this DITA class.
+     * Test if given DITA class string matches this DITA class. The class string is not added to the canonical
+     * instance cache.
      *
      * @param classString DITA element class string
      * @return {@code true} if given class matches this class, otherwise {@code false}
      */
     public boolean matches(final String classString) {
-        return classString != null && classString.contains(matcher);
+        if (classString == null) {
+            return false;
+        }
+        final DitaClass cached = cache.get(classString);
+        if (cached != null) {
+            return cached.types.contains(type);
+        }
+        return containsType(classString);
+    }
+
+    /**
+     * Test if class string contains {@link #type} as a token after the first token, without parsing it into an
+     * instance.
+     */
+    private boolean containsType(final String classString) {
+        final int length = classString.length();
+        int i = 0;
+        boolean first = true;
+        while (i < length) {
+            while (i < length && Character.isWhitespace(classString.charAt(i))) {
+                i++;
+            }
+            final int start = i;
+            while (i < length && !Character.isWhitespace(classString.charAt(i))) {
+                i++;
+            }
+            if (start == i) {
+                break;
+            }
+            if (!first && i - start == type.length() && classString.regionMatches(start, type, 0, type.length())) {
+                return true;
+            }
+            first = false;
+        }
+        return false;
     }
 
     /**
@@ -0,0 +1,268 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2019 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+package org.dita.dost.util;
+
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.dita.dost.util.Configuration.configuration;
+
+/**
+ * Job-scoped cache of parsed documents in the temporary directory.
+ *
+ * <p>Documents are handed out to a single owner: {@link #get(URI)} removes a cached document from the cache,
+ * and the owner either writes it back with {@link #put(URI, Document)} or returns it unmodified with
+ * {@link #release(URI, Document)}. Writes go through to disk. An entry is valid as long as the identity,
+ * modification time and size of the file are unchanged, so files rewritten by other stages, e.g. XSLT, are
+ * parsed again.
+ * The least recently used entry is evicted when the cache is full. Documents held in the job
+ * {@link DocumentStore} are written to disk before they are parsed.</p>
+ */
+public final class DocumentCache {
+
+    private static final String CONF_DOCUMENT_CACHE_SIZE = "document-cache-size";
+    private static final int DEFAULT_SIZE = 4;
+
+    private static final class Entry {
+        final Document doc;
+        final Stamp stamp;
+
+        Entry(final Document doc, final Stamp stamp) {
+            this.doc = doc;
+            this.stamp = stamp;
+        }
+    }
+
+    /** File identity, modification time and size. */
+    private static final class Stamp {
+        final Object fileKey;
+        final FileTime lastModified;
+        final long size;
+
+        Stamp(final Object fileKey, final FileTime lastModified, final long size) {
+            this.fileKey = fileKey;
+            this.lastModified = lastModified;
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final Stamp stamp = (Stamp) o;
+            return size == stamp.size &&
+                    Objects.equals(fileKey, stamp.fileKey) &&
+                    lastModified.equals(stamp.lastModified);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fileKey, lastModified, size);
+        }
+    }
+
+    private final int maxSize;
+    private final DocumentStore store;
+    private final Map<URI, Entry> cache;
+    private final Map<URI, Stamp> checkedOut = new LinkedHashMap<>();
+    private long hits;
+    private long misses;
+
+    /**
+     * Create new cache using configured size.
+     *
+     * @param store document store to write documents from before parsing, may be {@code null}
+     */
+    DocumentCache(final DocumentStore store) {
+        this(Integer.parseInt(configuration.getOrDefault(CONF_DOCUMENT_CACHE_SIZE, Integer.toString(DEFAULT_SIZE))),
+                store);
+    }
+
+    /**
+     * Create new cache.
+     *
+     * @param maxSize maximum number of cached documents, {@code 0} to disable caching
+     */
+    DocumentCache(final int maxSize) {
+        this(maxSize, null);
+    }
+
+    /**
+     * Create new cache.
+     *
+     * @param maxSize maximum number of cached documents, {@code 0} to disable caching
+     * @param store document store to write documents from before parsing, may be {@code null}
+     */
+    DocumentCache(final int maxSize, final DocumentStore store) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Cache size must not be negative: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.store = store;
+        this.cache = new LinkedHashMap<URI, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 2046214563537586216L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<URI, Entry> eldest) {
+                return size() > DocumentCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Get document. A cached document is removed from the cache and the caller becomes its owner.
+     *
+     * @param file absolute file URI
+     * @return parsed document
+     * @throws IOException if reading the file failed
+     * @throws SAXException if parsing the file failed
+     */
+    public Document get(final URI file) throws IOException, SAXException {
+        return get(file, XMLUtils.getDocumentBuilder());
+    }
+
+    /**
+     * Get document. A cached document is removed from the cache and the caller becomes its owner.
+     *
+     * @param file absolute file URI
+     * @param builder document builder used to parse the file if it is not cached
+     * @return parsed document
+     * @throws IOException if reading the file failed
+     * @throws SAXException if parsing the file failed
+     */
+    public Document get(final URI file, final DocumentBuilder builder) throws IOException, SAXException {
+        final URI key = file.normalize();
+        if (store != null) {
+            store.materialize(key);
+        }
+        final Stamp stamp = stamp(key);
+        synchronized (this) {
+            final Entry entry = cache.remove(key);
+            if (entry != null && entry.stamp.equals(stamp)) {
+                hits++;
+                checkedOut.put(key, stamp);
+                return entry.doc;
+            }
+            misses++;
+        }
+        final Document doc = builder.parse(key.toString());
+        synchronized (this) {
+            checkedOut.put(key, stamp);
+        }
+        return doc;
+    }
+
+    /**
+     * Write document to file and cache it.
+     *
+     * @param file absolute file URI
+     * @param doc document to write
+     * @throws IOException if writing the file failed
+     */
+    public void put(final URI file, final Document doc) throws IOException {
+        final URI key = file.normalize();
+        if (store != null) {
+            store.remove(key);
+        }
+        synchronized (this) {
+            cache.remove(key);
+            checkedOut.remove(key);
+        }
+        final File f = new File(key);
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(f))) {
+            final Transformer serializer = XMLUtils.getTransformerFactory().newTransformer();
+            serializer.transform(new DOMSource(doc), new StreamResult(out));
+        } catch (final TransformerException e) {
+            throw new IOException("Failed to serialize " + key + ": " + e.getMessageAndLocation(), e);
+        }
+        cache(key, doc, stamp(key));
+    }
+
+    /**
+     * Return an unmodified document to the cache. If the file has changed after the document was
+     * retrieved, the document is discarded.
+     *
+     * @param file absolute file URI
+     * @param doc document retrieved with {@link #get(URI)}
+     */
+    public void release(final URI file, final Document doc) {
+        final URI key = file.normalize();
+        final Stamp expected;
+        synchronized (this) {
+            expected = checkedOut.remove(key);
+        }
+        if (expected != null) {
+            try {
+                final Stamp stamp = stamp(key);
+                if (expected.equals(stamp)) {
+                    cache(key, doc, stamp);
+                }
+            } catch (final IOException e) {
+                // file is not readable, do not cache
+            }
+        }
+    }
+
+    /**
+     * Remove document from the cache.
+     *
+     * @param file absolute file URI
+     */
+    public synchronized void invalidate(final URI file) {
+        final URI key = file.normalize();
+        cache.remove(key);
+        checkedOut.remove(key);
+    }
+
+    /**
+     * Remove all documents from the cache.
+     */
+    public synchronized void clear() {
+        cache.clear();
+        checkedOut.clear();
+    }
+
+    synchronized long getHits() {
+        return hits;
+    }
+
+    synchronized long getMisses() {
+        return misses;
+    }
+
+    private synchronized void cache(final URI key, final Document doc, final Stamp stamp) {
+        if (maxSize > 0) {
+            doc.setDocumentURI(key.toString());
+            cache.put(key, new Entry(doc, stamp));
+        }
+    }
+
+    private static Stamp stamp(final URI file) throws IOException {
+        final BasicFileAttributes attrs = Files.readAttributes(new File(file).toPath(), BasicFileAttributes.class);
+        return new Stamp(attrs.fileKey(), attrs.lastModifiedTime(), attrs.size());
+    }
+
+}
@@ -0,0 +1,430 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2019 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+package org.dita.dost.util;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.SAXNotSupportedException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.URIResolver;
+import javax.xml.transform.sax.SAXSource;
+import javax.xml.transform.sax.TransformerHandler;
+import javax.xml.transform.stream.StreamResult;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.dita.dost.util.Configuration.configuration;
+import static org.dita.dost.util.URLUtils.stripFragment;
+
+/**
+ * Job-scoped in-memory store of documents in the temporary directory.
+ *
+ * <p>Stages that support the store write their results as buffered SAX events instead of files, and read
+ * buffered documents instead of parsing files. A document in the store replaces the file on disk, so the store
+ * must be flushed with {@link #flush()} before running code that reads files directly. When the estimated size of
+ * the buffered documents exceeds the memory budget, the least recently used documents are written to disk.
+ * Documents outside the temporary directory are always written to disk.</p>
+ *
+ * <p>Documents are written to disk outside the store monitor, so that other threads can use the store while a
+ * document is written. A document remains readable from memory until it has been written. Writes are serialized
+ * with a separate lock.</p>
+ *
+ * <p>The store is disabled by default. The memory budget in megabytes is configured with
+ * {@code document-store-size}.</p>
+ */
+public final class DocumentStore {
+
+    private static final String CONF_DOCUMENT_STORE_SIZE = "document-store-size";
+    private static final String LEXICAL_HANDLER = "http://xml.org/sax/properties/lexical-handler";
+    private static final String NAMESPACES = "http://xml.org/sax/features/namespaces";
+
+    private final URI baseDir;
+    private final long maxSize;
+    private final Map<URI, SaxEventBuffer> documents = new LinkedHashMap<>(16, 0.75f, true);
+    /** Documents removed from the store that have not yet been written to disk. */
+    private final Map<URI, SaxEventBuffer> writing = new HashMap<>();
+    /** Lock held while writing documents to disk. */
+    private final Object writeLock = new Object();
+    private long size;
+    private long stored;
+    private long spilled;
+
+    /**
+     * Create new store using configured memory budget.
+     *
+     * @param baseDir temporary directory
+     */
+    DocumentStore(final File baseDir) {
+        this(baseDir, Long.parseLong(configuration.getOrDefault(CONF_DOCUMENT_STORE_SIZE, "0")) * 1024 * 1024);
+    }
+
+    /**
+     * Create new store.
+     *
+     * @param baseDir temporary directory
+     * @param maxSize memory budget in bytes, {@code 0} to disable the store
+     */
+    DocumentStore(final File baseDir, final long maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Store size must not be negative: " + maxSize);
+        }
+        this.baseDir = baseDir.getAbsoluteFile().toURI();
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Test if the store is enabled.
+     */
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    /**
+     * Test if a document would be kept in the store when written with {@link #put(URI, SaxEventBuffer)}.
+     *
+     * @param file absolute file URI
+     * @return {@code true} if store is enabled and the file is in the temporary directory
+     */
+    public boolean accepts(final URI file) {
+        return isEnabled() && !baseDir.relativize(key(file)).isAbsolute();
+    }
+
+    /**
+     * Test if the store contains a document.
+     *
+     * @param file absolute file URI
+     */
+    public synchronized boolean contains(final URI file) {
+        if (documents.isEmpty() && writing.isEmpty()) {
+            return false;
+        }
+        final URI key = key(file);
+        return documents.containsKey(key) || writing.containsKey(key);
+    }
+
+    /**
+     * Get buffered document.
+     *
+     * @param file absolute file URI
+     * @return buffered document, {@code null} if the store does not contain the document
+     */
+    public synchronized SaxEventBuffer get(final URI file) {
+        if (documents.isEmpty() && writing.isEmpty()) {
+            return null;
+        }
+        final URI key = key(file);
+        final SaxEventBuffer buffer = documents.get(key);
+        return buffer != null ? buffer : writing.get(key);
+    }
+
+    /**
+     * Store document. Documents the store does not accept, and documents evicted to keep the store within its
+     * memory budget, are written to disk.
+     *
+     * @param file absolute file URI
+     * @param buffer complete document, must not be modified after this call
+     * @throws IOException if writing a document to disk failed
+     */
+    public void put(final URI file, final SaxEventBuffer buffer) throws IOException {
+        final URI key = key(file);
+        if (!accepts(key)) {
+            write(key, buffer);
+            return;
+        }
+        final List<URI> evicted = new ArrayList<>();
+        synchronized (this) {
+            final SaxEventBuffer old = documents.put(key, buffer);
+            if (old != null) {
+                size -= old.size();
+            }
+            size += buffer.size();
+            stored++;
+            final Iterator<Map.Entry<URI, SaxEventBuffer>> it = documents.entrySet().iterator();
+            while (size > maxSize && it.hasNext()) {
+                final Map.Entry<URI, SaxEventBuffer> e = it.next();
+                it.remove();
+                size -= e.getValue().size();
+                spilled++;
+                writing.put(e.getKey(), e.getValue());
+                evicted.add(e.getKey());
+            }
+        }
+        writePending(evicted);
+    }
+
+    /**
+     * Write document to disk and remove it from the store.
+     *
+     * @param file absolute file URI
+     * @throws IOException if writing the document failed
+     */
+    public void materialize(final URI file) throws IOException {
+        final URI key = key(file);
+        synchronized (this) {
+            if (documents.isEmpty() && writing.isEmpty()) {
+                return;
+            }
+            final SaxEventBuffer buffer = documents.remove(key);
+            if (buffer != null) {
+                size -= buffer.size();
+                writing.put(key, buffer);
+            } else if (!writing.containsKey(key)) {
+                return;
+            }
+        }
+        writePending(Collections.singletonList(key));
+    }
+
+    /**
+     * Remove document from the store without writing it to disk.
+     *
+     * @param file absolute file URI
+     */
+    public void remove(final URI file) {
+        final URI key = key(file);
+        synchronized (this) {
+            if (documents.isEmpty() && writing.isEmpty()) {
+                return;
+            }
+            final SaxEventBuffer buffer = documents.remove(key);
+            if (buffer != null) {
+                size -= buffer.size();
+            }
+            if (writing.remove(key) == null) {
+                return;
+            }
+        }
+        // wait for a write of the removed document to finish, so that it does not overwrite the caller's file
+        synchronized (writeLock) {
+            // nothing to do, acquiring the lock is enough
+        }
+    }
+
+    /**
+     * Write all documents to disk and empty the store.
+     *
+     * @throws IOException if writing a document failed
+     */
+    public void flush() throws IOException {
+        final List<URI> pending;
+        synchronized (this) {
+            writing.putAll(documents);
+            documents.clear();
+            size = 0;
+            pending = new ArrayList<>(writing.keySet());
+        }
+        writePending(pending);
+    }
+
+    /**
+     * Write pending documents to disk. A document is skipped if it has already been written or removed by another
+     * thread.
+     *
+     * @param keys keys of documents to write
+     * @throws IOException if writing a document failed, the document remains pending
+     */
+    private void writePending(final Collection<URI> keys) throws IOException {
+        if (keys.isEmpty()) {
+            return;
+        }
+        synchronized (writeLock) {
+            for (final URI key : keys) {
+                final SaxEventBuffer buffer;
+                synchronized (this) {
+                    buffer = writing.get(key);
+                }
+                if (buffer != null) {
+                    write(key, buffer);
+                    synchronized (this) {
+                        writing.remove(key, buffer);
+                    }
+                }
+            }
+        }
+    }
+
+    synchronized long getStored() {
+        return stored;
+    }
+
+    synchronized long getSpilled() {
+        return spilled;
+    }
+
+    /**
+     * Get XML reader that reads documents from the store. Documents not in the store are parsed with the given
+     * parser.
+     *
+     * @param parser XML parser
+     * @return XML reader, or the parser if the store is disabled
+     */
+    public XMLReader getXMLReader(final XMLReader parser) {
+        return isEnabled() ? new StoreReader(parser, null) : parser;
+    }
+
+    /**
+     * Get URI resolver that resolves documents in the store. Other URIs are resolved with the given resolver.
+     *
+     * @param resolver URI resolver, may be {@code null}
+     * @return URI resolver, or the given resolver if the store is disabled
+     */
+    public URIResolver getURIResolver(final URIResolver resolver) {
+        if (!isEnabled()) {
+            return resolver;
+        }
+        return (href, base) -> {
+            final URI file = resolve(href, base);
+            final SaxEventBuffer buffer = file != null ? get(file) : null;
+            if (buffer != null) {
+                return new SAXSource(new StoreReader(null, buffer), new InputSource(key(file).toString()));
+            }
+            return resolver != null ? resolver.resolve(href, base) : null;
+        };
+    }
+
+    private static URI resolve(final String href, final String base) {
+        try {
+            final URI uri = URLUtils.toURI(href);
+            final URI res = base != null && !uri.isAbsolute() ? URLUtils.toURI(base).resolve(uri) : uri;
+            return res.isAbsolute() && "file".equals(res.getScheme()) ? res : null;
+        } catch (final IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static URI key(final URI file) {
+        final URI uri = stripFragment(file).normalize();
+        if ("file".equals(uri.getScheme())) {
+            try {
+                return new File(uri).toURI();
+            } catch (final IllegalArgumentException e) {
+                // not a hierarchical file URI
+            }
+        }
+        return uri;
+    }
+
+    private static void write(final URI file, final SaxEventBuffer buffer) throws IOException {
+        final File f = new File(file);
+        final File dir = f.getParentFile();
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Failed to create directory " + dir.getAbsolutePath());
+        }
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(f))) {
+            final TransformerHandler serializer = XMLUtils.newIdentityTransformerHandler();
+            serializer.setResult(new StreamResult(out));
+            buffer.replay(serializer, serializer, file.toString());
+        } catch (final TransformerConfigurationException | SAXException e) {
+            throw new IOException("Failed to serialize " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * XML reader that replays documents in the store and delegates other documents to a parser.
+     */
+    private final class StoreReader extends XMLFilterImpl {
+
+        /** Document to replay, {@code null} to look up documents from the store. */
+        private final SaxEventBuffer document;
+        private LexicalHandler lexicalHandler;
+
+        StoreReader(final XMLReader parent, final SaxEventBuffer document) {
+            super(parent);
+            this.document = document;
+            if (parent != null) {
+                setEntityResolver(parent.getEntityResolver());
+                setDTDHandler(parent.getDTDHandler());
+                setErrorHandler(parent.getErrorHandler());
+            }
+        }
+
+        @Override
+        public void setFeature(final String name, final boolean value)
+                throws SAXNotRecognizedException, SAXNotSupportedException {
+            if (getParent() != null) {
+                super.setFeature(name, value);
+            }
+        }
+
+        @Override
+        public boolean getFeature(final String name) throws SAXNotRecognizedException, SAXNotSupportedException {
+            if (getParent() == null) {
+                return name.equals(NAMESPACES);
+            }
+            return super.getFeature(name);
+        }
+
+        @Override
+        public void setProperty(final String name, final Object value)
+                throws SAXNotRecognizedException, SAXNotSupportedException {
+            if (LEXICAL_HANDLER.equals(name)) {
+                lexicalHandler = (LexicalHandler) value;
+            }
+            if (getParent() != null) {
+                super.setProperty(name, value);
+            }
+        }
+
+        @Override
+        public Object getProperty(final String name) throws SAXNotRecognizedException, SAXNotSupportedException {
+            if (LEXICAL_HANDLER.equals(name)) {
+                return lexicalHandler;
+            }
+            return super.getProperty(name);
+        }
+
+        @Override
+        public void parse(final InputSource input) throws SAXException, IOException {
+            final String systemId = input.getSystemId();
+            final SaxEventBuffer buffer = document != null
+                    ? document
+                    : systemId != null ? get(URLUtils.toURI(systemId)) : null;
+            if (buffer != null) {
+                buffer.replay(getContentHandler(), lexicalHandler, systemId);
+            } else if (getParent() != null) {
+                // parse with the parent directly instead of registering this filter as its handlers
+                final XMLReader parent = getParent();
+                parent.setContentHandler(getContentHandler());
+                if (getEntityResolver() != null) {
+                    parent.setEntityResolver(getEntityResolver());
+                }
+                if (getDTDHandler() != null) {
+                    parent.setDTDHandler(getDTDHandler());
+                }
+                if (getErrorHandler() != null) {
+                    parent.setErrorHandler(getErrorHandler());
+                }
+                parent.parse(input);
+            } else {
+                throw new IOException("No parser to read " + systemId);
+            }
+        }
+
+        @Override
+        public void parse(final String systemId) throws SAXException, IOException {
+            parse(new InputSource(systemId));
+        }
+    }
+}
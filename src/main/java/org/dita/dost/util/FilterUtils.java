@@ -16,7 +16,9 @@ import static org.dita.dost.util.Constants.*;
 import java.io.IOException;
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -50,12 +52,21 @@ public final class FilterUtils {
     /** Subject scheme file extension */
     public static final String SUBJECT_SCHEME_EXTENSION = ".subm";
     public static final FilterKey DEFAULT = new FilterKey(QName.valueOf(DEFAULT_ACTION), null);
+    /** Maximum number of memoized verdicts per attribute. */
+    private static final int MAX_CACHE_SIZE = 4096;
 
     private DITAOTLogger logger;
     /** Actions for filter keys. */
     private final Map<FilterKey, Action> filterMap;
+    /** Actions by attribute name and value, default action of an attribute has {@code null} value. */
+    private final Map<QName, Map<String, Action>> actions;
+    private final boolean defaultExclude;
+    /** Exclusion verdicts by attribute name or {@code props} specialization, and attribute value. */
+    private final Map<Object, Map<String, Boolean>> excludeCache = new ConcurrentHashMap<>();
+    /** Flags by attribute name or {@code props} specialization, and attribute value. */
+    private final Map<Object, Map<String, List<Flag>>> flagCache = new ConcurrentHashMap<>();
     /** Set of filter keys for which an error has already been thrown. */
-    private final Set<FilterKey> notMappingRules = new HashSet<>();
+    private final Set<FilterKey> notMappingRules = ConcurrentHashMap.newKeySet();
     private boolean logMissingAction;
     private final String foregroundConflictColor;
     private final String backgroundConflictColor;
@@ -66,6 +77,8 @@ public final class FilterUtils {
                        String backgroundConflictColor) {
         this.logMissingAction = !filterMap.isEmpty();
         this.filterMap = new HashMap<>(filterMap);
+        this.actions = compile(this.filterMap);
+        this.defaultExclude = this.filterMap.get(DEFAULT) instanceof Exclude;
         this.foregroundConflictColor = foregroundConflictColor;
         this.backgroundConflictColor = backgroundConflictColor;
         filterAttributes = getProfileAttributes(Configuration.configuration.get("filter-attributes"));
@@ -101,6 +114,8 @@ public final class FilterUtils {
         dfm.putAll(filterMap);
         this.logMissingAction = !filterMap.isEmpty();
         this.filterMap = dfm;
+        this.actions = compile(this.filterMap);
+        this.defaultExclude = this.filterMap.get(DEFAULT) instanceof Exclude;
         this.foregroundConflictColor = foregroundConflictColor;
         this.backgroundConflictColor = backgroundConflictColor;
         filterAttributes = getProfileAttributes(Configuration.configuration.get("filter-attributes"));
@@ -125,6 +140,43 @@ public final class FilterUtils {
         return filterMap.toString();
     }
 
+    private static Map<QName, Map<String, Action>> compile(final Map<FilterKey, Action> filterMap) {
+        final Map<QName, Map<String, Action>> res = new HashMap<>();
+        for (final Map.Entry<FilterKey, Action> e : filterMap.entrySet()) {
+            res.computeIfAbsent(e.getKey().attribute, k -> new HashMap<>()).put(e.getKey().value, e.getValue());
+        }
+        return res;
+    }
+
+    private Action getAction(final QName attName, final String value) {
+        final Map<String, Action> values = actions.get(attName);
+        return values != null ? values.get(value) : null;
+    }
+
+    /**
+     * Get memoized verdict for an attribute value.
+     *
+     * @param caches verdict caches
+     * @param key attribute name or {@code props} specialization
+     * @param value attribute value
+     * @param verdict function to compute verdict
+     */
+    private static <V> V memoize(final Map<Object, Map<String, V>> caches, final Object key, final String value,
+                                 final Function<String, V> verdict) {
+        Map<String, V> cache = caches.get(key);
+        if (cache == null) {
+            cache = caches.computeIfAbsent(key, k -> new ConcurrentHashMap<>());
+        }
+        V res = cache.get(value);
+        if (res == null) {
+            res = verdict.apply(value);
+            if (cache.size() < MAX_CACHE_SIZE) {
+                cache.put(value, res);
+            }
+        }
+        return res;
+    }
+
     private static Set<QName> getProfileAttributes(final String conf) {
         final ImmutableSet.Builder<QName> res = ImmutableSet.<QName>builder()
                 .add(QName.valueOf(ATTRIBUTE_NAME_AUDIENCE),
@@ -170,14 +222,7 @@ public final class FilterUtils {
         for (final QName attr: flagAttributes) {
             final String value = atts.getValue(attr.getNamespaceURI(), attr.getLocalPart());
             if (value != null) {
-                final Map<QName, List<String>> groups = getGroups(value);
-                for (Map.Entry<QName, List<String>> group: groups.entrySet()) {
-                    final QName[] propList =
-                            group.getKey() != null
-                                    ? new QName[]{attr, group.getKey()}
-                                    : new QName[]{attr};
-                    res.addAll(extCheckFlag(propList, group.getValue()));
-                }
+                res.addAll(memoize(flagCache, attr, value, v -> getAttributeFlags(attr, v)));
             }
         }
         if (res.isEmpty()) {
@@ -193,7 +238,8 @@ public final class FilterUtils {
                         propValue = getLabelValue(propName, atts.getValue(current.getNamespaceURI(), current.getLocalPart()));
                     }
                     if (propValue != null) {
-                        res.addAll(extCheckFlag(propList, Arrays.asList(propValue.split("\\s+"))));
+                        res.addAll(memoize(flagCache, Arrays.asList(propList), propValue,
+                                v -> extCheckFlag(propList, Arrays.asList(v.split("\\s+")))));
                     }
                 }
             }
@@ -202,6 +248,18 @@ public final class FilterUtils {
         return checkConflict(res);
     }
 
+    private List<Flag> getAttributeFlags(final QName attr, final String value) {
+        final List<Flag> res = new ArrayList<>();
+        for (Map.Entry<QName, List<String>> group: getGroups(value).entrySet()) {
+            final QName[] propList =
+                    group.getKey() != null
+                            ? new QName[]{attr, group.getKey()}
+                            : new QName[]{attr};
+            res.addAll(extCheckFlag(propList, group.getValue()));
+        }
+        return res;
+    }
+
     private Set<Flag> checkConflict(Set<Flag> res) {
         if (foregroundConflictColor == null && backgroundConflictColor == null) {
             return res;
@@ -251,9 +309,9 @@ public final class FilterUtils {
         final List<Flag> res = new ArrayList<>();
         for (final QName attName : propList) {
             for (final String attSubValue : attValue) {
-                Action filterAction = filterMap.get(new FilterKey(attName, attSubValue));
+                Action filterAction = getAction(attName, attSubValue);
                 if (filterAction == null) {
-                    filterAction = filterMap.get(new FilterKey(attName, null));
+                    filterAction = getAction(attName, null);
                 }
                 if (filterAction instanceof Flag) {
                     res.add((Flag) filterAction);
@@ -293,17 +351,8 @@ public final class FilterUtils {
 
         for (final QName attr: filterAttributes) {
             final String value = atts.getValue(attr.getNamespaceURI(), attr.getLocalPart());
-            if (value != null) {
-                final Map<QName, List<String>> groups = getGroups(value);
-                for (Map.Entry<QName, List<String>> group: groups.entrySet()) {
-                    final QName[] propList =
-                            group.getKey() != null
-                                    ? new QName[]{attr, group.getKey()}
-                                    : new QName[]{attr};
-                    if (extCheckExclude(propList, group.getValue())) {
-                        return true;
-                    }
-                }
+            if (value != null && memoize(excludeCache, attr, value, v -> isAttributeExcluded(attr, v))) {
+                return true;
             }
         }
 
@@ -318,7 +367,8 @@ public final class FilterUtils {
                     final QName current = propList[propListIndex];
                     propValue = getLabelValue(propName, atts.getValue(current.getNamespaceURI(), current.getLocalPart()));
                 }
-                if (propValue != null && extCheckExclude(propList, Arrays.asList(propValue.split("\\s+")))) {
+                if (propValue != null && memoize(excludeCache, Arrays.asList(propList), propValue,
+                        v -> extCheckExclude(propList, Arrays.asList(v.split("\\s+"))))) {
                     return true;
                 }
             }
@@ -326,6 +376,19 @@ public final class FilterUtils {
         return false;
     }
 
+    private boolean isAttributeExcluded(final QName attr, final String value) {
+        for (Map.Entry<QName, List<String>> group: getGroups(value).entrySet()) {
+            final QName[] propList =
+                    group.getKey() != null
+                            ? new QName[]{attr, group.getKey()}
+                            : new QName[]{attr};
+            if (extCheckExclude(propList, group.getValue())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private final Pattern groupPattern = Pattern.compile("(\\w+)\\((.*?)\\)");
 
     /**
@@ -402,12 +465,11 @@ public final class FilterUtils {
             boolean hasNonExcludeAction = false;
             boolean hasExcludeAction = false;
             for (final String attSubValue: attValue) {
-                final FilterKey filterKey = new FilterKey(attName, attSubValue);
-                final Action filterAction = filterMap.get(filterKey);
+                final Action filterAction = getAction(attName, attSubValue);
                 // no action will be considered as 'not exclude'
                 if (filterAction == null) {
                     // check Specified DefaultAction mapping this attribute's name
-                    final Action defaultAction = filterMap.get(new FilterKey(attName, null));
+                    final Action defaultAction = getAction(attName, null);
                     if (defaultAction != null) {
                         if (defaultAction instanceof Exclude) {
                             hasExcludeAction = true;
@@ -455,8 +517,7 @@ public final class FilterUtils {
     }
 
     private boolean isDefaultExclude() {
-        final Action defaultAction = filterMap.get(DEFAULT);
-        return defaultAction != null && defaultAction instanceof Exclude;
+        return defaultExclude;
     }
 
     /**
@@ -469,9 +530,8 @@ public final class FilterUtils {
             return;
         }
         for (final String attSubValue: attValue) {
-            final FilterKey filterKey = new FilterKey(attName, attSubValue);
-            final Action filterAction = filterMap.get(filterKey);
-            if (filterAction == null && logMissingAction) {
+            if (logMissingAction && getAction(attName, attSubValue) == null) {
+                final FilterKey filterKey = new FilterKey(attName, attSubValue);
                 if (!alreadyShowed(filterKey)) {
                     logger.info(MessageUtils.getMessage("DOTJ031I", filterKey.toString()).toString());
                 }
@@ -480,11 +540,7 @@ public final class FilterUtils {
     }
 
     private boolean alreadyShowed(final FilterKey notMappingKey) {
-        if (!notMappingRules.contains(notMappingKey)) {
-            notMappingRules.add(notMappingKey);
-            return false;
-        }
-        return true;
+        return !notMappingRules.add(notMappingKey);
     }
 
     /**
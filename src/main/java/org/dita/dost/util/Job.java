@@ -18,18 +18,20 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.lang.reflect.Field;
 import java.net.URI;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
 
+import com.google.common.annotations.VisibleForTesting;
 import org.dita.dost.module.GenMapAndTopicListModule;
 import org.dita.dost.module.GenMapAndTopicListModule.TempFileNameScheme;
 import org.xml.sax.Attributes;
@@ -47,6 +49,8 @@ import org.xml.sax.XMLReader;
 public final class Job {
 
     private static final String JOB_FILE = ".job.xml";
+    /** Configuration property for job store format. */
+    private static final String CONF_JOB_STORE = "job-store";
 
     private static final String ELEMENT_JOB = "job";
     private static final String ATTRIBUTE_KEY = "key";
@@ -64,6 +68,7 @@ public final class Job {
     private static final String ATTRIBUTE_PATH = "path";
     private static final String ATTRIBUTE_RESULT = "result";
     private static final String ATTRIBUTE_FORMAT = "format";
+    private static final String ATTRIBUTE_FIRST_TOPIC_ID = "first-topic-id";
     private static final String ATTRIBUTE_CHUNKED = "chunked";
     private static final String ATTRIBUTE_HAS_CONREF = "has-conref";
     private static final String ATTRIBUTE_HAS_KEYREF = "has-keyref";
@@ -99,25 +104,21 @@ public final class Job {
     public static final String USER_INPUT_FILE_LIST_FILE = "usr.input.file.list";
 
     /** Map of serialization attributes to file info boolean fields. */
-    private static final Map<String, Field> attrToFieldMap = new HashMap<>();
+    private static final Map<String, FileInfo.Flag> attrToFlagMap = new HashMap<>();
     static {
-        try {
-            attrToFieldMap.put(ATTRIBUTE_CHUNKED, FileInfo.class.getField("isChunked"));
-            attrToFieldMap.put(ATTRIBUTE_HAS_LINK, FileInfo.class.getField("hasLink"));
-            attrToFieldMap.put(ATTRIBUTE_INPUT, FileInfo.class.getField("isInput"));
-            attrToFieldMap.put(ATTRIBUTE_HAS_CONREF, FileInfo.class.getField("hasConref"));
-            attrToFieldMap.put(ATTRIBUTE_HAS_KEYREF, FileInfo.class.getField("hasKeyref"));
-            attrToFieldMap.put(ATTRIBUTE_HAS_CODEREF, FileInfo.class.getField("hasCoderef"));
-            attrToFieldMap.put(ATTRIBUTE_RESOURCE_ONLY, FileInfo.class.getField("isResourceOnly"));
-            attrToFieldMap.put(ATTRIBUTE_TARGET, FileInfo.class.getField("isTarget"));
-            attrToFieldMap.put(ATTRIBUTE_CONREF_PUSH, FileInfo.class.getField("isConrefPush"));
-            attrToFieldMap.put(ATTRIBUTE_SUBJECT_SCHEME, FileInfo.class.getField("isSubjectScheme"));
-            attrToFieldMap.put(ATTRIBUTE_OUT_DITA_FILES_LIST, FileInfo.class.getField("isOutDita"));
-            attrToFieldMap.put(ATTRIBUTE_FLAG_IMAGE_LIST, FileInfo.class.getField("isFlagImage"));
-            attrToFieldMap.put(ATTRIBUTE_SUBSIDIARY_TARGET_LIST, FileInfo.class.getField("isSubtarget"));
-        } catch (final NoSuchFieldException e) {
-            throw new RuntimeException(e);
-        }
+        attrToFlagMap.put(ATTRIBUTE_CHUNKED, FileInfo.Flag.IS_CHUNKED);
+        attrToFlagMap.put(ATTRIBUTE_HAS_LINK, FileInfo.Flag.HAS_LINK);
+        attrToFlagMap.put(ATTRIBUTE_INPUT, FileInfo.Flag.IS_INPUT);
+        attrToFlagMap.put(ATTRIBUTE_HAS_CONREF, FileInfo.Flag.HAS_CONREF);
+        attrToFlagMap.put(ATTRIBUTE_HAS_KEYREF, FileInfo.Flag.HAS_KEYREF);
+        attrToFlagMap.put(ATTRIBUTE_HAS_CODEREF, FileInfo.Flag.HAS_CODEREF);
+        attrToFlagMap.put(ATTRIBUTE_RESOURCE_ONLY, FileInfo.Flag.IS_RESOURCE_ONLY);
+        attrToFlagMap.put(ATTRIBUTE_TARGET, FileInfo.Flag.IS_TARGET);
+        attrToFlagMap.put(ATTRIBUTE_CONREF_PUSH, FileInfo.Flag.IS_CONREF_PUSH);
+        attrToFlagMap.put(ATTRIBUTE_SUBJECT_SCHEME, FileInfo.Flag.IS_SUBJECT_SCHEME);
+        attrToFlagMap.put(ATTRIBUTE_OUT_DITA_FILES_LIST, FileInfo.Flag.IS_OUT_DITA);
+        attrToFlagMap.put(ATTRIBUTE_FLAG_IMAGE_LIST, FileInfo.Flag.IS_FLAG_IMAGE);
+        attrToFlagMap.put(ATTRIBUTE_SUBSIDIARY_TARGET_LIST, FileInfo.Flag.IS_SUBTARGET);
     }
 
     private final Map<String, Object> prop;
@@ -125,7 +126,33 @@ public final class Job {
     public final URI tempDirURI;
     private final File jobFile;
     private final ConcurrentMap<URI, FileInfo> files = new ConcurrentHashMap<>();
+    /** Secondary indexes over {@link #files}. */
+    private final FileInfoIndex index = new FileInfoIndex();
     private long lastModified;
+    private final Store store;
+    private final File binaryJobFile;
+    /** Properties as last stored into binary job store, {@code null} if binary store has not been read or written. */
+    private Map<String, Object> storedProp;
+    /** File info objects as last stored into binary job store, {@code null} if binary store has not been read or written. */
+    private Map<URI, FileInfo> storedFiles;
+    /** Binary job store length after last read or write. */
+    private long storedLength;
+    /** Number of records in binary job store. */
+    private int storedRecords;
+    /** XML job file is older than binary job store. */
+    private boolean xmlStale;
+    /** Documents in memory shared between modules. */
+    private final DocumentStore documentStore;
+    /** Parsed documents shared between modules. */
+    private final DocumentCache documentCache;
+
+    /** Job store format. */
+    enum Store {
+        /** Job is stored as XML. */
+        XML,
+        /** Job is stored in binary job store and exported as XML. */
+        BINARY
+    }
 
     /**
      * Create new job configuration instance. Initialise by reading temporary configuration files.
@@ -135,12 +162,37 @@ public final class Job {
      * @throws IllegalStateException if configuration files are missing
      */
     public Job(final File tempDir) throws IOException {
+        this(tempDir, Store.valueOf(configuration.getOrDefault(CONF_JOB_STORE, "xml").toUpperCase()));
+    }
+
+    Job(final File tempDir, final Store store) throws IOException {
+        this(tempDir, store, new DocumentStore(tempDir));
+    }
+
+    /**
+     * Create new job configuration instance with the given document store memory budget.
+     *
+     * @param tempDir temporary directory
+     * @param documentStoreSize document store memory budget in bytes, {@code 0} to disable the store
+     * @throws IOException if reading configuration files failed
+     */
+    @VisibleForTesting
+    public Job(final File tempDir, final long documentStoreSize) throws IOException {
+        this(tempDir, Store.valueOf(configuration.getOrDefault(CONF_JOB_STORE, "xml").toUpperCase()),
+                new DocumentStore(tempDir, documentStoreSize));
+    }
+
+    private Job(final File tempDir, final Store store, final DocumentStore documentStore) throws IOException {
         if (!tempDir.isAbsolute()) {
             throw new IllegalArgumentException("Temporary directory " + tempDir + " must be absolute");
         }
         this.tempDir = tempDir;
+        this.store = store;
         tempDirURI = tempDir.toURI();
+        this.documentStore = documentStore;
+        documentCache = new DocumentCache(documentStore);
         jobFile = new File(tempDir, JOB_FILE);
+        binaryJobFile = new File(tempDir, BinaryJobStore.JOB_FILE);
         prop = new HashMap<>();
         read();
         for (Map.Entry<String, String> e : configuration.entrySet()) {
@@ -155,6 +207,9 @@ public final class Job {
      * @return {@code true} if configuration file has been update after this object has been created or serialized
      */
     public boolean isStale() {
+        if (store == Store.BINARY) {
+            return Math.max(jobFile.lastModified(), binaryJobFile.lastModified()) > lastModified;
+        }
         return jobFile.lastModified() > lastModified;
     }
 
@@ -166,6 +221,18 @@ public final class Job {
      * @throws IllegalStateException if configuration files are missing
      */
     private void read() throws IOException {
+        if (store == Store.BINARY && binaryJobFile.exists() && binaryJobFile.lastModified() >= jobFile.lastModified()) {
+            lastModified = binaryJobFile.lastModified();
+            storedRecords = BinaryJobStore.read(binaryJobFile, prop, files);
+            storedLength = binaryJobFile.length();
+            storedProp = copyProperties(prop);
+            storedFiles = new HashMap<>();
+            for (final FileInfo fi : files.values()) {
+                index.add(fi);
+                storedFiles.put(fi.uri, new FileInfo.Builder(fi).build());
+            }
+            return;
+        }
         lastModified = jobFile.lastModified();
         if (jobFile.exists()) {
             try (final InputStream in = new FileInputStream(jobFile)) {
@@ -176,6 +243,9 @@ public final class Job {
             } catch (final SAXException e) {
                 throw new IOException("Failed to read job file: " + e.getMessage());
             }
+            for (final FileInfo fi : files.values()) {
+                index.add(fi);
+            }
         } else {
             // defaults
             prop.put(PROPERTY_GENERATE_COPY_OUTER, Generate.NOT_GENERATEOUTTER.toString());
@@ -247,12 +317,9 @@ public final class Job {
                         i.result = src;
                     }
                     i.format = atts.getValue(ATTRIBUTE_FORMAT);
-                    try {
-                        for (Map.Entry<String, Field> e : attrToFieldMap.entrySet()) {
-                            e.getValue().setBoolean(i, Boolean.parseBoolean(atts.getValue(e.getKey())));
-                        }
-                    } catch (final IllegalAccessException ex) {
-                        throw new RuntimeException(ex);
+                    i.firstTopicId = atts.getValue(ATTRIBUTE_FIRST_TOPIC_ID);
+                    for (final Map.Entry<String, FileInfo.Flag> e : attrToFlagMap.entrySet()) {
+                        e.getValue().set(i, Boolean.parseBoolean(atts.getValue(e.getKey())));
                     }
                     files.put(i.uri, i);
                     break;
@@ -295,9 +362,93 @@ public final class Job {
     /**
      * Store job into temporary configuration files.
      *
+     * <p>If the binary job store is used, only changes since the previous write are appended to the store
+     * and the XML job file is not updated, see {@link #exportXml()}.</p>
+     *
      * @throws IOException if writing configuration files failed
      */
     public void write() throws IOException {
+        if (store == Store.BINARY) {
+            writeBinary();
+        } else {
+            writeXml();
+            lastModified = jobFile.lastModified();
+        }
+    }
+
+    /**
+     * Export job into the XML job file if the binary job store has changes that have not been exported.
+     * Stylesheets and Ant tasks read the XML job file, so it must be exported before they are run.
+     *
+     * @throws IOException if writing configuration files failed
+     */
+    public void exportXml() throws IOException {
+        if (store == Store.BINARY && xmlStale) {
+            writeXml();
+            // binary store remains authoritative over the exported XML
+            binaryJobFile.setLastModified(jobFile.lastModified());
+            lastModified = Math.max(jobFile.lastModified(), binaryJobFile.lastModified());
+            storedLength = binaryJobFile.length();
+            xmlStale = false;
+        }
+    }
+
+    private void writeBinary() throws IOException {
+        // compact when the store has grown to twice the size of a complete rewrite
+        if (storedFiles != null && binaryJobFile.length() == storedLength && storedRecords <= 2 * (files.size() + 1)) {
+            final Map<String, Object> changedProp = prop.equals(storedProp) ? null : prop;
+            final List<FileInfo> changed = new ArrayList<>();
+            for (final FileInfo fi : files.values()) {
+                if (!fi.equals(storedFiles.get(fi.uri))) {
+                    changed.add(fi);
+                }
+            }
+            final List<URI> removed = new ArrayList<>();
+            for (final URI uri : storedFiles.keySet()) {
+                if (!files.containsKey(uri)) {
+                    removed.add(uri);
+                }
+            }
+            storedRecords += BinaryJobStore.append(binaryJobFile, changedProp, changed, removed);
+            if (changedProp != null) {
+                storedProp = copyProperties(prop);
+            }
+            for (final FileInfo fi : changed) {
+                storedFiles.put(fi.uri, new FileInfo.Builder(fi).build());
+            }
+            storedFiles.keySet().removeAll(removed);
+        } else {
+            storedRecords = BinaryJobStore.write(binaryJobFile, prop, files.values());
+            storedProp = copyProperties(prop);
+            storedFiles = new HashMap<>();
+            for (final FileInfo fi : files.values()) {
+                storedFiles.put(fi.uri, new FileInfo.Builder(fi).build());
+            }
+        }
+        storedLength = binaryJobFile.length();
+        lastModified = Math.max(jobFile.lastModified(), binaryJobFile.lastModified());
+        xmlStale = true;
+    }
+
+    /**
+     * Copy properties. Set and map values are copied, because they may be modified in place.
+     */
+    private static Map<String, Object> copyProperties(final Map<String, Object> src) {
+        final Map<String, Object> dst = new HashMap<>(src.size());
+        for (final Map.Entry<String, Object> e : src.entrySet()) {
+            final Object value = e.getValue();
+            if (value instanceof Set) {
+                dst.put(e.getKey(), new HashSet<>((Set<?>) value));
+            } else if (value instanceof Map) {
+                dst.put(e.getKey(), new HashMap<>((Map<?, ?>) value));
+            } else {
+                dst.put(e.getKey(), value);
+            }
+        }
+        return dst;
+    }
+
+    private void writeXml() throws IOException {
         OutputStream outStream = null;
         XMLStreamWriter out = null;
         try {
@@ -354,15 +505,13 @@ public final class Job {
                 if (i.format != null) {
                     out.writeAttribute(ATTRIBUTE_FORMAT, i.format);
                 }
-                try {
-                    for (Map.Entry<String, Field> e: attrToFieldMap.entrySet()) {
-                        final boolean v = e.getValue().getBoolean(i);
-                        if (v) {
-                            out.writeAttribute(e.getKey(), Boolean.TRUE.toString());
-                        }
+                if (i.firstTopicId != null) {
+                    out.writeAttribute(ATTRIBUTE_FIRST_TOPIC_ID, i.firstTopicId);
+                }
+                for (final Map.Entry<String, FileInfo.Flag> e: attrToFlagMap.entrySet()) {
+                    if (e.getValue().test(i)) {
+                        out.writeAttribute(e.getKey(), Boolean.TRUE.toString());
                     }
-                } catch (final IllegalAccessException ex) {
-                    throw new RuntimeException(ex);
                 }
                 out.writeEndElement(); //file
             }
@@ -389,14 +538,19 @@ public final class Job {
                 }
             }
         }
-        lastModified = jobFile.lastModified();
     }
 
     /**
      * Add file info. If file info with the same file already exists, it will be replaced.
+     *
+     * <p>File info objects are indexed by source, result, format and flags when they are added. A file info object
+     * whose indexed fields are modified in place must be added again to update the index.</p>
      */
     public void add(final FileInfo fileInfo) {
-        files.put(fileInfo.uri, fileInfo);
+        synchronized (index) {
+            files.put(fileInfo.uri, fileInfo);
+            index.add(fileInfo);
+        }
     }
 
     /**
@@ -405,7 +559,11 @@ public final class Job {
      * @return removed file info, {@code null} if not found
      */
     public FileInfo remove(final FileInfo fileInfo) {
-        return files.remove(fileInfo.uri);
+        synchronized (index) {
+            final FileInfo removed = files.remove(fileInfo.uri);
+            index.remove(fileInfo.uri);
+            return removed;
+        }
     }
 
     /**
@@ -444,6 +602,24 @@ public final class Job {
         return prop.put(key, value);
     }
 
+    /**
+     * Get cache of parsed documents in the temporary directory.
+     *
+     * @return document cache
+     */
+    public DocumentCache getDocumentCache() {
+        return documentCache;
+    }
+
+    /**
+     * Get in-memory store of documents in the temporary directory.
+     *
+     * @return document store
+     */
+    public DocumentStore getDocumentStore() {
+        return documentStore;
+    }
+
     /**
      * Get input file
      *
@@ -451,8 +627,7 @@ public final class Job {
      */
     public URI getInputMap() {
 //       return toURI(getProperty(INPUT_DITAMAP_URI));
-        return files.values().stream()
-                .filter(fi -> fi.isInput)
+        return getFileInfo(FileInfo.Flag.IS_INPUT).stream()
                 .map(fi -> getInputDir().relativize(fi.src))
                 .findAny()
                 .orElse(null);
@@ -515,17 +690,47 @@ public final class Job {
     }
 
     /**
-     * Get file info objects that pass the filter
+     * Get file info objects that pass the filter. If the filter is a {@link FileInfo.Flag}, the
+     * flag index is used instead of testing every file info object.
      *
      * @param filter filter file info object must pass
      * @return collection of file info objects that pass the filter, may be empty
      */
     public Collection<FileInfo> getFileInfo(final Predicate<FileInfo> filter) {
-        return files.values().stream()
+        final Stream<FileInfo> candidates = filter instanceof FileInfo.Flag
+                ? index.get((FileInfo.Flag) filter).stream().map(files::get).filter(Objects::nonNull)
+                : files.values().stream();
+        return candidates
                 .filter(filter)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Get file info objects with the given format.
+     *
+     * @param format file format, may be {@code null}
+     * @return collection of file info objects with the given format, may be empty
+     */
+    public Collection<FileInfo> getFileInfoByFormat(final String format) {
+        return index.getByFormat(format).stream()
+                .map(files::get)
+                .filter(fi -> fi != null && Objects.equals(fi.format, format))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Get file info objects with the given result URI.
+     *
+     * @param result absolute result URI
+     * @return collection of file info objects with the given result, may be empty
+     */
+    public Collection<FileInfo> getFileInfoByResult(final URI result) {
+        return index.getByResult(result).stream()
+                .map(files::get)
+                .filter(fi -> fi != null && Objects.equals(fi.result, result))
+                .collect(Collectors.toList());
+    }
+
     /**
      * Get file info object
      *
@@ -541,8 +746,17 @@ public final class Job {
             final URI relative = getRelativePath(jobFile.toURI(), file);
             return files.get(relative);
         } else {
-            return files.values().stream()
-                    .filter(fileInfo -> file.equals(fileInfo.src) || file.equals(fileInfo.result))
+            final FileInfo bySrc = index.getBySrc(file).stream()
+                    .map(files::get)
+                    .filter(fileInfo -> fileInfo != null && file.equals(fileInfo.src))
+                    .findFirst()
+                    .orElse(null);
+            if (bySrc != null) {
+                return bySrc;
+            }
+            return index.getByResult(file).stream()
+                    .map(files::get)
+                    .filter(fileInfo -> fileInfo != null && file.equals(fileInfo.result))
                     .findFirst()
                     .orElse(null);
         }
@@ -578,11 +792,159 @@ public final class Job {
         }
     }
 
+    /**
+     * Secondary indexes of file info objects by source, result, format, and boolean flags. Index keys are
+     * captured when a file info object is added, so that stale entries can be removed when the object is
+     * replaced or added again after modification. Lookup results are candidates only and must be checked against
+     * the current fields of the file info object.
+     *
+     * <p>Modifications must be synchronized on the index instance, lookups are lock-free.</p>
+     */
+    private static final class FileInfoIndex {
+
+        private final Map<URI, IndexKey> keys = new HashMap<>();
+        private final ConcurrentMap<URI, Set<URI>> bySrc = new ConcurrentHashMap<>();
+        private final ConcurrentMap<URI, Set<URI>> byResult = new ConcurrentHashMap<>();
+        private final ConcurrentMap<String, Set<URI>> byFormat = new ConcurrentHashMap<>();
+        private final Map<FileInfo.Flag, Set<URI>> byFlag = new EnumMap<>(FileInfo.Flag.class);
+
+        FileInfoIndex() {
+            for (final FileInfo.Flag flag : FileInfo.Flag.values()) {
+                byFlag.put(flag, ConcurrentHashMap.newKeySet());
+            }
+        }
+
+        void add(final FileInfo fi) {
+            remove(fi.uri);
+            final IndexKey key = new IndexKey(fi);
+            keys.put(fi.uri, key);
+            if (key.src != null) {
+                bySrc.computeIfAbsent(key.src, k -> ConcurrentHashMap.newKeySet()).add(fi.uri);
+            }
+            if (key.result != null) {
+                byResult.computeIfAbsent(key.result, k -> ConcurrentHashMap.newKeySet()).add(fi.uri);
+            }
+            byFormat.computeIfAbsent(formatKey(key.format), k -> ConcurrentHashMap.newKeySet()).add(fi.uri);
+            for (final FileInfo.Flag flag : key.flags) {
+                byFlag.get(flag).add(fi.uri);
+            }
+        }
+
+        void remove(final URI uri) {
+            final IndexKey key = keys.remove(uri);
+            if (key == null) {
+                return;
+            }
+            if (key.src != null) {
+                removeValue(bySrc, key.src, uri);
+            }
+            if (key.result != null) {
+                removeValue(byResult, key.result, uri);
+            }
+            removeValue(byFormat, formatKey(key.format), uri);
+            for (final FileInfo.Flag flag : key.flags) {
+                byFlag.get(flag).remove(uri);
+            }
+        }
+
+        Set<URI> getBySrc(final URI src) {
+            return bySrc.getOrDefault(src, Collections.emptySet());
+        }
+
+        Set<URI> getByResult(final URI result) {
+            return byResult.getOrDefault(result, Collections.emptySet());
+        }
+
+        Set<URI> getByFormat(final String format) {
+            return byFormat.getOrDefault(formatKey(format), Collections.emptySet());
+        }
+
+        Set<URI> get(final FileInfo.Flag flag) {
+            return byFlag.get(flag);
+        }
+
+        private static <K> void removeValue(final ConcurrentMap<K, Set<URI>> map, final K key, final URI uri) {
+            map.computeIfPresent(key, (k, v) -> {
+                v.remove(uri);
+                return v.isEmpty() ? null : v;
+            });
+        }
+
+        /** Map {@code null} format to a key, because concurrent maps do not allow {@code null} keys. */
+        private static String formatKey(final String format) {
+            return format != null ? format : "";
+        }
+
+        /** Snapshot of indexed fields. */
+        private static final class IndexKey {
+            final URI src;
+            final URI result;
+            final String format;
+            final Set<FileInfo.Flag> flags;
+
+            IndexKey(final FileInfo fi) {
+                src = fi.src;
+                result = fi.result;
+                format = fi.format;
+                flags = EnumSet.noneOf(FileInfo.Flag.class);
+                for (final FileInfo.Flag flag : FileInfo.Flag.values()) {
+                    if (flag.test(fi)) {
+                        flags.add(flag);
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * File info object.
      */
     public static final class FileInfo {
 
+        /**
+         * Boolean file info fields. Flags are indexed by {@link Job}, use {@link Job#getFileInfo(Predicate)}
+         * with a flag to get file info objects where the flag is set. After changing a flag, add the file info
+         * object to the job again with {@link Job#add(FileInfo)}.
+         */
+        public enum Flag implements Predicate<FileInfo> {
+            HAS_CONREF(fi -> fi.hasConref, (fi, v) -> fi.hasConref = v),
+            IS_CHUNKED(fi -> fi.isChunked, (fi, v) -> fi.isChunked = v),
+            HAS_LINK(fi -> fi.hasLink, (fi, v) -> fi.hasLink = v),
+            IS_RESOURCE_ONLY(fi -> fi.isResourceOnly, (fi, v) -> fi.isResourceOnly = v),
+            IS_TARGET(fi -> fi.isTarget, (fi, v) -> fi.isTarget = v),
+            IS_CONREF_PUSH(fi -> fi.isConrefPush, (fi, v) -> fi.isConrefPush = v),
+            HAS_KEYREF(fi -> fi.hasKeyref, (fi, v) -> fi.hasKeyref = v),
+            HAS_CODEREF(fi -> fi.hasCoderef, (fi, v) -> fi.hasCoderef = v),
+            IS_SUBJECT_SCHEME(fi -> fi.isSubjectScheme, (fi, v) -> fi.isSubjectScheme = v),
+            IS_SUBTARGET(fi -> fi.isSubtarget, (fi, v) -> fi.isSubtarget = v),
+            IS_FLAG_IMAGE(fi -> fi.isFlagImage, (fi, v) -> fi.isFlagImage = v),
+            IS_OUT_DITA(fi -> fi.isOutDita, (fi, v) -> fi.isOutDita = v),
+            IS_INPUT(fi -> fi.isInput, (fi, v) -> fi.isInput = v);
+
+            private final Predicate<FileInfo> getter;
+            private final BiConsumer<FileInfo, Boolean> setter;
+
+            Flag(final Predicate<FileInfo> getter, final BiConsumer<FileInfo, Boolean> setter) {
+                this.getter = getter;
+                this.setter = setter;
+            }
+
+            @Override
+            public boolean test(final FileInfo fi) {
+                return getter.test(fi);
+            }
+
+            /**
+             * Set flag value.
+             *
+             * @param fi file info to modify
+             * @param value flag value
+             */
+            public void set(final FileInfo fi, final boolean value) {
+                setter.accept(fi, value);
+            }
+        }
+
         /** Absolute source URI. */
         public URI src;
         /** File URI. */
@@ -593,6 +955,8 @@ public final class Job {
         public URI result;
         /** File format. */
         public String format;
+        /** ID of the first element with an ID in the temporary file, {@code null} if not known. */
+        public String firstTopicId;
         /** File has a conref. */
         public boolean hasConref;
         /** File is part of chunk. */
@@ -643,6 +1007,7 @@ public final class Job {
                     ", uri=" + uri +
                     ", file=" + file +
                     ", format='" + format + '\'' +
+                    ", firstTopicId='" + firstTopicId + '\'' +
                     ", hasConref=" + hasConref +
                     ", isChunked=" + isChunked +
                     ", hasLink=" + hasLink +
@@ -681,12 +1046,13 @@ public final class Job {
                     Objects.equals(uri, fileInfo.uri) &&
                     Objects.equals(file, fileInfo.file) &&
                     Objects.equals(result, fileInfo.result) &&
-                    Objects.equals(format, fileInfo.format);
+                    Objects.equals(format, fileInfo.format) &&
+                    Objects.equals(firstTopicId, fileInfo.firstTopicId);
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(src, uri, file, result, format, hasConref, isChunked, hasLink, isResourceOnly, isTarget,
+            return Objects.hash(src, uri, file, result, format, firstTopicId, hasConref, isChunked, hasLink, isResourceOnly, isTarget,
                     isConrefPush, hasKeyref, hasCoderef, isSubjectScheme, isSubtarget, isFlagImage, isOutDita, isInput);
         }
 
@@ -697,6 +1063,7 @@ public final class Job {
             private File file;
             private URI result;
             private String format;
+            private String firstTopicId;
             private boolean hasConref;
             private boolean isChunked;
             private boolean hasLink;
@@ -718,6 +1085,7 @@ public final class Job {
                 file = orig.file;
                 result = orig.result;
                 format = orig.format;
+                firstTopicId = orig.firstTopicId;
                 hasConref = orig.hasConref;
                 isChunked = orig.isChunked;
                 hasLink = orig.hasLink;
@@ -742,6 +1110,7 @@ public final class Job {
                 if (orig.file != null) file = orig.file;
                 if (orig.result != null) result = orig.result;
                 if (orig.format != null) format = orig.format;
+                if (orig.firstTopicId != null) firstTopicId = orig.firstTopicId;
                 if (orig.hasConref) hasConref = orig.hasConref;
                 if (orig.isChunked) isChunked = orig.isChunked;
                 if (orig.hasLink) hasLink = orig.hasLink;
@@ -764,6 +1133,7 @@ public final class Job {
 //                if (orig.file != null) file = orig.file;
 //                if (orig.result != null) result = orig.result;
                 if (orig.format != null) format = orig.format;
+                if (orig.firstTopicId != null) firstTopicId = orig.firstTopicId;
                 if (orig.hasConref) hasConref = orig.hasConref;
                 if (orig.isChunked) isChunked = orig.isChunked;
                 if (orig.hasLink) hasLink = orig.hasLink;
@@ -784,6 +1154,7 @@ public final class Job {
             public Builder file(final File file) { this.file = file; this.uri = null; return this; }
             public Builder result(final URI result) { assert result.isAbsolute(); this.result = result; return this; }
             public Builder format(final String format) { this.format = format; return this; }
+            public Builder firstTopicId(final String firstTopicId) { this.firstTopicId = firstTopicId; return this; }
             public Builder hasConref(final boolean hasConref) { this.hasConref = hasConref; return this; }
             public Builder isChunked(final boolean isChunked) { this.isChunked = isChunked; return this; }
             public Builder hasLink(final boolean hasLink) { this.hasLink = hasLink; return this; }
@@ -807,6 +1178,7 @@ public final class Job {
                     fi.result = result;
                 }
                 fi.format = format;
+                fi.firstTopicId = firstTopicId;
                 fi.hasConref = hasConref;
                 fi.isChunked = isChunked;
                 fi.hasLink = hasLink;
@@ -960,8 +1332,7 @@ public final class Job {
 //            return toURI(prop.get(PROPERTY_INPUT_MAP_URI).toString());
 //        }
 //        return null;
-        return files.values().stream()
-                .filter(fi -> fi.isInput)
+        return getFileInfo(FileInfo.Flag.IS_INPUT).stream()
                 .map(fi -> fi.src)
                 .findAny()
                 .orElse(null);
@@ -15,6 +15,9 @@ import static java.util.Collections.unmodifiableMap;
 /**
  * Immutable key store for keys and child key scopes.
  *
+ * <p>Key scopes are compared by value. The hash code is computed once and cached, and equality tests
+ * compare hash codes before comparing key definitions and child scopes.</p>
+ *
  * @since 2.2
  */
 public class KeyScope {
@@ -23,11 +26,13 @@ public class KeyScope {
     public final String name;
     public final Map<String, KeyDef> keyDefinition;
     public final List<KeyScope> childScopes;
+    /** Cached hash code, {@code 0} if not computed yet. */
+    private int hash;
 
     public KeyScope(final String id, final String name, final Map<String, KeyDef> keyDefinition, final List<KeyScope> childScopes) {
         this.id = id;
         this.name = name;
-        this.keyDefinition = unmodifiableMap(keyDefinition);
+        this.keyDefinition = unmodifiableMap(new LinkedHashMap<>(keyDefinition));
         this.childScopes = unmodifiableList(new ArrayList<>(childScopes));
     }
 
@@ -50,6 +55,7 @@ public class KeyScope {
 
         KeyScope keyScope = (KeyScope) o;
 
+        if (hashCode() != keyScope.hashCode()) return false;
         if (!Objects.equals(name, keyScope.name)) return false;
         if (!keyDefinition.equals(keyScope.keyDefinition)) return false;
         return childScopes.equals(keyScope.childScopes);
@@ -57,9 +63,13 @@ public class KeyScope {
 
     @Override
     public int hashCode() {
-        int result = name != null ? name.hashCode() : 0;
-        result = 31 * result + keyDefinition.hashCode();
-        result = 31 * result + childScopes.hashCode();
+        int result = hash;
+        if (result == 0) {
+            result = name != null ? name.hashCode() : 0;
+            result = 31 * result + keyDefinition.hashCode();
+            result = 31 * result + childScopes.hashCode();
+            hash = result;
+        }
         return result;
     }
 }
@@ -0,0 +1,125 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2019 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+package org.dita.dost.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.*;
+
+import static org.dita.dost.util.URLUtils.toURI;
+
+/**
+ * Index of links between temporary files, recorded by the reader stage. Both link sources and targets are
+ * temporary file URIs relative to the temporary directory, without fragment.
+ *
+ * <p>The index only describes files as they were parsed by the reader. Files that are not indexed as link sources,
+ * and files whose links may have been changed by later processing, must be treated as if they could link to any
+ * file.</p>
+ */
+public final class LinkIndex {
+
+    /** Link target separator in serialized index. Encoded URIs do not contain spaces. */
+    private static final String SEPARATOR = " ";
+
+    /** Map of link source to link targets. */
+    private final Map<URI, Set<URI>> links = new HashMap<>();
+    /** Map of link target to link sources, {@code null} if not built. */
+    private Map<URI, Set<URI>> reverse;
+
+    /**
+     * Add links from a source file. Existing links from the source are replaced.
+     *
+     * @param source link source
+     * @param targets link targets, may be empty
+     */
+    public void put(final URI source, final Collection<URI> targets) {
+        links.put(source, new HashSet<>(targets));
+        reverse = null;
+    }
+
+    /**
+     * Test if links from a file have been indexed.
+     *
+     * @param source link source
+     * @return {@code true} if source is indexed, otherwise {@code false}
+     */
+    public boolean contains(final URI source) {
+        return links.containsKey(source);
+    }
+
+    /**
+     * Get indexed files that link to a target.
+     *
+     * @param target link target
+     * @return link sources, may be empty
+     */
+    public Set<URI> getSources(final URI target) {
+        if (reverse == null) {
+            reverse = new HashMap<>();
+            for (final Map.Entry<URI, Set<URI>> e : links.entrySet()) {
+                for (final URI t : e.getValue()) {
+                    reverse.computeIfAbsent(t, k -> new HashSet<>()).add(e.getKey());
+                }
+            }
+        }
+        return reverse.getOrDefault(target, Collections.emptySet());
+    }
+
+    /**
+     * Read link index.
+     *
+     * @param file link index file
+     * @return link index, {@code null} if index file does not exist
+     * @throws IOException if reading index file failed
+     */
+    public static LinkIndex read(final File file) throws IOException {
+        if (!file.exists()) {
+            return null;
+        }
+        final Properties prop = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            prop.loadFromXML(in);
+        } catch (final IOException e) {
+            throw new IOException("Failed to read link index: " + e.getMessage(), e);
+        }
+        final LinkIndex index = new LinkIndex();
+        for (final String source : prop.stringPropertyNames()) {
+            final Set<URI> targets = new HashSet<>();
+            for (final String target : prop.getProperty(source).split(SEPARATOR)) {
+                if (!target.isEmpty()) {
+                    targets.add(toURI(target));
+                }
+            }
+            index.links.put(toURI(source), targets);
+        }
+        return index;
+    }
+
+    /**
+     * Write link index.
+     *
+     * @param file link index file
+     * @throws IOException if writing index file failed
+     */
+    public void write(final File file) throws IOException {
+        final Properties prop = new Properties();
+        for (final Map.Entry<URI, Set<URI>> e : links.entrySet()) {
+            prop.setProperty(e.getKey().toString(), StringUtils.join(e.getValue(), SEPARATOR));
+        }
+        try (OutputStream out = new FileOutputStream(file)) {
+            prop.storeToXML(out, null);
+        } catch (final IOException e) {
+            throw new IOException("Failed to write link index: " + e.getMessage(), e);
+        }
+    }
+}
@@ -31,6 +31,7 @@ public final class MergeUtils {
     /** Set of visited topic files. */
     private final Set<URI> visitSet;
     private DITAOTLogger logger;
+    private Job job;
 
     /**
      * Default Constructor
@@ -46,6 +47,15 @@ public final class MergeUtils {
         this.logger = logger;
     }
 
+    /**
+     * Set job configuration used to look up first topic IDs collected during preprocessing.
+     *
+     * @param job job configuration, may be {@code null}
+     */
+    public void setJob(final Job job) {
+        this.job = job;
+    }
+
     /**
      * Resets all internal data structures.
      */
@@ -127,7 +137,8 @@ public final class MergeUtils {
     }
 
     /**
-     * Get the first topic id.
+     * Get the first topic id. For temporary files the ID is read from job configuration
+     * if available, otherwise the file is parsed.
      *
      * @param file file URI
      * @param useCatalog whether use catalog file for validation
@@ -138,19 +149,24 @@ public final class MergeUtils {
         if (!(new File(file).exists())) {
             return null;
         }
-        final StringBuilder firstTopicId = new StringBuilder();
-        final TopicIdParser parser = new TopicIdParser(firstTopicId);
+        if (job != null) {
+            final Job.FileInfo fi = job.getFileInfo(file);
+            if (fi != null && fi.firstTopicId != null && job.tempDirURI.resolve(fi.uri).equals(file)) {
+                return fi.firstTopicId;
+            }
+        }
+        String firstTopicId = "";
         try {
-            final XMLReader reader = XMLUtils.getXMLReader();
-            reader.setContentHandler(parser);
+            final XMLReader reader = XMLUtils.borrowXMLReader();
             if (useCatalog) {
                 reader.setEntityResolver(CatalogUtils.getCatalogResolver());
             }
-            reader.parse(file.toString());
+            firstTopicId = TopicIdParser.getFirstTopicId(reader, file);
+            XMLUtils.releaseXMLReader(reader);
         } catch (final Exception e) {
             logger.error(e.getMessage(), e) ;
         }
-        return firstTopicId.toString();
+        return firstTopicId;
     }
 
 }
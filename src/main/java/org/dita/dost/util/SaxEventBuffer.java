@@ -0,0 +1,404 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2019 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+
+package org.dita.dost.util;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.LocatorImpl;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Buffer of SAX events for a single document. The buffer records content and comment events, and replays them
+ * as a complete document. DTD, entity and CDATA boundary events are not recorded, in the same way as they are
+ * not retained when a document is serialized with an identity transformer.
+ *
+ * <p>Events are stored in a columnar format instead of as {@link SaxCache} event objects: event codes and
+ * operands are packed into an integer array, character data is appended to a shared character arena, names and
+ * attribute values are interned into a string table, and attributes are packed into an integer table. Replay
+ * passes the handler a reusable attribute view over the packed table, so replay does not allocate per event.</p>
+ */
+public final class SaxEventBuffer implements ContentHandler, LexicalHandler {
+
+    private static final int START_PREFIX_MAPPING = 1;
+    private static final int END_PREFIX_MAPPING = 2;
+    private static final int START_ELEMENT = 3;
+    private static final int END_ELEMENT = 4;
+    private static final int CHARACTERS = 5;
+    private static final int IGNORABLE_WHITESPACE = 6;
+    private static final int PROCESSING_INSTRUCTION = 7;
+    private static final int COMMENT = 8;
+
+    /** Number of integers per attribute in the attribute table: URI, local name, qualified name, type and value. */
+    private static final int ATTRIBUTE_WIDTH = 5;
+    /** String table index for {@code null}. */
+    private static final int NULL = -1;
+    /** Estimated size of a string object and its table slot excluding characters in bytes. */
+    private static final int STRING_SIZE = 48;
+
+    private int[] events = new int[64];
+    private int eventCount;
+    private int[] attributes = new int[32];
+    private int attributeCount;
+    private char[] chars = new char[256];
+    private int charCount;
+    private String[] strings = new String[32];
+    private int stringCount;
+    private long stringSize;
+    /** String table lookup, only used while recording. */
+    private Map<String, Integer> stringIndex = new HashMap<>();
+
+    /**
+     * Get estimated memory size of the buffered events.
+     *
+     * @return estimated size in bytes
+     */
+    public long size() {
+        return 4L * eventCount + 4L * attributeCount * ATTRIBUTE_WIDTH + 2L * charCount + stringSize;
+    }
+
+    /**
+     * Replay buffered events as a complete document.
+     *
+     * @param contentHandler content handler to receive events
+     * @param lexicalHandler lexical handler to receive comments, may be {@code null}
+     * @param systemId system ID of the document, may be {@code null}
+     * @throws SAXException if a handler failed
+     */
+    public void replay(final ContentHandler contentHandler, final LexicalHandler lexicalHandler, final String systemId)
+            throws SAXException {
+        final LocatorImpl locator = new LocatorImpl();
+        locator.setSystemId(systemId);
+        contentHandler.setDocumentLocator(locator);
+        contentHandler.startDocument();
+        final PackedAttributes atts = new PackedAttributes();
+        int i = 0;
+        while (i < eventCount) {
+            switch (events[i]) {
+                case START_PREFIX_MAPPING:
+                    contentHandler.startPrefixMapping(string(events[i + 1]), string(events[i + 2]));
+                    i += 3;
+                    break;
+                case END_PREFIX_MAPPING:
+                    contentHandler.endPrefixMapping(string(events[i + 1]));
+                    i += 2;
+                    break;
+                case START_ELEMENT:
+                    atts.offset = events[i + 4];
+                    atts.length = events[i + 5];
+                    contentHandler.startElement(string(events[i + 1]), string(events[i + 2]), string(events[i + 3]),
+                            atts);
+                    i += 6;
+                    break;
+                case END_ELEMENT:
+                    contentHandler.endElement(string(events[i + 1]), string(events[i + 2]), string(events[i + 3]));
+                    i += 4;
+                    break;
+                case CHARACTERS:
+                    contentHandler.characters(chars, events[i + 1], events[i + 2]);
+                    i += 3;
+                    break;
+                case IGNORABLE_WHITESPACE:
+                    contentHandler.ignorableWhitespace(chars, events[i + 1], events[i + 2]);
+                    i += 3;
+                    break;
+                case PROCESSING_INSTRUCTION:
+                    contentHandler.processingInstruction(string(events[i + 1]), string(events[i + 2]));
+                    i += 3;
+                    break;
+                case COMMENT:
+                    if (lexicalHandler != null) {
+                        lexicalHandler.comment(chars, events[i + 1], events[i + 2]);
+                    }
+                    i += 3;
+                    break;
+                default:
+                    throw new IllegalStateException("Unsupported event code " + events[i]);
+            }
+        }
+        contentHandler.endDocument();
+    }
+
+    private String string(final int index) {
+        return index == NULL ? null : strings[index];
+    }
+
+    private int intern(final String value) {
+        if (value == null) {
+            return NULL;
+        }
+        if (stringIndex == null) {
+            stringIndex = new HashMap<>();
+            for (int i = 0; i < stringCount; i++) {
+                stringIndex.put(strings[i], i);
+            }
+        }
+        final Integer index = stringIndex.get(value);
+        if (index != null) {
+            return index;
+        }
+        if (stringCount == strings.length) {
+            strings = Arrays.copyOf(strings, Math.max(stringCount * 2, 16));
+        }
+        strings[stringCount] = value;
+        stringIndex.put(value, stringCount);
+        stringSize += STRING_SIZE + 2L * value.length();
+        return stringCount++;
+    }
+
+    private void ensureEvents(final int length) {
+        if (eventCount + length > events.length) {
+            events = Arrays.copyOf(events, Math.max(events.length * 2, eventCount + length));
+        }
+    }
+
+    private void add(final int code, final int a) {
+        ensureEvents(2);
+        events[eventCount++] = code;
+        events[eventCount++] = a;
+    }
+
+    private void add(final int code, final int a, final int b) {
+        ensureEvents(3);
+        events[eventCount++] = code;
+        events[eventCount++] = a;
+        events[eventCount++] = b;
+    }
+
+    private void addChars(final int code, final char[] ch, final int start, final int length) {
+        if (charCount + length > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(chars.length * 2, charCount + length));
+        }
+        System.arraycopy(ch, start, chars, charCount, length);
+        add(code, charCount, length);
+        charCount += length;
+    }
+
+    // ContentHandler methods
+
+    @Override
+    public void setDocumentLocator(final Locator locator) {
+        // NOOP
+    }
+
+    @Override
+    public void startDocument() {
+        // NOOP
+    }
+
+    /**
+     * Trim buffers to size and release the string table lookup.
+     */
+    @Override
+    public void endDocument() {
+        events = Arrays.copyOf(events, eventCount);
+        attributes = Arrays.copyOf(attributes, attributeCount * ATTRIBUTE_WIDTH);
+        chars = Arrays.copyOf(chars, charCount);
+        strings = Arrays.copyOf(strings, stringCount);
+        stringIndex = null;
+    }
+
+    @Override
+    public void startPrefixMapping(final String prefix, final String uri) {
+        add(START_PREFIX_MAPPING, intern(prefix), intern(uri));
+    }
+
+    @Override
+    public void endPrefixMapping(final String prefix) {
+        add(END_PREFIX_MAPPING, intern(prefix));
+    }
+
+    @Override
+    public void startElement(final String uri, final String localName, final String qName, final Attributes atts) {
+        final int length = atts.getLength();
+        final int end = (attributeCount + length) * ATTRIBUTE_WIDTH;
+        if (end > attributes.length) {
+            attributes = Arrays.copyOf(attributes, Math.max(attributes.length * 2, end));
+        }
+        int j = attributeCount * ATTRIBUTE_WIDTH;
+        for (int i = 0; i < length; i++) {
+            attributes[j++] = intern(atts.getURI(i));
+            attributes[j++] = intern(atts.getLocalName(i));
+            attributes[j++] = intern(atts.getQName(i));
+            attributes[j++] = intern(atts.getType(i));
+            attributes[j++] = intern(atts.getValue(i));
+        }
+        ensureEvents(6);
+        events[eventCount++] = START_ELEMENT;
+        events[eventCount++] = intern(uri);
+        events[eventCount++] = intern(localName);
+        events[eventCount++] = intern(qName);
+        events[eventCount++] = attributeCount;
+        events[eventCount++] = length;
+        attributeCount += length;
+    }
+
+    @Override
+    public void endElement(final String uri, final String localName, final String qName) {
+        ensureEvents(4);
+        events[eventCount++] = END_ELEMENT;
+        events[eventCount++] = intern(uri);
+        events[eventCount++] = intern(localName);
+        events[eventCount++] = intern(qName);
+    }
+
+    @Override
+    public void characters(final char[] ch, final int start, final int length) {
+        addChars(CHARACTERS, ch, start, length);
+    }
+
+    @Override
+    public void ignorableWhitespace(final char[] ch, final int start, final int length) {
+        addChars(IGNORABLE_WHITESPACE, ch, start, length);
+    }
+
+    @Override
+    public void processingInstruction(final String target, final String data) {
+        add(PROCESSING_INSTRUCTION, intern(target), intern(data));
+    }
+
+    @Override
+    public void skippedEntity(final String name) {
+        // NOOP
+    }
+
+    // LexicalHandler methods
+
+    @Override
+    public void comment(final char[] ch, final int start, final int length) {
+        addChars(COMMENT, ch, start, length);
+    }
+
+    @Override
+    public void startDTD(final String name, final String publicId, final String systemId) {
+        // NOOP
+    }
+
+    @Override
+    public void endDTD() {
+        // NOOP
+    }
+
+    @Override
+    public void startEntity(final String name) {
+        // NOOP
+    }
+
+    @Override
+    public void endEntity(final String name) {
+        // NOOP
+    }
+
+    @Override
+    public void startCDATA() {
+        // NOOP
+    }
+
+    @Override
+    public void endCDATA() {
+        // NOOP
+    }
+
+    /**
+     * Attributes view over a range of the packed attribute table. The view is only valid during the
+     * {@link ContentHandler#startElement(String, String, String, Attributes)} call it is passed to.
+     */
+    private final class PackedAttributes implements Attributes {
+
+        /** Index of the first attribute in the attribute table. */
+        int offset;
+        int length;
+
+        private String get(final int index, final int field) {
+            if (index < 0 || index >= length) {
+                return null;
+            }
+            return string(attributes[(offset + index) * ATTRIBUTE_WIDTH + field]);
+        }
+
+        @Override
+        public int getLength() {
+            return length;
+        }
+
+        @Override
+        public String getURI(final int index) {
+            return get(index, 0);
+        }
+
+        @Override
+        public String getLocalName(final int index) {
+            return get(index, 1);
+        }
+
+        @Override
+        public String getQName(final int index) {
+            return get(index, 2);
+        }
+
+        @Override
+        public String getType(final int index) {
+            return get(index, 3);
+        }
+
+        @Override
+        public String getValue(final int index) {
+            return get(index, 4);
+        }
+
+        @Override
+        public int getIndex(final String uri, final String localName) {
+            for (int i = 0; i < length; i++) {
+                if (localName.equals(getLocalName(i)) && uri.equals(nullToEmpty(getURI(i)))) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public int getIndex(final String qName) {
+            for (int i = 0; i < length; i++) {
+                if (qName.equals(getQName(i))) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public String getType(final String uri, final String localName) {
+            return getType(getIndex(uri, localName));
+        }
+
+        @Override
+        public String getType(final String qName) {
+            return getType(getIndex(qName));
+        }
+
+        @Override
+        public String getValue(final String uri, final String localName) {
+            return getValue(getIndex(uri, localName));
+        }
+
+        @Override
+        public String getValue(final String qName) {
+            return getValue(getIndex(qName));
+        }
+
+        private String nullToEmpty(final String value) {
+            return value != null ? value : "";
+        }
+    }
+}
@@ -10,18 +10,33 @@ package org.dita.dost.util;
 
 import static org.dita.dost.util.Constants.*;
 
+import java.io.IOException;
+import java.net.URI;
+
 import org.xml.sax.Attributes;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.Locator;
 import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
 
 /**
  * SAX Parser that handles topic id identification.
  *
  */
 public final class TopicIdParser implements ContentHandler {
+
+    /** Exception used to stop parsing after the first ID has been found. */
+    private static final class FirstIdFoundException extends SAXException {
+        private static final long serialVersionUID = -837224160722595096L;
+
+        FirstIdFoundException() {
+            super("First ID found");
+        }
+    }
+
     private boolean isFirstId = true;
     private StringBuilder firstId = null;
+    private boolean stop = false;
 
     /**
      * Default Constructor.
@@ -39,6 +54,28 @@ public final class TopicIdParser implements ContentHandler {
         firstId = result;
     }
 
+    /**
+     * Parse the first ID from a file. Parsing is stopped once the first ID has been found.
+     *
+     * @param reader XML reader used to parse the file, content handler will be replaced
+     * @param file file to parse
+     * @return first ID, empty string if the file has no IDs
+     * @throws IOException if reading the file failed
+     * @throws SAXException if parsing the file failed
+     */
+    public static String getFirstTopicId(final XMLReader reader, final URI file) throws IOException, SAXException {
+        final StringBuilder res = new StringBuilder();
+        final TopicIdParser parser = new TopicIdParser(res);
+        parser.stop = true;
+        reader.setContentHandler(parser);
+        try {
+            reader.parse(file.toString());
+        } catch (final FirstIdFoundException e) {
+            // NOOP
+        }
+        return res.toString();
+    }
+
     @Override
     public void setDocumentLocator(final Locator locator) {
         // NOOP
@@ -72,6 +109,9 @@ public final class TopicIdParser implements ContentHandler {
             if (atts.getValue(ATTRIBUTE_NAME_ID) != null) {
                 isFirstId = false;
                 firstId.append(atts.getValue(ATTRIBUTE_NAME_ID));
+                if (stop) {
+                    throw new FirstIdFoundException();
+                }
             }
         }
     }
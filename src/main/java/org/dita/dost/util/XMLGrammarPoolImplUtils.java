@@ -13,8 +13,12 @@ import org.apache.xerces.util.XMLGrammarPoolImpl;
 import org.apache.xerces.xni.grammars.Grammar;
 import org.apache.xerces.xni.grammars.XMLGrammarDescription;
 
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * Self implemented XML Grammar pool for grammar(schema/dtd) caching.
+ *
+ * <p>The pool is safe for use by multiple concurrent threads and records DTD grammar lookup statistics.</p>
  * @author william
  *
  */
@@ -22,6 +26,8 @@ public final class XMLGrammarPoolImplUtils extends XMLGrammarPoolImpl {
 
     private static final Grammar[] INITIAL_GRAMMAR_SET = new Grammar[0];
 
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
 
     /** Constructs a grammar pool with a default number of buckets. */
     public XMLGrammarPoolImplUtils() {
@@ -41,6 +47,40 @@ public final class XMLGrammarPoolImplUtils extends XMLGrammarPoolImpl {
         return INITIAL_GRAMMAR_SET;
     }
 
+    /**
+     * @see org.apache.xerces.xni.grammars.XMLGrammarPool#retrieveGrammar(XMLGrammarDescription)
+     */
+    @Override
+    public Grammar retrieveGrammar(final XMLGrammarDescription desc) {
+        final Grammar grammar = super.retrieveGrammar(desc);
+        if (!(desc instanceof XSDDescription)) {
+            if (grammar != null) {
+                hits.increment();
+            } else {
+                misses.increment();
+            }
+        }
+        return grammar;
+    }
+
+    /**
+     * Get number of grammar lookups that were found in the pool. XSD grammars are not cached and not counted.
+     *
+     * @return number of cache hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Get number of grammar lookups that were not found in the pool.
+     *
+     * @return number of cache misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
     /**
      * @see org.apache.xerces.util.XMLGrammarPoolImpl#putGrammar(org.apache.xerces.xni.grammars.Grammar)
      */
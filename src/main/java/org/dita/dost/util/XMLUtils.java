@@ -21,7 +21,10 @@ import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.*;
+import javax.xml.transform.sax.SAXResult;
 import javax.xml.transform.sax.SAXSource;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 
@@ -50,19 +53,34 @@ public final class XMLUtils {
         factory = DocumentBuilderFactory.newInstance();
         factory.setNamespaceAware(true);
     }
+    /** Maximum number of idle XML readers pooled per thread. */
+    private static final int MAX_POOLED_READERS = 4;
+    /** Per-thread transformer factories. */
+    private static final ThreadLocal<SAXTransformerFactory> transformerFactories =
+            ThreadLocal.withInitial(() -> (SAXTransformerFactory) TransformerFactory.newInstance());
+    /** Per-thread pools of idle XML readers. */
+    private static final ThreadLocal<Deque<XMLReader>> xmlReaders = ThreadLocal.withInitial(ArrayDeque::new);
     private DITAOTLogger logger;
-    private final TransformerFactory transformerFactory;
+    private DocumentStore documentStore;
 
     public static final Attributes EMPTY_ATTRIBUTES = new AttributesImpl();
 
     public XMLUtils() {
-        transformerFactory = TransformerFactory.newInstance();
     }
 
     public void setLogger(final DITAOTLogger logger) {
         this.logger = logger;
     }
 
+    /**
+     * Set document store used by file transformations to read and write documents.
+     *
+     * @param documentStore document store, {@code null} to only use files
+     */
+    public void setDocumentStore(final DocumentStore documentStore) {
+        this.documentStore = documentStore != null && documentStore.isEnabled() ? documentStore : null;
+    }
+
     /** Convert DOM NodeList to List. */
     public static <T> List<T> toList(final NodeList nodes) {
         final List<T> res = new ArrayList<>(nodes.getLength());
@@ -466,6 +484,10 @@ public final class XMLUtils {
      * @param filters XML filters to transform file with, may be an empty list
      */
     public void transform(final File inputFile, final List<XMLFilter> filters) throws DITAOTException {
+        if (documentStore != null && documentStore.accepts(inputFile.toURI())) {
+            transformFile(inputFile, inputFile, filters);
+            return;
+        }
         final File outputFile = new File(inputFile.getAbsolutePath() + FILE_EXTENSION_TEMP);
         transformFile(inputFile, outputFile, filters);
         try {
@@ -498,13 +520,34 @@ public final class XMLUtils {
             throw new DITAOTException("Failed to create output directory " + outputFile.getParentFile().getAbsolutePath());
         }
 
-        try (final InputStream in = new BufferedInputStream(new FileInputStream(inputFile));
-             final OutputStream out = new BufferedOutputStream(new FileOutputStream(outputFile))) {
-            Transformer transformer = transformerFactory.newTransformer();
+        if (documentStore != null && documentStore.accepts(outputFile.toURI())) {
+            final SaxEventBuffer buffer = new SaxEventBuffer();
+            final SAXResult result = new SAXResult(buffer);
+            result.setLexicalHandler(buffer);
+            transformFile(inputFile, result, filters);
+            try {
+                documentStore.put(outputFile.toURI(), buffer);
+            } catch (final IOException e) {
+                throw new DITAOTException("Failed to store " + outputFile + ": " + e.getMessage(), e);
+            }
+        } else {
+            try (final OutputStream out = new BufferedOutputStream(new FileOutputStream(outputFile))) {
+                transformFile(inputFile, new StreamResult(out), filters);
+            } catch (final IOException e) {
+                throw new DITAOTException("Failed to transform " + inputFile + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private void transformFile(final File inputFile, final Result result, final List<XMLFilter> filters) throws DITAOTException {
+        final boolean stored = documentStore != null && documentStore.contains(inputFile.toURI());
+        try (final InputStream in = stored ? null : new BufferedInputStream(new FileInputStream(inputFile))) {
+            Transformer transformer = getTransformerFactory().newTransformer();
             if (logger != null) {
                 transformer = withLogger(transformer, logger);
             }
-            XMLReader reader = getXMLReader();
+            final XMLReader parser = borrowXMLReader();
+            XMLReader reader = documentStore != null ? documentStore.getXMLReader(parser) : parser;
             for (final XMLFilter filter : filters) {
                 // ContentHandler must be reset so e.g. Saxon 9.1 will reassign ContentHandler
                 // when reusing filter with multiple Transformers.
@@ -512,10 +555,11 @@ public final class XMLUtils {
                 filter.setParent(reader);
                 reader = filter;
             }
-            final Source source = new SAXSource(reader, new InputSource(in));
-            source.setSystemId(inputFile.toURI().toString());
-            final Result result = new StreamResult(out);
+            final InputSource inputSource = new InputSource(inputFile.toURI().toString());
+            inputSource.setByteStream(in);
+            final Source source = new SAXSource(reader, inputSource);
             transformer.transform(source, result);
+            releaseXMLReader(parser);
         } catch (final RuntimeException e) {
             throw e;
         } catch (final Exception e) {
@@ -533,6 +577,8 @@ public final class XMLUtils {
     public void transform(final URI input, final URI output, final List<XMLFilter> filters) throws DITAOTException {
         if (input.equals(output)) {
             transform(input, filters);
+        } else if (documentStore != null && "file".equals(input.getScheme()) && "file".equals(output.getScheme())) {
+            transformFile(new File(input), new File(output), filters);
         } else {
             transformURI(input, output, filters);
         }
@@ -547,11 +593,12 @@ public final class XMLUtils {
         InputSource src = null;
         StreamResult result = null;
         try {
-            Transformer transformer = transformerFactory.newTransformer();
+            Transformer transformer = getTransformerFactory().newTransformer();
             if (logger != null) {
                 transformer = withLogger(transformer, logger);
             }
-            XMLReader reader = getXMLReader();
+            final XMLReader parser = borrowXMLReader();
+            XMLReader reader = parser;
             for (final XMLFilter filter : filters) {
                 // ContentHandler must be reset so e.g. Saxon 9.1 will reassign ContentHandler
                 // when reusing filter with multiple Transformers.
@@ -563,6 +610,7 @@ public final class XMLUtils {
             final Source source = new SAXSource(reader, src);
             result = new StreamResult(output.toString());
             transformer.transform(source, result);
+            releaseXMLReader(parser);
         } catch (final RuntimeException e) {
             throw e;
         } catch (final Exception e) {
@@ -689,6 +737,8 @@ public final class XMLUtils {
      *   <li>{@link Constants#SAX_DRIVER_CRIMSON_CLASS Crimson}</li>
      * </ol>
      *
+     * The preferred reader class is resolved only once.
+     *
      * @return XML parser instance.
      * @throws org.xml.sax.SAXException if instantiating XMLReader failed
      */
@@ -697,21 +747,15 @@ public final class XMLUtils {
         if (System.getProperty(SAX_DRIVER_PROPERTY) != null) {
             return XMLReaderFactory.createXMLReader();
         }
-        try {
-            Class.forName(SAX_DRIVER_DEFAULT_CLASS);
-            reader = XMLReaderFactory.createXMLReader(SAX_DRIVER_DEFAULT_CLASS);
-        } catch (final ClassNotFoundException e) {
+        final Class<? extends XMLReader> driver = SaxDriver.CLASS;
+        if (driver != null) {
             try {
-                Class.forName(SAX_DRIVER_SUN_HACK_CLASS);
-                reader = XMLReaderFactory.createXMLReader(SAX_DRIVER_SUN_HACK_CLASS);
-            } catch (final ClassNotFoundException ex) {
-                try {
-                    Class.forName(SAX_DRIVER_CRIMSON_CLASS);
-                    reader = XMLReaderFactory.createXMLReader(SAX_DRIVER_CRIMSON_CLASS);
-                } catch (final ClassNotFoundException exc) {
-                    reader = XMLReaderFactory.createXMLReader();
-                }
+                reader = driver.newInstance();
+            } catch (final InstantiationException | IllegalAccessException e) {
+                throw new SAXException("Failed to instantiate SAX driver " + driver.getName() + ": " + e.getMessage(), e);
             }
+        } else {
+            reader = XMLReaderFactory.createXMLReader();
         }
         if (Configuration.DEBUG) {
             reader = new DebugXMLReader(reader);
@@ -719,6 +763,77 @@ public final class XMLUtils {
         return reader;
     }
 
+    /** Lazily resolved preferred SAX driver class. */
+    private static final class SaxDriver {
+        static final Class<? extends XMLReader> CLASS = findSaxDriver();
+
+        private static Class<? extends XMLReader> findSaxDriver() {
+            for (final String name : new String[] {SAX_DRIVER_DEFAULT_CLASS, SAX_DRIVER_SUN_HACK_CLASS, SAX_DRIVER_CRIMSON_CLASS}) {
+                try {
+                    return Class.forName(name).asSubclass(XMLReader.class);
+                } catch (final ClassNotFoundException | ClassCastException | LinkageError e) {
+                    // try next
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Borrow SAX parser from the current thread's pool. The parser must be returned with
+     * {@link #releaseXMLReader(XMLReader)} after use, or discarded if parsing failed. Callers must not
+     * change features or properties of a pooled parser.
+     *
+     * @return XML parser instance with no handlers set
+     * @throws org.xml.sax.SAXException if instantiating XMLReader failed
+     */
+    public static XMLReader borrowXMLReader() throws SAXException {
+        final XMLReader reader = xmlReaders.get().pollFirst();
+        return reader != null ? reader : getXMLReader();
+    }
+
+    /**
+     * Reset SAX parser handlers and return it to the current thread's pool.
+     *
+     * @param reader XML parser borrowed with {@link #borrowXMLReader()}
+     */
+    public static void releaseXMLReader(final XMLReader reader) {
+        final Deque<XMLReader> pool = xmlReaders.get();
+        if (pool.size() >= MAX_POOLED_READERS) {
+            return;
+        }
+        reader.setContentHandler(null);
+        reader.setDTDHandler(null);
+        reader.setEntityResolver(null);
+        reader.setErrorHandler(null);
+        try {
+            reader.setProperty("http://xml.org/sax/properties/lexical-handler", null);
+        } catch (final SAXNotRecognizedException | SAXNotSupportedException | NullPointerException e) {
+            // lexical handler cannot be reset, do not reuse
+            return;
+        }
+        pool.addFirst(reader);
+    }
+
+    /**
+     * Get transformer factory for the current thread. The factory must not be configured by callers.
+     *
+     * @return shared transformer factory
+     */
+    public static SAXTransformerFactory getTransformerFactory() {
+        return transformerFactories.get();
+    }
+
+    /**
+     * Create identity transformer handler using the current thread's transformer factory.
+     *
+     * @return identity transformer handler
+     * @throws TransformerConfigurationException if creating the transformer handler failed
+     */
+    public static TransformerHandler newIdentityTransformerHandler() throws TransformerConfigurationException {
+        return getTransformerFactory().newTransformerHandler();
+    }
+
     /**
      * Get DOM parser.
      *
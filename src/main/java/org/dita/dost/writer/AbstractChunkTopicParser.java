@@ -418,21 +418,20 @@ public abstract class AbstractChunkTopicParser extends AbstractXMLWriter {
         if (!ditaTopicFile.isAbsolute()) {
             return null;
         }
-        final StringBuilder firstTopicId = new StringBuilder();
-        final TopicIdParser parser = new TopicIdParser(firstTopicId);
+        String firstTopicId = "";
         try {
-            final XMLReader reader = getXMLReader();
-            reader.setContentHandler(parser);
-            reader.parse(ditaTopicFile.toURI().toString());
+            final XMLReader reader = borrowXMLReader();
+            firstTopicId = TopicIdParser.getFirstTopicId(reader, ditaTopicFile.toURI());
+            releaseXMLReader(reader);
         } catch (final RuntimeException e) {
             throw e;
         } catch (final Exception e) {
             logger.error(e.getMessage(), e);
         }
-        if (firstTopicId.length() == 0) {
+        if (firstTopicId.isEmpty()) {
             return null;
         }
-        return firstTopicId.toString();
+        return firstTopicId;
     }
 
     // SAX serialization methods
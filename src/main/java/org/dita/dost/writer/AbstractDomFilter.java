@@ -10,6 +10,7 @@ package org.dita.dost.writer;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.net.URI;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.transform.Result;
@@ -22,9 +23,11 @@ import org.dita.dost.exception.DITAOTXMLErrorHandler;
 import org.dita.dost.log.DITAOTLogger;
 import org.dita.dost.reader.AbstractReader;
 import org.dita.dost.util.Job;
+import org.dita.dost.util.Job.FileInfo;
 import org.dita.dost.util.XMLUtils;
 import org.w3c.dom.Document;
 
+import static org.dita.dost.util.Constants.ATTR_FORMAT_VALUE_DITAMAP;
 import static org.dita.dost.util.XMLUtils.close;
 
 /**
@@ -39,12 +42,13 @@ public abstract class AbstractDomFilter implements AbstractReader {
     public void read(final File filename) {
         assert filename.isAbsolute();
         logger.info("Processing " + filename.toURI());
+        final boolean cached = isCached(filename);
         Document doc;
         try {
             final DocumentBuilder builder = XMLUtils.getDocumentBuilder();
             builder.setErrorHandler(new DITAOTXMLErrorHandler(filename.getPath(), logger));
             logger.debug("Reading " + filename.toURI());
-            doc = builder.parse(filename);
+            doc = cached ? job.getDocumentCache().get(filename.toURI(), builder) : builder.parse(filename);
         } catch (final RuntimeException e) {
             throw e;
         } catch (final Exception e) {
@@ -54,7 +58,16 @@ public abstract class AbstractDomFilter implements AbstractReader {
 
         final Document resDoc = process(doc);
 
-        if (resDoc != null) {
+        if (resDoc != null && cached) {
+            try {
+                logger.debug("Writing " + filename.toURI());
+                job.getDocumentCache().put(filename.toURI(), resDoc);
+            } catch (final IOException e) {
+                logger.error("Failed to serialize " + filename.getAbsolutePath() + ": " + e.getMessage(), e);
+            }
+        } else if (cached) {
+            job.getDocumentCache().invalidate(filename.toURI());
+        } else if (resDoc != null) {
             Result res = null;
             try {
                 res = new StreamResult(new FileOutputStream(filename));
@@ -76,6 +89,21 @@ public abstract class AbstractDomFilter implements AbstractReader {
         }
     }
 
+    /**
+     * Test if file is a map in the temporary directory that is kept in the job document cache.
+     */
+    private boolean isCached(final File filename) {
+        if (job == null) {
+            return false;
+        }
+        final URI file = filename.toURI();
+        if (!file.toString().startsWith(job.tempDirURI.toString())) {
+            return false;
+        }
+        final FileInfo fi = job.getFileInfo(file);
+        return fi != null && ATTR_FORMAT_VALUE_DITAMAP.equals(fi.format);
+    }
+
     @Override
     public void setLogger(final DITAOTLogger logger) {
         this.logger = logger;
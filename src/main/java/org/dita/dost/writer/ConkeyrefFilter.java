@@ -91,7 +91,7 @@ public final class ConkeyrefFilter extends AbstractXMLFilter {
      */
     private URI getRelativePath(final URI href) {
         final URI keyValue;
-        final URI inputMap = job.getFileInfo(fi -> fi.isInput).stream()
+        final URI inputMap = job.getFileInfo(Job.FileInfo.Flag.IS_INPUT).stream()
                 .map(fi -> fi.uri)
                 .findFirst()
                 .orElse(null);
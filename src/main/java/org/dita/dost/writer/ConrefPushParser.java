@@ -178,6 +178,8 @@ public final class ConrefPushParser extends AbstractXMLFilter {
             if (hasKeyref) {
                 f.hasKeyref = true;
             }
+            // re-add to update job index
+            job.add(f);
             job.write();
         } catch (final RuntimeException e) {
             throw e;
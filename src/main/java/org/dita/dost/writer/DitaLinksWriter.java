@@ -64,7 +64,7 @@ public final class DitaLinksWriter extends AbstractXMLFilter {
     @Override
     public void setJob(final Job job) {
         super.setJob(job);
-        final Job.FileInfo in = job.getFileInfo(fi -> fi.isInput).iterator().next();
+        final Job.FileInfo in = job.getFileInfo(Job.FileInfo.Flag.IS_INPUT).iterator().next();
         baseURI = job.tempDir.toURI().resolve(in.uri);
     }
 
@@ -26,6 +26,8 @@ import static org.dita.dost.util.Constants.*;
  */
 public final class ProfilingFilter extends AbstractXMLFilter {
 
+    private static final DitaClass NO_CLASS = new DitaClass("");
+
     /** when exclude is true the tag will be excluded. */
     private boolean exclude;
     /** level is used to count the element level in the filtering */
@@ -36,6 +38,8 @@ public final class ProfilingFilter extends AbstractXMLFilter {
     private List<FilterUtils> filterUtils;
     /** Flag that an element has been written */
     private boolean elementOutput;
+    /** ID of the first element with an ID that has been written */
+    private String firstTopicId;
     /** Namespace prefixes for current element. */
     private final Map<String, String> prefixes = new HashMap<>();
     /** Flag that last element was excluded. */
@@ -85,6 +89,15 @@ public final class ProfilingFilter extends AbstractXMLFilter {
         return elementOutput;
     }
 
+    /**
+     * Get ID of the first element with an ID that was output.
+     *
+     * @return first ID, {@code null} if no element with an ID was output
+     */
+    public String getFirstTopicId() {
+        return firstTopicId;
+    }
+
     // SAX methods
 
     @Override
@@ -92,7 +105,7 @@ public final class ProfilingFilter extends AbstractXMLFilter {
             throws SAXException {
         Set<Flag> flags = null;
 
-        final DitaClass cls = atts.getValue(ATTRIBUTE_NAME_CLASS) != null ? new DitaClass(atts.getValue(ATTRIBUTE_NAME_CLASS)) : new DitaClass("");
+        final DitaClass cls = atts.getValue(ATTRIBUTE_NAME_CLASS) != null ? DitaClass.getInstance(atts) : NO_CLASS;
 
         if (cls.isValid() && (TOPIC_TOPIC.matches(cls) || MAP_MAP.matches(cls))) {
             final String domains = atts.getValue(ATTRIBUTE_NAME_DOMAINS);
@@ -112,6 +125,9 @@ public final class ProfilingFilter extends AbstractXMLFilter {
                 level = 0;
             } else {
                 elementOutput = true;
+                if (firstTopicId == null) {
+                    firstTopicId = atts.getValue(ATTRIBUTE_NAME_ID);
+                }
                 for (final Map.Entry<String, String> prefix: prefixes.entrySet()) {
                     getContentHandler().startPrefixMapping(prefix.getKey(), prefix.getValue());
                 }
@@ -211,6 +227,7 @@ public final class ProfilingFilter extends AbstractXMLFilter {
         exclude = false;
         level = 0;
         props = null;
+        firstTopicId = null;
         getContentHandler().startDocument();
     }
 
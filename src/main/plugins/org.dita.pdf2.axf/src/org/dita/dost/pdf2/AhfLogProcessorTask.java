@@ -21,11 +21,11 @@ import java.io.*;
  */
 public final class AhfLogProcessorTask extends Task {
 
-    private static String PREFIX = "AHFCmd :";
-    private static String PREFIX_INFO = "INFO: ";
-    private static String PREFIX_WARN = "WARNING: ";
-    private static String PREFIX_ERROR = "RECOVERABLE: ";
-    private static String PREFIX_FATAL = "FATAL: ";
+    private static final String PREFIX = "AHFCmd :";
+    private static final String PREFIX_INFO = "INFO: ";
+    private static final String PREFIX_WARN = "WARNING: ";
+    private static final String PREFIX_ERROR = "RECOVERABLE: ";
+    private static final String PREFIX_FATAL = "FATAL: ";
 
     private File file;
 
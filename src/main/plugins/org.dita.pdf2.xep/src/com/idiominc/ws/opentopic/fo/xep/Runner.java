@@ -43,8 +43,6 @@ See the accompanying LICENSE file for applicable license.
 public class Runner {
     private boolean failed;
 
-    private static boolean failOnError = true;
-
     public static void main(final String[] args) {
         if (args.length < 2) {
             System.out.println("Invalid number of parameters. " +
@@ -52,10 +50,7 @@ public class Runner {
             System.exit(1);
         }
 
-        if (args.length >= 3 && args[2].equals("failOnError=false"))
-        {
-            failOnError = false;
-        }
+        final boolean failOnError = !(args.length >= 3 && args[2].equals("failOnError=false"));
 
         final boolean failed = new Runner().run(args);
 
@@ -57,4 +57,20 @@ public class IndexCollator {
 
     }
 
+    /**
+     * Get collation key for a string. Comparing collation keys gives the same result as
+     * {@link #compare(Object, Object)} but the key is computed only once.
+     *
+     * @param source source string
+     * @return collation key
+     */
+    @SuppressWarnings("unchecked")
+    public Comparable<Object> getCollationKey(final String source) {
+        if (icuCollator) {
+            return (Comparable<Object>) (Comparable<?>) this.icu4jCollator.getCollationKey(source);
+        } else {
+            return (Comparable<Object>) (Comparable<?>) this.defaultCollator.getCollationKey(source);
+        }
+    }
+
 }
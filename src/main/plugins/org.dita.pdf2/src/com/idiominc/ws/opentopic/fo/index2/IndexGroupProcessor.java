@@ -47,12 +47,38 @@ See the accompanying LICENSE file for applicable license.
 public final class IndexGroupProcessor {
     
     private DITAOTLogger logger;
+    /** Assign entries to groups using entries sorted by collation key instead of comparing every entry to every group. */
+    private final boolean sortedGrouping;
+    private boolean failOnError = false;
+    private boolean processingFailed = false;
 
     public static final String SPECIAL_CHARACTER_GROUP_KEY = "Specials";
+
+    public IndexGroupProcessor() {
+        this(true);
+    }
+
+    /**
+     * @param sortedGrouping assign entries to groups by binary search over entries sorted by collation key
+     */
+    IndexGroupProcessor(final boolean sortedGrouping) {
+        this.sortedGrouping = sortedGrouping;
+    }
     
     public void setLogger(final DITAOTLogger logger) {
         this.logger = logger;
     }
+
+    public void setFailOnError(final boolean failOnError) {
+        this.failOnError = failOnError;
+    }
+
+    /**
+     * @return {@code true} if uncategorized index entries were dropped and fail on error is set
+     */
+    public boolean isProcessingFailed() {
+        return processingFailed;
+    }
     
     /**
      * Puts index entries to the group they are belongs
@@ -101,13 +127,18 @@ public final class IndexGroupProcessor {
         }
          */
 
+        final SortedIndexGrouping sortedIndexGrouping = sortedGrouping ? new SortedIndexGrouping(indexMap, collator) : null;
         for (int i = 0; i < IndexGroups.length; i++) {
             final MyIndexGroup group = IndexGroups[i];
             final ConfigEntry configEntry = group.getConfigEntry();
 
             final String[] groupMembers = configEntry.getGroupMembers();
 
-            if (groupMembers.length > 0) {
+            if (sortedIndexGrouping != null) {
+                for (final String key : sortedIndexGrouping.assign(entries, i)) {
+                    group.addEntry(indexMap.remove(key));
+                }
+            } else if (groupMembers.length > 0) {
                 //Find entries by comaping first letter with a chars in current config entry
                 for (final String key : new ArrayList<String>(indexMap.keySet())) {
                     if (key.length() > 0) {
@@ -168,9 +199,9 @@ public final class IndexGroupProcessor {
                     logger.error(MessageUtils.getMessage("PDFJ001E", entry.toString()).toString());
                 }
             }
-            if (IndexPreprocessorTask.failOnError) {
+            if (failOnError) {
                 logger.error(MessageUtils.getMessage("PDFJ002E").toString());
-                IndexPreprocessorTask.processingFaild=true;
+                processingFailed = true;
             }
         }
 
@@ -11,11 +11,28 @@ import org.w3c.dom.*;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.dom.DOMResult;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.sax.TransformerHandler;
+import java.io.IOException;
 import java.util.*;
 
 import org.dita.dost.log.DITAOTLogger;
 import org.dita.dost.util.Configuration;
 import org.dita.dost.util.XMLUtils;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.NamespaceSupport;
+import org.xml.sax.helpers.XMLFilterImpl;
 
 /*
 Copyright (c) 2004-2006 by Idiom Technologies, Inc. All rights reserved.
@@ -84,6 +101,17 @@ public final class IndexPreprocessor {
         indexDitaProcessor.setLogger(logger);
         indexGroupProcessor.setLogger(logger);
     }
+
+    public void setFailOnError(final boolean failOnError) {
+        indexGroupProcessor.setFailOnError(failOnError);
+    }
+
+    /**
+     * @return {@code true} if index grouping failed and fail on error is set
+     */
+    public boolean isProcessingFailed() {
+        return indexGroupProcessor.isProcessingFailed();
+    }
     
     /**
      * Process index terms.
@@ -118,12 +146,15 @@ public final class IndexPreprocessor {
     }
 
     public void createAndAddIndexGroups(final IndexEntry[] theIndexEntries, final IndexConfiguration theConfiguration, final Document theDocument, final Locale theLocale) {
+        final Element rootElement = theDocument.getDocumentElement();
+        rootElement.appendChild(createIndexGroups(theIndexEntries, theConfiguration, theDocument, theLocale));
+    }
+
+    private Element createIndexGroups(final IndexEntry[] theIndexEntries, final IndexConfiguration theConfiguration, final Document theDocument, final Locale theLocale) {
         final IndexComparator indexEntryComparator = new IndexComparator(theLocale);
 
         final IndexGroup[] indexGroups = indexGroupProcessor.process(theIndexEntries, theConfiguration, theLocale);
 
-        final Element rootElement = theDocument.getDocumentElement();
-
         final Element indexGroupsElement = theDocument.createElementNS(namespace_url, "index.groups");
         indexGroupsElement.setPrefix(prefix);
 
@@ -145,7 +176,335 @@ public final class IndexPreprocessor {
             indexGroupsElement.appendChild(groupElement);
         }
 
-        rootElement.appendChild(indexGroupsElement);
+        return indexGroupsElement;
+    }
+
+    /**
+     * Process index terms in a single streaming pass and append index groups to the end of the document.
+     * Only index term elements are read into memory, all other content is passed through to the result.
+     *
+     * @param theInput         input document
+     * @param theReader        XML parser used to read the input
+     * @param theResult        serializer for the result document, DOCTYPE of the input is set to its output properties
+     * @param theConfiguration index configuration
+     * @param theLocale        locale used to group and sort index entries
+     * @return read index terms
+     * @throws ProcessException if processing index terms failed
+     */
+    public IndexEntry[] process(final InputSource theInput, final XMLReader theReader, final TransformerHandler theResult,
+                                final IndexConfiguration theConfiguration, final Locale theLocale)
+            throws ProcessException {
+        final StreamingFilter filter = new StreamingFilter(theResult, theConfiguration, theLocale);
+        filter.setParent(theReader);
+        filter.setEntityResolver(theReader.getEntityResolver());
+        filter.setErrorHandler(theReader.getErrorHandler());
+        try {
+            theReader.setProperty("http://xml.org/sax/properties/lexical-handler", filter);
+            filter.parse(theInput);
+        } catch (final SAXException | IOException e) {
+            throw new ProcessException("Failed to process index terms in " + theInput.getSystemId() + ": " + e.getMessage(), e);
+        }
+        return filter.indexes.toArray(new IndexEntry[0]);
+    }
+
+    /**
+     * Streaming index term processor. Content outside index terms is passed through to the result, index term
+     * elements are built into DOM fragments and replaced with the processed index entries. Index groups are
+     * written before the end of the root element.
+     */
+    private final class StreamingFilter extends XMLFilterImpl implements LexicalHandler {
+
+        private final TransformerHandler result;
+        private final IndexConfiguration configuration;
+        private final Locale locale;
+        private final List<IndexEntry> indexes = new ArrayList<>();
+        private final IndexEntryFoundListener listener = indexes::add;
+        private final Document targetDocument = XMLUtils.getDocumentBuilder().newDocument();
+        private final NamespaceSupport namespaces = new NamespaceSupport();
+        /** Namespace context has been pushed for the next element. */
+        private boolean namespaceContextPushed;
+        /** Draft comment flags of open elements outside index terms. */
+        private final Deque<Boolean> draftElements = new ArrayDeque<>();
+        private int draftDepth;
+        private int depth;
+        private boolean startDocumentPending;
+        private boolean inDTD;
+        /** Builder for the current index term element, {@code null} if outside index terms. */
+        private TransformerHandler fragment;
+        private DOMResult fragmentResult;
+        private int fragmentDepth;
+        private Transformer domToSax;
+
+        StreamingFilter(final TransformerHandler result, final IndexConfiguration configuration, final Locale locale) {
+            this.result = result;
+            this.configuration = configuration;
+            this.locale = locale;
+            setContentHandler(result);
+        }
+
+        // ContentHandler methods
+
+        @Override
+        public void startDocument() throws SAXException {
+            startDocumentPending = true;
+        }
+
+        @Override
+        public void endDocument() throws SAXException {
+            flushStartDocument();
+            result.endDocument();
+        }
+
+        @Override
+        public void startPrefixMapping(final String prefix, final String uri) throws SAXException {
+            pushNamespaceContext();
+            namespaces.declarePrefix(prefix, uri);
+            if (fragment != null) {
+                fragment.startPrefixMapping(prefix, uri);
+            } else {
+                result.startPrefixMapping(prefix, uri);
+            }
+        }
+
+        @Override
+        public void endPrefixMapping(final String prefix) throws SAXException {
+            if (fragment != null) {
+                fragment.endPrefixMapping(prefix);
+            } else {
+                result.endPrefixMapping(prefix);
+            }
+        }
+
+        @Override
+        public void startElement(final String uri, final String localName, final String qName, final Attributes atts)
+                throws SAXException {
+            flushStartDocument();
+            pushNamespaceContext();
+            namespaceContextPushed = false;
+            if (fragment != null) {
+                fragmentDepth++;
+                fragment.startElement(uri, localName, qName, atts);
+            } else if (draftDepth == 0 && isIndexElement(atts)) {
+                startFragment();
+                fragment.startElement(uri, localName, qName, atts);
+            } else {
+                if (depth == 0) {
+                    result.startPrefixMapping(prefix, namespace_url);
+                }
+                final boolean draft = !includeDraft && isDraftElement(atts);
+                if (draft) {
+                    draftDepth++;
+                }
+                draftElements.push(draft);
+                result.startElement(uri, localName, qName, atts);
+            }
+            depth++;
+        }
+
+        @Override
+        public void endElement(final String uri, final String localName, final String qName) throws SAXException {
+            depth--;
+            namespaces.popContext();
+            if (fragment != null) {
+                fragment.endElement(uri, localName, qName);
+                if (fragmentDepth == 0) {
+                    endFragment();
+                } else {
+                    fragmentDepth--;
+                }
+            } else {
+                if (draftElements.pop()) {
+                    draftDepth--;
+                }
+                if (depth == 0) {
+                    final IndexEntry[] entries = indexes.toArray(new IndexEntry[0]);
+                    toSax(createIndexGroups(entries, configuration, targetDocument, locale));
+                }
+                result.endElement(uri, localName, qName);
+                if (depth == 0) {
+                    result.endPrefixMapping(prefix);
+                }
+            }
+        }
+
+        @Override
+        public void characters(final char[] ch, final int start, final int length) throws SAXException {
+            if (fragment != null) {
+                fragment.characters(ch, start, length);
+            } else {
+                result.characters(ch, start, length);
+            }
+        }
+
+        @Override
+        public void ignorableWhitespace(final char[] ch, final int start, final int length) throws SAXException {
+            if (fragment != null) {
+                fragment.ignorableWhitespace(ch, start, length);
+            } else {
+                result.ignorableWhitespace(ch, start, length);
+            }
+        }
+
+        @Override
+        public void processingInstruction(final String target, final String data) throws SAXException {
+            flushStartDocument();
+            if (fragment != null) {
+                fragment.processingInstruction(target, data);
+            } else {
+                result.processingInstruction(target, data);
+            }
+        }
+
+        @Override
+        public void skippedEntity(final String name) throws SAXException {
+            // ignore
+        }
+
+        // LexicalHandler methods
+
+        @Override
+        public void startDTD(final String name, final String publicId, final String systemId) throws SAXException {
+            inDTD = true;
+            if (publicId != null) {
+                result.getTransformer().setOutputProperty(OutputKeys.DOCTYPE_PUBLIC, publicId);
+            }
+            if (systemId != null) {
+                result.getTransformer().setOutputProperty(OutputKeys.DOCTYPE_SYSTEM, systemId);
+            }
+        }
+
+        @Override
+        public void endDTD() throws SAXException {
+            inDTD = false;
+        }
+
+        @Override
+        public void startEntity(final String name) throws SAXException {
+            // ignore
+        }
+
+        @Override
+        public void endEntity(final String name) throws SAXException {
+            // ignore
+        }
+
+        @Override
+        public void startCDATA() throws SAXException {
+            // ignore
+        }
+
+        @Override
+        public void endCDATA() throws SAXException {
+            // ignore
+        }
+
+        @Override
+        public void comment(final char[] ch, final int start, final int length) throws SAXException {
+            if (inDTD) {
+                return;
+            }
+            flushStartDocument();
+            if (fragment != null) {
+                fragment.comment(ch, start, length);
+            } else {
+                result.comment(ch, start, length);
+            }
+        }
+
+        // Private methods
+
+        /** Start document after DOCTYPE has been read, so that it can be set to output properties. */
+        private void flushStartDocument() throws SAXException {
+            if (startDocumentPending) {
+                startDocumentPending = false;
+                result.startDocument();
+            }
+        }
+
+        private void pushNamespaceContext() {
+            if (!namespaceContextPushed) {
+                namespaces.pushContext();
+                namespaceContextPushed = true;
+            }
+        }
+
+        private boolean isIndexElement(final Attributes atts) {
+            return TOPIC_INDEXTERM.matches(atts)
+                    || INDEXING_D_INDEX_SORT_AS.matches(atts)
+                    || INDEXING_D_INDEX_SEE.matches(atts)
+                    || INDEXING_D_INDEX_SEE_ALSO.matches(atts);
+        }
+
+        private boolean isDraftElement(final Attributes atts) {
+            return TOPIC_DRAFT_COMMENT.matches(atts)
+                    || TOPIC_REQUIRED_CLEANUP.matches(atts);
+        }
+
+        /** Start building index term element into a DOM fragment with all in-scope namespaces declared. */
+        private void startFragment() throws SAXException {
+            try {
+                fragment = XMLUtils.newIdentityTransformerHandler();
+            } catch (final TransformerConfigurationException e) {
+                throw new SAXException("Failed to create DOM builder: " + e.getMessage(), e);
+            }
+            fragmentResult = new DOMResult(XMLUtils.getDocumentBuilder().newDocument());
+            fragment.setResult(fragmentResult);
+            fragmentDepth = 0;
+            fragment.startDocument();
+            for (final Enumeration<?> e = namespaces.getPrefixes(); e.hasMoreElements();) {
+                final String p = (String) e.nextElement();
+                if (!p.equals(XML_NS_PREFIX)) {
+                    fragment.startPrefixMapping(p, namespaces.getURI(p));
+                }
+            }
+            final String defaultNamespace = namespaces.getURI("");
+            if (defaultNamespace != null && !defaultNamespace.isEmpty()) {
+                fragment.startPrefixMapping("", defaultNamespace);
+            }
+        }
+
+        /** Process completed index term element and write the processed index entries to the result. */
+        private void endFragment() throws SAXException {
+            fragment.endDocument();
+            fragment = null;
+            final Element indexElement = ((Document) fragmentResult.getNode()).getDocumentElement();
+            fragmentResult = null;
+            for (final Node node : processIndexNode(indexElement, targetDocument, listener)) {
+                toSax(node);
+            }
+        }
+
+        /** Write DOM node to the result. */
+        private void toSax(final Node node) throws SAXException {
+            try {
+                if (domToSax == null) {
+                    domToSax = XMLUtils.getTransformerFactory().newTransformer();
+                }
+                domToSax.transform(new DOMSource(node), new SAXResult(new FilterHandler(result)));
+            } catch (final TransformerException e) {
+                throw new SAXException("Failed to serialize DOM node to SAX: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /** Content handler that ignores document start and end events. */
+    private static final class FilterHandler extends XMLFilterImpl {
+
+        FilterHandler(final ContentHandler handler) {
+            super();
+            setContentHandler(handler);
+        }
+
+        @Override
+        public void startDocument() throws SAXException {
+            // ignore
+        }
+
+        @Override
+        public void endDocument() throws SAXException {
+            // ignore
+        }
+
     }
 
 
@@ -8,15 +8,17 @@ import org.apache.tools.ant.types.XMLCatalog;
 import org.dita.dost.log.DITAOTAntLogger;
 import org.dita.dost.util.XMLUtils;
 import static org.dita.dost.util.Constants.*;
-import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.sax.TransformerHandler;
 import javax.xml.transform.stream.StreamResult;
+import java.io.BufferedOutputStream;
 import java.io.FileOutputStream;
+import java.io.OutputStream;
 import java.util.Locale;
 
 /*
@@ -58,8 +60,7 @@ extends Task {
     private String locale = "ja";
     private String indexConfig = "";
     private String draft = ARGS_DRAFT_NO;
-    public static boolean failOnError = false;
-    public static boolean processingFaild = false;
+    private boolean failOnError = false;
     private static final String prefix = "opentopic-index";
     private static final String namespace_url = "http://www.idiominc.com/opentopic/index";
 
@@ -75,19 +76,12 @@ extends Task {
             final DocumentBuilder documentBuilder = XMLUtils.getDocumentBuilder();
             documentBuilder.setEntityResolver(xmlcatalog);
 
-            final Document doc = documentBuilder.parse(input);
             final IndexPreprocessor preprocessor = new IndexPreprocessor(this.prefix, this.namespace_url, this.draft);
             preprocessor.setLogger(new DITAOTAntLogger(getProject()));
-
-            // Walks through source document and builds an array of IndexEntry and builds
-            // new Document with pre-processed index entries included.
-            final IndexPreprocessResult result = preprocessor.process(doc);
-
-            final Document resultDoc = result.getDocument();
+            preprocessor.setFailOnError(failOnError);
 
             // Parse index configuration from file specified from ANT script
             final IndexConfiguration configuration = IndexConfiguration.parse(documentBuilder.parse(this.indexConfig));
-            final IndexEntry[] indexEntries = result.getIndexEntries();
 
             Locale loc;
             // Split passed locale string to lang and country codes
@@ -96,31 +90,26 @@ extends Task {
             } else {
                 loc = new Locale(this.locale);
             }
-            // Append index groups to the end of document
-            preprocessor.createAndAddIndexGroups(indexEntries, configuration, resultDoc, loc);
 
-            if (processingFaild) {
-                setActiveProjectProperty("ws.runtime.index.preprocess.fail","true");
+            final XMLReader reader = XMLUtils.getXMLReader();
+            reader.setEntityResolver(xmlcatalog);
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(this.output))) {
+                final TransformerHandler serializer = XMLUtils.getTransformerFactory().newTransformerHandler();
+                final Transformer transformer = serializer.getTransformer();
+                transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "no");
+                transformer.setOutputProperty(OutputKeys.INDENT, "no");
+                transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+                transformer.setOutputProperty(OutputKeys.STANDALONE, "yes");
+                serializer.setResult(new StreamResult(out));
+
+                // Walks through source document, writes pre-processed index entries to the result
+                // and appends index groups to the end of document
+                preprocessor.process(new InputSource(input), reader, serializer, configuration, loc);
             }
-            // Serialize processed document
-            final TransformerFactory transformerFactory = TransformerFactory.newInstance();
-            final Transformer transformer = transformerFactory.newTransformer();
-            transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "no");
-            transformer.setOutputProperty(OutputKeys.INDENT, "no");
-            transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
-            transformer.setOutputProperty(OutputKeys.STANDALONE, "yes");
-            if (doc.getDoctype() != null) {
-                if (null != doc.getDoctype().getPublicId()) {
-                    transformer.setOutputProperty(OutputKeys.DOCTYPE_PUBLIC, doc.getDoctype().getPublicId());
-                }
-                if (null != doc.getDoctype().getSystemId()) {
-                    transformer.setOutputProperty(OutputKeys.DOCTYPE_SYSTEM, doc.getDoctype().getSystemId());
-                }
+
+            if (preprocessor.isProcessingFailed()) {
+                setActiveProjectProperty("ws.runtime.index.preprocess.fail","true");
             }
-            final FileOutputStream out = new FileOutputStream(this.output);
-            final StreamResult streamResult = new StreamResult(out);
-            transformer.transform(new DOMSource(resultDoc), streamResult);
-            out.close();
         } catch (final Exception e) {
             e.printStackTrace();
             throw new BuildException(e);
@@ -32,6 +32,9 @@ See the accompanying LICENSE file for applicable license.
  */
 public class ProcessException
 extends Exception {
+
+    private static final long serialVersionUID = -8979369620456485652L;
+
     public ProcessException() {
     }
 
@@ -39,4 +42,9 @@ extends Exception {
     public ProcessException(final String message) {
         super(message);
     }
+
+
+    public ProcessException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
 }
@@ -0,0 +1,255 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2019 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+package com.idiominc.ws.opentopic.fo.index2;
+
+import com.idiominc.ws.opentopic.fo.index2.configuration.CharRange;
+import com.idiominc.ws.opentopic.fo.index2.configuration.ConfigEntry;
+import com.idiominc.ws.opentopic.fo.index2.configuration.ConfigEntryImpl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index group assignment over index entries sorted once by collation key.
+ *
+ * <p>Entries are sorted by the string value for group member prefix matching, and by a precomputed
+ * collation key for character and key ranges. Range boundaries are located by binary search, and entries
+ * already assigned to a group are skipped with path-compressed next pointers, so each group only visits
+ * the entries it may contain. The assignment is the same as with {@link ConfigEntry#isInRange(String, IndexCollator)}
+ * and key comparison in configuration order.</p>
+ */
+final class SortedIndexGrouping {
+
+    private static final class Item {
+        final String key;
+        final String value;
+        final boolean sortAs;
+        Comparable<Object> collationKey;
+        boolean assigned;
+
+        Item(final String key, final String value, final boolean sortAs) {
+            this.key = key;
+            this.value = value;
+            this.sortAs = sortAs;
+        }
+    }
+
+    /** Sorted items with skip pointers over assigned items. */
+    private static final class SortedItems {
+        final Item[] items;
+        final int[] next;
+
+        SortedItems(final List<Item> items, final Comparator<Item> comparator) {
+            this.items = items.toArray(new Item[items.size()]);
+            Arrays.sort(this.items, comparator);
+            next = new int[this.items.length];
+            for (int i = 0; i < next.length; i++) {
+                next[i] = i + 1;
+            }
+        }
+
+        /** Get index of first unassigned item at or after index. */
+        int first(final int index) {
+            int j = index;
+            while (j < items.length && items[j].assigned) {
+                j = next[j];
+            }
+            int i = index;
+            while (i < j) {
+                final int n = next[i];
+                next[i] = j;
+                i = n;
+            }
+            return j;
+        }
+
+        /** Get index of first item whose collation key is greater than, or if inclusive equal to, bound. */
+        int collationBound(final Comparable<Object> bound, final boolean inclusive) {
+            int low = 0;
+            int high = items.length;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                final int c = items[mid].collationKey.compareTo(bound);
+                if (c > 0 || (inclusive && c == 0)) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            return low;
+        }
+
+        /** Get index of first item whose value is greater than or equal to bound. */
+        int valueBound(final String bound) {
+            int low = 0;
+            int high = items.length;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (items[mid].value.compareTo(bound) >= 0) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            return low;
+        }
+    }
+
+    private final IndexCollator collator;
+    private final List<Item> items;
+    /** Entries with non-empty key in value order. */
+    private final SortedItems byValue;
+    /** Entries with non-empty key by value. */
+    private final Map<String, List<Item>> valueIndex = new HashMap<>();
+    /** Entries whose value is the key in collation order, created on first use. */
+    private SortedItems plain;
+    /** Entries with a sort string in collation order of the sort string, created on first use. */
+    private SortedItems sortAs;
+
+    /**
+     * @param indexMap index entries by value
+     * @param collator collator used to compare index entries
+     */
+    SortedIndexGrouping(final Map<String, IndexEntry> indexMap, final IndexCollator collator) {
+        this.collator = collator;
+        items = new ArrayList<>(indexMap.size());
+        final List<Item> named = new ArrayList<>(indexMap.size());
+        for (final Map.Entry<String, IndexEntry> e : indexMap.entrySet()) {
+            final String key = e.getKey();
+            final String sortString = e.getValue().getSortString();
+            final boolean hasSortString = sortString != null && sortString.length() > 0;
+            final String value = hasSortString ? sortString : e.getValue().getValue();
+            final Item item = new Item(key, value, hasSortString && !sortString.equals(key));
+            items.add(item);
+            if (key.length() > 0) {
+                named.add(item);
+                valueIndex.computeIfAbsent(value, k -> new ArrayList<>(1)).add(item);
+            }
+        }
+        byValue = new SortedItems(named, Comparator.comparing(i -> i.value));
+    }
+
+    /**
+     * Sort unassigned entries by collation key. Collation keys are only computed for entries not assigned by
+     * group members, as generating them is more expensive than prefix matching.
+     */
+    private void sortByCollation() {
+        if (plain == null) {
+            final List<Item> plainItems = new ArrayList<>();
+            final List<Item> sortAsItems = new ArrayList<>();
+            for (final Item item : items) {
+                if (!item.assigned) {
+                    item.collationKey = collator.getCollationKey(item.value);
+                    if (item.sortAs) {
+                        sortAsItems.add(item);
+                    } else {
+                        plainItems.add(item);
+                    }
+                }
+            }
+            final Comparator<Item> collationOrder = (a, b) -> a.collationKey.compareTo(b.collationKey);
+            plain = new SortedItems(plainItems, collationOrder);
+            sortAs = new SortedItems(sortAsItems, collationOrder);
+        }
+    }
+
+    /**
+     * Assign unassigned entries to a group. Entries are assigned to the first group they match in configuration order,
+     * so groups must be assigned in configuration order.
+     *
+     * @param configEntries index configuration entries
+     * @param index index of group to assign entries to
+     * @return keys of the assigned entries
+     */
+    List<String> assign(final ConfigEntry[] configEntries, final int index) {
+        final List<String> res = new ArrayList<>();
+        final ConfigEntry configEntry = configEntries[index];
+        if (configEntry.getGroupMembers().length > 0) {
+            if (configEntry instanceof ConfigEntryImpl) {
+                assignMembers(configEntry.getGroupMembers(), res);
+                final CharRange[] ranges = ((ConfigEntryImpl) configEntry).getRanges();
+                if (ranges.length > 0) {
+                    sortByCollation();
+                }
+                for (final CharRange range : ranges) {
+                    assignRange(range, plain, res);
+                    assignRange(range, sortAs, res);
+                }
+            } else {
+                for (int i = byValue.first(0); i < byValue.items.length; i = byValue.first(i + 1)) {
+                    final Item item = byValue.items[i];
+                    if (configEntry.isInRange(item.value, collator)) {
+                        assign(item, res);
+                    }
+                }
+            }
+        } else {
+            sortByCollation();
+            final Comparable<Object> start = collator.getCollationKey(configEntry.getKey());
+            final String end = index + 1 < configEntries.length ? configEntries[index + 1].getKey() : null;
+            final Comparable<Object> endKey = end != null ? collator.getCollationKey(end) : null;
+            final int last = endKey != null ? plain.collationBound(endKey, true) : plain.items.length;
+            for (int i = plain.first(plain.collationBound(start, true)); i < last; i = plain.first(i + 1)) {
+                assign(plain.items[i], res);
+            }
+            // end of range is compared against the entry key, not the sort string
+            for (int i = sortAs.first(sortAs.collationBound(start, true)); i < sortAs.items.length; i = sortAs.first(i + 1)) {
+                final Item item = sortAs.items[i];
+                if (end == null || collator.compare(end, item.key) > 0) {
+                    assign(item, res);
+                }
+            }
+        }
+        return res;
+    }
+
+    private void assignMembers(final String[] members, final List<String> res) {
+        for (final String member : members) {
+            // values starting with member
+            for (int i = byValue.first(byValue.valueBound(member)); i < byValue.items.length; i = byValue.first(i + 1)) {
+                final Item item = byValue.items[i];
+                if (!item.value.startsWith(member)) {
+                    break;
+                }
+                assign(item, res);
+            }
+            // values member starts with
+            for (int end = 1; end <= member.length(); end++) {
+                final List<Item> items = valueIndex.get(member.substring(0, end));
+                if (items != null) {
+                    for (final Item item : items) {
+                        if (!item.assigned) {
+                            assign(item, res);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void assignRange(final CharRange range, final SortedItems items, final List<String> res) {
+        final Comparable<Object> end = collator.getCollationKey(range.getEnd());
+        final int last = items.collationBound(end, true);
+        for (int i = items.first(items.collationBound(collator.getCollationKey(range.getStart()), false)); i < last; i = items.first(i + 1)) {
+            final Item item = items.items[i];
+            if (item.key.length() > 0) {
+                assign(item, res);
+            }
+        }
+    }
+
+    private static void assign(final Item item, final List<String> res) {
+        item.assigned = true;
+        res.add(item.key);
+    }
+
+}
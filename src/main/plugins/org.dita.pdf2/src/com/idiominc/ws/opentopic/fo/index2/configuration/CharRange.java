@@ -26,6 +26,20 @@ public class CharRange {
         end = theEnd;
     }
 
+    /**
+     * @return exclusive start of the range
+     */
+    public String getStart() {
+        return start;
+    }
+
+    /**
+     * @return exclusive end of the range
+     */
+    public String getEnd() {
+        return end;
+    }
+
     public boolean isInRange(final String value, final IndexCollator collator){
         return (collator.compare(value,start) > 0) && (collator.compare(value,end) < 0);
     }
@@ -34,7 +34,7 @@ with those set forth herein.
 
 This file is part of the DITA Open Toolkit project.
 See the accompanying LICENSE file for applicable license.
- */class ConfigEntryImpl
+ */public class ConfigEntryImpl
  implements ConfigEntry {
      private final String label;
      private final String key;
@@ -59,6 +59,13 @@ See the accompanying LICENSE file for applicable license.
      }
 
 
+     /**
+      * @return character ranges of group members
+      */
+     public CharRange[] getRanges() {
+         return ranges;
+     }
+
      public String getLabel() {
          return this.label;
      }
@@ -40,7 +40,7 @@ See the accompanying LICENSE file for applicable license.
 
 public class IndexConfiguration {
     private final List<ConfigEntry> entries = new ArrayList<ConfigEntry>();
-    private static String message;
+    private static final String message = "Invalid configuration format";
 
 
     public IndexConfiguration() {
@@ -59,8 +59,6 @@ public class IndexConfiguration {
 
     public static IndexConfiguration parse(final Document theDocument)
             throws ParseException {
-        message = "Invalid configuration format";
-
         final IndexConfiguration indexConfiguration = new IndexConfiguration();
 
         final NodeList indexConfigurationSet = theDocument.getElementsByTagName("index.configuration.set");
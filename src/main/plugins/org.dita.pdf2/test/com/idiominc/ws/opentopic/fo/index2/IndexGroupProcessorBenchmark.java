@@ -0,0 +1,52 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2019 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+package com.idiominc.ws.opentopic.fo.index2;
+
+import com.idiominc.ws.opentopic.fo.index2.configuration.IndexConfiguration;
+import org.dita.dost.TestUtils;
+import org.dita.dost.util.XMLUtils;
+
+import java.io.File;
+import java.util.Locale;
+
+/**
+ * Micro-benchmark for index grouping. Compares comparing every index entry against every group with
+ * assignment over entries sorted by collation key.
+ *
+ * <p>Run in the plug-in directory with
+ * {@code java com.idiominc.ws.opentopic.fo.index2.IndexGroupProcessorBenchmark [language] [entries]}.</p>
+ */
+public final class IndexGroupProcessorBenchmark {
+
+    public static void main(final String[] args) throws Exception {
+        final String lang = args.length > 0 ? args[0] : "ja";
+        final int count = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        final IndexConfiguration configuration = IndexConfiguration.parse(XMLUtils.getDocumentBuilder()
+                .parse(new File("cfg" + File.separator + "common" + File.separator + "index", lang + ".xml")));
+        final Locale locale = lang.length() > 2
+                ? new Locale(lang.substring(0, 2), lang.substring(3))
+                : new Locale(lang);
+        final String alphabet = IndexGroupProcessorTest.alphabet(configuration);
+        for (int round = 0; round < 10; round++) {
+            final long linear = time(new IndexGroupProcessor(false), configuration, locale, alphabet, count);
+            final long sorted = time(new IndexGroupProcessor(true), configuration, locale, alphabet, count);
+            System.out.printf("round %d: %d groups, %d entries: linear %.1f ms, sorted %.1f ms%n",
+                    round, configuration.getEntries().length, count, linear / 1e6, sorted / 1e6);
+        }
+    }
+
+    private static long time(final IndexGroupProcessor processor, final IndexConfiguration configuration,
+                             final Locale locale, final String alphabet, final int count) {
+        processor.setLogger(new TestUtils.TestLogger(false));
+        final IndexEntry[] entries = IndexGroupProcessorTest.generate(alphabet, count);
+        final long start = System.nanoTime();
+        processor.process(entries, configuration, locale);
+        return System.nanoTime() - start;
+    }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2019 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+package com.idiominc.ws.opentopic.fo.index2;
+
+import com.idiominc.ws.opentopic.fo.index2.configuration.ConfigEntry;
+import com.idiominc.ws.opentopic.fo.index2.configuration.ConfigEntryImpl;
+import com.idiominc.ws.opentopic.fo.index2.configuration.IndexConfiguration;
+import com.idiominc.ws.opentopic.fo.index2.util.IndexStringProcessor;
+import org.dita.dost.TestUtils;
+import org.dita.dost.util.XMLUtils;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IndexGroupProcessorTest {
+
+    private static final File configDir = new File("cfg" + File.separator + "common" + File.separator + "index");
+
+    @Test
+    public void process_members() throws Exception {
+        for (final String lang : new String[] {"en", "de", "ja", "ko", "zh_CN"}) {
+            final IndexConfiguration configuration = IndexConfiguration.parse(
+                    XMLUtils.getDocumentBuilder().parse(new File(configDir, lang + ".xml")));
+            final Locale locale = lang.length() > 2
+                    ? new Locale(lang.substring(0, 2), lang.substring(3))
+                    : new Locale(lang);
+            assertSameGroups(configuration, locale, alphabet(configuration));
+        }
+    }
+
+    @Test
+    public void process_keys() throws Exception {
+        final IndexConfiguration configuration = new IndexConfiguration();
+        for (final String key : new String[] {"a", "d", "g", "m", "s", "x"}) {
+            configuration.addEntry(new ConfigEntryImpl(key.toUpperCase(), key, new String[0]));
+        }
+        assertSameGroups(configuration, Locale.ENGLISH, "abcdefghijklmnopqrstuvwxyzABCDEFG");
+    }
+
+    @Test
+    public void process_failOnError() {
+        final IndexConfiguration configuration = new IndexConfiguration();
+        configuration.addEntry(new ConfigEntryImpl("M", "m", new String[0]));
+
+        final IndexGroupProcessor failing = new IndexGroupProcessor();
+        failing.setFailOnError(true);
+        process(failing, configuration, Locale.ENGLISH, "abc");
+        assertTrue(failing.isProcessingFailed());
+
+        final IndexGroupProcessor lenient = new IndexGroupProcessor();
+        process(lenient, configuration, Locale.ENGLISH, "abc");
+        assertFalse(lenient.isProcessingFailed());
+
+        final IndexGroupProcessor clean = new IndexGroupProcessor();
+        clean.setFailOnError(true);
+        process(clean, configuration, Locale.ENGLISH, "xyz");
+        assertFalse(clean.isProcessingFailed());
+    }
+
+    private void assertSameGroups(final IndexConfiguration configuration, final Locale locale, final String alphabet) {
+        final Map<String, TreeSet<String>> exp = process(new IndexGroupProcessor(false), configuration, locale, alphabet);
+        final Map<String, TreeSet<String>> act = process(new IndexGroupProcessor(true), configuration, locale, alphabet);
+        assertFalse(exp.isEmpty());
+        assertEquals(exp, act);
+    }
+
+    private Map<String, TreeSet<String>> process(final IndexGroupProcessor processor,
+                                                 final IndexConfiguration configuration, final Locale locale,
+                                                 final String alphabet) {
+        processor.setLogger(new TestUtils.TestLogger(false));
+        final Map<String, TreeSet<String>> res = new TreeMap<>();
+        for (final IndexGroup group : processor.process(generate(alphabet, 500), configuration, locale)) {
+            final TreeSet<String> values = res.computeIfAbsent(group.getLabel(), k -> new TreeSet<>());
+            for (final IndexEntry entry : group.getEntries()) {
+                values.add(entry.getValue());
+            }
+        }
+        return res;
+    }
+
+    static IndexEntry[] generate(final String alphabet, final int count) {
+        final Random random = new Random(count);
+        final List<IndexEntry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final String value = word(random, alphabet);
+            final IndexEntry entry = IndexStringProcessor.processIndexString(value, null)[0];
+            if (random.nextInt(8) == 0) {
+                entry.setSortString(word(random, alphabet));
+            }
+            entries.add(entry);
+        }
+        return entries.toArray(new IndexEntry[entries.size()]);
+    }
+
+    private static String word(final Random random, final String alphabet) {
+        final StringBuilder buf = new StringBuilder();
+        final int length = 1 + random.nextInt(4);
+        for (int i = 0; i < length; i++) {
+            buf.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return buf.toString();
+    }
+
+    static String alphabet(final IndexConfiguration configuration) {
+        final StringBuilder buf = new StringBuilder("aZ09!\u00e9\u3042\u4e00\uac00");
+        for (final ConfigEntry entry : configuration.getEntries()) {
+            for (final String member : entry.getGroupMembers()) {
+                buf.append(member.charAt(0));
+            }
+        }
+        return buf.toString();
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2019 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+package com.idiominc.ws.opentopic.fo.index2;
+
+import com.idiominc.ws.opentopic.fo.index2.configuration.IndexConfiguration;
+import org.dita.dost.TestUtils;
+import org.dita.dost.util.XMLUtils;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.sax.TransformerHandler;
+import javax.xml.transform.stream.StreamResult;
+import java.io.File;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Locale;
+
+import static org.dita.dost.util.Constants.ARGS_DRAFT_NO;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class IndexPreprocessorTest {
+
+    private static final String PREFIX = "opentopic-index";
+    private static final String NAMESPACE = "http://www.idiominc.com/opentopic/index";
+    private static final String INDEXTERM = "class='- topic/indexterm '";
+    private static final String DOCUMENT =
+            "<dita-merge xmlns:ditaarch='http://dita.oasis-open.org/architecture/2005/'>" +
+            "<topic class='- topic/topic ' id='topic' ditaarch:DITAArchVersion='1.3'>" +
+            "<title class='- topic/title '>Topic</title>" +
+            "<prolog class='- topic/prolog '><metadata class='- topic/metadata '><keywords class='- topic/keywords '>" +
+            "<indexterm " + INDEXTERM + ">alpha<indexterm " + INDEXTERM + ">beta</indexterm></indexterm>" +
+            "<indexterm " + INDEXTERM + ">gamma<index-sort-as class='+ topic/index-base indexing-d/index-sort-as '>a</index-sort-as></indexterm>" +
+            "<indexterm " + INDEXTERM + ">delta<index-see class='+ topic/index-base indexing-d/index-see '>alpha</index-see></indexterm>" +
+            "</keywords></metadata></prolog>" +
+            "<body class='- topic/body '>" +
+            "<p class='- topic/p '>Text<indexterm " + INDEXTERM + ">zeta <b class='+ topic/ph hi-d/b '>bold</b></indexterm></p>" +
+            "<!-- comment -->" +
+            "<draft-comment class='- topic/draft-comment '><indexterm " + INDEXTERM + ">draft</indexterm></draft-comment>" +
+            "<p class='- topic/p '><indexterm " + INDEXTERM + " start='r'>range</indexterm>" +
+            "<indexterm " + INDEXTERM + ">1st</indexterm></p>" +
+            "</body>" +
+            "</topic>" +
+            "</dita-merge>";
+
+    @Test
+    public void process_streaming() throws Exception {
+        final IndexConfiguration configuration = IndexConfiguration.parse(XMLUtils.getDocumentBuilder().parse(
+                new File("cfg" + File.separator + "common" + File.separator + "index", "en.xml")));
+
+        final IndexPreprocessor dom = newPreprocessor();
+        final IndexPreprocessResult domResult = dom.process(XMLUtils.getDocumentBuilder().parse(new InputSource(new StringReader(DOCUMENT))));
+        dom.createAndAddIndexGroups(domResult.getIndexEntries(), configuration, domResult.getDocument(), Locale.ENGLISH);
+        final Document exp = domResult.getDocument();
+
+        final StringWriter buf = new StringWriter();
+        final TransformerHandler serializer = XMLUtils.newIdentityTransformerHandler();
+        serializer.setResult(new StreamResult(buf));
+        final IndexEntry[] entries = newPreprocessor().process(new InputSource(new StringReader(DOCUMENT)),
+                XMLUtils.getXMLReader(), serializer, configuration, Locale.ENGLISH);
+        final Document act = XMLUtils.getDocumentBuilder().parse(new InputSource(new StringReader(buf.toString())));
+
+        assertEquals(domResult.getIndexEntries().length, entries.length);
+        assertTrue(buf.toString().contains("<!-- comment -->"));
+        assertEquals(1, act.getElementsByTagNameNS(NAMESPACE, "index.groups").getLength());
+        TestUtils.assertXMLEqual(reparse(exp), act);
+    }
+
+    private IndexPreprocessor newPreprocessor() {
+        final IndexPreprocessor preprocessor = new IndexPreprocessor(PREFIX, NAMESPACE, ARGS_DRAFT_NO);
+        preprocessor.setLogger(new TestUtils.TestLogger(false));
+        return preprocessor;
+    }
+
+    private Document reparse(final Document doc) throws Exception {
+        final StringWriter buf = new StringWriter();
+        final Transformer serializer = XMLUtils.getTransformerFactory().newTransformer();
+        serializer.transform(new DOMSource(doc), new StreamResult(buf));
+        return XMLUtils.getDocumentBuilder().parse(new InputSource(new StringReader(buf.toString())));
+    }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2019 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+package org.dita.dost.pdf2;
+
+import com.idiominc.ws.opentopic.fo.index2.IndexPreprocessor;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Parallel deliverable builds share plugin classes, so plugin classes must not keep build state in static fields.
+ */
+public class StaticStateTest {
+
+    @Test
+    public void noMutableStaticFields() throws Exception {
+        final List<String> classes = getClassNames();
+        assertFalse(classes.isEmpty());
+        final List<String> fields = new ArrayList<>();
+        for (final String name : classes) {
+            final Class<?> cls = Class.forName(name, false, getClass().getClassLoader());
+            for (final Field field : cls.getDeclaredFields()) {
+                final int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) && !Modifier.isFinal(modifiers) && !field.isSynthetic()) {
+                    fields.add(name + "#" + field.getName());
+                }
+            }
+        }
+        assertEquals(new ArrayList<String>(), fields);
+    }
+
+    private static List<String> getClassNames() throws IOException, URISyntaxException {
+        final File location = new File(IndexPreprocessor.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        if (location.isDirectory()) {
+            final Path root = location.toPath();
+            try (Stream<Path> files = Files.walk(root)) {
+                return files
+                        .map(file -> root.relativize(file).toString().replace(File.separatorChar, '/'))
+                        .filter(StaticStateTest::isClass)
+                        .map(StaticStateTest::toClassName)
+                        .collect(Collectors.toList());
+            }
+        }
+        final List<String> res = new ArrayList<>();
+        try (JarFile jar = new JarFile(location)) {
+            for (final Enumeration<JarEntry> entries = jar.entries(); entries.hasMoreElements(); ) {
+                final String name = entries.nextElement().getName();
+                if (isClass(name)) {
+                    res.add(toClassName(name));
+                }
+            }
+        }
+        return res;
+    }
+
+    private static boolean isClass(final String path) {
+        return path.endsWith(".class") && !path.endsWith("package-info.class");
+    }
+
+    private static String toClassName(final String path) {
+        return path.substring(0, path.length() - ".class".length()).replace('/', '.');
+    }
+}
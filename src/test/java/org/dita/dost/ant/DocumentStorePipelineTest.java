@@ -0,0 +1,214 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2019 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+
+package org.dita.dost.ant;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.ProjectHelper;
+import org.dita.dost.TestUtils;
+import org.dita.dost.ant.ExtensibleAntInvoker.FileInfoFilterElem;
+import org.dita.dost.ant.ExtensibleAntInvoker.ModuleElem;
+import org.dita.dost.ant.ExtensibleAntInvoker.SaxPipeElem;
+import org.dita.dost.ant.ExtensibleAntInvoker.XmlFilterElem;
+import org.dita.dost.ant.ExtensibleAntInvoker.XsltElem;
+import org.dita.dost.ant.ExtensibleAntInvokerTest.FirstFilter;
+import org.dita.dost.ant.ExtensibleAntInvokerTest.SecondFilter;
+import org.dita.dost.module.AbstractPipelineModuleImpl;
+import org.dita.dost.pipeline.AbstractPipelineInput;
+import org.dita.dost.pipeline.AbstractPipelineOutput;
+import org.dita.dost.util.DocumentStore;
+import org.dita.dost.util.Job;
+import org.dita.dost.util.XMLUtils;
+import org.dita.dost.writer.AbstractXMLFilter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.dita.dost.util.Constants.*;
+import static org.junit.Assert.*;
+
+/**
+ * Run pipeline stages with the document store enabled and check files written to disk.
+ */
+public class DocumentStorePipelineTest {
+
+    private static final String[] FILES = {"a.dita", "b.dita"};
+    /** Files on disk seen by the last {@link DiskReaderModule} run. */
+    private static final Map<String, String> read = new TreeMap<>();
+
+    private File tempDir;
+    private Job job;
+    private DocumentStore store;
+    private Project project;
+
+    @Before
+    public void setUp() throws IOException {
+        tempDir = TestUtils.createTempDir(getClass());
+        job = new Job(tempDir, 1024 * 1024);
+        store = job.getDocumentStore();
+        for (final String name : FILES) {
+            final URI uri = URI.create(name);
+            FileUtils.writeStringToFile(new File(tempDir, name), "<root/>", StandardCharsets.UTF_8);
+            job.add(new Job.FileInfo.Builder().uri(uri).format(ATTR_FORMAT_VALUE_DITA).build());
+        }
+        job.write();
+        FileUtils.writeStringToFile(new File(tempDir, "style.xsl"),
+                "<xsl:stylesheet xmlns:xsl='http://www.w3.org/1999/XSL/Transform' version='2.0'>" +
+                "<xsl:template match='/*'><xsl:copy><xsl:copy-of select='@*'/>" +
+                "<xsl:attribute name='xslt'>1</xsl:attribute></xsl:copy></xsl:template>" +
+                "</xsl:stylesheet>", StandardCharsets.UTF_8);
+
+        project = new Project();
+        project.init();
+        project.setBaseDir(tempDir);
+        project.addReference(ANT_REFERENCE_JOB, job);
+        read.clear();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        TestUtils.forceDelete(tempDir);
+    }
+
+    @Test
+    public void execute() throws Exception {
+        final XMLUtils xmlUtils = new XMLUtils();
+        xmlUtils.setDocumentStore(store);
+        for (final String name : FILES) {
+            xmlUtils.transform(new File(tempDir, name), Collections.singletonList(new FirstFilter()));
+        }
+        for (final String name : FILES) {
+            assertTrue(store.contains(new File(tempDir, name).toURI()));
+            assertEquals("<root/>", read(name));
+        }
+
+        final ExtensibleAntInvoker invoker = createInvoker();
+        invoker.addConfiguredSax(createStage(SecondFilter.class));
+        invoker.addConfiguredXslt(createXslt());
+        final ModuleElem reader = new ModuleElem();
+        reader.setClass(DiskReaderModule.class);
+        invoker.addConfiguredModule(reader);
+        invoker.execute();
+
+        for (final String name : FILES) {
+            assertEquals("<root first=\"1\" second=\"1\" xslt=\"1\"/>", read.get(name));
+        }
+        assertFalse(store.contains(new File(tempDir, "a.dita").toURI()));
+    }
+
+    @Test
+    public void execute_buildFinished() throws Exception {
+        final ExtensibleAntInvoker invoker = createInvoker();
+        invoker.addConfiguredSax(createStage(FirstFilter.class));
+        invoker.addConfiguredXslt(createXslt());
+        invoker.execute();
+
+        for (final String name : FILES) {
+            assertTrue(store.contains(new File(tempDir, name).toURI()));
+            assertEquals("<root/>", read(name));
+        }
+
+        project.fireBuildFinished(null);
+
+        for (final String name : FILES) {
+            assertFalse(store.contains(new File(tempDir, name).toURI()));
+            assertEquals("<root first=\"1\" xslt=\"1\"/>", read(name));
+        }
+    }
+
+    @Test
+    public void taskStarted() throws Exception {
+        final File buildFile = new File(tempDir, "build.xml");
+        FileUtils.writeStringToFile(buildFile,
+                "<project>" +
+                "<target name='safe'>" +
+                "<property name='a' value='a'/>" +
+                "<dirname property='dir' file='a.dita'/>" +
+                "<condition property='b'><not><isset property='c'/></not></condition>" +
+                "<echo message='safe'/>" +
+                "</target>" +
+                "<target name='unsafe'>" +
+                "<condition property='d'><length file='a.dita' length='0'/></condition>" +
+                "</target>" +
+                "</project>", StandardCharsets.UTF_8);
+        ProjectHelper.configureProject(project, buildFile);
+        DocumentStoreListener.register(project);
+        final XMLUtils xmlUtils = new XMLUtils();
+        xmlUtils.setDocumentStore(store);
+        xmlUtils.transform(new File(tempDir, "a.dita"), Collections.singletonList(new FirstFilter()));
+
+        project.executeTarget("safe");
+        assertTrue(store.contains(new File(tempDir, "a.dita").toURI()));
+        assertEquals("<root/>", read("a.dita"));
+
+        project.executeTarget("unsafe");
+        assertFalse(store.contains(new File(tempDir, "a.dita").toURI()));
+        assertEquals("<root first=\"1\"/>", read("a.dita"));
+    }
+
+    private ExtensibleAntInvoker createInvoker() {
+        final ExtensibleAntInvoker invoker = new ExtensibleAntInvoker();
+        invoker.setProject(project);
+        invoker.setTempdir(tempDir);
+        return invoker;
+    }
+
+    private SaxPipeElem createStage(final Class<? extends AbstractXMLFilter> cls) {
+        final SaxPipeElem stage = new SaxPipeElem();
+        stage.setFormat(ATTR_FORMAT_VALUE_DITA);
+        final XmlFilterElem filter = new XmlFilterElem();
+        filter.setClass(cls);
+        stage.addConfiguredFilter(filter);
+        return stage;
+    }
+
+    private XsltElem createXslt() {
+        final XsltElem xslt = new XsltElem();
+        xslt.setStyle(new File(tempDir, "style.xsl"));
+        final FileInfoFilterElem files = new FileInfoFilterElem();
+        files.setFormat(ATTR_FORMAT_VALUE_DITA);
+        xslt.addConfiguredDitaFileset(files);
+        return xslt;
+    }
+
+    private String read(final String name) throws IOException {
+        return content(new File(tempDir, name));
+    }
+
+    private static String content(final File file) throws IOException {
+        final String content = FileUtils.readFileToString(file, StandardCharsets.UTF_8);
+        return content.substring(content.indexOf("<root"));
+    }
+
+    /**
+     * Module that reads files from disk and does not support the document store.
+     */
+    public static final class DiskReaderModule extends AbstractPipelineModuleImpl {
+        @Override
+        public AbstractPipelineOutput execute(final AbstractPipelineInput input) {
+            for (final String name : FILES) {
+                try {
+                    read.put(name, content(new File(job.tempDir, name)));
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return null;
+        }
+    }
+}
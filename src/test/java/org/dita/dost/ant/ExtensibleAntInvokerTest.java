@@ -0,0 +1,169 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2019 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+
+package org.dita.dost.ant;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.tools.ant.BuildEvent;
+import org.apache.tools.ant.BuildListener;
+import org.apache.tools.ant.Project;
+import org.dita.dost.TestUtils;
+import org.dita.dost.ant.ExtensibleAntInvoker.SaxPipeElem;
+import org.dita.dost.ant.ExtensibleAntInvoker.XmlFilterElem;
+import org.dita.dost.util.Job;
+import org.dita.dost.writer.AbstractXMLFilter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.dita.dost.util.Constants.*;
+import static org.junit.Assert.*;
+
+public class ExtensibleAntInvokerTest {
+
+    private File tempDir;
+    private Project project;
+    private final List<String> messages = new ArrayList<>();
+
+    @Before
+    public void setUp() throws IOException {
+        tempDir = TestUtils.createTempDir(getClass());
+        final Job job = new Job(tempDir);
+        for (final String name : new String[] {"a.dita", "b.dita", "c.dita", "map.ditamap"}) {
+            final URI uri = URI.create(name);
+            FileUtils.writeStringToFile(new File(tempDir, uri.getPath()), "<root/>", StandardCharsets.UTF_8);
+            job.add(new Job.FileInfo.Builder()
+                    .uri(uri)
+                    .format(name.endsWith(".dita") ? ATTR_FORMAT_VALUE_DITA : ATTR_FORMAT_VALUE_DITAMAP)
+                    .build());
+        }
+        job.write();
+
+        project = new Project();
+        project.init();
+        project.setBaseDir(tempDir);
+        project.addReference(ANT_REFERENCE_JOB, job);
+        project.addBuildListener(new MessageListener());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        TestUtils.forceDelete(tempDir);
+    }
+
+    @Test
+    public void execute_fused() throws Exception {
+        execute(true);
+
+        assertTrue(messages.contains("Fused 2 SAX stages, eliminated 3 file passes"));
+        for (final String name : new String[] {"a.dita", "b.dita", "c.dita"}) {
+            assertEquals("<root first=\"1\" second=\"1\"/>", read(name));
+        }
+        assertEquals("<root second=\"\"/>", read("map.ditamap"));
+    }
+
+    @Test
+    public void execute_unfused() throws Exception {
+        execute(false);
+
+        assertFalse(messages.stream().anyMatch(m -> m.startsWith("Fused ")));
+        for (final String name : new String[] {"a.dita", "b.dita", "c.dita"}) {
+            assertEquals("<root first=\"1\" second=\"1\"/>", read(name));
+        }
+        assertEquals("<root second=\"\"/>", read("map.ditamap"));
+    }
+
+    private void execute(final boolean fusible) {
+        final ExtensibleAntInvoker invoker = new ExtensibleAntInvoker();
+        invoker.setProject(project);
+        invoker.setTempdir(tempDir);
+        invoker.addConfiguredSax(createStage(FirstFilter.class, ATTR_FORMAT_VALUE_DITA, fusible));
+        invoker.addConfiguredSax(createStage(SecondFilter.class, null, fusible));
+        invoker.execute();
+    }
+
+    private SaxPipeElem createStage(final Class<? extends AbstractXMLFilter> cls, final String format,
+                                    final boolean fusible) {
+        final SaxPipeElem stage = new SaxPipeElem();
+        if (format != null) {
+            stage.setFormat(format);
+        }
+        stage.setFusible(fusible);
+        final XmlFilterElem filter = new XmlFilterElem();
+        filter.setClass(cls);
+        stage.addConfiguredFilter(filter);
+        return stage;
+    }
+
+    private String read(final String name) throws IOException {
+        final String content = FileUtils.readFileToString(new File(tempDir, name), StandardCharsets.UTF_8);
+        return content.substring(content.indexOf("<root"));
+    }
+
+    private final class MessageListener implements BuildListener {
+        @Override
+        public void messageLogged(final BuildEvent event) {
+            messages.add(event.getMessage());
+        }
+
+        @Override
+        public void buildStarted(final BuildEvent event) {
+        }
+
+        @Override
+        public void buildFinished(final BuildEvent event) {
+        }
+
+        @Override
+        public void targetStarted(final BuildEvent event) {
+        }
+
+        @Override
+        public void targetFinished(final BuildEvent event) {
+        }
+
+        @Override
+        public void taskStarted(final BuildEvent event) {
+        }
+
+        @Override
+        public void taskFinished(final BuildEvent event) {
+        }
+    }
+
+    public static final class FirstFilter extends AbstractXMLFilter {
+        @Override
+        public void startElement(final String uri, final String localName, final String qName, final Attributes atts)
+                throws SAXException {
+            final AttributesImpl res = new AttributesImpl(atts);
+            res.addAttribute("", "first", "first", "CDATA", "1");
+            getContentHandler().startElement(uri, localName, qName, res);
+        }
+    }
+
+    public static final class SecondFilter extends AbstractXMLFilter {
+        @Override
+        public void startElement(final String uri, final String localName, final String qName, final Attributes atts)
+                throws SAXException {
+            final AttributesImpl res = new AttributesImpl(atts);
+            final String first = atts.getValue("first");
+            res.addAttribute("", "second", "second", "CDATA", first != null ? first : "");
+            getContentHandler().startElement(uri, localName, qName, res);
+        }
+    }
+}
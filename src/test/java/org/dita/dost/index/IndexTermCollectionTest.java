@@ -87,6 +87,24 @@ public class IndexTermCollectionTest {
         }
     }
 
+    @Test
+    public void testAddTermMerge() {
+        final IndexTermCollection i = new IndexTermCollection();
+        final IndexTerm first = newTerm("term", "term");
+        first.addTarget(newTarget("a.html"));
+        i.addTerm(first);
+        final IndexTerm other = newTerm("term", "other");
+        i.addTerm(other);
+        final IndexTerm second = newTerm("term", "term");
+        second.addTarget(newTarget("b.html"));
+        second.addSubTerm(newTerm("sub", "sub"));
+        i.addTerm(second);
+
+        assertEquals(Arrays.asList(first, other), i.getTermList());
+        assertEquals(2, first.getTargetList().size());
+        assertEquals(1, first.getSubTerms().size());
+    }
+
     @Test
     public void testGetTermList() {
         final IndexTermCollection i = new IndexTermCollection();
@@ -119,6 +137,37 @@ public class IndexTermCollectionTest {
                 i.getTermList());
     }
 
+    @Test
+    public void testSortCollation() {
+        final IndexTermCollection i = new IndexTermCollection();
+        final IndexTerm b = newTerm("b", "b");
+        final IndexTerm upperA = newTerm("A", "A");
+        final IndexTerm a = newTerm("a", "a");
+        b.addSubTerm(newTerm("y", "y"));
+        b.addSubTerm(newTerm("X", "X"));
+        i.addTerm(b);
+        i.addTerm(upperA);
+        i.addTerm(a);
+        i.sort();
+        assertEquals(Arrays.asList(a, upperA, b), i.getTermList());
+        assertEquals("X", b.getSubTerms().get(0).getTermKey());
+        assertEquals("y", b.getSubTerms().get(1).getTermKey());
+    }
+
+    private static IndexTerm newTerm(final String name, final String key) {
+        final IndexTerm term = new IndexTerm();
+        term.setTermName(name);
+        term.setTermKey(key);
+        return term;
+    }
+
+    private static IndexTermTarget newTarget(final String uri) {
+        final IndexTermTarget target = new IndexTermTarget();
+        target.setTargetName(uri);
+        target.setTargetURI(uri);
+        return target;
+    }
+
     @Test
     public void testOutputTerms() throws DITAOTException {
         final IndexTermCollection i = new IndexTermCollection();
@@ -15,9 +15,15 @@ import org.dita.dost.util.Constants;
 import org.dita.dost.util.StringUtils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Before;
 import org.junit.Ignore;
@@ -216,6 +222,41 @@ public class IndexTermTest {
         assertArrayEquals(exp, act.toArray(new String[0]));
     }
 
+    @Test
+    public void testSortSubTermsConcurrentLocales() throws Exception {
+        final CyclicBarrier barrier = new CyclicBarrier(2);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Future<List<String>> german = executor.submit(() -> sortInLocale(Locale.GERMAN, barrier));
+            final Future<List<String>> swedish = executor.submit(() -> sortInLocale(new Locale("sv"), barrier));
+            assertEquals(Arrays.asList("a", "\u00e4", "z"), german.get(10, TimeUnit.SECONDS));
+            assertEquals(Arrays.asList("a", "z", "\u00e4"), swedish.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /** Sort terms in one build while another build sets its own locale. */
+    private static List<String> sortInLocale(final Locale locale, final CyclicBarrier barrier) throws Exception {
+        IndexTerm.setTermLocale(locale);
+        barrier.await(10, TimeUnit.SECONDS);
+        final IndexTerm root = new IndexTerm();
+        for (final String key: new String[] { "z", "\u00e4", "a" }) {
+            final IndexTerm i = new IndexTerm();
+            i.setTermName(key);
+            i.setTermKey(key);
+            root.addSubTerm(i);
+        }
+        root.sortSubTerms();
+        assertEquals(locale, IndexTerm.getTermLocale());
+        final List<String> act = new ArrayList<>();
+        for (final IndexTerm i: root.getSubTerms()) {
+            act.add(i.getTermKey());
+        }
+        IndexTerm.setTermLocale(null);
+        return act;
+    }
+
     @Test
     public void testCompareTo() {
         IndexTerm.setTermLocale(DEFAULT_LOCALE);
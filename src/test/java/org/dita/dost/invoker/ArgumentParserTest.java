@@ -8,6 +8,7 @@
 
 package org.dita.dost.invoker;
 
+import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.Project;
 import org.junit.Test;
 
@@ -15,6 +16,7 @@ import java.io.File;
 import java.util.Collections;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 public class ArgumentParserTest {
 
@@ -53,4 +55,18 @@ public class ArgumentParserTest {
         assertEquals(new File("out").getAbsolutePath(), act.definedProps.get("output.dir"));
         assertEquals(Project.MSG_INFO, act.msgOutputLevel);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void jobs() {
+        assertNull(parser.processArgs(new String[]{"-i", "src"}).jobs);
+        assertEquals(Integer.valueOf(4), new ArgumentParser().processArgs(new String[]{"--jobs=4"}).jobs);
+        assertEquals(Integer.valueOf(2), new ArgumentParser().processArgs(new String[]{"-j", "2", "-v"}).jobs);
+        assertEquals(Integer.valueOf(Runtime.getRuntime().availableProcessors()),
+                new ArgumentParser().processArgs(new String[]{"--jobs", "-v"}).jobs);
+    }
+
+    @Test(expected = BuildException.class)
+    public void jobs_invalid() {
+        parser.processArgs(new String[]{"--jobs=0"});
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2019 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+
+package org.dita.dost.invoker;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class PrefixOutputStreamTest {
+
+    @Test
+    public void write() {
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        final PrintStream out = new PrintStream(new PrefixOutputStream(buf, "[a] "));
+        out.print("first");
+        out.println(" line");
+        out.print("second\nthird\n\nlast");
+        assertEquals("[a] first line\n[a] second\n[a] third\n[a] \n", buf.toString().replace(System.lineSeparator(), "\n"));
+        out.close();
+        assertEquals("[a] first line\n[a] second\n[a] third\n[a] \n[a] last\n", buf.toString().replace(System.lineSeparator(), "\n"));
+    }
+
+    @Test
+    public void write_concurrent() throws Exception {
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        final Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            final String name = Integer.toString(i);
+            threads[i] = new Thread(() -> {
+                final PrintStream out = new PrintStream(new PrefixOutputStream(buf, "[" + name + "] "));
+                for (int j = 0; j < 100; j++) {
+                    out.print("message ");
+                    out.print(name);
+                    out.print('\n');
+                }
+                out.close();
+            });
+            threads[i].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        final String[] lines = buf.toString().split("\n");
+        assertEquals(400, lines.length);
+        for (final String line : lines) {
+            final String name = line.substring(1, line.indexOf(']'));
+            assertEquals("[" + name + "] message " + name, line);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2019 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+
+package org.dita.dost.invoker;
+
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.ProjectHelper;
+import org.apache.tools.ant.Target;
+import org.apache.tools.ant.Task;
+import org.dita.dost.TestUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.dita.dost.util.Constants.ANT_TEMP_DIR;
+import static org.junit.Assert.*;
+
+public class PreprocessStagesTest {
+
+    private static final File resourceDir = TestUtils.getResourceDir(PreprocessStagesTest.class);
+
+    private Project project;
+
+    @Before
+    public void setUp() {
+        project = createProject("a", "x");
+    }
+
+    @Test
+    public void of() {
+        final PreprocessStages stages = PreprocessStages.of(project, "x");
+        assertEquals("preprocess", stages.preprocessTarget);
+        assertEquals(Arrays.asList("fail", "condition", "condition"),
+                stages.entry.stream().map(Task::getTaskName).collect(Collectors.toList()));
+        assertEquals(Arrays.asList("x.init", "build-init"), names(stages.init));
+        assertEquals(Arrays.asList("preprocess.init", "gen-list", "preprocess"), names(stages.preprocess));
+        assertEquals(Arrays.asList("x.post", "dita2x"), names(stages.post));
+        assertEquals(Collections.singletonList("clean-temp"), stages.after);
+        assertEquals(new HashSet<>(Arrays.asList("preprocess.skip", "dita.temp.dir", "args.filter", "filter.set", "args.debug",
+                "args.input", "dita.output.dir")), stages.properties);
+    }
+
+    @Test
+    public void of_unsupported() {
+        assertNull(PreprocessStages.of(createProject("a", "y"), "y"));
+        assertNull(PreprocessStages.of(createProject("a", "z"), "z"));
+        // default target calls a different transtype
+        assertNull(PreprocessStages.of(createProject("a", "html5"), "x"));
+    }
+
+    @Test
+    public void entry() {
+        final Project keep = createProject("a", "x");
+        keep.setUserProperty("clean.temp", "false");
+        for (final Project p : Arrays.asList(project, keep)) {
+            for (final Task task : PreprocessStages.of(p, "x").entry) {
+                task.perform();
+            }
+        }
+        assertEquals("true", project.getProperty("clean.temp"));
+        assertNull(project.getProperty("clean-temp.skip"));
+        assertEquals("true", keep.getProperty("clean-temp.skip"));
+    }
+
+    @Test
+    public void getKey() {
+        final Project other = createProject("b", "x");
+        other.setUserProperty("args.css", "y.css");
+        final Project filtered = createProject("c", "x");
+        filtered.setUserProperty("args.filter", "filter.ditaval");
+
+        final PreprocessStages stages = PreprocessStages.of(project, "x");
+        for (final Project p : Arrays.asList(project, other, filtered)) {
+            p.executeSortedTargets(PreprocessStages.of(p, "x").init);
+        }
+
+        final Map<String, String> key = stages.getKey(project);
+        assertEquals("${dita.temp.dir}", key.get(ANT_TEMP_DIR));
+        assertEquals("${dita.output.dir}", key.get(PreprocessStages.OUTPUT_DIR));
+        assertEquals(key, PreprocessStages.of(other, "x").getKey(other));
+        assertNotEquals(key, PreprocessStages.of(filtered, "x").getKey(filtered));
+    }
+
+    @Test
+    public void getKey_transtype() {
+        final Map<String, Map<String, String>> keys = new HashMap<>();
+        for (final String transtype : Arrays.asList("x", "html5", "pdf", "eclipsehelp")) {
+            final Project p = createProject(transtype, transtype);
+            final PreprocessStages stages = PreprocessStages.of(p, transtype);
+            p.executeSortedTargets(stages.init);
+            keys.put(transtype, stages.getKey(p));
+        }
+        assertEquals(keys.get("x"), keys.get("html5"));
+        assertNotEquals(keys.get("x"), keys.get("pdf"));
+        assertNotEquals(keys.get("x"), keys.get("eclipsehelp"));
+        assertNotEquals(keys.get("pdf"), keys.get("eclipsehelp"));
+    }
+
+    @Test
+    public void getPreprocessType() {
+        assertEquals("eclipsehelp", PreprocessStages.getPreprocessType("eclipsehelp"));
+        assertEquals(PreprocessStages.getPreprocessType("pdf"), PreprocessStages.getPreprocessType("pdf2"));
+        assertEquals(PreprocessStages.getPreprocessType("html5"), PreprocessStages.getPreprocessType("xhtml"));
+        assertNotEquals(PreprocessStages.getPreprocessType("pdf"), PreprocessStages.getPreprocessType("html5"));
+    }
+
+    @Test
+    public void diff() {
+        final Map<String, Object> before = new HashMap<>();
+        before.put("a", "1");
+        before.put("b", "2");
+        final Map<String, Object> after = new HashMap<>(before);
+        after.put("b", "3");
+        after.put("c", "4");
+        final Map<String, String> exp = new HashMap<>();
+        exp.put("b", "3");
+        exp.put("c", "4");
+        assertEquals(exp, PreprocessStages.diff(before, after));
+    }
+
+    @Test
+    public void rebase() {
+        final File dir = new File("/tmp/a").getAbsoluteFile();
+        final String path = dir.getAbsolutePath();
+        assertEquals("X", PreprocessStages.rebase(path, dir, "X"));
+        assertEquals("X/map" + File.pathSeparator + "X",
+                PreprocessStages.rebase(path + "/map" + File.pathSeparator + path, dir, "X"));
+        assertEquals("file:X/map", PreprocessStages.rebase("file:" + path + "/map", dir, "X"));
+        assertEquals(path + "b/map", PreprocessStages.rebase(path + "b/map", dir, "X"));
+        assertEquals("other", PreprocessStages.rebase("other", dir, "X"));
+    }
+
+    @Test
+    public void rebase_uri() {
+        final File dir = new File("/tmp/a dir").getAbsoluteFile();
+        final String uri = dir.toURI().toString().replaceAll("/$", "");
+        assertEquals("X/map", PreprocessStages.rebase(uri + "/map", dir, "X"));
+        assertEquals("X", PreprocessStages.rebase(uri, dir, "X"));
+        assertEquals(uri + "b/map", PreprocessStages.rebase(uri + "b/map", dir, "X"));
+
+        final File target = new File("/tmp/b dir").getAbsoluteFile();
+        final String targetUri = target.toURI().toString().replaceAll("/$", "");
+        assertEquals(targetUri + "/map" + File.pathSeparator + target.getAbsolutePath() + File.separator + "map",
+                PreprocessStages.rebase(uri + "/map" + File.pathSeparator + dir.getAbsolutePath() + File.separator + "map",
+                        dir, target));
+    }
+
+    private Project createProject(final String name, final String transtype) {
+        final Project project = new Project();
+        project.init();
+        project.setUserProperty("transtype", transtype);
+        project.setUserProperty("args.input", "file:/src/root.ditamap");
+        project.setUserProperty(ANT_TEMP_DIR, new File(resourceDir, "temp" + File.separator + name).getAbsolutePath());
+        project.setUserProperty("output.dir", new File(resourceDir, "out" + File.separator + name).getAbsolutePath());
+        ProjectHelper.configureProject(project, new File(resourceDir, "build.xml"));
+        return project;
+    }
+
+    private static List<String> names(final List<Target> targets) {
+        return targets.stream().map(Target::getName).collect(Collectors.toList());
+    }
+}
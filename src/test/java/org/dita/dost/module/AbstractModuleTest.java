@@ -34,7 +34,7 @@ import static org.dita.dost.TestUtils.assertXMLEqual;
 
 public abstract class AbstractModuleTest {
 
-    private final File resourceDir = TestUtils.getResourceDir(getClass());
+    private final File resourceDir = TestUtils.getResourceDir(getResourceClass());
     private final File expBaseDir = new File(resourceDir, "exp");
     private File tempBaseDir;
     private final DocumentBuilder builder;
@@ -120,6 +120,13 @@ public abstract class AbstractModuleTest {
         }
     }
 
+    /**
+     * Get class whose test resources are used.
+     */
+    Class<?> getResourceClass() {
+        return getClass();
+    }
+
     abstract AbstractPipelineInput getAbstractPipelineInput();
 
     abstract AbstractPipelineModule getModule(File tempDir);
@@ -0,0 +1,111 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2019 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+package org.dita.dost.module;
+
+import org.dita.dost.TestUtils;
+import org.dita.dost.module.GenMapAndTopicListModule.DefaultTempFileScheme;
+import org.dita.dost.module.GenMapAndTopicListModule.TempFileNameScheme;
+import org.dita.dost.reader.GenListModuleReader;
+import org.dita.dost.util.Job;
+import org.dita.dost.util.LinkIndex;
+import org.dita.dost.util.XMLUtils;
+import org.junit.Test;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.apache.commons.io.FileUtils.*;
+import static org.dita.dost.util.Constants.*;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Run chunk module test cases with a link index, so that only files that refer to changed files are rewritten.
+ */
+public class ChunkModuleLinkIndexTest extends ChunkModuleTest {
+
+    private static final String UNRELATED = "<topic class='- topic/topic ' id='unrelated'>" +
+            "<title class='- topic/title '>Unrelated</title></topic>";
+
+    /** Add a topic that does not refer to chunked topics. */
+    private boolean addUnrelated;
+    private File tempDir;
+
+    @Override
+    Class<?> getResourceClass() {
+        return ChunkModuleTest.class;
+    }
+
+    @Test
+    public void testUnrelatedTopicNotRewritten() throws IOException {
+        addUnrelated = true;
+        test("link1.ditamap");
+
+        final File unrelated = new File(tempDir, "unrelated.dita");
+        assertEquals(UNRELATED, readFileToString(unrelated, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    AbstractPipelineModule getModule(final File tempDir) {
+        this.tempDir = tempDir;
+        try {
+            if (addUnrelated) {
+                writeStringToFile(new File(tempDir, "unrelated.dita"), UNRELATED, StandardCharsets.UTF_8);
+                final Job job = new Job(tempDir);
+                job.add(new Job.FileInfo.Builder()
+                        .uri(URI.create("unrelated.dita"))
+                        .format(ATTR_FORMAT_VALUE_DITA)
+                        .isTarget(true)
+                        .build());
+                job.write();
+            }
+            writeLinkIndex(tempDir);
+        } catch (final Exception e) {
+            throw new RuntimeException(e);
+        }
+        return super.getModule(tempDir);
+    }
+
+    /** Index links in temporary files with the link targets collected by the reader stage. */
+    private void writeLinkIndex(final File tempDir) throws Exception {
+        final Job job = new Job(tempDir);
+        final TempFileNameScheme tempFileNameScheme = new DefaultTempFileScheme();
+        tempFileNameScheme.setBaseDir(tempDir.toURI());
+        final LinkIndex index = new LinkIndex();
+        final Collection<File> files = listFiles(tempDir, new String[] {"dita", "ditamap", "xml"}, true);
+        for (final File file : files) {
+            final URI src = file.toURI();
+            final GenListModuleReader listFilter = new GenListModuleReader();
+            listFilter.setLogger(new TestUtils.TestLogger(false));
+            listFilter.setJob(job);
+            listFilter.setPrimaryDitamap(tempDir.toURI());
+            listFilter.setCurrentFile(src);
+            listFilter.setContentHandler(new DefaultHandler());
+            final XMLReader reader = XMLUtils.getXMLReader();
+            reader.setContentHandler(listFilter);
+            try {
+                reader.parse(new InputSource(src.toString()));
+            } catch (final IOException e) {
+                continue;
+            }
+            final Set<URI> targets = new HashSet<>();
+            for (final URI target : listFilter.getLinkTargets()) {
+                targets.add(tempFileNameScheme.generateTempFileName(target));
+            }
+            index.put(tempFileNameScheme.generateTempFileName(src), targets);
+        }
+        index.write(new File(tempDir, FILE_NAME_LINK_INDEX));
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2019 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+package org.dita.dost.module;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.apache.commons.io.FileUtils;
+import org.dita.dost.TestUtils;
+import org.dita.dost.pipeline.PipelineHashIO;
+import org.dita.dost.reader.SubjectSchemeReader;
+import org.dita.dost.util.CatalogUtils;
+import org.dita.dost.util.Job;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Set;
+
+import static org.dita.dost.util.Constants.*;
+import static org.dita.dost.util.FilterUtils.SUBJECT_SCHEME_EXTENSION;
+import static org.dita.dost.util.Job.Generate.NOT_GENERATEOUTTER;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Filter topics that use different subject schemes. Topics with the same set of subject schemes share a refined
+ * filter, and topics without subject schemes use the base filter.
+ */
+public class DebugAndFilterModuleSubjectSchemeTest {
+
+    /** Scheme where ubuntu is a narrower subject of linux. */
+    private static final String HIERARCHY_SCHEME = scheme(
+            "<subjectdef class='- map/topicref subjectScheme/subjectdef ' keys='linux'>" +
+            "<subjectdef class='- map/topicref subjectScheme/subjectdef ' keys='ubuntu'/>" +
+            "</subjectdef>");
+    /** Scheme where ubuntu and linux are siblings. */
+    private static final String FLAT_SCHEME = scheme(
+            "<subjectdef class='- map/topicref subjectScheme/subjectdef ' keys='linux'/>" +
+            "<subjectdef class='- map/topicref subjectScheme/subjectdef ' keys='ubuntu'/>");
+    private static final String TOPIC =
+            "<topic class='- topic/topic ' id='topic'>" +
+            "<title class='- topic/title '>Topic</title>" +
+            "<body class='- topic/body '>" +
+            "<p class='- topic/p ' platform='linux'>linux</p>" +
+            "<p class='- topic/p ' platform='ubuntu'>ubuntu</p>" +
+            "</body>" +
+            "</topic>";
+
+    private File tempDir;
+    private File srcDir;
+    private File tmpDir;
+
+    @BeforeClass
+    public static void setUpClass() {
+        CatalogUtils.setDitaDir(new File("src" + File.separator + "main").getAbsoluteFile());
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        tempDir = TestUtils.createTempDir(getClass());
+        srcDir = new File(tempDir, "src");
+        tmpDir = new File(tempDir, "temp");
+        tmpDir.mkdirs();
+
+        final Job job = new Job(tmpDir);
+        for (final String name : new String[] {"hierarchy-1.dita", "hierarchy-2.dita", "flat.dita", "none.dita"}) {
+            final File src = new File(srcDir, name);
+            FileUtils.writeStringToFile(src, TOPIC, StandardCharsets.UTF_8);
+            job.add(new Job.FileInfo.Builder()
+                    .src(src.toURI())
+                    .uri(URI.create(name))
+                    .format(ATTR_FORMAT_VALUE_DITA)
+                    .isInput(name.equals("hierarchy-1.dita"))
+                    .build());
+        }
+        FileUtils.writeStringToFile(new File(tmpDir, "hierarchy.ditamap" + SUBJECT_SCHEME_EXTENSION),
+                HIERARCHY_SCHEME, StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(tmpDir, "flat.ditamap" + SUBJECT_SCHEME_EXTENSION),
+                FLAT_SCHEME, StandardCharsets.UTF_8);
+        final Set<URI> hierarchy = Collections.singleton(URI.create("hierarchy.ditamap"));
+        SubjectSchemeReader.writeMapToXML(ImmutableMap.of(
+                        URI.create("hierarchy-1.dita"), hierarchy,
+                        URI.create("hierarchy-2.dita"), hierarchy,
+                        URI.create("flat.dita"), ImmutableSet.of(URI.create("flat.ditamap"))),
+                new File(tmpDir, FILE_NAME_SUBJECT_DICTIONARY));
+        FileUtils.writeStringToFile(new File(tmpDir, FILE_NAME_MERGED_DITAVAL),
+                "<val><prop att='platform' val='linux' action='exclude'/></val>", StandardCharsets.UTF_8);
+
+        job.setInputFile(new File(srcDir, "hierarchy-1.dita").toURI());
+        job.setInputDir(srcDir.toURI());
+        job.setProperty(INPUT_DIR, srcDir.getAbsolutePath());
+        job.setGeneratecopyouter(NOT_GENERATEOUTTER);
+        job.setOutputDir(new File(tempDir, "out"));
+        job.write();
+
+        final PipelineHashIO pipelineInput = new PipelineHashIO();
+        pipelineInput.setAttribute(ANT_INVOKER_PARAM_BASEDIR, srcDir.getAbsolutePath());
+        pipelineInput.setAttribute(ANT_INVOKER_EXT_PARAM_DITADIR, new File("src", "main").getAbsolutePath());
+        pipelineInput.setAttribute(ANT_INVOKER_EXT_PARAM_TRANSTYPE, "xhtml");
+        pipelineInput.setAttribute(ANT_INVOKER_EXT_PARAM_VALIDATE, Boolean.FALSE.toString());
+
+        final DebugAndFilterModule module = new DebugAndFilterModule();
+        module.setLogger(new TestUtils.TestLogger());
+        module.setJob(job);
+        module.setProcessingPipe(Collections.emptyList());
+        module.execute(pipelineInput);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        TestUtils.forceDelete(tempDir);
+    }
+
+    @Test
+    public void testSharedScheme() throws IOException {
+        for (final String name : new String[] {"hierarchy-1.dita", "hierarchy-2.dita"}) {
+            final String act = read(name);
+            assertFalse(name, act.contains(">linux<"));
+            assertFalse(name, act.contains(">ubuntu<"));
+        }
+    }
+
+    @Test
+    public void testDifferentScheme() throws IOException {
+        final String act = read("flat.dita");
+        assertFalse(act.contains(">linux<"));
+        assertTrue(act.contains(">ubuntu<"));
+    }
+
+    @Test
+    public void testNoScheme() throws IOException {
+        final String act = read("none.dita");
+        assertFalse(act.contains(">linux<"));
+        assertTrue(act.contains(">ubuntu<"));
+    }
+
+    private String read(final String name) throws IOException {
+        return FileUtils.readFileToString(new File(tmpDir, name), StandardCharsets.UTF_8);
+    }
+
+    private static String scheme(final String subjects) {
+        return "<subjectScheme class='- map/map subjectScheme/subjectScheme '>" +
+                "<subjectdef class='- map/topicref subjectScheme/subjectdef ' keys='os'>" +
+                subjects +
+                "</subjectdef>" +
+                "<enumerationdef class='- map/topicref subjectScheme/enumerationdef '>" +
+                "<attributedef class='- topic/data subjectScheme/attributedef ' name='platform'/>" +
+                "<subjectdef class='- map/topicref subjectScheme/subjectdef ' keyref='os'/>" +
+                "</enumerationdef>" +
+                "</subjectScheme>";
+    }
+}
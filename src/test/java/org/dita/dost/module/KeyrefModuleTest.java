@@ -9,9 +9,11 @@
 package org.dita.dost.module;
 
 import com.google.common.collect.ImmutableMap;
+import org.apache.commons.io.FileUtils;
 import org.dita.dost.TestUtils;
 import org.dita.dost.TestUtils.TestLogger;
 import org.dita.dost.module.KeyrefModule.ResolveTask;
+import org.dita.dost.pipeline.PipelineHashIO;
 import org.dita.dost.util.Job;
 import org.dita.dost.util.Job.FileInfo.Builder;
 import org.dita.dost.util.KeyDef;
@@ -28,15 +30,20 @@ import javax.xml.parsers.ParserConfigurationException;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 import static java.net.URI.create;
 import static java.util.Collections.*;
 import static org.dita.dost.TestUtils.assertXMLEqual;
 import static org.dita.dost.TestUtils.createTempDir;
+import static org.dita.dost.util.Constants.*;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class KeyrefModuleTest {
 
@@ -160,4 +167,152 @@ public class KeyrefModuleTest {
         assertXMLEqual(exp, act);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testWalkMap_existingTasks() throws ParserConfigurationException, IOException, SAXException {
+        final DocumentBuilder b = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+        final List<ResolveTask> res = new ArrayList<>();
+        final Document first = b.parse(new File(baseDir, "src" + File.separator + "test.ditamap"));
+        module.walkMap(first.getDocumentElement(), createRootScope(), res);
+        final List<ResolveTask> exp = new ArrayList<>(res);
+
+        final Document second = b.parse(new File(baseDir, "src" + File.separator + "test.ditamap"));
+        module.walkMap(second.getDocumentElement(), createRootScope(), res);
+
+        assertEquals(exp, res);
+        assertXMLEqual(first, second);
+    }
+
+    @Test
+    public void testWalkMap_tasksByScope() throws ParserConfigurationException, IOException, SAXException {
+        final DocumentBuilder b = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+        final Document act = b.parse(new File(baseDir, "src" + File.separator + "test.ditamap"));
+        final List<ResolveTask> res = new ArrayList<>();
+        module.walkMap(act.getDocumentElement(), createRootScope(), res);
+
+        final Map<String, Integer> counts = new TreeMap<>();
+        for (final ResolveTask rt : res) {
+            counts.merge(rt.scope.name + " " + rt.in.uri, 1, Integer::sum);
+        }
+        assertEquals(ImmutableMap.of(
+                "A submap.ditamap", 1,
+                "A topic.dita", 1,
+                "null topic.dita", 1), counts);
+    }
+
+    @Test
+    public void testKeyScopeCopiesKeyDefinitions() {
+        final Map<String, KeyDef> keys = new HashMap<>();
+        keys.put("key", new KeyDef("key", create("target.dita"), null, null, null, null));
+        final KeyScope scope = new KeyScope("scope", "scope", keys, emptyList());
+        final KeyScope exp = new KeyScope("scope", "scope", new HashMap<>(keys), emptyList());
+        final int hash = scope.hashCode();
+
+        keys.put("other", new KeyDef("other", create("other.dita"), null, null, null, null));
+
+        assertEquals(singleton("key"), scope.keySet());
+        assertEquals(hash, scope.hashCode());
+        assertEquals(exp, scope);
+        final Map<KeyScope, String> index = new HashMap<>();
+        index.put(scope, "task");
+        assertEquals("task", index.get(exp));
+    }
+
+    private KeyScope createRootScope() {
+        final KeyScope childScope = new KeyScope("A", "A",
+                ImmutableMap.of(
+                        "VAR", new KeyDef("VAR", null, "local", "dita", inputMap, null),
+                        "A.VAR", new KeyDef("VAR", null, "local", "dita", inputMap, null)
+                ),
+                EMPTY_LIST
+        );
+        return new KeyScope("#root", null,
+                ImmutableMap.of(
+                        "VAR", new KeyDef("VAR", null, "local", "dita", inputMap, null),
+                        "A.VAR", new KeyDef("VAR", null, "local", "dita", inputMap, null)
+                ),
+                singletonList(childScope)
+        );
+    }
+
+    @Test
+    public void testExecuteParallel() throws Exception {
+        final Map<String, String> sequential = execute(new File(tempDir, "sequential"), false);
+        final Map<String, String> parallel = execute(new File(tempDir, "parallel"), true);
+
+        assertTrue(sequential.get("shared.dita").contains(">A<"));
+        assertTrue(sequential.get("shared-1.dita").contains(">B<"));
+        assertEquals(sequential, parallel);
+    }
+
+    private static final int TOPICS = 16;
+
+    private Map<String, String> execute(final File dir, final boolean parallel) throws Exception {
+        final StringBuilder map = new StringBuilder("<map class='- map/map '>");
+        for (final String scope : new String[] {"A", "B"}) {
+            map.append("<topicgroup class='+ map/topicref mapgroup-d/topicgroup ' keyscope='").append(scope).append("'>")
+                    .append(keydef(scope))
+                    .append("<topicref class='- map/topicref ' href='shared.dita'/>")
+                    .append("</topicgroup>");
+        }
+        for (int i = 0; i < TOPICS; i++) {
+            map.append("<topicref class='- map/topicref ' href='topic").append(i).append(".dita'/>");
+        }
+        map.append("</map>");
+        FileUtils.writeStringToFile(new File(dir, "test.ditamap"), map.toString(), StandardCharsets.UTF_8);
+
+        final Job job = new Job(dir);
+        job.setInputDir(dir.toURI());
+        job.setInputMap(create("test.ditamap"));
+        job.add(new Builder()
+                .uri(create("test.ditamap"))
+                .src(new File(dir, "test.ditamap").toURI())
+                .result(new File(dir, "test.ditamap").toURI())
+                .format("ditamap")
+                .isInput(true)
+                .build());
+        final List<String> topics = new ArrayList<>();
+        topics.add("shared.dita");
+        for (int i = 0; i < TOPICS; i++) {
+            topics.add("topic" + i + ".dita");
+        }
+        for (final String topic : topics) {
+            final String keyref = topic.equals("shared.dita") ? "name" : "A.name";
+            FileUtils.writeStringToFile(new File(dir, topic),
+                    "<topic class='- topic/topic ' id='topic'>" +
+                    "<title class='- topic/title '><keyword class='- topic/keyword ' keyref='" + keyref + "'/></title>" +
+                    "</topic>", StandardCharsets.UTF_8);
+            job.add(new Builder()
+                    .uri(create(topic))
+                    .src(new File(dir, topic).toURI())
+                    .result(new File(dir, topic).toURI())
+                    .format("dita")
+                    .hasKeyref(true)
+                    .build());
+        }
+
+        final KeyrefModule module = new KeyrefModule();
+        module.setJob(job);
+        module.setLogger(new TestLogger());
+        final PipelineHashIO input = new PipelineHashIO();
+        input.setAttribute(ANT_INVOKER_EXT_PARAM_TRANSTYPE, "xhtml");
+        input.setAttribute(ANT_INVOKER_EXT_PARAM_PARALLEL, Boolean.toString(parallel));
+        input.setAttribute(ANT_INVOKER_EXT_PARAM_THREADS, "4");
+        module.execute(input);
+
+        final Map<String, String> res = new TreeMap<>();
+        for (final File f : FileUtils.listFiles(dir, null, false)) {
+            if (!f.getName().startsWith(".job")) {
+                res.put(f.getName(), FileUtils.readFileToString(f, StandardCharsets.UTF_8));
+            }
+        }
+        return res;
+    }
+
+    private static String keydef(final String name) {
+        return "<keydef class='+ map/topicref mapgroup-d/keydef ' keys='name' processing-role='resource-only'>" +
+                "<topicmeta class='- map/topicmeta '><keywords class='- topic/keywords '>" +
+                "<keyword class='- topic/keyword '>" + name + "</keyword>" +
+                "</keywords></topicmeta></keydef>";
+    }
+
+}
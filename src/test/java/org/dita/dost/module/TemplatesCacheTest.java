@@ -0,0 +1,165 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2019 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+
+package org.dita.dost.module;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.types.XMLCatalog;
+import org.dita.dost.TestUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.URIResolver;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class TemplatesCacheTest {
+
+    private File tempDir;
+    private File style;
+    private File module;
+
+    @Before
+    public void setUp() throws IOException {
+        tempDir = TestUtils.createTempDir(getClass());
+        style = new File(tempDir, "style.xsl");
+        FileUtils.writeStringToFile(style,
+                "<xsl:stylesheet xmlns:xsl='http://www.w3.org/1999/XSL/Transform' version='2.0'>" +
+                "<xsl:import href='module.xsl'/>" +
+                "</xsl:stylesheet>", StandardCharsets.UTF_8);
+        module = new File(tempDir, "module.xsl");
+        FileUtils.writeStringToFile(module,
+                "<xsl:stylesheet xmlns:xsl='http://www.w3.org/1999/XSL/Transform' version='2.0'/>",
+                StandardCharsets.UTF_8);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        TestUtils.forceDelete(tempDir);
+    }
+
+    @Test
+    public void get() throws Exception {
+        final TemplatesCache cache = new TemplatesCache(2);
+        final Templates first = get(cache, style);
+        assertSame(first, get(cache, style));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void get_modifiedModule() throws Exception {
+        final TemplatesCache cache = new TemplatesCache(2);
+        final Templates first = get(cache, style);
+        assertTrue(module.setLastModified(module.lastModified() + 10000));
+        assertNotSame(first, get(cache, style));
+        assertEquals(0, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void get_evicted() throws Exception {
+        final TemplatesCache cache = new TemplatesCache(1);
+        final Templates first = get(cache, style);
+        get(cache, module);
+        assertNotSame(first, get(cache, style));
+        assertEquals(3, cache.getMisses());
+    }
+
+    @Test
+    public void get_disabled() throws Exception {
+        final TemplatesCache cache = new TemplatesCache(0);
+        assertNotSame(get(cache, style), get(cache, style));
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    public void get_catalog() throws Exception {
+        final File other = new File(tempDir, "other.xsl");
+        FileUtils.writeStringToFile(other,
+                "<xsl:stylesheet xmlns:xsl='http://www.w3.org/1999/XSL/Transform' version='2.0'>" +
+                "<xsl:template match='/'><other/></xsl:template>" +
+                "</xsl:stylesheet>", StandardCharsets.UTF_8);
+        final File catalogStyle = new File(tempDir, "catalog.xsl");
+        FileUtils.writeStringToFile(catalogStyle,
+                "<xsl:stylesheet xmlns:xsl='http://www.w3.org/1999/XSL/Transform' version='2.0'>" +
+                "<xsl:import href='urn:test:module'/>" +
+                "</xsl:stylesheet>", StandardCharsets.UTF_8);
+        final File moduleCatalog = createCatalog("module-catalog.xml", "module.xsl");
+        final File otherCatalog = createCatalog("other-catalog.xml", "other.xsl");
+        final TemplatesCache cache = new TemplatesCache(2);
+
+        final Templates first = get(cache, catalogStyle, createXMLCatalog(moduleCatalog));
+        final Templates second = get(cache, catalogStyle, createXMLCatalog(otherCatalog));
+        assertNotSame(first, second);
+        assertEquals("<other/>", transform(second));
+        assertSame(first, get(cache, catalogStyle, createXMLCatalog(moduleCatalog)));
+        assertSame(second, get(cache, catalogStyle, createXMLCatalog(otherCatalog)));
+        assertEquals(2, cache.getHits());
+        assertEquals(2, cache.getMisses());
+
+        assertTrue(otherCatalog.setLastModified(otherCatalog.lastModified() + 10000));
+        assertNotSame(second, get(cache, catalogStyle, createXMLCatalog(otherCatalog)));
+    }
+
+    @Test
+    public void get_resolver() throws Exception {
+        final URIResolver resolver = (href, base) -> null;
+        final TemplatesCache cache = new TemplatesCache(2);
+        assertNotSame(get(cache, style, resolver), get(cache, style, resolver));
+        assertEquals(0, cache.getHits());
+    }
+
+    private File createCatalog(final String name, final String module) throws IOException {
+        final File catalog = new File(tempDir, name);
+        FileUtils.writeStringToFile(catalog,
+                "<catalog xmlns='urn:oasis:names:tc:entity:xmlns:xml:catalog'>" +
+                "<uri name='urn:test:module' uri='" + module + "'/>" +
+                "</catalog>", StandardCharsets.UTF_8);
+        return catalog;
+    }
+
+    /** Create catalog in a new project, as each build creates its own catalog instance. */
+    private XMLCatalog createXMLCatalog(final File catalog) {
+        final Project project = new Project();
+        project.init();
+        final XMLCatalog xmlCatalog = new XMLCatalog();
+        xmlCatalog.setProject(project);
+        xmlCatalog.createCatalogPath().setLocation(catalog);
+        return xmlCatalog;
+    }
+
+    private Templates get(final TemplatesCache cache, final File style) throws Exception {
+        return get(cache, style, null);
+    }
+
+    private Templates get(final TemplatesCache cache, final File style, final URIResolver uriResolver) throws Exception {
+        return cache.get(style, uriResolver, TransformerFactory::newInstance, new TestUtils.TestLogger());
+    }
+
+    private String transform(final Templates templates) throws Exception {
+        final Transformer transformer = templates.newTransformer();
+        transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+        final StringWriter buf = new StringWriter();
+        transformer.transform(new StreamSource(new StringReader("<root/>")), new StreamResult(buf));
+        return buf.toString().trim();
+    }
+}
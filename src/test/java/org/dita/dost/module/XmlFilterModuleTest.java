@@ -0,0 +1,134 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2019 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+
+package org.dita.dost.module;
+
+import org.apache.commons.io.FileUtils;
+import org.dita.dost.TestUtils;
+import org.dita.dost.TestUtils.CachingLogger.Message;
+import org.dita.dost.log.DITAOTLogger;
+import org.dita.dost.module.XmlFilterModule.FilterPair;
+import org.dita.dost.pipeline.PipelineHashIO;
+import org.dita.dost.util.Job;
+import org.dita.dost.writer.AbstractXMLFilter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static org.dita.dost.util.Constants.ATTR_FORMAT_VALUE_DITA;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class XmlFilterModuleTest {
+
+    private static final int FILES = 16;
+
+    private File tempDir;
+    private Job job;
+
+    @Before
+    public void setUp() throws IOException {
+        tempDir = TestUtils.createTempDir(getClass());
+        job = new Job(tempDir);
+        for (int i = 0; i < FILES; i++) {
+            final URI uri = URI.create("topic" + i + ".dita");
+            FileUtils.writeStringToFile(new File(tempDir, uri.getPath()), "<topic><p/></topic>", StandardCharsets.UTF_8);
+            job.add(new Job.FileInfo.Builder().uri(uri).format(ATTR_FORMAT_VALUE_DITA).build());
+        }
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        TestUtils.forceDelete(tempDir);
+    }
+
+    @Test
+    public void executeSequential() throws Exception {
+        final Set<AbstractXMLFilter> instances = execute(false);
+        assertEquals(1, instances.size());
+        assertOutput();
+    }
+
+    @Test
+    public void executeParallel() throws Exception {
+        final Set<AbstractXMLFilter> instances = execute(true);
+        assertTrue(instances.size() > 1);
+        assertTrue(instances.size() <= 4);
+        assertOutput();
+    }
+
+    @Test
+    public void executeParallel_logOrder() throws Exception {
+        final TestUtils.CachingLogger logger = new TestUtils.CachingLogger();
+        execute(true, logger);
+
+        final List<String> exp = job.getFileInfo(f -> ATTR_FORMAT_VALUE_DITA.equals(f.format)).stream()
+                .map(f -> "Processing " + job.tempDirURI.resolve(f.uri))
+                .collect(Collectors.toList());
+        final List<String> act = logger.getMessages().stream()
+                .filter(m -> m.level == Message.Level.INFO)
+                .map(m -> m.message)
+                .collect(Collectors.toList());
+        assertEquals(exp, act);
+    }
+
+    private Set<AbstractXMLFilter> execute(final boolean parallel) throws Exception {
+        return execute(parallel, new TestUtils.TestLogger());
+    }
+
+    private Set<AbstractXMLFilter> execute(final boolean parallel, final DITAOTLogger logger) throws Exception {
+        final Set<AbstractXMLFilter> instances = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        final XmlFilterModule module = new XmlFilterModule();
+        module.setLogger(logger);
+        module.setJob(job);
+        module.setFileInfoFilter(f -> ATTR_FORMAT_VALUE_DITA.equals(f.format));
+        module.setProcessingPipe(Collections.singletonList(new FilterPair(() -> new FileNameFilter(instances), f -> true)));
+        module.setParallel(parallel);
+        module.setThreads(4);
+        module.execute(new PipelineHashIO());
+        return instances;
+    }
+
+    private void assertOutput() throws IOException {
+        for (int i = 0; i < FILES; i++) {
+            final File file = new File(tempDir, "topic" + i + ".dita");
+            assertTrue(FileUtils.readFileToString(file, StandardCharsets.UTF_8).contains("file=\"" + file.toURI() + "\""));
+        }
+    }
+
+    private static final class FileNameFilter extends AbstractXMLFilter {
+
+        private final Set<AbstractXMLFilter> instances;
+
+        FileNameFilter(final Set<AbstractXMLFilter> instances) {
+            this.instances = instances;
+        }
+
+        @Override
+        public void startElement(final String uri, final String localName, final String qName, final Attributes atts)
+                throws SAXException {
+            instances.add(this);
+            final AttributesImpl res = new AttributesImpl(atts);
+            res.addAttribute("", "file", "file", "CDATA", currentFile.toString());
+            getContentHandler().startElement(uri, localName, qName, res);
+        }
+    }
+}
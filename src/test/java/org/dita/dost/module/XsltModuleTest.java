@@ -13,22 +13,127 @@ import net.sf.saxon.jaxp.SaxonTransformerFactory;
 import net.sf.saxon.lib.CollationURIResolver;
 import net.sf.saxon.om.StructuredQName;
 import net.sf.saxon.trans.SymbolicName;
+import org.apache.commons.io.FileUtils;
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.types.ResourceLocation;
+import org.apache.tools.ant.types.XMLCatalog;
+import org.dita.dost.TestUtils;
+import org.dita.dost.pipeline.PipelineHashIO;
+import org.dita.dost.util.Job;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
 import javax.xml.transform.TransformerFactory;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import static org.junit.Assert.*;
 
 public class XsltModuleTest {
 
+    private static final int FILES = 16;
+
     private XsltModule xsltModule;
     private SaxonTransformerFactory tf;
+    private File tempDir;
 
     @Before
-    public void setUp() {
+    public void setUp() throws IOException {
         xsltModule = new XsltModule();
         tf = (SaxonTransformerFactory) TransformerFactory.newInstance("net.sf.saxon.jaxp.SaxonTransformerFactory", getClass().getClassLoader());
+        tempDir = TestUtils.createTempDir(getClass());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        TestUtils.forceDelete(tempDir);
+    }
+
+    @Test
+    public void executeSequential() throws Exception {
+        execute(false);
+        assertOutput();
+    }
+
+    @Test
+    public void executeParallel() throws Exception {
+        execute(true);
+        assertOutput();
+    }
+
+    private void execute(final boolean parallel) throws Exception {
+        final File style = new File(tempDir, "style.xsl");
+        FileUtils.writeStringToFile(style,
+                "<xsl:stylesheet xmlns:xsl='http://www.w3.org/1999/XSL/Transform' version='2.0'>" +
+                "<xsl:param name='file'/>" +
+                "<xsl:template match='/*'><xsl:copy><xsl:attribute name='file' select='$file'/></xsl:copy></xsl:template>" +
+                "</xsl:stylesheet>", StandardCharsets.UTF_8);
+        final List<File> includes = new ArrayList<>();
+        for (int i = 0; i < FILES; i++) {
+            final File include = new File("topic" + i + ".dita");
+            FileUtils.writeStringToFile(new File(tempDir, include.getPath()), "<topic/>", StandardCharsets.UTF_8);
+            includes.add(include);
+        }
+        xsltModule.setLogger(new TestUtils.TestLogger());
+        xsltModule.setJob(new Job(tempDir));
+        xsltModule.setStyle(style);
+        xsltModule.setIncludes(includes);
+        xsltModule.setSorceDir(tempDir);
+        xsltModule.setDestinationDir(tempDir);
+        xsltModule.setFilenameParam("file");
+        xsltModule.setXMLCatalog(null);
+        xsltModule.setParallel(parallel);
+        xsltModule.setThreads(4);
+        xsltModule.execute(new PipelineHashIO());
+    }
+
+    private void assertOutput() throws IOException {
+        for (int i = 0; i < FILES; i++) {
+            final File file = new File(tempDir, "topic" + i + ".dita");
+            assertTrue(FileUtils.readFileToString(file, StandardCharsets.UTF_8).contains("file=\"" + file.getName() + "\""));
+        }
+        assertEquals(FILES + 1, tempDir.list((dir, name) -> !name.startsWith(".")).length);
+    }
+
+    @Test
+    public void executeDocumentStore() throws Exception {
+        final File style = new File(tempDir, "style.xsl");
+        FileUtils.writeStringToFile(style,
+                "<xsl:stylesheet xmlns:xsl='http://www.w3.org/1999/XSL/Transform' version='2.0'>" +
+                "<xsl:template match='/*'><xsl:copy><xsl:copy-of select='@class'/></xsl:copy></xsl:template>" +
+                "</xsl:stylesheet>", StandardCharsets.UTF_8);
+        final File dtd = new File(tempDir, "dtd" + File.separator + "topic.dtd");
+        FileUtils.writeStringToFile(dtd,
+                "<!ELEMENT topic EMPTY>" +
+                "<!ATTLIST topic class CDATA '- topic/topic '>", StandardCharsets.UTF_8);
+        final File topic = new File(tempDir, "topic.dita");
+        FileUtils.writeStringToFile(topic,
+                "<!DOCTYPE topic PUBLIC '-//TEST//DTD Topic//EN' 'topic.dtd'><topic/>", StandardCharsets.UTF_8);
+        final XMLCatalog catalog = new XMLCatalog();
+        catalog.setProject(new Project());
+        final ResourceLocation location = new ResourceLocation();
+        location.setPublicId("-//TEST//DTD Topic//EN");
+        location.setLocation(dtd.getAbsolutePath());
+        catalog.addDTD(location);
+
+        final Job job = new Job(tempDir, 1024 * 1024);
+        xsltModule.setLogger(new TestUtils.TestLogger());
+        xsltModule.setJob(job);
+        xsltModule.setStyle(style);
+        xsltModule.setXMLCatalog(catalog);
+        xsltModule.setIncludes(Collections.singletonList(new File(topic.getName())));
+        xsltModule.setSorceDir(tempDir);
+        xsltModule.setDestinationDir(tempDir);
+        xsltModule.execute(new PipelineHashIO());
+
+        assertTrue(job.getDocumentStore().contains(topic.toURI()));
+        job.getDocumentStore().flush();
+        assertTrue(FileUtils.readFileToString(topic, StandardCharsets.UTF_8).contains("class=\"- topic/topic \""));
     }
 
     @Test
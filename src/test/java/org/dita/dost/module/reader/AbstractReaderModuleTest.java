@@ -0,0 +1,187 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2019 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+
+package org.dita.dost.module.reader;
+
+import org.apache.commons.io.FileUtils;
+import com.google.common.collect.ImmutableSet;
+import org.dita.dost.TestUtils;
+import org.dita.dost.module.GenMapAndTopicListModule.HashTempFileScheme;
+import org.dita.dost.pipeline.PipelineHashIO;
+import org.dita.dost.util.Job;
+import org.dita.dost.util.LinkIndex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.dita.dost.util.Constants.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AbstractReaderModuleTest {
+
+    private static final int TOPICS = 24;
+
+    private File tempDir;
+    private File srcDir;
+
+    @Before
+    public void setUp() throws IOException {
+        tempDir = TestUtils.createTempDir(getClass());
+        srcDir = new File(tempDir, "src");
+        final StringBuilder map = new StringBuilder()
+                .append("<map class='- map/map '>");
+        for (int i = 0; i < TOPICS; i++) {
+            map.append("<topicref class='- map/topicref ' href='topics/topic").append(i).append(".dita'/>");
+            write("topics/topic" + i + ".dita",
+                    "<topic class='- topic/topic ' id='topic" + i + "'>" +
+                    "<title class='- topic/title '>Topic " + i + "</title>" +
+                    "<body class='- topic/body '>" +
+                    "<p class='- topic/p ' conref='../library.dita#library/p" + (i % 4) + "'/>" +
+                    "<p class='- topic/p '>" +
+                    "<xref class='- topic/xref ' href='topic" + ((i + 1) % TOPICS) + ".dita'/>" +
+                    "<xref class='- topic/xref ' href='linked/linked" + i + ".dita'/>" +
+                    "<image class='- topic/image ' href='image" + (i % 3) + ".png'/>" +
+                    "</p>" +
+                    "</body>" +
+                    "</topic>");
+            write("topics/linked/linked" + i + ".dita",
+                    "<topic class='- topic/topic ' id='linked" + i + "'>" +
+                    "<title class='- topic/title ' keyref='key" + i + "'>Linked " + i + "</title>" +
+                    "</topic>");
+        }
+        map.append("</map>");
+        write("root.ditamap", map.toString());
+        write("library.dita",
+                "<topic class='- topic/topic ' id='library'>" +
+                "<title class='- topic/title '>Library</title>" +
+                "<body class='- topic/body '>" +
+                "<p class='- topic/p ' id='p0'/><p class='- topic/p ' id='p1'/>" +
+                "<p class='- topic/p ' id='p2'/><p class='- topic/p ' id='p3'/>" +
+                "</body>" +
+                "</topic>");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        TestUtils.forceDelete(tempDir);
+    }
+
+    @Test
+    public void processWaitListParallel() throws Exception {
+        final File sequentialDir = new File(tempDir, "sequential");
+        final File parallelDir = new File(tempDir, "parallel");
+        final Job sequential = read(sequentialDir, false, 0);
+        final Job parallel = read(parallelDir, true, 0);
+
+        assertEquals(TOPICS * 2 + 5, sequential.getFileInfo().size());
+        assertEquals("topic0", sequential.getFileInfo(new File(srcDir, "topics/topic0.dita").toURI()).firstTopicId);
+        assertEquals("library", parallel.getFileInfo(new File(srcDir, "library.dita").toURI()).firstTopicId);
+        assertEquals(getFileInfos(sequential), getFileInfos(parallel));
+        assertEquals(getFiles(sequentialDir), getFiles(parallelDir));
+    }
+
+    @Test
+    public void processWaitListDocumentStore() throws Exception {
+        final File fileDir = new File(tempDir, "file");
+        final File storeDir = new File(tempDir, "store");
+        final Job file = read(fileDir, true, 0);
+        final Job store = read(storeDir, true, 1024 * 1024);
+
+        final File topic = new File(storeDir, "temp" + File.separator + file.getFileInfo(
+                new File(srcDir, "topics/topic0.dita").toURI()).uri.getPath());
+        assertTrue(store.getDocumentStore().contains(topic.toURI()));
+        assertFalse(topic.exists());
+        store.getDocumentStore().flush();
+        assertTrue(topic.exists());
+        assertEquals(getFileInfos(file), getFileInfos(store));
+        assertEquals(getFiles(fileDir), getFiles(storeDir));
+    }
+
+    @Test
+    public void writeLinkIndex() throws Exception {
+        final File temp = new File(tempDir, "index" + File.separator + "temp");
+        assertTrue(temp.mkdirs());
+        final Job job = new Job(temp);
+        job.setProperty("temp-file-name-scheme", HashTempFileScheme.class.getName());
+        read(job, false);
+
+        final LinkIndex index = LinkIndex.read(new File(temp, FILE_NAME_LINK_INDEX));
+        assertEquals(ImmutableSet.of(tempFile("root.ditamap"), tempFile("topics/topic" + (TOPICS - 1) + ".dita")),
+                index.getSources(tempFile("topics/topic0.dita")));
+        assertEquals(ImmutableSet.of(tempFile("topics/topic0.dita")),
+                index.getSources(tempFile("topics/linked/linked0.dita")));
+        assertEquals(TOPICS / 3, index.getSources(tempFile("topics/image0.png")).size());
+        assertTrue(index.getSources(tempFile("library.dita")).isEmpty());
+        assertTrue(index.contains(tempFile("topics/linked/linked0.dita")));
+        assertTrue(index.contains(tempFile("library.dita")));
+    }
+
+    private URI tempFile(final String path) {
+        return new HashTempFileScheme().generateTempFileName(new File(srcDir, path).toURI());
+    }
+
+    private Job read(final File dir, final boolean parallel, final long storeSize) throws Exception {
+        final File temp = new File(dir, "temp");
+        assertTrue(temp.mkdirs());
+        return read(new Job(temp, storeSize), parallel);
+    }
+
+    private Job read(final Job job, final boolean parallel) throws Exception {
+        final PipelineHashIO input = new PipelineHashIO();
+        input.setAttribute(ANT_INVOKER_PARAM_INPUTMAP, new File(srcDir, "root.ditamap").getAbsolutePath());
+        input.setAttribute(ANT_INVOKER_PARAM_BASEDIR, srcDir.getAbsolutePath());
+        input.setAttribute(ANT_INVOKER_EXT_PARAM_DITADIR, new File("src" + File.separator + "main").getAbsolutePath());
+        input.setAttribute(ANT_INVOKER_EXT_PARAM_OUTPUTDIR, new File(job.tempDir.getParentFile(), "out").getAbsolutePath());
+        input.setAttribute(ANT_INVOKER_EXT_PARAM_VALIDATE, Boolean.FALSE.toString());
+        input.setAttribute(ANT_INVOKER_EXT_PARAM_GENERATECOPYOUTTER, Integer.toString(Job.Generate.NOT_GENERATEOUTTER.type));
+        input.setAttribute(ANT_INVOKER_EXT_PARAM_OUTTERCONTROL, Job.OutterControl.WARN.toString());
+        input.setAttribute(ANT_INVOKER_EXT_PARAM_CRAWL, ANT_INVOKER_EXT_PARAM_CRAWL_VALUE_TOPIC);
+        input.setAttribute(ANT_INVOKER_PARAM_PROFILING_ENABLED, Boolean.FALSE.toString());
+        input.setAttribute(ANT_INVOKER_EXT_PARAM_PARALLEL, Boolean.toString(parallel));
+        input.setAttribute(ANT_INVOKER_EXT_PARAM_THREADS, "4");
+        for (final AbstractReaderModule reader : new AbstractReaderModule[] {new MapReaderModule(), new TopicReaderModule()}) {
+            reader.setLogger(new TestUtils.TestLogger());
+            reader.setJob(job);
+            reader.execute(input);
+        }
+        return job;
+    }
+
+    private Map<String, String> getFileInfos(final Job job) {
+        return job.getFileInfo().stream()
+                .collect(Collectors.toMap(fi -> fi.uri.toString(), Job.FileInfo::toString, (a, b) -> a, TreeMap::new));
+    }
+
+    private Map<String, String> getFiles(final File dir) throws IOException {
+        final File temp = new File(dir, "temp");
+        final Map<String, String> res = new TreeMap<>();
+        for (final File f : FileUtils.listFiles(temp, null, true)) {
+            if (!f.getName().startsWith(".job")) {
+                final String content = FileUtils.readFileToString(f, StandardCharsets.UTF_8)
+                        .replace(dir.getAbsolutePath(), "")
+                        .replace(dir.toURI().toString(), "");
+                res.put(temp.toURI().relativize(f.toURI()).toString(), content);
+            }
+        }
+        return res;
+    }
+
+    private void write(final String path, final String content) throws IOException {
+        FileUtils.writeStringToFile(new File(srcDir, path), content, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2019 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+package org.dita.dost.reader;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.xerces.xni.grammars.XMLGrammarPool;
+import org.dita.dost.TestUtils;
+import org.dita.dost.util.XMLGrammarPoolImplUtils;
+import org.dita.dost.util.XMLUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.xml.sax.XMLReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class GrammarPoolManagerTest {
+
+    private File tempDir;
+
+    @Before
+    public void setUp() throws IOException {
+        tempDir = TestUtils.createTempDir(getClass());
+        FileUtils.writeStringToFile(new File(tempDir, "topic.dtd"),
+                "<!ELEMENT topic (#PCDATA)>", StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(tempDir, "topic.dita"),
+                "<!DOCTYPE topic SYSTEM 'topic.dtd'><topic/>", StandardCharsets.UTF_8);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        TestUtils.forceDelete(tempDir);
+    }
+
+    @Test
+    public void getGrammarPool() throws Exception {
+        final XMLGrammarPool[] other = new XMLGrammarPool[1];
+        final Thread t = new Thread(() -> other[0] = GrammarPoolManager.getGrammarPool());
+        t.start();
+        t.join();
+        assertNotNull(GrammarPoolManager.getGrammarPool());
+        assertSame(GrammarPoolManager.getGrammarPool(), other[0]);
+    }
+
+    @Test
+    public void retrieveGrammar() throws Exception {
+        final XMLGrammarPoolImplUtils pool = new XMLGrammarPoolImplUtils();
+        parse(pool);
+        assertEquals(0, pool.getHits());
+        assertEquals(1, pool.getMisses());
+        parse(pool);
+        assertEquals(1, pool.getHits());
+        assertEquals(1, pool.getMisses());
+    }
+
+    private void parse(final XMLGrammarPool pool) throws Exception {
+        final XMLReader reader = XMLUtils.getXMLReader();
+        reader.setProperty("http://apache.org/xml/properties/internal/grammar-pool", pool);
+        reader.parse(new File(tempDir, "topic.dita").toURI().toString());
+    }
+
+}
@@ -8,6 +8,7 @@
 package org.dita.dost.reader;
 
 import static org.dita.dost.TestUtils.assertXMLEqual;
+import static org.junit.Assert.assertArrayEquals;
 import static org.dita.dost.util.Constants.*;
 
 import java.io.ByteArrayInputStream;
@@ -60,6 +61,28 @@ public class MergeMapParserTest {
                 new InputSource(new ByteArrayInputStream(output.toByteArray())));
     }
 
+    @Test
+    public void testReadSpill() throws SAXException, IOException {
+        final File tempDir = TestUtils.createTempDir(getClass());
+        try {
+            TestUtils.copy(srcDir, tempDir);
+            final MergeMapParser parser = new MergeMapParser();
+            parser.setLogger(new TestUtils.TestLogger());
+            parser.setJob(new Job(tempDir));
+            parser.setBufferThreshold(1);
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            output.write("<wrapper>".getBytes(UTF8));
+            parser.setOutputStream(output);
+            parser.read(new File(tempDir, "test.ditamap").getAbsoluteFile(), tempDir.getAbsoluteFile());
+            output.write("</wrapper>".getBytes(UTF8));
+            assertXMLEqual(new InputSource(new File(expDir, "merged.xml").toURI().toString()),
+                    new InputSource(new ByteArrayInputStream(output.toByteArray())));
+            assertArrayEquals(new File[0], tempDir.listFiles((dir, name) -> name.endsWith(".tmp")));
+        } finally {
+            TestUtils.forceDelete(tempDir);
+        }
+    }
+
     @Test
     public void testComposite() throws SAXException, IOException {
         final MergeMapParser parser = new MergeMapParser();
@@ -10,6 +10,8 @@ package org.dita.dost.util;
 import static org.dita.dost.util.Constants.ATTRIBUTE_NAME_CLASS;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -73,6 +75,32 @@ public class DitaClassTest {
         assertTrue(new DitaClass("- foo/bar baz/qux ").matches("- foo/bar baz/qux "));
     }
 
+    @Test
+    public void testMatchesStringWhitespace() {
+        assertTrue(new DitaClass("- foo/bar ").matches("-  foo/bar\tbaz/qux"));
+        assertFalse(new DitaClass("- foo/bar ").matches("foo/bar baz/qux "));
+        assertFalse(new DitaClass("- foo/bar ").matches(""));
+        assertFalse(new DitaClass("- foo/bar ").matches(" "));
+    }
+
+    @Test
+    public void testMatchesStringPartialToken() {
+        assertFalse(new DitaClass("- foo/bar ").matches("- foo/barbaz "));
+        assertFalse(new DitaClass("- foo/bar ").matches("- foo/ba "));
+        assertFalse(new DitaClass("- foo/bar ").matches("- xfoo/bar "));
+        assertTrue(new DitaClass("- foo/bar ").matches("- foo/barbaz foo/bar"));
+    }
+
+    @Test
+    public void testGetInstance() {
+        final AttributesImpl atts = new AttributesImpl();
+        assertNull(DitaClass.getInstance(atts));
+        atts.addAttribute("", ATTRIBUTE_NAME_CLASS, ATTRIBUTE_NAME_CLASS, "CDATA", "- foo/bar baz/qux ");
+        final DitaClass cls = DitaClass.getInstance(atts);
+        assertEquals(new DitaClass("- foo/bar baz/qux "), cls);
+        assertSame(cls, DitaClass.getInstance(atts));
+    }
+
     @Test
     public void testMatchesAttributes() {
         final AttributesImpl atts = new AttributesImpl();
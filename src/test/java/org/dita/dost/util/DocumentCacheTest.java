@@ -0,0 +1,106 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2019 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+package org.dita.dost.util;
+
+import org.apache.commons.io.FileUtils;
+import org.dita.dost.TestUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import static org.junit.Assert.*;
+
+public class DocumentCacheTest {
+
+    private File tempDir;
+    private URI map;
+
+    @Before
+    public void setUp() throws IOException {
+        tempDir = TestUtils.createTempDir(getClass());
+        final File file = new File(tempDir, "map.ditamap");
+        FileUtils.writeStringToFile(file, "<map><topicref href='a.dita'/></map>", StandardCharsets.UTF_8);
+        map = file.toURI();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        TestUtils.forceDelete(tempDir);
+    }
+
+    @Test
+    public void put() throws Exception {
+        final DocumentCache cache = new DocumentCache(2);
+        final Document doc = cache.get(map);
+        doc.getDocumentElement().setAttribute("id", "map");
+        cache.put(map, doc);
+        assertTrue(FileUtils.readFileToString(new File(map), StandardCharsets.UTF_8).contains("id=\"map\""));
+
+        assertSame(doc, cache.get(map));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void get_owned() throws Exception {
+        final DocumentCache cache = new DocumentCache(2);
+        cache.put(map, cache.get(map));
+        final Document first = cache.get(map);
+        assertNotSame(first, cache.get(map));
+    }
+
+    @Test
+    public void release() throws Exception {
+        final DocumentCache cache = new DocumentCache(2);
+        final Document doc = cache.get(map);
+        cache.release(map, doc);
+        assertSame(doc, cache.get(map));
+    }
+
+    @Test
+    public void get_rewritten() throws Exception {
+        final DocumentCache cache = new DocumentCache(2);
+        final Document doc = cache.get(map);
+        cache.put(map, doc);
+
+        final File tmp = new File(tempDir, "map.tmp");
+        FileUtils.writeStringToFile(tmp, "<map><topicref href='b.dita'/></map>", StandardCharsets.UTF_8);
+        Files.move(tmp.toPath(), new File(map).toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        final Document act = cache.get(map);
+        assertNotSame(doc, act);
+        assertEquals("b.dita", act.getDocumentElement().getFirstChild().getAttributes().getNamedItem("href").getNodeValue());
+    }
+
+    @Test
+    public void invalidate() throws Exception {
+        final DocumentCache cache = new DocumentCache(2);
+        final Document doc = cache.get(map);
+        cache.put(map, doc);
+        cache.invalidate(map);
+        assertNotSame(doc, cache.get(map));
+    }
+
+    @Test
+    public void disabled() throws Exception {
+        final DocumentCache cache = new DocumentCache(0);
+        final Document doc = cache.get(map);
+        cache.put(map, doc);
+        assertNotSame(doc, cache.get(map));
+        assertEquals(0, cache.getHits());
+    }
+
+}
@@ -0,0 +1,213 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2019 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+package org.dita.dost.util;
+
+import org.apache.commons.io.FileUtils;
+import org.dita.dost.TestUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class DocumentStoreTest {
+
+    private File tempDir;
+
+    @Before
+    public void setUp() throws IOException {
+        tempDir = TestUtils.createTempDir(getClass());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        TestUtils.forceDelete(tempDir);
+    }
+
+    @Test
+    public void put() throws Exception {
+        final DocumentStore store = new DocumentStore(tempDir, 1024 * 1024);
+        final URI file = new File(tempDir, "a.dita").toURI();
+        store.put(file, parse("<topic id='a'><!-- note --><title>A</title></topic>"));
+
+        assertTrue(store.contains(file));
+        assertTrue(store.contains(URI.create(file + "#a")));
+        assertFalse(new File(file).exists());
+        assertEquals("<topic id=\"a\"><!-- note --><title>A</title></topic>", read(store, file));
+    }
+
+    @Test
+    public void put_outside() throws Exception {
+        final DocumentStore store = new DocumentStore(new File(tempDir, "temp"), 1024 * 1024);
+        final URI file = new File(tempDir, "out.xml").toURI();
+        store.put(file, parse("<out/>"));
+
+        assertFalse(store.contains(file));
+        assertTrue(content(file).contains("<out/>"));
+    }
+
+    @Test
+    public void put_disabled() throws Exception {
+        final DocumentStore store = new DocumentStore(tempDir, 0);
+        final URI file = new File(tempDir, "sub/a.dita").toURI();
+        assertFalse(store.isEnabled());
+        assertFalse(store.accepts(file));
+        store.put(file, parse("<topic/>"));
+
+        assertFalse(store.contains(file));
+        assertTrue(content(file).contains("<topic/>"));
+    }
+
+    @Test
+    public void put_spill() throws Exception {
+        final SaxEventBuffer buffer = parse("<topic><title>Title</title><body/></topic>");
+        final DocumentStore store = new DocumentStore(tempDir, buffer.size() * 2);
+        final URI a = new File(tempDir, "a.dita").toURI();
+        final URI b = new File(tempDir, "b.dita").toURI();
+        final URI c = new File(tempDir, "c.dita").toURI();
+        store.put(a, buffer);
+        store.put(b, parse("<topic><title>Title</title><body/></topic>"));
+        store.get(a);
+        store.put(c, parse("<topic><title>Title</title><body/></topic>"));
+
+        assertEquals(3, store.getStored());
+        assertEquals(1, store.getSpilled());
+        assertTrue(store.contains(a));
+        assertFalse(store.contains(b));
+        assertTrue(store.contains(c));
+        assertTrue(content(b).contains("<title>Title</title>"));
+    }
+
+    @Test
+    public void put_spillConcurrent() throws Exception {
+        final SaxEventBuffer buffer = parse("<topic n='0'/>");
+        final DocumentStore store = new DocumentStore(tempDir, buffer.size() * 2);
+        final int threads = 4;
+        final int versions = 50;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final URI file = new File(tempDir, t + ".dita").toURI();
+                futures.add(executor.submit(() -> {
+                    for (int n = 0; n < versions; n++) {
+                        store.put(file, parse("<topic n='" + n + "'/>"));
+                        assertTrue(read(store, file).contains("n=\"" + n + "\""));
+                    }
+                    return null;
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        store.flush();
+
+        for (int t = 0; t < threads; t++) {
+            final URI file = new File(tempDir, t + ".dita").toURI();
+            assertFalse(store.contains(file));
+            assertTrue(content(file).contains("n=\"" + (versions - 1) + "\""));
+        }
+    }
+
+    @Test
+    public void flush() throws Exception {
+        final DocumentStore store = new DocumentStore(tempDir, 1024 * 1024);
+        final URI file = new File(tempDir, "a.dita").toURI();
+        store.put(file, parse("<topic><!-- note --></topic>"));
+        store.flush();
+
+        assertFalse(store.contains(file));
+        assertTrue(content(file).contains("<topic><!-- note --></topic>"));
+    }
+
+    @Test
+    public void remove() throws Exception {
+        final DocumentStore store = new DocumentStore(tempDir, 1024 * 1024);
+        final URI file = new File(tempDir, "a.dita").toURI();
+        store.put(file, parse("<topic/>"));
+        store.remove(file);
+        store.flush();
+
+        assertFalse(store.contains(file));
+        assertFalse(new File(file).exists());
+    }
+
+    @Test
+    public void getXMLReader() throws Exception {
+        final DocumentStore store = new DocumentStore(tempDir, 1024 * 1024);
+        final URI stored = new File(tempDir, "a.dita").toURI();
+        store.put(stored, parse("<stored/>"));
+        final File file = new File(tempDir, "b.dita");
+        FileUtils.writeStringToFile(file, "<parsed/>", StandardCharsets.UTF_8);
+
+        final XMLReader reader = store.getXMLReader(XMLUtils.getXMLReader());
+        assertEquals("<stored/>", serialize(new SAXSource(reader, new InputSource(stored.toString()))));
+        assertEquals("<parsed/>", serialize(new SAXSource(reader, new InputSource(file.toURI().toString()))));
+    }
+
+    @Test
+    public void getURIResolver() throws Exception {
+        final DocumentStore store = new DocumentStore(tempDir, 1024 * 1024);
+        final URI file = new File(tempDir, "sub/a.dita").toURI();
+        store.put(file, parse("<stored/>"));
+
+        final Source source = store.getURIResolver(null).resolve("sub/a.dita", tempDir.toURI().toString());
+        assertNotNull(source);
+        assertEquals(file.toString(), source.getSystemId());
+        assertEquals("<stored/>", serialize(source));
+        assertNull(store.getURIResolver(null).resolve("b.dita", tempDir.toURI().toString()));
+    }
+
+    private SaxEventBuffer parse(final String content) throws Exception {
+        final SaxEventBuffer buffer = new SaxEventBuffer();
+        final XMLReader reader = XMLUtils.getXMLReader();
+        reader.setContentHandler(buffer);
+        reader.setProperty("http://xml.org/sax/properties/lexical-handler", buffer);
+        reader.parse(new InputSource(new StringReader(content)));
+        return buffer;
+    }
+
+    private String read(final DocumentStore store, final URI file) throws Exception {
+        final XMLReader reader = store.getXMLReader(XMLUtils.getXMLReader());
+        return serialize(new SAXSource(reader, new InputSource(file.toString())));
+    }
+
+    private String serialize(final Source source) throws Exception {
+        final Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty("omit-xml-declaration", "yes");
+        final StringWriter buf = new StringWriter();
+        transformer.transform(source, new StreamResult(buf));
+        return buf.toString();
+    }
+
+    private String content(final URI file) throws IOException {
+        return FileUtils.readFileToString(new File(file), StandardCharsets.UTF_8);
+    }
+}
@@ -246,6 +246,22 @@ public class FilterUtilsTest {
                 f.getFlags(attr(PLATFORM, "windows"), new QName[0][0]));
     }
 
+    @Test
+    public void testCachedDecisions() {
+        final Map<FilterKey, Action> fm = new HashMap<>();
+        fm.put(new FilterKey(OS, "amiga"), Action.INCLUDE);
+        fm.put(new FilterKey(OS, null), Action.EXCLUDE);
+        final FilterUtils f = new FilterUtils(false, fm, null, null);
+        f.setLogger(new TestUtils.TestLogger());
+
+        for (int i = 0; i < 2; i++) {
+            assertFalse(f.needExclude(attr(OS, "amiga windows"), new QName[][] {{PROPS, OS}}));
+            assertTrue(f.needExclude(attr(OS, "windows"), new QName[][] {{PROPS, OS}}));
+            assertFalse(f.needExclude(attr(PROPS, "os(amiga windows)"), new QName[][] {{PROPS, OS}}));
+            assertTrue(f.needExclude(attr(PROPS, "os(windows)"), new QName[][] {{PROPS, OS}}));
+        }
+    }
+
     // DITA 1.3
 
     @Test
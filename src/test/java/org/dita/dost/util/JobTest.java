@@ -61,6 +61,122 @@ public final class JobTest {
         assertNull(job.getFileInfo((URI) null));
     }
 
+    @Test
+    public void testGetFileInfoBySrcAndResult() throws URISyntaxException {
+        final URI src = new URI("file:/foo/bar/src.dita");
+        final URI result = new URI("file:/foo/bar/result.dita");
+        final Job.FileInfo fi = new Job.FileInfo.Builder().uri(new URI("src.dita")).src(src).result(result).build();
+        job.add(fi);
+        assertEquals(fi, job.getFileInfo(src));
+        assertEquals(fi, job.getFileInfo(result));
+
+        final URI moved = new URI("file:/foo/bar/moved.dita");
+        job.add(new Job.FileInfo.Builder(fi).result(moved).build());
+        assertNull(job.getFileInfo(result));
+        assertEquals(moved, job.getFileInfo(moved).result);
+
+        job.remove(fi);
+        assertNull(job.getFileInfo(src));
+        assertNull(job.getFileInfo(moved));
+    }
+
+    @Test
+    public void testGetFileInfoByFlag() throws URISyntaxException {
+        final Job.FileInfo fi = new Job.FileInfo.Builder().uri(new URI("keyref.dita")).format("dita").build();
+        job.add(fi);
+        assertFalse(job.getFileInfo(Job.FileInfo.Flag.HAS_KEYREF).contains(fi));
+        assertTrue(job.getFileInfoByFormat("dita").contains(fi));
+
+        fi.hasKeyref = true;
+        fi.format = "ditamap";
+        job.add(fi);
+        assertTrue(job.getFileInfo(Job.FileInfo.Flag.HAS_KEYREF).contains(fi));
+        assertFalse(job.getFileInfoByFormat("dita").contains(fi));
+        assertTrue(job.getFileInfoByFormat("ditamap").contains(fi));
+
+        job.remove(fi);
+        assertFalse(job.getFileInfo(Job.FileInfo.Flag.HAS_KEYREF).contains(fi));
+        assertFalse(job.getFileInfoByFormat("ditamap").contains(fi));
+    }
+
+    @Test
+    public void testGetFileInfoAfterModification() throws URISyntaxException {
+        final URI result = new URI("file:/foo/bar/modified.dita");
+        final URI moved = new URI("file:/foo/bar/modified-moved.dita");
+        job.add(new Job.FileInfo.Builder().uri(new URI("modified.dita")).result(result).format("dita").build());
+
+        final Job.FileInfo fi = job.getFileInfo(new URI("modified.dita"));
+        fi.result = moved;
+        fi.format = "ditamap";
+        fi.hasConref = true;
+        assertTrue(job.getFileInfoByResult(result).isEmpty());
+        assertNull(job.getFileInfo(result));
+        assertFalse(job.getFileInfoByFormat("dita").contains(fi));
+
+        job.add(fi);
+        assertTrue(job.getFileInfoByResult(result).isEmpty());
+        assertEquals(fi, job.getFileInfo(moved));
+        assertTrue(job.getFileInfoByResult(moved).contains(fi));
+        assertTrue(job.getFileInfoByFormat("ditamap").contains(fi));
+        assertTrue(job.getFileInfo(Job.FileInfo.Flag.HAS_CONREF).contains(fi));
+
+        for (final Job.FileInfo f : job.getFileInfo()) {
+            if (f.uri.equals(fi.uri)) {
+                f.hasConref = false;
+                job.add(f);
+            }
+        }
+        assertFalse(job.getFileInfo(Job.FileInfo.Flag.HAS_CONREF).contains(fi));
+
+        job.remove(fi);
+    }
+
+    @Test
+    public void testBinaryStore() throws IOException, URISyntaxException {
+        final File dir = new File(tempDir, "binary");
+        assertTrue(dir.mkdirs());
+        try {
+            final Job job = new Job(dir, Job.Store.BINARY);
+            job.setProperty("foo", "bar");
+            final Job.FileInfo a = new Job.FileInfo.Builder().uri(new URI("a.dita")).src(new URI("file:/src/a.dita"))
+                    .format("dita").firstTopicId("a").hasKeyref(true).build();
+            final Job.FileInfo b = new Job.FileInfo.Builder().uri(new URI("b.ditamap")).src(new URI("file:/src/b.ditamap"))
+                    .format("ditamap").isInput(true).build();
+            job.add(a);
+            job.add(b);
+            job.write();
+            assertFalse(job.isStale());
+
+            final Job full = new Job(dir, Job.Store.BINARY);
+            assertEquals("bar", full.getProperty("foo"));
+            assertEquals(a, full.getFileInfo(a.uri));
+            assertEquals(b, full.getFileInfo(b.uri));
+            assertEquals(b, full.getFileInfo(Job.FileInfo.Flag.IS_INPUT).iterator().next());
+
+            final long length = new File(dir, BinaryJobStore.JOB_FILE).length();
+            final Job.FileInfo changed = new Job.FileInfo.Builder(a).hasConref(true).build();
+            full.add(changed);
+            full.remove(b);
+            full.setProperty("foo", "baz");
+            full.write();
+            assertTrue(new File(dir, BinaryJobStore.JOB_FILE).length() > length);
+
+            final Job appended = new Job(dir, Job.Store.BINARY);
+            assertEquals("baz", appended.getProperty("foo"));
+            assertEquals(changed, appended.getFileInfo(a.uri));
+            assertNull(appended.getFileInfo(b.uri));
+
+            assertFalse(new File(dir, ".job.xml").exists());
+            full.exportXml();
+            final Job exported = new Job(dir, Job.Store.XML);
+            assertEquals("baz", exported.getProperty("foo"));
+            assertEquals(changed, exported.getFileInfo(a.uri));
+            assertNull(exported.getFileInfo(b.uri));
+        } finally {
+            TestUtils.forceDelete(dir);
+        }
+    }
+
     @Test
     public void testGetInputMap() {
         assertEquals(toURI("foo"), job.getInputMap());
@@ -0,0 +1,70 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2019 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+package org.dita.dost.util;
+
+import com.google.common.collect.ImmutableSet;
+import org.dita.dost.TestUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class LinkIndexTest {
+
+    private File tempDir;
+
+    @Before
+    public void setUp() throws IOException {
+        tempDir = TestUtils.createTempDir(getClass());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        TestUtils.forceDelete(tempDir);
+    }
+
+    @Test
+    public void getSources() {
+        final LinkIndex index = new LinkIndex();
+        index.put(URI.create("a.dita"), ImmutableSet.of(URI.create("b.dita"), URI.create("c.dita")));
+        index.put(URI.create("b.dita"), ImmutableSet.of(URI.create("c.dita")));
+        index.put(URI.create("c.dita"), Collections.emptySet());
+
+        assertEquals(ImmutableSet.of(URI.create("a.dita")), index.getSources(URI.create("b.dita")));
+        assertEquals(ImmutableSet.of(URI.create("a.dita"), URI.create("b.dita")), index.getSources(URI.create("c.dita")));
+        assertTrue(index.getSources(URI.create("a.dita")).isEmpty());
+        assertTrue(index.contains(URI.create("c.dita")));
+        assertFalse(index.contains(URI.create("d.dita")));
+
+        index.put(URI.create("b.dita"), Collections.emptySet());
+        assertEquals(ImmutableSet.of(URI.create("a.dita")), index.getSources(URI.create("c.dita")));
+    }
+
+    @Test
+    public void write() throws IOException {
+        final File file = new File(tempDir, "link.index");
+        assertNull(LinkIndex.read(file));
+
+        final LinkIndex index = new LinkIndex();
+        index.put(URI.create("topics/a%20b.dita"), ImmutableSet.of(URI.create("c,d.dita"), URI.create("../e.dita")));
+        index.put(URI.create("f.dita"), Collections.emptySet());
+        index.write(file);
+
+        final LinkIndex act = LinkIndex.read(file);
+        assertNotNull(act);
+        assertEquals(ImmutableSet.of(URI.create("topics/a%20b.dita")), act.getSources(URI.create("c,d.dita")));
+        assertEquals(ImmutableSet.of(URI.create("topics/a%20b.dita")), act.getSources(URI.create("../e.dita")));
+        assertTrue(act.contains(URI.create("f.dita")));
+    }
+}
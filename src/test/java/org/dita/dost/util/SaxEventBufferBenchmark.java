@@ -0,0 +1,265 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2019 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+package org.dita.dost.util;
+
+import org.dita.dost.util.SaxCache.*;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Micro-benchmark for buffering SAX events. Compares the memory footprint and replay throughput of the
+ * columnar {@link SaxEventBuffer} with a list of {@link SaxCache} event objects.
+ *
+ * <p>Run with {@code java org.dita.dost.util.SaxEventBufferBenchmark [copies] [iterations]}.</p>
+ */
+public final class SaxEventBufferBenchmark {
+
+    private static final int TOPICS = 200;
+
+    public static void main(final String[] args) throws Exception {
+        final int copies = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        final int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        final String document = createDocument();
+        System.out.printf("document: %d chars%n", document.length());
+        for (int round = 0; round < 3; round++) {
+            final long events = footprint(copies, () -> record(document, new EventList()));
+            final long buffer = footprint(copies, () -> record(document, new SaxEventBuffer()));
+            System.out.printf("round %d: footprint events %d KB/document, buffer %d KB/document%n",
+                    round, events / 1024 / copies, buffer / 1024 / copies);
+        }
+        final EventList eventList = record(document, new EventList());
+        final SaxEventBuffer saxEventBuffer = record(document, new SaxEventBuffer());
+        final CountingHandler handler = new CountingHandler();
+        for (int round = 0; round < 3; round++) {
+            final long events = time(iterations, () -> eventList.replay(handler));
+            final long buffer = time(iterations, () -> saxEventBuffer.replay(handler, handler, null));
+            System.out.printf("round %d: replay events %.1f us/document, buffer %.1f us/document%n",
+                    round, events / 1000.0 / iterations, buffer / 1000.0 / iterations);
+        }
+        System.out.println(handler.count);
+    }
+
+    private interface Task {
+        void run() throws Exception;
+    }
+
+    private interface Recorder<T> {
+        T create() throws Exception;
+    }
+
+    private static long time(final int iterations, final Task task) throws Exception {
+        final long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            task.run();
+        }
+        return System.nanoTime() - start;
+    }
+
+    /** Retained heap of recorded copies of the document, measured from heap usage after garbage collection. */
+    private static long footprint(final int copies, final Recorder<?> recorder) throws Exception {
+        final List<Object> retained = new ArrayList<>(copies);
+        final long before = usedMemory();
+        for (int i = 0; i < copies; i++) {
+            retained.add(recorder.create());
+        }
+        final long after = usedMemory();
+        if (retained.size() != copies) {
+            throw new IllegalStateException();
+        }
+        return after - before;
+    }
+
+    private static long usedMemory() throws InterruptedException {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static <T extends ContentHandler & LexicalHandler> T record(final String document, final T handler)
+            throws Exception {
+        final XMLReader reader = XMLUtils.getXMLReader();
+        reader.setContentHandler(handler);
+        reader.setProperty("http://xml.org/sax/properties/lexical-handler", handler);
+        reader.parse(new InputSource(new StringReader(document)));
+        return handler;
+    }
+
+    private static String createDocument() {
+        final StringBuilder buf = new StringBuilder();
+        buf.append("<map class='- map/map ' xmlns:ditaarch='http://dita.oasis-open.org/architecture/2005/' " +
+                "ditaarch:DITAArchVersion='1.3'>\n");
+        for (int i = 0; i < TOPICS; i++) {
+            buf.append("<topic class='- topic/topic ' id='topic").append(i).append("'>\n")
+                    .append("  <title class='- topic/title '>Topic ").append(i).append("</title>\n")
+                    .append("  <!-- generated -->\n")
+                    .append("  <body class='- topic/body '>\n")
+                    .append("    <p class='- topic/p '>Lorem ipsum dolor sit amet, <b class='+ topic/ph hi-d/b '>")
+                    .append("consectetur</b> adipiscing elit.</p>\n")
+                    .append("    <p class='- topic/p '><xref class='- topic/xref ' href='topic").append(i + 1)
+                    .append(".dita' format='dita' scope='local'/></p>\n")
+                    .append("  </body>\n")
+                    .append("</topic>\n");
+        }
+        buf.append("</map>");
+        return buf.toString();
+    }
+
+    /** Buffer of {@link SaxCache} event objects. */
+    private static final class EventList extends DefaultHandler implements LexicalHandler {
+        private final List<SaxEvent> events = new ArrayList<>();
+
+        void replay(final ContentHandler handler) throws Exception {
+            handler.startDocument();
+            for (final SaxEvent event : events) {
+                event.write(handler);
+            }
+            handler.endDocument();
+        }
+
+        @Override
+        public void startPrefixMapping(final String prefix, final String uri) {
+            events.add(new StartPrefixMappingEvent(prefix, uri));
+        }
+
+        @Override
+        public void endPrefixMapping(final String prefix) {
+            events.add(new EndPrefixMappingEvent(prefix));
+        }
+
+        @Override
+        public void startElement(final String uri, final String localName, final String qName,
+                                 final Attributes atts) {
+            events.add(new StartElementEvent(uri, localName, qName, atts));
+        }
+
+        @Override
+        public void endElement(final String uri, final String localName, final String qName) {
+            events.add(new EndElementEvent(uri, localName, qName));
+        }
+
+        @Override
+        public void characters(final char[] ch, final int start, final int length) {
+            events.add(new CharactersEvent(ch, start, length));
+        }
+
+        @Override
+        public void ignorableWhitespace(final char[] ch, final int start, final int length) {
+            events.add(new IgnorableWhitespaceEvent(ch, start, length));
+        }
+
+        @Override
+        public void processingInstruction(final String target, final String data) {
+            events.add(new ProcessingInstructionEvent(target, data));
+        }
+
+        @Override
+        public void comment(final char[] ch, final int start, final int length) {
+            events.add(new CommentEvent(ch, start, length));
+        }
+
+        @Override
+        public void startDTD(final String name, final String publicId, final String systemId) {
+        }
+
+        @Override
+        public void endDTD() {
+        }
+
+        @Override
+        public void startEntity(final String name) {
+        }
+
+        @Override
+        public void endEntity(final String name) {
+        }
+
+        @Override
+        public void startCDATA() {
+        }
+
+        @Override
+        public void endCDATA() {
+        }
+    }
+
+    /** Comment event, {@link SaxCache} has no event for lexical handler calls. */
+    private static final class CommentEvent implements SaxEvent {
+        private final char[] ch;
+
+        CommentEvent(final char[] ch, final int start, final int length) {
+            this.ch = new char[length];
+            System.arraycopy(ch, start, this.ch, 0, length);
+        }
+
+        @Override
+        public void write(final ContentHandler handler) throws SAXException {
+            if (handler instanceof LexicalHandler) {
+                ((LexicalHandler) handler).comment(ch, 0, ch.length);
+            }
+        }
+    }
+
+    /** Handler that reads every attribute and character, so that replay cost is not optimized away. */
+    private static final class CountingHandler extends DefaultHandler implements LexicalHandler {
+        long count;
+
+        @Override
+        public void startElement(final String uri, final String localName, final String qName,
+                                 final Attributes atts) {
+            for (int i = 0; i < atts.getLength(); i++) {
+                count += atts.getQName(i).length() + atts.getValue(i).length();
+            }
+        }
+
+        @Override
+        public void characters(final char[] ch, final int start, final int length) {
+            count += length;
+        }
+
+        @Override
+        public void comment(final char[] ch, final int start, final int length) {
+            count += length;
+        }
+
+        @Override
+        public void startDTD(final String name, final String publicId, final String systemId) {
+        }
+
+        @Override
+        public void endDTD() {
+        }
+
+        @Override
+        public void startEntity(final String name) {
+        }
+
+        @Override
+        public void endEntity(final String name) {
+        }
+
+        @Override
+        public void startCDATA() {
+        }
+
+        @Override
+        public void endCDATA() {
+        }
+    }
+}
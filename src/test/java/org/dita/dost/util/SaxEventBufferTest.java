@@ -0,0 +1,95 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2019 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+package org.dita.dost.util;
+
+import org.junit.Test;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.sax.TransformerHandler;
+import javax.xml.transform.stream.StreamResult;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SaxEventBufferTest {
+
+    private static final String DOCUMENT = "<topic xmlns:ditaarch=\"http://dita.oasis-open.org/architecture/2005/\" " +
+            "class=\"- topic/topic \" id=\"a\" ditaarch:DITAArchVersion=\"1.3\">" +
+            "<?pi data?><!-- comment -->" +
+            "<title class=\"- topic/title \">Title &amp; more</title>" +
+            "<body class=\"- topic/body \"><p class=\"- topic/p \">First</p><p class=\"- topic/p \">Second</p></body>" +
+            "</topic>";
+
+    @Test
+    public void replay() throws Exception {
+        final SaxEventBuffer buffer = parse(DOCUMENT);
+
+        assertEquals(DOCUMENT, serialize(buffer));
+        assertEquals(DOCUMENT, serialize(buffer));
+    }
+
+    @Test
+    public void replay_attributes() throws Exception {
+        final SaxEventBuffer buffer = parse(DOCUMENT);
+        final List<String> res = new ArrayList<>();
+        buffer.replay(new DefaultHandler() {
+            @Override
+            public void startElement(final String uri, final String localName, final String qName,
+                                     final Attributes atts) {
+                if (localName.equals("topic")) {
+                    assertEquals(3, atts.getLength());
+                    assertEquals("a", atts.getValue("id"));
+                    assertEquals("CDATA", atts.getType("id"));
+                    assertEquals("1.3", atts.getValue("http://dita.oasis-open.org/architecture/2005/",
+                            "DITAArchVersion"));
+                    assertEquals(-1, atts.getIndex("missing"));
+                    assertNull(atts.getValue(3));
+                }
+                res.add(atts.getValue("class"));
+            }
+        }, null, null);
+
+        assertEquals(5, res.size());
+        assertEquals("- topic/p ", res.get(3));
+        assertEquals("- topic/p ", res.get(4));
+    }
+
+    @Test
+    public void size() throws Exception {
+        final SaxEventBuffer small = parse("<topic><p>First</p></topic>");
+        final SaxEventBuffer large = parse("<topic><p>First</p><p>Second</p><p>Third</p></topic>");
+
+        assertTrue(small.size() > 0);
+        assertTrue(large.size() > small.size());
+    }
+
+    private SaxEventBuffer parse(final String content) throws Exception {
+        final SaxEventBuffer buffer = new SaxEventBuffer();
+        final XMLReader reader = XMLUtils.getXMLReader();
+        reader.setContentHandler(buffer);
+        reader.setProperty("http://xml.org/sax/properties/lexical-handler", buffer);
+        reader.parse(new InputSource(new StringReader(content)));
+        return buffer;
+    }
+
+    private String serialize(final SaxEventBuffer buffer) throws Exception {
+        final TransformerHandler serializer = XMLUtils.newIdentityTransformerHandler();
+        serializer.getTransformer().setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+        final StringWriter buf = new StringWriter();
+        serializer.setResult(new StreamResult(buf));
+        buffer.replay(serializer, serializer, null);
+        return buf.toString();
+    }
+}
@@ -10,7 +10,9 @@ package org.dita.dost.util;
 import java.util.Locale;
 import org.dita.dost.util.DITAOTCollator;
 import org.junit.Test;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
 public class TestDITAOTCollator {
     @Test
     public void testgetinstance()
@@ -19,4 +21,17 @@ public class TestDITAOTCollator {
         assertNotSame(DITAOTCollator.getInstance(Locale.US),DITAOTCollator.getInstance(Locale.UK));
     }
 
+    @Test
+    public void testGetCollationKey() {
+        final DITAOTCollator collator = DITAOTCollator.getInstance(Locale.US);
+        final String[] values = {"a", "A", "b", "\u00e4", "B", "ab"};
+        for (final String source : values) {
+            for (final String target : values) {
+                assertEquals(Integer.signum(collator.compare(source, target)),
+                        Integer.signum(collator.getCollationKey(source).compareTo(collator.getCollationKey(target))));
+            }
+        }
+        assertNull(collator.getCollationKey(null));
+    }
+
 }
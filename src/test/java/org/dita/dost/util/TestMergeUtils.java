@@ -16,6 +16,8 @@ import static org.junit.Assert.fail;
 import static org.dita.dost.util.URLUtils.*;
 
 import java.io.File;
+import java.io.IOException;
+import java.net.URI;
 
 import org.junit.After;
 
@@ -105,4 +107,20 @@ public class TestMergeUtils {
         assertNull(mergeUtils.getFirstTopicId(srcDir.toURI().resolve("filedoesnotexist.xml"), false));
     }
 
+    @Test
+    public void testGetFirstTopicIdFromJob() throws IOException {
+        final File tempDir = TestUtils.createTempDir(getClass());
+        try {
+            TestUtils.copy(srcDir, tempDir);
+            final Job job = new Job(tempDir);
+            job.add(new Job.FileInfo.Builder().uri(URI.create("stub.xml")).firstTopicId("indexed").build());
+            final MergeUtils mergeUtils = new MergeUtils();
+            mergeUtils.setJob(job);
+            assertEquals("indexed", mergeUtils.getFirstTopicId(tempDir.toURI().resolve("stub.xml"), false));
+            assertEquals("task", mergeUtils.getFirstTopicId(srcDir.toURI().resolve("stub.xml"), false));
+        } finally {
+            TestUtils.forceDelete(tempDir);
+        }
+    }
+
 }
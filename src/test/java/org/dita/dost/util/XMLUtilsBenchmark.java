@@ -0,0 +1,85 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ *
+ * Copyright 2019 Jarno Elovirta
+ *
+ * See the accompanying LICENSE file for applicable license.
+ */
+package org.dita.dost.util;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.XMLReaderFactory;
+
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
+import javax.xml.transform.stream.StreamResult;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.dita.dost.util.Constants.*;
+
+/**
+ * Micro-benchmark for per-file parser and serializer setup. Compares creating a new transformer factory
+ * and probing SAX drivers for every file with the pooled instances in {@link XMLUtils}.
+ *
+ * <p>Run with {@code java org.dita.dost.util.XMLUtilsBenchmark [iterations]}.</p>
+ */
+public final class XMLUtilsBenchmark {
+
+    private static final String DOCUMENT = "<topic class='- topic/topic ' id='topic'>" +
+            "<title class='- topic/title '>Title</title>" +
+            "<body class='- topic/body '><p class='- topic/p '>Content</p></body>" +
+            "</topic>";
+
+    public static void main(final String[] args) throws Exception {
+        final int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        for (int round = 0; round < 3; round++) {
+            final long unpooled = time(iterations, XMLUtilsBenchmark::unpooled);
+            final long pooled = time(iterations, XMLUtilsBenchmark::pooled);
+            System.out.printf("round %d: unpooled %.1f us/file, pooled %.1f us/file%n",
+                    round, unpooled / 1000.0 / iterations, pooled / 1000.0 / iterations);
+        }
+    }
+
+    private interface Task {
+        void run() throws Exception;
+    }
+
+    private static long time(final int iterations, final Task task) throws Exception {
+        final long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            task.run();
+        }
+        return System.nanoTime() - start;
+    }
+
+    /** Per-file setup as done before pooling. */
+    private static void unpooled() throws Exception {
+        final SAXTransformerFactory stf = (SAXTransformerFactory) TransformerFactory.newInstance();
+        final TransformerHandler serializer = stf.newTransformerHandler();
+        XMLReader reader;
+        try {
+            Class.forName(SAX_DRIVER_DEFAULT_CLASS);
+            reader = XMLReaderFactory.createXMLReader(SAX_DRIVER_DEFAULT_CLASS);
+        } catch (final ClassNotFoundException e) {
+            reader = XMLReaderFactory.createXMLReader();
+        }
+        parse(reader, serializer);
+    }
+
+    private static void pooled() throws Exception {
+        final TransformerHandler serializer = XMLUtils.newIdentityTransformerHandler();
+        final XMLReader reader = XMLUtils.borrowXMLReader();
+        parse(reader, serializer);
+        XMLUtils.releaseXMLReader(reader);
+    }
+
+    private static void parse(final XMLReader reader, final TransformerHandler serializer) throws Exception {
+        serializer.setResult(new StreamResult(new StringWriter()));
+        reader.setContentHandler(serializer);
+        reader.parse(new InputSource(new StringReader(DOCUMENT)));
+    }
+
+}
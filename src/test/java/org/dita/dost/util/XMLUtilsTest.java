@@ -10,6 +10,7 @@ package org.dita.dost.util;
 import static javax.xml.XMLConstants.*;
 import static org.junit.Assert.*;
 
+import java.io.StringReader;
 import java.util.Deque;
 import java.util.LinkedList;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -19,7 +20,10 @@ import org.w3c.dom.Document;
 import org.w3c.dom.DOMImplementation;
 import org.w3c.dom.Attr;
 import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
 import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
 import org.junit.Test;
 
 public class XMLUtilsTest {
@@ -217,4 +221,32 @@ public class XMLUtilsTest {
         assertTrue(XMLUtils.nonDitaContext(classes));
     }
 
+    @Test
+    public void testBorrowXMLReader() throws Exception {
+        final XMLReader first = XMLUtils.borrowXMLReader();
+        first.setContentHandler(new DefaultHandler());
+        first.parse(new InputSource(new StringReader("<foo/>")));
+        XMLUtils.releaseXMLReader(first);
+
+        final XMLReader second = XMLUtils.borrowXMLReader();
+        assertSame(first, second);
+        assertNull(second.getContentHandler());
+        assertNull(second.getErrorHandler());
+        assertNull(second.getEntityResolver());
+        assertNotSame(second, XMLUtils.borrowXMLReader());
+        XMLUtils.releaseXMLReader(second);
+    }
+
+    @Test
+    public void testGetTransformerFactory() throws Exception {
+        assertSame(XMLUtils.getTransformerFactory(), XMLUtils.getTransformerFactory());
+        final Object[] other = new Object[1];
+        final Thread t = new Thread(() -> other[0] = XMLUtils.getTransformerFactory());
+        t.start();
+        t.join();
+        assertNotNull(other[0]);
+        assertNotSame(XMLUtils.getTransformerFactory(), other[0]);
+        assertNotNull(XMLUtils.newIdentityTransformerHandler());
+    }
+
 }